@@ -25,26 +25,44 @@ import org.n52.gfz.riesgos.cache.ICacher;
 import org.n52.gfz.riesgos.cache.IDataRecreator;
 import org.n52.gfz.riesgos.cache.RecreateFromByteArray;
 import org.n52.gfz.riesgos.cache.RecreateFromExitValue;
+import org.n52.gfz.riesgos.cache.RecreateFromFile;
 import org.n52.gfz.riesgos.cache.hash.IHasher;
+import org.n52.gfz.riesgos.cache.negative.CachedFailure;
+import org.n52.gfz.riesgos.cache.negative.INegativeCache;
+import org.n52.gfz.riesgos.cache.negative.NoNegativeCache;
+import org.n52.gfz.riesgos.cache.singleflight.ISingleFlight;
+import org.n52.gfz.riesgos.cache.singleflight.ISingleFlightCall;
+import org.n52.gfz.riesgos.cache.singleflight.NoSingleFlight;
 import org.n52.gfz.riesgos.cmdexecution.IExecutionContext;
 import org.n52.gfz.riesgos.cmdexecution.IExecutionContextManager;
 import org.n52.gfz.riesgos.cmdexecution.IExecutionRun;
 import org.n52.gfz.riesgos.cmdexecution.IExecutionRunResult;
+import org.n52.gfz.riesgos.cmdexecution.admission.IAdmission;
+import org.n52.gfz.riesgos.cmdexecution.admission.IAdmissionController;
+import org.n52.gfz.riesgos.cmdexecution.admission.NoAdmissionController;
+import org.n52.gfz.riesgos.cmdexecution.common.OutputFilesSelection;
+import org.n52.gfz.riesgos.cmdexecution.common.PrefetchedExecutionContext;
+import org.n52.gfz.riesgos.cmdexecution.common.StagingExecutionContext;
 import org.n52.gfz.riesgos.cmdexecution.util.IExecutionContextManagerFactory;
 import org.n52.gfz.riesgos.configuration.IConfiguration;
 import org.n52.gfz.riesgos.configuration.IInputParameter;
 import org.n52.gfz.riesgos.configuration.IOutputParameter;
+import org.n52.gfz.riesgos.exceptions.AdmissionRejectedException;
 import org.n52.gfz.riesgos.exceptions.ConvertToBytesException;
 import org.n52.gfz.riesgos.exceptions.ConvertToIDataException;
 import org.n52.gfz.riesgos.exceptions.ConvertToStringCmdException;
 import org.n52.gfz.riesgos.exceptions.NonEmptyStderrException;
 import org.n52.gfz.riesgos.exceptions.NonZeroExitValueException;
+import org.n52.gfz.riesgos.exceptions.RunTimeoutException;
+import org.n52.gfz.riesgos.exceptions.SingleFlightException;
+import org.n52.gfz.riesgos.exceptions.SingleFlightTimeoutException;
 import org.n52.gfz.riesgos.functioninterfaces.ICheckDataAndGetErrorMessage;
 import org.n52.gfz.riesgos.functioninterfaces.IConvertByteArrayToIData;
 import org.n52.gfz.riesgos.functioninterfaces.IConvertIDataToByteArray;
 import org.n52.gfz.riesgos.functioninterfaces.IConvertIDataToCommandLineParameter;
 import org.n52.gfz.riesgos.functioninterfaces.IExitValueHandler;
 import org.n52.gfz.riesgos.functioninterfaces.IConvertExitValueToIData;
+import org.n52.gfz.riesgos.functioninterfaces.IConvertFileToIData;
 import org.n52.gfz.riesgos.functioninterfaces.IReadIDataFromFiles;
 import org.n52.gfz.riesgos.functioninterfaces.IStderrHandler;
 import org.n52.gfz.riesgos.functioninterfaces.IStdoutHandler;
@@ -64,15 +82,20 @@ import org.n52.wps.server.ExceptionReport;
 import org.n52.wps.server.ProcessDescription;
 import org.slf4j.Logger;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -86,6 +109,13 @@ public class BaseGfzRiesgosService
         extends AbstractSelfDescribingAlgorithm
         implements ICachableProcess {
 
+    /**
+     * Maximum size of stdout for the converters that need all the bytes
+     * in one array (converters that read files have no limit).
+     */
+    private static final long MAX_STDOUT_BYTES_IN_MEMORY =
+            Integer.MAX_VALUE - 8;
+
     /**
      * The hasher to compute a hash for saving it in the cache.
      */
@@ -103,6 +133,21 @@ public class BaseGfzRiesgosService
      */
     private final IExecutionContextManagerFactory executionContextFactory;
 
+    /**
+     * Admission control that decides when a run may start.
+     */
+    private final IAdmissionController admissionController;
+
+    /**
+     * Coalescing of identical runs that are in progress at the same time.
+     */
+    private final ISingleFlight singleFlight;
+
+    /**
+     * Failures of earlier runs that are remembered for a short time.
+     */
+    private final INegativeCache negativeCache;
+
     /**
      * Configuration to run the process.
      */
@@ -155,10 +200,99 @@ public class BaseGfzRiesgosService
             final IHasher aHasher,
             final ICacher aCache,
             final IExecutionContextManagerFactory aExecutionContextFactory) {
+        this(aConfiguration, aLogger, aHasher, aCache,
+                aExecutionContextFactory, new NoAdmissionController());
+    }
+
+    /**
+     * Constructor that  gets a configuration, a logger,
+     * a hasher, a cache, a execution context factory and an
+     * admission control.
+     * @param aConfiguration configuration to use for the executable
+     * @param aLogger logger to log some messages
+     * @param aHasher function to compute stable hashes for the inputs and
+     *               configuration
+     * @param aCache implementation of the cache
+     * @param aExecutionContextFactory factory for creating execution contexts
+     *                                (like running in docker or not)
+     * @param aAdmissionController admission control that limits the
+     *                             number of runs at the same time
+     */
+    public BaseGfzRiesgosService(
+            final IConfiguration aConfiguration,
+            final Logger aLogger,
+            final IHasher aHasher,
+            final ICacher aCache,
+            final IExecutionContextManagerFactory aExecutionContextFactory,
+            final IAdmissionController aAdmissionController) {
+        this(aConfiguration, aLogger, aHasher, aCache,
+                aExecutionContextFactory, aAdmissionController,
+                new NoSingleFlight());
+    }
+
+    /**
+     * Constructor that  gets a configuration, a logger,
+     * a hasher, a cache, a execution context factory, an
+     * admission control and a coalescing of identical runs.
+     * @param aConfiguration configuration to use for the executable
+     * @param aLogger logger to log some messages
+     * @param aHasher function to compute stable hashes for the inputs and
+     *               configuration
+     * @param aCache implementation of the cache
+     * @param aExecutionContextFactory factory for creating execution contexts
+     *                                (like running in docker or not)
+     * @param aAdmissionController admission control that limits the
+     *                             number of runs at the same time
+     * @param aSingleFlight coalescing of identical runs that are in
+     *                      progress at the same time
+     */
+    public BaseGfzRiesgosService(
+            final IConfiguration aConfiguration,
+            final Logger aLogger,
+            final IHasher aHasher,
+            final ICacher aCache,
+            final IExecutionContextManagerFactory aExecutionContextFactory,
+            final IAdmissionController aAdmissionController,
+            final ISingleFlight aSingleFlight) {
+        this(aConfiguration, aLogger, aHasher, aCache,
+                aExecutionContextFactory, aAdmissionController,
+                aSingleFlight, new NoNegativeCache());
+    }
+
+    /**
+     * Constructor that  gets a configuration, a logger,
+     * a hasher, a cache, a execution context factory, an
+     * admission control, a coalescing of identical runs and a cache
+     * for the failures of runs.
+     * @param aConfiguration configuration to use for the executable
+     * @param aLogger logger to log some messages
+     * @param aHasher function to compute stable hashes for the inputs and
+     *               configuration
+     * @param aCache implementation of the cache
+     * @param aExecutionContextFactory factory for creating execution contexts
+     *                                (like running in docker or not)
+     * @param aAdmissionController admission control that limits the
+     *                             number of runs at the same time
+     * @param aSingleFlight coalescing of identical runs that are in
+     *                      progress at the same time
+     * @param aNegativeCache cache for the failures of earlier runs
+     */
+    public BaseGfzRiesgosService(
+            final IConfiguration aConfiguration,
+            final Logger aLogger,
+            final IHasher aHasher,
+            final ICacher aCache,
+            final IExecutionContextManagerFactory aExecutionContextFactory,
+            final IAdmissionController aAdmissionController,
+            final ISingleFlight aSingleFlight,
+            final INegativeCache aNegativeCache) {
 
         this.hasher = aHasher;
         this.cache = aCache;
         this.executionContextFactory = aExecutionContextFactory;
+        this.admissionController = aAdmissionController;
+        this.singleFlight = aSingleFlight;
+        this.negativeCache = aNegativeCache;
 
         this.configuration = aConfiguration;
         this.logger = aLogger;
@@ -270,6 +404,10 @@ public class BaseGfzRiesgosService
      *
      * Now it also computes hashes and looks up and stores
      * in a caching system.
+     * All the outputs of a run are stored (not only the requested ones),
+     * so that later requests for other outputs can use the cache too.
+     * Identical requests that come in while the process runs
+     * wait for its result instead of running it again.
      *
      * @param inputDataFromMethod input data from the wps service
      * @return Map with IData as results
@@ -288,42 +426,244 @@ public class BaseGfzRiesgosService
                 requestedParameters);
 
         logger.info("Cache-Hash: " + hash);
+        final String failureKey = getFailureKey(hash, requestedParameters);
 
         final Optional<Map<String, IDataRecreator>> cachedResult =
-                cache.getCachedResult(hash);
+                cache.getCachedResult(configuration.getIdentifier(), hash)
+                        .filter(result -> hasRequestedOutputs(
+                                result, requestedParameters));
 
         if (cachedResult.isPresent()) {
             logger.info("Read the results from cache");
+            return recreate(cachedResult.get(), requestedParameters);
+        }
 
-            return cachedResult.get().entrySet().stream()
-                    .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> entry.getValue().recreate()
-            ));
+        throwIfKnownFailure(failureKey);
+
+        try (ISingleFlightCall call = singleFlight.join(hash)) {
+            if (!call.isLeader()) {
+                logger.info("Wait for the identical run in progress");
+                final Map<String, IDataRecreator> resultOfIdenticalRun =
+                        awaitIdenticalRun(call);
+                if (hasRequestedOutputs(
+                        resultOfIdenticalRun, requestedParameters)) {
+                    return recreate(resultOfIdenticalRun, requestedParameters);
+                }
+                logger.info("The identical run misses requested outputs");
+                return getRequestedData(
+                        runAndInsertIntoCache(
+                                hash, failureKey, inputDataFromMethod),
+                        requestedParameters);
+            }
+
+            // an identical run may have finished since the first lookup
+            final Optional<Map<String, IDataRecreator>> resultOfFinishedRun =
+                    cache.getCachedResult(configuration.getIdentifier(), hash)
+                            .filter(result -> hasRequestedOutputs(
+                                    result, requestedParameters));
+            if (resultOfFinishedRun.isPresent()) {
+                logger.info("Read the results from cache");
+                return recreate(resultOfFinishedRun.get(), requestedParameters);
+            }
+            throwIfKnownFailure(failureKey);
+
+            logger.info("There is no result in the cache");
+
+            try {
+                final Map<String, Tuple<IData, IDataRecreator>> innerResult =
+                        runAndInsertIntoCache(
+                                hash, failureKey, inputDataFromMethod);
+                call.complete(getRecreators(innerResult));
+                return getRequestedData(innerResult, requestedParameters);
+            } catch (final ExceptionReport exception) {
+                call.fail(exception);
+                throw exception;
+            }
         }
+    }
+
+    /**
+     * Creates the key to remember the failure of a run.
+     * Errors on reading the outputs are ignored for outputs that
+     * were not requested, so the failure depends on the requested
+     * outputs too (and not only on the hash).
+     * @param hash hash of the run
+     * @param requestedParameters ids of the requested outputs
+     * @return key for the negative cache
+     */
+    private static String getFailureKey(
+            final String hash,
+            final Set<String> requestedParameters) {
+        final List<String> sortedRequestedParameters =
+                new ArrayList<>(requestedParameters);
+        Collections.sort(sortedRequestedParameters);
+        return hash + "/" + String.join(",", sortedRequestedParameters);
+    }
 
-        logger.info("There is no result in the cache");
+    /**
+     * Throws the failure of an earlier identical run again
+     * (if it is still remembered).
+     * @param failureKey key of the run for the negative cache
+     * @throws ExceptionReport failure of the earlier run
+     */
+    private void throwIfKnownFailure(final String failureKey)
+            throws ExceptionReport {
+        final Optional<CachedFailure> knownFailure =
+                negativeCache.getFailure(failureKey);
+        if (knownFailure.isPresent()) {
+            logger.info("An identical run failed a short time ago");
+            throw knownFailure.get().toExceptionReport();
+        }
+    }
 
-        final InnerRunContext innerRunContext =
-                new InnerRunContext(inputDataFromMethod);
-        final Map<String, Tuple<IData, IDataRecreator>> innerResult =
-                innerRunContext.run();
+    /**
+     * Runs the process and inserts the data to recreate all of the
+     * outputs into the cache (not only the requested ones).
+     * Failures are given to the negative cache.
+     * @param hash hash for the cache
+     * @param failureKey key of the run for the negative cache
+     * @param inputDataFromMethod input data from the wps service
+     * @return Map with the outputs and the data to recreate them
+     * @throws ExceptionReport exception in case of an error
+     */
+    private Map<String, Tuple<IData, IDataRecreator>> runAndInsertIntoCache(
+            final String hash,
+            final String failureKey,
+            final Map<String, List<IData>> inputDataFromMethod)
+            throws ExceptionReport {
+        final Map<String, Tuple<IData, IDataRecreator>> innerResult;
+        try {
+            final InnerRunContext innerRunContext =
+                    new InnerRunContext(inputDataFromMethod);
+            innerResult = innerRunContext.run();
+        } catch (final ExceptionReport exception) {
+            negativeCache.insertFailure(failureKey, exception);
+            throw exception;
+        }
+        cache.insertResultIntoCache(
+                configuration.getIdentifier(),
+                hash,
+                getRecreators(innerResult));
+        return innerResult;
+    }
 
-        final Map<String, IDataRecreator> dataToStoreInCache =
-                innerResult.entrySet().stream()
-                        .collect(Collectors.toMap(
-                            Map.Entry::getKey,
-                            entry -> entry.getValue().getSecond()
+    /**
+     * Extracts the data to recreate the outputs.
+     * @param innerResult outputs of a run
+     * @return Map with the data to recreate the outputs
+     */
+    private static Map<String, IDataRecreator> getRecreators(
+            final Map<String, Tuple<IData, IDataRecreator>> innerResult) {
+        return innerResult.entrySet().stream()
+                .collect(Collectors.toMap(
+                    Map.Entry::getKey,
+                    entry -> entry.getValue().getSecond()
         ));
+    }
 
-        cache.insertResultIntoCache(hash, dataToStoreInCache);
+    /**
+     * Extracts the requested outputs of a run.
+     * @param innerResult outputs of a run
+     * @param requestedParameters ids of the requested outputs
+     * @return Map with IData as results
+     */
+    private static Map<String, IData> getRequestedData(
+            final Map<String, Tuple<IData, IDataRecreator>> innerResult,
+            final Set<String> requestedParameters) {
+        return innerResult.entrySet().stream()
+                .filter(entry -> isReturned(
+                        entry.getKey(), requestedParameters))
+                .collect(Collectors.toMap(
+                    Map.Entry::getKey,
+                    entry -> entry.getValue().getFirst()
+        ));
+    }
 
-        return innerResult.entrySet().stream().collect(Collectors.toMap(
-                Map.Entry::getKey,
-                entry -> entry.getValue().getFirst()
+    /**
+     * Recreates the requested outputs.
+     * @param recreators map with the data to recreate the outputs
+     * @param requestedParameters ids of the requested outputs
+     * @return Map with IData as results
+     */
+    private static Map<String, IData> recreate(
+            final Map<String, IDataRecreator> recreators,
+            final Set<String> requestedParameters) {
+        return recreators.entrySet().stream()
+                .filter(entry -> isReturned(
+                        entry.getKey(), requestedParameters))
+                .collect(Collectors.toMap(
+                    Map.Entry::getKey,
+                    entry -> entry.getValue().recreate()
         ));
     }
 
+    /**
+     * Checks if an output is requested (and so should be given back
+     * to the wps service).
+     * An empty set means that all the outputs are requested.
+     * @param identifier id of the output
+     * @param requestedParameters ids of the requested outputs
+     * @return true if the output is requested (or if there are no
+     * outputs requested explicitly)
+     */
+    private static boolean isReturned(
+            final String identifier,
+            final Set<String> requestedParameters) {
+        return requestedParameters.isEmpty()
+                || requestedParameters.contains(identifier);
+    }
+
+    /**
+     * Checks that the results of an earlier run contain all the
+     * requested outputs that are not optional.
+     * Outputs that were not requested in the earlier run may be missing
+     * as errors on reading them are ignored.
+     * @param result data to recreate the outputs of the earlier run
+     * @param requestedParameters ids of the requested outputs
+     * @return true if the results can be used for this request
+     */
+    private boolean hasRequestedOutputs(
+            final Map<String, IDataRecreator> result,
+            final Set<String> requestedParameters) {
+        return outputIdentifiers.stream()
+                .filter(output -> isReturned(
+                        output.getIdentifier(), requestedParameters))
+                .filter(output -> !output.isOptional())
+                .allMatch(output -> result.containsKey(
+                        output.getIdentifier()));
+    }
+
+    /**
+     * Waits for the result of an identical run that is in progress.
+     * @param call call that is not the leader
+     * @return data to recreate the results of the identical run
+     * @throws ExceptionReport if the identical run failed or the
+     * waiting time is over
+     */
+    private Map<String, IDataRecreator> awaitIdenticalRun(
+            final ISingleFlightCall call) throws ExceptionReport {
+        try {
+            return call.awaitResult();
+        } catch (final SingleFlightTimeoutException exception) {
+            logger.warn("No result of the identical run", exception);
+            throw new ExceptionReport(
+                    "The server is busy: " + exception.getMessage(),
+                    ExceptionReport.SERVER_BUSY,
+                    exception);
+        } catch (final SingleFlightException exception) {
+            logger.error("No result of the identical run", exception);
+            // keep the code of the failed run, so that all the identical
+            // requests get the same error
+            if (exception.getCause() instanceof ExceptionReport) {
+                throw (ExceptionReport) exception.getCause();
+            }
+            throw new ExceptionReport(
+                    exception.getMessage(),
+                    ExceptionReport.NO_APPLICABLE_CODE,
+                    exception);
+        }
+    }
+
     /**
      * This returns a set of the identifiers (as strinds) that the user
      * requests.
@@ -529,17 +869,39 @@ public class BaseGfzRiesgosService
 
             logger.debug("List with cmd-arguments: " + cmd);
 
-            final IExecutionContextManager contextManager =
-                    executionContextFactory.createExecutionContext(
-                            configuration);
+            try (IAdmission admission = admit()) {
+                final IExecutionContextManager contextManager =
+                        executionContextFactory.createExecutionContext(
+                                configuration);
+
+                try (IExecutionContext context =
+                            contextManager.createExecutionContext(
+                                    workingDirectory, cmd)) {
+                    logger.debug("Context container created");
+                    runExecutableInContext(context);
+                }
+                logger.debug("Context container removed");
+            }
+        }
 
-            try (IExecutionContext context =
-                        contextManager.createExecutionContext(
-                                workingDirectory, cmd)) {
-                logger.debug("Context container created");
-                runExecutableInContext(context);
+        /**
+         * Waits until the admission control allows the run to start.
+         * @return admission that must be closed after the run
+         * @throws ExceptionReport exception that is thrown if the run
+         * is rejected (because the server is busy)
+         */
+        private IAdmission admit() throws ExceptionReport {
+            try {
+                return admissionController.admit(
+                        configuration.getImageId(),
+                        configuration.getMaxConcurrentRuns().orElse(0));
+            } catch (final AdmissionRejectedException exception) {
+                logger.warn("Run was not admitted", exception);
+                throw new ExceptionReport(
+                        "The server is busy: " + exception.getMessage(),
+                        ExceptionReport.SERVER_BUSY,
+                        exception);
             }
-            logger.debug("Context container removed");
         }
 
         /**
@@ -605,14 +967,29 @@ public class BaseGfzRiesgosService
 
                 stdinStreamToWrite.close();
 
-                try {
-                    final IExecutionRunResult result = run.waitForCompletion();
+                try (IExecutionRunResult result = waitForCompletion(run)) {
 
                     logger.debug("Executable finished");
 
-                    handleStderr(result.getStderrResult());
+                    if (result.isTimedOut()) {
+                        final long timeoutSeconds =
+                                configuration.getTimeoutSeconds().orElse(0L);
+                        throw new ExceptionReport(
+                                "The run was stopped because it took longer "
+                                        + "than " + timeoutSeconds
+                                        + " seconds",
+                                ExceptionReport.REMOTE_COMPUTATION_ERROR,
+                                new RunTimeoutException(timeoutSeconds));
+                    }
+                    handleStderr(result);
+                    if (result.isStoppedOnFailure()) {
+                        throw new ExceptionReport(
+                                "The run was stopped because of an error "
+                                        + "on stderr",
+                                ExceptionReport.REMOTE_COMPUTATION_ERROR);
+                    }
                     handleExitValue(result.getExitValue());
-                    handleStdout(result.getStdoutResult());
+                    handleStdout(result);
 
                     logger.debug(
                             "Handling of stderr/exitValue/stdout finished");
@@ -635,8 +1012,52 @@ public class BaseGfzRiesgosService
             }
         }
 
+        /**
+         * Waits for the run to complete.
+         * If there is a stderr handler, the stderr lines are checked
+         * while the process runs, so that a failing run is stopped
+         * early and doesn't block the container until its end.
+         * If there is a timeout, the run is killed when it takes
+         * longer.
+         * @param run the running process
+         * @return result of the run
+         * @throws InterruptedException there may be an interrupted
+         * exception on waiting for the process
+         */
+        private IExecutionRunResult waitForCompletion(final IExecutionRun run)
+                throws InterruptedException {
+            final Optional<IStderrHandler> mainStderrHandler =
+                    configuration.getStderrHandler();
+            final Optional<Long> timeoutSeconds =
+                    configuration.getTimeoutSeconds();
+            if (!mainStderrHandler.isPresent()
+                    && !timeoutSeconds.isPresent()) {
+                return run.waitForCompletion();
+            }
+            final Predicate<String> isFailureLine;
+            if (mainStderrHandler.isPresent()) {
+                isFailureLine = mainStderrHandler.get()::isFailureLine;
+            } else {
+                isFailureLine = line -> false;
+            }
+            final IExecutionRunResult result = run.waitForCompletion(
+                    isFailureLine,
+                    TimeUnit.SECONDS.toMillis(timeoutSeconds.orElse(0L)));
+            if (result.isStoppedOnFailure()) {
+                logger.warn("The run was stopped early because of "
+                        + "an error on stderr");
+            }
+            if (result.isTimedOut()) {
+                logger.warn("The run was killed because it took longer "
+                        + "than " + timeoutSeconds.orElse(0L) + " seconds");
+            }
+            return result;
+        }
+
         /**
          * Copies all the input files into the context / container.
+         * The files are collected first, so that they can be copied
+         * in one step.
          * @param context exeuction context / container
          * @throws ExceptionReport exception that is thrown in case
          * of an error
@@ -645,6 +1066,8 @@ public class BaseGfzRiesgosService
                 final IExecutionContext context)
                 throws ExceptionReport {
 
+            final StagingExecutionContext stagingContext =
+                    new StagingExecutionContext(context);
             try {
                 for (final IInputParameter inputValue : inputIdentifiers) {
                     // if there is no data for that identifier it was optional
@@ -665,12 +1088,13 @@ public class BaseGfzRiesgosService
                             writeIDataToFiles.writeToFiles(
                                     inputData.get(
                                             inputValue.getIdentifier()),
-                                    context,
+                                    stagingContext,
                                     configuration.getWorkingDirectory(),
                                     path);
                         }
                     }
                 }
+                stagingContext.writeStagedFiles();
             } catch (final IOException ioException) {
                 throw new ExceptionReport(
                         "Files could not be copied to the "
@@ -729,16 +1153,19 @@ public class BaseGfzRiesgosService
 
         /**
          * Handes the stderr stream output (error, logging, use as output, ...).
-         * @param stderr stderr text
+         * The text is only decoded if there is a stderr handler.
+         * @param result result of the run with the stderr output
          * @throws ExceptionReport exception in case of an error
          */
-        private void handleStderr(final String stderr) throws ExceptionReport {
+        private void handleStderr(final IExecutionRunResult result)
+                throws ExceptionReport {
 
             final Optional<IStderrHandler> mainStderrHandler =
                     configuration.getStderrHandler();
             if (mainStderrHandler.isPresent()) {
                 try {
-                    mainStderrHandler.get().handleStderr(stderr, logger::debug);
+                    mainStderrHandler.get().handleStderr(
+                            result.getStderrResult(), logger::debug);
                 } catch (final NonEmptyStderrException exception) {
                     logger.error("Error on handling stderr", exception);
                     throw new ExceptionReport(
@@ -757,7 +1184,13 @@ public class BaseGfzRiesgosService
 
                     try {
                         if (stderrHandler.isPresent()) {
-                            final byte[] bytes = stderr.getBytes();
+                            if (result.isStderrTruncated()) {
+                                throw new ConvertToIDataException(
+                                        new IOException("The output on "
+                                                + "stderr is larger than "
+                                                + "the maximum size"));
+                            }
+                            final byte[] bytes = result.getStderrBytes();
                             final IConvertByteArrayToIData converter =
                                     stderrHandler.get();
 
@@ -897,15 +1330,17 @@ public class BaseGfzRiesgosService
 
         /**
          * Handles stdout stream output (logging, use as output).
-         * @param stdout text from stdout
+         * The text is only decoded if there is a stdout handler.
+         * @param result result of the run with the stdout output
          * @throws ExceptionReport Exception that may be thrown in case of
          * an error
          */
-        private void handleStdout(final String stdout) throws ExceptionReport {
+        private void handleStdout(final IExecutionRunResult result)
+                throws ExceptionReport {
             final Optional<IStdoutHandler> mainStdoutHandler
                     = configuration.getStdoutHandler();
             mainStdoutHandler.ifPresent(
-                    handler -> handler.handleStdout(stdout));
+                    handler -> handler.handleStdout(result.getStdoutResult()));
 
             try {
                 for (final IOutputParameter outputValue : outputIdentifiers) {
@@ -913,17 +1348,8 @@ public class BaseGfzRiesgosService
                         final Optional<IConvertByteArrayToIData> stdoutHandler
                                 = outputValue.getFunctionToHandleStdout();
                         if (stdoutHandler.isPresent()) {
-                            final byte[] bytes = stdout.getBytes();
-                            final IConvertByteArrayToIData converter =
-                                    stdoutHandler.get();
-                            final IData iData = converter.convertToIData(bytes);
-                            putIntoOutput(
-                                    outputValue,
-                                    iData,
-                                    new RecreateFromByteArray(
-                                            bytes,
-                                            converter,
-                                            outputValue.getBindingClass()));
+                            readFromStdout(
+                                    result, outputValue, stdoutHandler.get());
                         }
                     } catch (final ConvertToIDataException convertException) {
                         if (outputValue.isOptional()) {
@@ -944,6 +1370,152 @@ public class BaseGfzRiesgosService
         }
 
 
+        /**
+         * Converts stdout to the output.
+         * If stdout was spilled to a scratch file and the converter can
+         * read files, the scratch file is used directly, so that the
+         * output must not be loaded into memory.
+         * @param result result of the run with the stdout output
+         * @param outputValue output parameter
+         * @param converter converter for the stdout bytes
+         * @throws ConvertToIDataException exception if stdout was truncated
+         * or can't be converted
+         * @throws ExceptionReport exception on adding the output
+         */
+        private void readFromStdout(
+                final IExecutionRunResult result,
+                final IOutputParameter outputValue,
+                final IConvertByteArrayToIData converter)
+                throws ConvertToIDataException, ExceptionReport {
+            if (result.isStdoutTruncated()) {
+                throw new ConvertToIDataException(
+                        new IOException("The output on stdout is larger "
+                                + "than the maximum size"));
+            }
+            if (converter instanceof IConvertFileToIData) {
+                final Optional<File> optionalFile = result.takeStdoutFile();
+                if (optionalFile.isPresent()) {
+                    readFromStdoutFile(
+                            optionalFile.get(),
+                            outputValue,
+                            (IConvertFileToIData) converter);
+                    return;
+                }
+            }
+            if (result.getStdoutSize() > MAX_STDOUT_BYTES_IN_MEMORY) {
+                throw new ConvertToIDataException(
+                        new IOException("The output on stdout is too "
+                                + "large to convert it in memory"));
+            }
+            final byte[] bytes = result.getStdoutBytes();
+            final IData iData = converter.convertToIData(bytes);
+            putIntoOutput(
+                    outputValue,
+                    iData,
+                    new RecreateFromByteArray(
+                            bytes,
+                            converter,
+                            outputValue.getBindingClass()));
+        }
+
+        /**
+         * Converts the scratch file with stdout to the output.
+         * The file is kept for the cache if the conversion works,
+         * otherwise it is deleted.
+         * @param file scratch file with the stdout bytes
+         * @param outputValue output parameter
+         * @param fileConverter converter for the file
+         * @throws ConvertToIDataException exception if the file can't be
+         * converted
+         * @throws ExceptionReport exception on adding the output
+         */
+        private void readFromStdoutFile(
+                final File file,
+                final IOutputParameter outputValue,
+                final IConvertFileToIData fileConverter)
+                throws ConvertToIDataException, ExceptionReport {
+            final IData iData;
+            try {
+                iData = fileConverter.convertToIData(file);
+            } catch (final ConvertToIDataException | RuntimeException
+                    exception) {
+                if (!file.delete()) {
+                    logger.warn("Can't delete the scratch file " + file);
+                }
+                throw exception;
+            }
+            putIntoOutput(
+                    outputValue,
+                    iData,
+                    new RecreateFromFile(
+                            file,
+                            fileConverter,
+                            outputValue.getBindingClass()));
+        }
+
+        /**
+         * Checks if the output should be read.
+         * Outputs that are not requested are read too (so that they
+         * can be given back from the cache later), unless the
+         * configuration says to read them only on request.
+         * @param outputValue output parameter
+         * @param requestedParameters ids of the requested outputs
+         * @return true if the output should be read
+         */
+        private boolean shouldBeRead(
+                final IOutputParameter outputValue,
+                final Set<String> requestedParameters) {
+            final String identifier = outputValue.getIdentifier();
+            return isReturned(identifier, requestedParameters)
+                    || !configuration.getOutputsReadOnlyIfRequested()
+                            .contains(identifier);
+        }
+
+        /**
+         * Reads all the output files in one step if the
+         * configuration allows it.
+         * @param context context to read the files from
+         * @param requestedParameters ids of the requested outputs
+         * @return context that gives back the prefetched files
+         * (or the given context if nothing was prefetched)
+         */
+        private IExecutionContext prefetchOutputFiles(
+                final IExecutionContext context,
+                final Set<String> requestedParameters) {
+            if (!configuration.isBatchedOutputExtraction()) {
+                return context;
+            }
+            final List<String> outputFiles = new ArrayList<>();
+            for (final IOutputParameter outputValue : outputIdentifiers) {
+                final Optional<String> optionalPath =
+                        outputValue.getPathToWriteToOrReadFromFile();
+                if (shouldBeRead(outputValue, requestedParameters)
+                        && optionalPath.isPresent()
+                        && outputValue.getFunctionToReadIDataFromFiles()
+                            .isPresent()) {
+                    outputFiles.add(Paths.get(
+                            configuration.getWorkingDirectory(),
+                            optionalPath.get()).toString());
+                }
+            }
+            if (outputFiles.size() < 2) {
+                return context;
+            }
+            final OutputFilesSelection selection =
+                    new OutputFilesSelection(outputFiles);
+            try {
+                return new PrefetchedExecutionContext(
+                        context,
+                        context.readFromDirectory(
+                                selection.getCommonDirectory(), selection));
+            } catch (final IOException ioException) {
+                // the files are read one by one, so that missing optional
+                // outputs are handled as before
+                logger.info("Output files could not be read in one step");
+                return context;
+            }
+        }
+
         /**
          * Reads the output files from the context / container.
          * @param context execution context / container with the output files
@@ -955,35 +1527,16 @@ public class BaseGfzRiesgosService
 
             final Set<String> requestedParameters =
                     getSetWithRequestedOutputIds();
+            final IExecutionContext readContext =
+                    prefetchOutputFiles(context, requestedParameters);
             try {
                 for (final IOutputParameter outputValue : outputIdentifiers) {
-                    if (requestedParameters.contains(
-                            outputValue.getIdentifier())
-                    ) {
+                    if (shouldBeRead(outputValue, requestedParameters)) {
+                        final boolean isRequested = isReturned(
+                                outputValue.getIdentifier(),
+                                requestedParameters);
                         try {
-                            final Optional<String> optionalPath =
-                                outputValue.getPathToWriteToOrReadFromFile();
-                            final Optional<IReadIDataFromFiles>
-                                optionalFunctionToReadFromFiles =
-                                outputValue.getFunctionToReadIDataFromFiles();
-                            if (optionalPath.isPresent()
-                                && optionalFunctionToReadFromFiles.isPresent()
-                            ) {
-
-                                final String path = optionalPath.get();
-                                final IReadIDataFromFiles
-                                        functionToReadFromFiles =
-                                        optionalFunctionToReadFromFiles.get();
-                                final DataWithRecreatorTuple readResult =
-                                        functionToReadFromFiles.readFromFiles(
-                                            context,
-                                            configuration.getWorkingDirectory(),
-                                            path);
-                                putIntoOutput(
-                                        outputValue,
-                                        readResult.getData(),
-                                        readResult.getRecreator());
-                            }
+                            readFromOutputFile(readContext, outputValue);
                         } catch (final IOException
                                 | ConvertToIDataException exception) {
                             if (outputValue.isOptional()) {
@@ -991,9 +1544,23 @@ public class BaseGfzRiesgosService
                                 logger.info("But since '"
                                         + outputValue.getIdentifier()
                                         + "' is optional, it can be ignored.");
+                            } else if (!isRequested) {
+                                logger.info("Can't read from output file.");
+                                logger.info("But since '"
+                                        + outputValue.getIdentifier()
+                                        + "' is not requested, "
+                                        + "it can be ignored.");
                             } else {
                                 throw exception;
                             }
+                        } catch (final ExceptionReport exceptionReport) {
+                            if (isRequested) {
+                                throw exceptionReport;
+                            }
+                            logger.info("The output '"
+                                    + outputValue.getIdentifier()
+                                    + "' is not valid. But since it is "
+                                    + "not requested, it can be ignored.");
                         }
                     }
                 }
@@ -1015,5 +1582,42 @@ public class BaseGfzRiesgosService
                         convertException);
             }
         }
+
+        /**
+         * Reads a single output from its files.
+         * @param readContext execution context / container with the
+         *                    output files
+         * @param outputValue output parameter to read
+         * @throws IOException exception on reading the files
+         * @throws ConvertToIDataException exception on converting the
+         * content of the files
+         * @throws ExceptionReport exception if the output is not valid
+         */
+        private void readFromOutputFile(
+                final IExecutionContext readContext,
+                final IOutputParameter outputValue)
+                throws IOException, ConvertToIDataException, ExceptionReport {
+            final Optional<String> optionalPath =
+                    outputValue.getPathToWriteToOrReadFromFile();
+            final Optional<IReadIDataFromFiles>
+                    optionalFunctionToReadFromFiles =
+                    outputValue.getFunctionToReadIDataFromFiles();
+            if (optionalPath.isPresent()
+                    && optionalFunctionToReadFromFiles.isPresent()) {
+
+                final String path = optionalPath.get();
+                final IReadIDataFromFiles functionToReadFromFiles =
+                        optionalFunctionToReadFromFiles.get();
+                final DataWithRecreatorTuple readResult =
+                        functionToReadFromFiles.readFromFiles(
+                                readContext,
+                                configuration.getWorkingDirectory(),
+                                path);
+                putIntoOutput(
+                        outputValue,
+                        readResult.getData(),
+                        readResult.getRecreator());
+            }
+        }
     }
 }
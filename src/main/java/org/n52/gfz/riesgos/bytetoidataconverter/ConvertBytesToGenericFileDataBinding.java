@@ -19,19 +19,23 @@ package org.n52.gfz.riesgos.bytetoidataconverter;
 import org.apache.commons.io.IOUtils;
 import org.n52.gfz.riesgos.exceptions.ConvertToIDataException;
 import org.n52.gfz.riesgos.functioninterfaces.IConvertByteArrayToIData;
+import org.n52.gfz.riesgos.functioninterfaces.IConvertFileToIData;
 import org.n52.wps.io.data.GenericFileData;
 import org.n52.wps.io.data.binding.complex.GenericFileDataBinding;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Objects;
 
 /**
  * Function to create a GenericFileDataBinding from a byte array.
  */
 public class ConvertBytesToGenericFileDataBinding
-        implements IConvertByteArrayToIData<GenericFileDataBinding> {
+        implements IConvertByteArrayToIData<GenericFileDataBinding>,
+        IConvertFileToIData<GenericFileDataBinding> {
 
     private static final long serialVersionUID = 3394953481818065813L;
 
@@ -90,6 +94,34 @@ public class ConvertBytesToGenericFileDataBinding
         }
     }
 
+    /**
+     * Generates the GenericFileDataBinding from a file on the host.
+     * The content is copied to a new temporary file, so that
+     * the given file stays untouched.
+     * @param file file to convert
+     * @return GenericFileDataBinding
+     * @throws ConvertToIDataException exception that is thrown in case of an
+     * io exception
+     */
+    @Override
+    public GenericFileDataBinding convertToIData(
+            final File file) throws ConvertToIDataException {
+
+        try {
+            final File tempFile = File.createTempFile(
+                    "convertBytesToIData", ".dat");
+            tempFile.deleteOnExit();
+
+            Files.copy(file.toPath(), tempFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+
+            return new GenericFileDataBinding(
+                    new GenericFileData(tempFile, mimeType));
+        } catch (final IOException ioException) {
+            throw new ConvertToIDataException(ioException);
+        }
+    }
+
     /**
      * Tests equality.
      * @param o other object
@@ -19,18 +19,22 @@ package org.n52.gfz.riesgos.bytetoidataconverter;
 import org.apache.commons.io.IOUtils;
 import org.n52.gfz.riesgos.exceptions.ConvertToIDataException;
 import org.n52.gfz.riesgos.functioninterfaces.IConvertByteArrayToIData;
+import org.n52.gfz.riesgos.functioninterfaces.IConvertFileToIData;
 import org.n52.wps.io.data.binding.complex.GeotiffBinding;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Objects;
 
 /**
  * Function to create a GeotiffBinding from a byte array.
  */
 public class ConvertBytesToGeotiffBinding
-        implements IConvertByteArrayToIData<GeotiffBinding> {
+        implements IConvertByteArrayToIData<GeotiffBinding>,
+        IConvertFileToIData<GeotiffBinding> {
 
     private static final long serialVersionUID = 5174079061385019321L;
 
@@ -60,6 +64,33 @@ public class ConvertBytesToGeotiffBinding
         }
     }
 
+    /**
+     * Generates the GeotiffBinding from a file on the host.
+     * The content is copied to a new temporary file, so that
+     * the given file stays untouched.
+     * @param file file to convert
+     * @return GeotiffBinding
+     * @throws ConvertToIDataException exception that is thrown in case of an
+     * io exception
+     */
+    @Override
+    public GeotiffBinding convertToIData(
+            final File file) throws ConvertToIDataException {
+
+        try {
+            final File tempFile = File.createTempFile(
+                    "convertBytesToIData", ".tiff");
+            tempFile.deleteOnExit();
+
+            Files.copy(file.toPath(), tempFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+
+            return new GeotiffBinding(tempFile);
+        } catch (final IOException ioException) {
+            throw new ConvertToIDataException(ioException);
+        }
+    }
+
     /**
      * Tests equality.
      * @param o other object
@@ -20,7 +20,9 @@ import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
+import org.n52.gfz.riesgos.configuration.parse.defaultformats.DefaultFormatOption;
 import org.n52.gfz.riesgos.exceptions.ConvertToIDataException;
+import org.n52.gfz.riesgos.formats.RawContent;
 import org.n52.gfz.riesgos.formats.json.binding.JsonDataBinding;
 import org.n52.gfz.riesgos.formats.json.binding.JsonObjectOrArray;
 import org.n52.gfz.riesgos.functioninterfaces.IConvertByteArrayToIData;
@@ -55,10 +57,16 @@ public class ConvertBytesToJsonDataBinding
                             new ByteArrayInputStream(content)));
             if (parsed instanceof JSONObject) {
                 final JSONObject jsonObject = (JSONObject) parsed;
-                return new JsonDataBinding(new JsonObjectOrArray(jsonObject));
+                return new JsonDataBinding(
+                        new JsonObjectOrArray(jsonObject),
+                        RawContent.of(content,
+                                DefaultFormatOption.JSON.getFormat()));
             } else if (parsed instanceof JSONArray) {
                 final JSONArray jsonArray = (JSONArray) parsed;
-                return new JsonDataBinding(new JsonObjectOrArray(jsonArray));
+                return new JsonDataBinding(
+                        new JsonObjectOrArray(jsonArray),
+                        RawContent.of(content,
+                                DefaultFormatOption.JSON.getFormat()));
             }
         } catch (final ParseException | IOException exception) {
             throw new ConvertToIDataException(exception);
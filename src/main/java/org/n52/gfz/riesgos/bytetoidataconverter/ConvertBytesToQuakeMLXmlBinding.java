@@ -19,7 +19,9 @@ package org.n52.gfz.riesgos.bytetoidataconverter;
 import org.apache.xmlbeans.XmlException;
 import org.apache.xmlbeans.XmlObject;
 import org.n52.gfz.riesgos.formats.quakeml.binding.QuakeMLXmlDataBinding;
+import org.n52.gfz.riesgos.configuration.parse.defaultformats.DefaultFormatOption;
 import org.n52.gfz.riesgos.exceptions.ConvertToIDataException;
+import org.n52.gfz.riesgos.formats.RawContent;
 import org.n52.gfz.riesgos.functioninterfaces.IConvertByteArrayToIData;
 
 import java.io.ByteArrayInputStream;
@@ -50,7 +52,9 @@ public class ConvertBytesToQuakeMLXmlBinding
         try (ByteArrayInputStream byteArrayInputStream =
                      new ByteArrayInputStream(content)) {
             return QuakeMLXmlDataBinding.fromValidatedXml(
-                    XmlObject.Factory.parse(byteArrayInputStream));
+                    XmlObject.Factory.parse(byteArrayInputStream),
+                    RawContent.of(content,
+                            DefaultFormatOption.QUAKEML.getFormat()));
         } catch (final XmlException | IOException exception) {
             throw new ConvertToIDataException(exception);
         }
@@ -18,7 +18,9 @@ package org.n52.gfz.riesgos.bytetoidataconverter;
 
 import org.apache.xmlbeans.XmlException;
 import org.apache.xmlbeans.XmlObject;
+import org.n52.gfz.riesgos.configuration.parse.defaultformats.DefaultFormatOption;
 import org.n52.gfz.riesgos.exceptions.ConvertToIDataException;
+import org.n52.gfz.riesgos.formats.RawContent;
 import org.n52.gfz.riesgos.formats.shakemap.binding.ShakemapXmlDataBinding;
 import org.n52.gfz.riesgos.functioninterfaces.IConvertByteArrayToIData;
 
@@ -47,7 +49,9 @@ public class ConvertBytesToShakemapXmlBinding
         try (ByteArrayInputStream byteArrayInputStream =
                      new ByteArrayInputStream(content)) {
             return ShakemapXmlDataBinding.fromXml(
-                    XmlObject.Factory.parse(byteArrayInputStream));
+                    XmlObject.Factory.parse(byteArrayInputStream),
+                    RawContent.of(content,
+                            DefaultFormatOption.SHAKEMAP.getFormat()));
         } catch (final XmlException | IOException exception) {
             throw new ConvertToIDataException(exception);
         }
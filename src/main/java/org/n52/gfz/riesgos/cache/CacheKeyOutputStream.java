@@ -0,0 +1,111 @@
+package org.n52.gfz.riesgos.cache;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Stream to write the canonical form of a cache key.
+ * All values are written with their length (or a marker for null),
+ * so that the borders between them are unique.
+ * The stream is meant to write directly into a hash function,
+ * so that there is no need to keep a copy of the key in memory.
+ */
+public class CacheKeyOutputStream extends DataOutputStream {
+
+    /**
+     * Length that is written for null values.
+     */
+    private static final int NULL_LENGTH = -1;
+
+    /**
+     * Creates the stream.
+     * @param out stream to write to (most likely a hash function)
+     */
+    public CacheKeyOutputStream(final OutputStream out) {
+        super(out);
+    }
+
+    /**
+     * Writes a string with its length.
+     * @param value string to write (may be null)
+     * @throws IOException exception on writing
+     */
+    public void writeString(final String value) throws IOException {
+        if (value == null) {
+            writeInt(NULL_LENGTH);
+        } else {
+            writeByteArray(value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Writes a list of strings with its size.
+     * @param values strings to write (may be null)
+     * @throws IOException exception on writing
+     */
+    public void writeStrings(final List<String> values) throws IOException {
+        if (values == null) {
+            writeInt(NULL_LENGTH);
+        } else {
+            writeInt(values.size());
+            for (final String value : values) {
+                writeString(value);
+            }
+        }
+    }
+
+    /**
+     * Writes a byte array with its length.
+     * @param value bytes to write (may be null)
+     * @throws IOException exception on writing
+     */
+    public void writeByteArray(final byte[] value) throws IOException {
+        if (value == null) {
+            writeInt(NULL_LENGTH);
+        } else {
+            writeInt(value.length);
+            write(value);
+        }
+    }
+
+    /**
+     * Writes an object that has no canonical form with the
+     * java serialization.
+     * @param value object to write (may be null)
+     * @throws IOException exception on writing
+     */
+    public void writeSerializable(final Serializable value)
+            throws IOException {
+        if (value == null) {
+            writeInt(NULL_LENGTH);
+        } else {
+            writeInt(0);
+            // not closed as this would close this stream too
+            final ObjectOutputStream objectOutputStream =
+                    new ObjectOutputStream(this);
+            objectOutputStream.writeObject(value);
+            objectOutputStream.flush();
+        }
+    }
+}
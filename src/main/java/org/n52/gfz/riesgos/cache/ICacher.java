@@ -44,4 +44,35 @@ public interface ICacher {
     void insertResultIntoCache(
             String hash,
             Map<String, IDataRecreator> outputData);
+
+    /**
+     * Same as getCachedResult(hash), but with the identifier of the
+     * process that asks, so that the cache can keep statistics
+     * for each process.
+     * @param processIdentifier identifier of the process
+     * @param hash hash that is computed from the configuration and the
+     *             input data
+     * @return optional map with output data
+     */
+    default Optional<Map<String, IDataRecreator>> getCachedResult(
+            final String processIdentifier,
+            final String hash) {
+        return getCachedResult(hash);
+    }
+
+    /**
+     * Same as insertResultIntoCache(hash, outputData), but with the
+     * identifier of the process that computed the result, so that the
+     * cache can keep statistics for each process.
+     * @param processIdentifier identifier of the process
+     * @param hash hash that is computed from the configuration and
+     *             the input data
+     * @param outputData resulting data to store
+     */
+    default void insertResultIntoCache(
+            final String processIdentifier,
+            final String hash,
+            final Map<String, IDataRecreator> outputData) {
+        insertResultIntoCache(hash, outputData);
+    }
 }
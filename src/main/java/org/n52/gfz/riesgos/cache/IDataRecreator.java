@@ -29,6 +29,12 @@ import java.io.Serializable;
  */
 public interface IDataRecreator extends Serializable {
 
+    /**
+     * Size in bytes that is used if there is no better estimation
+     * (for example for recreators that only hold a reference).
+     */
+    long DEFAULT_SIZE_IN_BYTES = 64L;
+
     /**
      * Recreates the idata.
      * @return recreated idata
@@ -42,4 +48,13 @@ public interface IDataRecreator extends Serializable {
      * @return binding class
      */
     Class<? extends IData> getBindingClassToRecreate();
+
+    /**
+     * Returns an estimation of the bytes that the recreator keeps
+     * in memory. It is used to weigh the entries in the cache.
+     * @return size in bytes
+     */
+    default long getSizeInBytes() {
+        return DEFAULT_SIZE_IN_BYTES;
+    }
 }
@@ -16,6 +16,7 @@
 
 package org.n52.gfz.riesgos.cache;
 
+import java.io.IOException;
 import java.io.Serializable;
 
 /**
@@ -23,5 +24,15 @@ import java.io.Serializable;
  * caching mechanism.
  */
 public interface IInputParameterCacheKey extends Serializable {
-    // empty at the moment
+
+    /**
+     * Writes the canonical form of the key to compute the hash.
+     * The default uses the java serialization.
+     * @param output stream to write to
+     * @throws IOException exception on writing
+     */
+    default void writeTo(final CacheKeyOutputStream output)
+            throws IOException {
+        output.writeSerializable(this);
+    }
 }
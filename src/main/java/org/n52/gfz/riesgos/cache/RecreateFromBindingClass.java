@@ -16,8 +16,13 @@
 
 package org.n52.gfz.riesgos.cache;
 
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
 import org.n52.wps.io.data.IData;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
 /**
  * Implementation of the recreator
  * that just contains the idata itself.
@@ -29,17 +34,39 @@ import org.n52.wps.io.data.IData;
 public class RecreateFromBindingClass implements IDataRecreator {
 
     private static final long serialVersionUID = 4607639669235423099L;
+    /**
+     * Value for a size that is not computed yet.
+     */
+    private static final long UNKNOWN_SIZE = -1L;
     /**
      * Idata to give back.
      */
     private final IData data;
+    /**
+     * Size of the idata in bytes.
+     */
+    private long sizeInBytes;
 
     /**
      * Creates the recreator from an existing idata.
+     * The size is estimated by serializing the idata once it is needed.
      * @param aData idata to store in
      */
     public RecreateFromBindingClass(final IData aData) {
+        this(aData, UNKNOWN_SIZE);
+    }
+
+    /**
+     * Creates the recreator from an existing idata with a known size
+     * (for example the size of the files that it was read from).
+     * @param aData idata to store in
+     * @param aSizeInBytes size of the idata in bytes
+     */
+    public RecreateFromBindingClass(
+            final IData aData,
+            final long aSizeInBytes) {
         this.data = aData;
+        this.sizeInBytes = aSizeInBytes;
     }
 
     /**
@@ -59,4 +86,25 @@ public class RecreateFromBindingClass implements IDataRecreator {
     public Class<? extends IData> getBindingClassToRecreate() {
         return data.getClass();
     }
+
+    /**
+     * Gives back the known size or the size of the serialized idata.
+     * If the idata can't be serialized the default size is used.
+     * @return size of the idata in bytes
+     */
+    @Override
+    public synchronized long getSizeInBytes() {
+        if (sizeInBytes == UNKNOWN_SIZE) {
+            final CountingOutputStream counter =
+                    new CountingOutputStream(new NullOutputStream());
+            try (ObjectOutputStream out = new ObjectOutputStream(counter)) {
+                out.writeObject(data);
+                out.flush();
+                sizeInBytes = DEFAULT_SIZE_IN_BYTES + counter.getByteCount();
+            } catch (final IOException exception) {
+                sizeInBytes = DEFAULT_SIZE_IN_BYTES;
+            }
+        }
+        return sizeInBytes;
+    }
 }
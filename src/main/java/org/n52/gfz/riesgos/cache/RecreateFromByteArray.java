@@ -16,21 +16,35 @@
 
 package org.n52.gfz.riesgos.cache;
 
+import org.n52.gfz.riesgos.cache.blob.Blob;
+import org.n52.gfz.riesgos.cache.blob.IBlobRecreator;
 import org.n52.gfz.riesgos.exceptions.ConvertToIDataException;
 import org.n52.gfz.riesgos.functioninterfaces.IConvertByteArrayToIData;
+import org.n52.gfz.riesgos.functioninterfaces.IConvertFileToIData;
 import org.n52.wps.io.data.IData;
 
+import java.lang.ref.SoftReference;
+
 /**
  * Implementation of the recreator for
  * a converter from byte content.
+ *
+ * The recreated idata is kept behind a soft reference, so that
+ * repeated cache hits don't have to parse the content again
+ * (as long as there is enough memory).
+ * This is not done for converters that write the content into
+ * temporary files, as those files may be gone later.
+ *
+ * The content is hold in a blob, so that the caches can share
+ * it with other recreators that have the same content.
  */
-public class RecreateFromByteArray implements IDataRecreator {
+public class RecreateFromByteArray implements IBlobRecreator {
 
-    private static final long serialVersionUID = 9173992944630769497L;
+    private static final long serialVersionUID = -1407938263811629035L;
     /**
      * Byte content.
      */
-    private final byte[] content;
+    private final Blob blob;
     /**
      * Converter function.
      */
@@ -39,6 +53,10 @@ public class RecreateFromByteArray implements IDataRecreator {
      * Binding class that will be recreated.
      */
     private final Class<? extends IData> bindingClass;
+    /**
+     * Idata that was recreated last.
+     */
+    private transient volatile SoftReference<IData> recreated;
 
     /**
      * Creates a new Recreator for a byte array and a function to
@@ -51,7 +69,21 @@ public class RecreateFromByteArray implements IDataRecreator {
             final byte[] aContent,
             final IConvertByteArrayToIData aConverter,
             final Class<? extends IData> aBindingClass) {
-        this.content = aContent;
+        this(Blob.of(aContent), aConverter, aBindingClass);
+    }
+
+    /**
+     * Creates a new Recreator for a blob and a function to
+     * convert it into an idata.
+     * @param aBlob blob with the content
+     * @param aConverter converter to convert to idata
+     * @param aBindingClass binding class will be recreated
+     */
+    private RecreateFromByteArray(
+            final Blob aBlob,
+            final IConvertByteArrayToIData aConverter,
+            final Class<? extends IData> aBindingClass) {
+        this.blob = aBlob;
         this.converter = aConverter;
         this.bindingClass = aBindingClass;
     }
@@ -62,8 +94,28 @@ public class RecreateFromByteArray implements IDataRecreator {
      */
     @Override
     public IData recreate() {
+        if (converter instanceof IConvertFileToIData) {
+            return convert();
+        }
+        final SoftReference<IData> reference = recreated;
+        IData data = null;
+        if (reference != null) {
+            data = reference.get();
+        }
+        if (data == null) {
+            data = convert();
+            recreated = new SoftReference<>(data);
+        }
+        return data;
+    }
+
+    /**
+     * Converts the content.
+     * @return idata from the byte array
+     */
+    private IData convert() {
         try {
-            return converter.convertToIData(content);
+            return converter.convertToIData(blob.getContent());
         } catch (final ConvertToIDataException exception) {
             // this is only meant to recreate from content
             // not for trying it the first time!
@@ -79,4 +131,39 @@ public class RecreateFromByteArray implements IDataRecreator {
     public Class<? extends IData> getBindingClassToRecreate() {
         return bindingClass;
     }
+
+    /**
+     *
+     * @return size of the byte content as it is kept (maybe compressed)
+     */
+    @Override
+    public long getSizeInBytes() {
+        return DEFAULT_SIZE_IN_BYTES + blob.getStoredLength();
+    }
+
+    /**
+     *
+     * @return blob with the content
+     */
+    @Override
+    public Blob getBlob() {
+        return blob;
+    }
+
+    /**
+     * Returns a recreator that uses the given blob with the same content.
+     * The already recreated idata is kept.
+     * @param aBlob blob with the same content
+     * @return recreator with the blob
+     */
+    @Override
+    public IBlobRecreator withBlob(final Blob aBlob) {
+        if (aBlob == blob) {
+            return this;
+        }
+        final RecreateFromByteArray result =
+                new RecreateFromByteArray(aBlob, converter, bindingClass);
+        result.recreated = recreated;
+        return result;
+    }
 }
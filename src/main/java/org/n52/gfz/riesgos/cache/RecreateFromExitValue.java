@@ -81,4 +81,13 @@ public class RecreateFromExitValue implements IDataRecreator {
     public Class<? extends IData> getBindingClassToRecreate() {
         return bindingClass;
     }
+
+    /**
+     *
+     * @return size for the exit value only
+     */
+    @Override
+    public long getSizeInBytes() {
+        return DEFAULT_SIZE_IN_BYTES;
+    }
 }
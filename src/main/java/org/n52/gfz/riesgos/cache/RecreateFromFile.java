@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache;
+
+import org.n52.gfz.riesgos.cache.blob.Blob;
+import org.n52.gfz.riesgos.exceptions.ConvertToIDataException;
+import org.n52.gfz.riesgos.functioninterfaces.IConvertFileToIData;
+import org.n52.wps.io.data.IData;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+
+/**
+ * Implementation of the recreator for
+ * a converter from a (scratch) file on the host.
+ * Only the path of the file is hold, so that the content
+ * of large outputs does not stay in memory.
+ *
+ * On serialization the content of the file is written into the stream
+ * and read back into a blob, so that a recreator that was stored on disk
+ * works even after the original file is gone. For the conversion of the
+ * blob a scratch file is written, that is deleted right afterwards.
+ */
+public class RecreateFromFile implements IDataRecreator {
+
+    private static final long serialVersionUID = -2307181540946410672L;
+    /**
+     * Size of the buffer to copy the content of the file.
+     */
+    private static final int BUFFER_SIZE = 8192;
+    /**
+     * Maximum size of content that can be read back into a blob.
+     */
+    private static final long MAX_BLOB_SIZE = Integer.MAX_VALUE - 8;
+    /**
+     * File with the content (null if the recreator was read back
+     * from a stream).
+     */
+    private transient File file;
+    /**
+     * Content that was read back from a stream (null if there
+     * is a file).
+     */
+    private transient Blob content;
+    /**
+     * Converter function.
+     */
+    private final IConvertFileToIData converter;
+    /**
+     * Binding class that will be recreated.
+     */
+    private final Class<? extends IData> bindingClass;
+
+    /**
+     * Creates a new Recreator for a file and a function to
+     * convert it into an idata.
+     * @param aFile file with the content
+     * @param aConverter converter to convert to idata
+     * @param aBindingClass binding class will be recreated
+     */
+    public RecreateFromFile(
+            final File aFile,
+            final IConvertFileToIData aConverter,
+            final Class<? extends IData> aBindingClass) {
+        this.file = aFile;
+        this.converter = aConverter;
+        this.bindingClass = aBindingClass;
+    }
+
+    /**
+     *
+     * @return idata from the file
+     */
+    @Override
+    public IData recreate() {
+        try {
+            if (file != null) {
+                return converter.convertToIData(file);
+            }
+            return convertContent();
+        } catch (final ConvertToIDataException | IOException exception) {
+            // this is only meant to recreate from content
+            // not for trying it the first time!
+            throw new RuntimeException(exception);
+        }
+    }
+
+    /**
+     * Writes the content into a scratch file that is only used
+     * for the conversion.
+     * @return idata from the content
+     * @throws ConvertToIDataException exception on conversion
+     * @throws IOException exception on writing the scratch file
+     */
+    private IData convertContent()
+            throws ConvertToIDataException, IOException {
+        final File scratchFile = File.createTempFile("readFromCache", ".dat");
+        try {
+            Files.write(scratchFile.toPath(), content.getContent());
+            return converter.convertToIData(scratchFile);
+        } finally {
+            Files.deleteIfExists(scratchFile.toPath());
+        }
+    }
+
+    /**
+     *
+     * @return binding class that will be recreated
+     */
+    @Override
+    public Class<? extends IData> getBindingClassToRecreate() {
+        return bindingClass;
+    }
+
+    /**
+     * If the content stays in the file, only the reference
+     * is kept in memory.
+     * @return size for the reference to the file or for the content
+     */
+    @Override
+    public long getSizeInBytes() {
+        if (content != null) {
+            return DEFAULT_SIZE_IN_BYTES + content.getStoredLength();
+        }
+        return DEFAULT_SIZE_IN_BYTES;
+    }
+
+    /**
+     * Writes the fields and the content of the file.
+     * @param out stream to write to
+     * @throws IOException exception on reading the file or writing
+     * to the stream
+     */
+    private void writeObject(final ObjectOutputStream out)
+            throws IOException {
+        out.defaultWriteObject();
+        if (content != null) {
+            final byte[] bytes = content.getContent();
+            out.writeLong(bytes.length);
+            out.write(bytes);
+            return;
+        }
+        out.writeLong(file.length());
+        try (InputStream in = new BufferedInputStream(
+                new FileInputStream(file))) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int read = in.read(buffer);
+            while (read != -1) {
+                out.write(buffer, 0, read);
+                read = in.read(buffer);
+            }
+        }
+    }
+
+    /**
+     * Reads the fields and the content into a blob.
+     * @param in stream to read from
+     * @throws IOException exception on reading from the stream
+     * @throws ClassNotFoundException if a class of the fields is missing
+     */
+    private void readObject(final ObjectInputStream in)
+            throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        final long length = in.readLong();
+        if (length < 0 || length > MAX_BLOB_SIZE) {
+            throw new IOException("Invalid length of the content: " + length);
+        }
+        final byte[] bytes = new byte[(int) length];
+        in.readFully(bytes);
+        content = Blob.of(bytes);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.blob;
+
+import com.google.common.hash.Hashing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Byte content of a cached output together with the digest of the content.
+ *
+ * The digest is the address of the content in the blob stores,
+ * so that equal content is only kept once.
+ * The content is shared between all the holders of the blob
+ * and must never be changed.
+ *
+ * A blob can keep its content compressed (for example for large xml
+ * outputs that are kept in the cache for a long time). The digest
+ * is always the one of the uncompressed content.
+ */
+public final class Blob implements Serializable {
+
+    private static final long serialVersionUID = -5281470983526715407L;
+
+    /**
+     * Size of the buffer for the compression.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Byte content as it is kept (maybe compressed).
+     */
+    private final byte[] stored;
+    /**
+     * Flag if the stored content is compressed.
+     */
+    private final boolean compressed;
+    /**
+     * Length of the uncompressed content.
+     */
+    private final int length;
+    /**
+     * Hex encoded sha-256 digest of the content.
+     * It is computed on first use, as it is not needed
+     * if the result is not cached.
+     */
+    private volatile String digest;
+
+    /**
+     *
+     * @param aStored byte content as it is kept
+     * @param aCompressed flag if the content is compressed
+     * @param aLength length of the uncompressed content
+     * @param aDigest digest of the uncompressed content (may be null)
+     */
+    private Blob(
+            final byte[] aStored,
+            final boolean aCompressed,
+            final int aLength,
+            final String aDigest) {
+        this.stored = aStored;
+        this.compressed = aCompressed;
+        this.length = aLength;
+        this.digest = aDigest;
+    }
+
+    /**
+     * Creates a blob for the content.
+     * The content is not copied.
+     * @param content byte content
+     * @return blob with the content
+     */
+    public static Blob of(final byte[] content) {
+        return new Blob(content, false, content.length, null);
+    }
+
+    /**
+     * Returns a blob with the same content that keeps it compressed
+     * (with the fastest level of deflate).
+     * If the content does not get smaller, the blob itself is returned.
+     * @return blob with the compressed content
+     */
+    public Blob compress() {
+        if (compressed) {
+            return this;
+        }
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(stored);
+            deflater.finish();
+            final ByteArrayOutputStream out =
+                    new ByteArrayOutputStream(stored.length / 4 + 16);
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished() && out.size() < stored.length) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            if (!deflater.finished() || out.size() >= stored.length) {
+                return this;
+            }
+            return new Blob(out.toByteArray(), true, length, getDigest());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     *
+     * @return hex encoded sha-256 digest of the content
+     */
+    public String getDigest() {
+        String result = digest;
+        if (result == null) {
+            result = Hashing.sha256().hashBytes(getContent()).toString();
+            digest = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the content. For compressed blobs it is uncompressed
+     * on each call.
+     * @return byte content (must not be changed)
+     */
+    public byte[] getContent() {
+        if (!compressed) {
+            return stored;
+        }
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored);
+            final byte[] result = new byte[length];
+            int offset = 0;
+            while (offset < length && !inflater.finished()) {
+                final int inflated =
+                        inflater.inflate(result, offset, length - offset);
+                if (inflated == 0 && inflater.needsInput()) {
+                    break;
+                }
+                offset += inflated;
+            }
+            if (offset != length) {
+                throw new IllegalStateException(
+                        "The compressed content is incomplete");
+            }
+            return result;
+        } catch (final DataFormatException exception) {
+            throw new IllegalStateException(
+                    "The compressed content is broken", exception);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     *
+     * @return length of the uncompressed content in bytes
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     *
+     * @return number of bytes that the blob keeps in memory
+     */
+    public int getStoredLength() {
+        return stored.length;
+    }
+
+    /**
+     *
+     * @return true if the blob keeps its content compressed
+     */
+    public boolean isCompressed() {
+        return compressed;
+    }
+}
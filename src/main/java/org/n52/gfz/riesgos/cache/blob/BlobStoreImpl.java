@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.blob;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implementation of the blob store that keeps the blobs in memory.
+ */
+public class BlobStoreImpl implements IBlobStore {
+
+    /**
+     * Stored blobs by their digest.
+     */
+    private final ConcurrentMap<String, Entry> blobs;
+    /**
+     * Size of all the stored blobs in bytes.
+     */
+    private final AtomicLong sizeInBytes;
+
+    /**
+     * Creates an empty store.
+     */
+    public BlobStoreImpl() {
+        this.blobs = new ConcurrentHashMap<>();
+        this.sizeInBytes = new AtomicLong();
+    }
+
+    /**
+     * Adds a reference to the content of the blob.
+     * @param blob blob with the content
+     * @return the blob that is already stored for the same content
+     * (or the given one if the content is new)
+     */
+    @Override
+    public Blob acquire(final Blob blob) {
+        return blobs.compute(blob.getDigest(), (digest, existing) -> {
+            if (existing == null) {
+                sizeInBytes.addAndGet(blob.getStoredLength());
+                return new Entry(blob);
+            }
+            existing.references++;
+            return existing;
+        }).blob;
+    }
+
+    /**
+     * Removes a reference to the content of the blob.
+     * The content is dropped with the last reference.
+     * @param blob blob that was acquired before
+     */
+    @Override
+    public void release(final Blob blob) {
+        blobs.computeIfPresent(blob.getDigest(), (digest, existing) -> {
+            existing.references--;
+            if (existing.references > 0) {
+                return existing;
+            }
+            sizeInBytes.addAndGet(-existing.blob.getStoredLength());
+            return null;
+        });
+    }
+
+    /**
+     *
+     * @return number of the different contents
+     */
+    @Override
+    public int getNumberOfBlobs() {
+        return blobs.size();
+    }
+
+    /**
+     *
+     * @return size of all the different contents in bytes
+     * (as they are kept, so maybe compressed)
+     */
+    @Override
+    public long getSizeInBytes() {
+        return sizeInBytes.get();
+    }
+
+    /**
+     * Stored blob with the number of its references.
+     * It is only changed inside of the atomic operations of the map.
+     */
+    private static final class Entry {
+        /**
+         * Stored blob.
+         */
+        private final Blob blob;
+        /**
+         * Number of references.
+         */
+        private int references;
+
+        /**
+         *
+         * @param aBlob stored blob
+         */
+        private Entry(final Blob aBlob) {
+            this.blob = aBlob;
+            this.references = 1;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.blob;
+
+import org.n52.gfz.riesgos.cache.IDataRecreator;
+
+/**
+ * Recreator that holds its content in a blob, so that
+ * the caches can share the content with other recreators.
+ */
+public interface IBlobRecreator extends IDataRecreator {
+
+    /**
+     *
+     * @return blob with the content
+     */
+    Blob getBlob();
+
+    /**
+     * Returns a recreator that is the same as this one,
+     * but uses the given blob with the same content.
+     * @param blob blob with the same content
+     * @return recreator with the blob
+     */
+    IBlobRecreator withBlob(Blob blob);
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.blob;
+
+/**
+ * Interface for a store that keeps every content only once.
+ * The blobs are counted by their references, so that the
+ * content can be dropped once no cache entry points to it anymore.
+ */
+public interface IBlobStore {
+
+    /**
+     * Adds a reference to the content of the blob.
+     * @param blob blob with the content
+     * @return the blob that is already stored for the same content
+     * (or the given one if the content is new)
+     */
+    Blob acquire(Blob blob);
+
+    /**
+     * Removes a reference to the content of the blob.
+     * The content is dropped with the last reference.
+     * @param blob blob that was acquired before
+     */
+    void release(Blob blob);
+
+    /**
+     *
+     * @return number of the different contents
+     */
+    int getNumberOfBlobs();
+
+    /**
+     *
+     * @return size of all the different contents in bytes
+     * (as they are kept, so maybe compressed)
+     */
+    long getSizeInBytes();
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.distributed;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.n52.gfz.riesgos.cache.ICacher;
+import org.n52.gfz.riesgos.cache.IDataRecreator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Small http server that gives the other servers access to
+ * the local cache.
+ *
+ * GET {@value #CONTEXT_PATH}hash gives back the serialized result
+ * (or 404), PUT {@value #CONTEXT_PATH}hash stores the serialized
+ * result in the body. The identifier of the process can be given with
+ * the query parameter {@value #PROCESS_PARAMETER}.
+ *
+ * Each request must contain the shared secret of the servers in the
+ * header {@value #SECRET_HEADER}, otherwise it is rejected with 403.
+ * The results are java serialized objects, so only the classes
+ * that are part of cached results are read, and the port should
+ * only be reachable for the other WPS servers anyway.
+ */
+public class CachePeerServer {
+
+    /**
+     * Path of the cache on the server.
+     */
+    public static final String CONTEXT_PATH = "/riesgos-cache/";
+
+    /**
+     * Query parameter for the identifier of the process.
+     */
+    public static final String PROCESS_PARAMETER = "process";
+
+    /**
+     * Header with the shared secret of the servers.
+     */
+    public static final String SECRET_HEADER = "X-Riesgos-Cache-Secret";
+
+    /**
+     * Number of threads to answer the requests.
+     */
+    private static final int THREADS = 4;
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(CachePeerServer.class);
+
+    /**
+     * Http server.
+     */
+    private final HttpServer server;
+
+    /**
+     * Threads to answer the requests.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Shared secret of the servers.
+     */
+    private final byte[] secret;
+
+    /**
+     * Local cache to give access to.
+     */
+    private volatile ICacher cacher;
+
+    /**
+     * Creates the server (but does not start it).
+     * @param address address to listen on (port 0 for any free port)
+     * @param aCacher local cache to give access to
+     * @param aSecret shared secret that the requests must contain
+     * @throws IOException exception if the port can't be used
+     */
+    public CachePeerServer(
+            final InetSocketAddress address,
+            final ICacher aCacher,
+            final String aSecret) throws IOException {
+        if (aSecret == null || aSecret.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "The secret of the cache peers must not be empty");
+        }
+        this.secret = aSecret.getBytes(StandardCharsets.UTF_8);
+        this.cacher = aCacher;
+        this.server = HttpServer.create(address, 0);
+        this.executor = Executors.newFixedThreadPool(THREADS,
+                new ThreadFactoryBuilder()
+                        .setDaemon(true)
+                        .setNameFormat("cache-peer-server-%d")
+                        .build());
+        server.createContext(CONTEXT_PATH, this::handle);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Starts to answer the requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops the server.
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     *
+     * @return port the server listens on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Changes the local cache to give access to.
+     * @param aCacher local cache
+     */
+    public void setCacher(final ICacher aCacher) {
+        this.cacher = aCacher;
+    }
+
+    /**
+     * Answers a request.
+     * @param exchange request and response
+     */
+    private void handle(final HttpExchange exchange) {
+        try {
+            if (!hasSecret(exchange)) {
+                LOGGER.warn("Rejected a cache request without the secret "
+                        + "from " + exchange.getRemoteAddress());
+                exchange.sendResponseHeaders(
+                        HttpURLConnection.HTTP_FORBIDDEN, -1);
+                return;
+            }
+            final URI uri = exchange.getRequestURI();
+            final String hash = decode(
+                    uri.getRawPath().substring(CONTEXT_PATH.length()));
+            final String processIdentifier =
+                    getProcessIdentifier(uri.getRawQuery());
+            if ("GET".equals(exchange.getRequestMethod())) {
+                handleGet(exchange, processIdentifier, hash);
+            } else if ("PUT".equals(exchange.getRequestMethod())) {
+                handlePut(exchange, processIdentifier, hash);
+            } else {
+                exchange.sendResponseHeaders(
+                        HttpURLConnection.HTTP_BAD_METHOD, -1);
+            }
+        } catch (final IOException | RuntimeException exception) {
+            LOGGER.warn("Can't answer the cache request "
+                    + exchange.getRequestURI(), exception);
+            try {
+                exchange.sendResponseHeaders(
+                        HttpURLConnection.HTTP_INTERNAL_ERROR, -1);
+            } catch (final IOException ignored) {
+                // the response was already started
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Checks the shared secret in the header of the request
+     * (in constant time).
+     * @param exchange request and response
+     * @return true if the request contains the secret
+     */
+    private boolean hasSecret(final HttpExchange exchange) {
+        final String value =
+                exchange.getRequestHeaders().getFirst(SECRET_HEADER);
+        return value != null && MessageDigest.isEqual(
+                secret, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends the cached result.
+     * @param exchange request and response
+     * @param processIdentifier identifier of the process (may be null)
+     * @param hash hash of the result
+     * @throws IOException exception on sending the response
+     */
+    private void handleGet(
+            final HttpExchange exchange,
+            final String processIdentifier,
+            final String hash) throws IOException {
+        final Optional<Map<String, IDataRecreator>> result;
+        if (processIdentifier == null) {
+            result = cacher.getCachedResult(hash);
+        } else {
+            result = cacher.getCachedResult(processIdentifier, hash);
+        }
+        if (!result.isPresent()) {
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_FOUND, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, 0);
+        try (ObjectOutputStream out = new ObjectOutputStream(
+                new BufferedOutputStream(exchange.getResponseBody()))) {
+            out.writeObject(new HashMap<>(result.get()));
+        }
+    }
+
+    /**
+     * Stores the result from the body.
+     * @param exchange request and response
+     * @param processIdentifier identifier of the process (may be null)
+     * @param hash hash of the result
+     * @throws IOException exception on reading the result
+     */
+    private void handlePut(
+            final HttpExchange exchange,
+            final String processIdentifier,
+            final String hash) throws IOException {
+        final Map<String, IDataRecreator> outputData;
+        try (ObjectInputStream in = new PeerObjectInputStream(
+                new BufferedInputStream(exchange.getRequestBody()))) {
+            @SuppressWarnings("unchecked")
+            final Map<String, IDataRecreator> read =
+                    (Map<String, IDataRecreator>) in.readObject();
+            outputData = read;
+        } catch (final ClassNotFoundException
+                | ClassCastException
+                | InvalidClassException exception) {
+            LOGGER.warn("Can't read the result for " + hash, exception);
+            exchange.sendResponseHeaders(
+                    HttpURLConnection.HTTP_BAD_REQUEST, -1);
+            return;
+        }
+        if (processIdentifier == null) {
+            cacher.insertResultIntoCache(hash, outputData);
+        } else {
+            cacher.insertResultIntoCache(processIdentifier, hash, outputData);
+        }
+        exchange.sendResponseHeaders(HttpURLConnection.HTTP_NO_CONTENT, -1);
+    }
+
+    /**
+     *
+     * @param query query of the request (may be null)
+     * @return identifier of the process (null if there is none)
+     * @throws UnsupportedEncodingException should not happen
+     */
+    private static String getProcessIdentifier(final String query)
+            throws UnsupportedEncodingException {
+        if (query == null) {
+            return null;
+        }
+        final String prefix = PROCESS_PARAMETER + "=";
+        for (final String parameter : query.split("&")) {
+            if (parameter.startsWith(prefix)) {
+                return decode(parameter.substring(prefix.length()));
+            }
+        }
+        return null;
+    }
+
+    /**
+     *
+     * @param text url encoded text
+     * @return decoded text
+     * @throws UnsupportedEncodingException should not happen
+     */
+    private static String decode(final String text)
+            throws UnsupportedEncodingException {
+        return URLDecoder.decode(text, StandardCharsets.UTF_8.name());
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.distributed;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Ring for consistent hashing of the cache keys to the servers.
+ * Each server is placed on the ring several times, so that the keys
+ * are spread evenly. If a server is added or removed, only the keys
+ * of this server move to others.
+ */
+public class ConsistentHashRing {
+
+    /**
+     * Default number of places on the ring for each server.
+     */
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    /**
+     * Hash function to place the servers and the keys on the ring.
+     */
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    /**
+     * Servers by their places on the ring.
+     */
+    private final TreeMap<Long, String> ring;
+
+    /**
+     * All the servers.
+     */
+    private final Set<String> peers;
+
+    /**
+     * Creates the ring with the default number of places
+     * for each server.
+     * @param aPeers addresses of all the servers
+     */
+    public ConsistentHashRing(final Collection<String> aPeers) {
+        this(aPeers, DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * Creates the ring.
+     * @param aPeers addresses of all the servers
+     * @param virtualNodes number of places on the ring for each server
+     */
+    public ConsistentHashRing(
+            final Collection<String> aPeers,
+            final int virtualNodes) {
+        if (aPeers.isEmpty()) {
+            throw new IllegalArgumentException("There must be a server");
+        }
+        this.ring = new TreeMap<>();
+        this.peers = Collections.unmodifiableSet(
+                new LinkedHashSet<>(aPeers));
+        for (final String peer : peers) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(peer + "#" + i), peer);
+            }
+        }
+    }
+
+    /**
+     *
+     * @param key cache key
+     * @return address of the server that the key belongs to
+     */
+    public String getPeer(final String key) {
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+        if (entry == null) {
+            entry = ring.firstEntry();
+        }
+        return entry.getValue();
+    }
+
+    /**
+     *
+     * @return addresses of all the servers
+     */
+    public Set<String> getPeers() {
+        return peers;
+    }
+
+    /**
+     *
+     * @param text text to place on the ring
+     * @return place on the ring
+     */
+    private static long hash(final String text) {
+        return HASH_FUNCTION.hashString(text, StandardCharsets.UTF_8)
+                .asLong();
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.distributed;
+
+import org.n52.gfz.riesgos.cache.ICacher;
+import org.n52.gfz.riesgos.cache.IDataRecreator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Implementation of the caching mechanism that is shared between
+ * several servers.
+ *
+ * Each result belongs to one server, which is chosen by consistent
+ * hashing of the hash. Results of this server are stored in the local
+ * cache, the others are sent to (and asked from) the server they belong
+ * to. Results of other servers are also kept in a small near cache,
+ * so that repeated requests don't need the network.
+ *
+ * If another server can't be reached, the local cache is used instead
+ * and the server is not asked again for some seconds.
+ */
+public class DistributedCacheImpl implements ICacher {
+
+    /**
+     * Default for the maximum size of the near cache in bytes.
+     */
+    public static final long DEFAULT_NEAR_CACHE_SIZE_IN_BYTES =
+            32L * 1024L * 1024L;
+
+    /**
+     * Time in milliseconds to not ask a server that could not be reached.
+     */
+    public static final long DEFAULT_RETRY_AFTER_MILLIS = 10000L;
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(DistributedCacheImpl.class);
+
+    /**
+     * Address of this server.
+     */
+    private final String self;
+
+    /**
+     * Ring to find the server a result belongs to.
+     */
+    private final ConsistentHashRing ring;
+
+    /**
+     * Access to the other servers by their address.
+     */
+    private final Map<String, ICachePeer> peers;
+
+    /**
+     * Cache for the results of this server (and as fallback).
+     */
+    private final ICacher localCacher;
+
+    /**
+     * Cache for the results of the other servers.
+     */
+    private final ICacher nearCacher;
+
+    /**
+     * Time in milliseconds to not ask a server that could not be reached.
+     */
+    private final long retryAfterMillis;
+
+    /**
+     * Source for the current time in milliseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Time until the servers that could not be reached are not
+     * asked again.
+     */
+    private final ConcurrentMap<String, Long> unreachableUntil;
+
+    /**
+     * Creates the cache.
+     * @param aSelf address of this server (host:port)
+     * @param aPeers addresses of all the servers (this one is added
+     *               if it is not in)
+     * @param aLocalCacher cache for the results of this server
+     * @param aNearCacher cache for the results of the other servers
+     * @param peerFactory function to get the access to another server
+     *                    by its address
+     */
+    public DistributedCacheImpl(
+            final String aSelf,
+            final Collection<String> aPeers,
+            final ICacher aLocalCacher,
+            final ICacher aNearCacher,
+            final Function<String, ICachePeer> peerFactory) {
+        this(aSelf, aPeers, aLocalCacher, aNearCacher, peerFactory,
+                DEFAULT_RETRY_AFTER_MILLIS, System::currentTimeMillis);
+    }
+
+    /**
+     * Creates the cache.
+     * @param aSelf address of this server (host:port)
+     * @param aPeers addresses of all the servers (this one is added
+     *               if it is not in)
+     * @param aLocalCacher cache for the results of this server
+     * @param aNearCacher cache for the results of the other servers
+     * @param peerFactory function to get the access to another server
+     *                    by its address
+     * @param aRetryAfterMillis time in milliseconds to not ask a server
+     *                          that could not be reached
+     * @param aClock source for the current time in milliseconds
+     */
+    public DistributedCacheImpl(
+            final String aSelf,
+            final Collection<String> aPeers,
+            final ICacher aLocalCacher,
+            final ICacher aNearCacher,
+            final Function<String, ICachePeer> peerFactory,
+            final long aRetryAfterMillis,
+            final LongSupplier aClock) {
+        final Set<String> allPeers = new LinkedHashSet<>(aPeers);
+        allPeers.add(aSelf);
+        this.self = aSelf;
+        this.ring = new ConsistentHashRing(allPeers);
+        this.peers = new ConcurrentHashMap<>();
+        for (final String peer : allPeers) {
+            if (!peer.equals(aSelf)) {
+                peers.put(peer, peerFactory.apply(peer));
+            }
+        }
+        this.localCacher = aLocalCacher;
+        this.nearCacher = aNearCacher;
+        this.retryAfterMillis = aRetryAfterMillis;
+        this.clock = aClock;
+        this.unreachableUntil = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * This is the method to ask the caching system about if it has data in it.
+     * If there is no data for in the caching system, than it will just give
+     * back Optional.empty
+     *
+     * @param hash hash that is computed from the configuration and
+     *             the input data
+     * @return optional map with output data
+     */
+    @Override
+    public Optional<Map<String, IDataRecreator>> getCachedResult(
+            final String hash) {
+        return getCachedResult(null, hash);
+    }
+
+    /**
+     * This is the method to ask the caching system about if it has data in it.
+     * The server the result belongs to is asked. If it has no result
+     * or can't be reached, the local cache is asked.
+     *
+     * @param processIdentifier identifier of the process (may be null)
+     * @param hash hash that is computed from the configuration and
+     *             the input data
+     * @return optional map with output data
+     */
+    @Override
+    public Optional<Map<String, IDataRecreator>> getCachedResult(
+            final String processIdentifier,
+            final String hash) {
+        final String owner = ring.getPeer(hash);
+        if (!owner.equals(self)) {
+            final Optional<Map<String, IDataRecreator>> nearResult =
+                    nearCacher.getCachedResult(hash);
+            if (nearResult.isPresent()) {
+                return nearResult;
+            }
+            if (isReachable(owner)) {
+                try {
+                    final Optional<Map<String, IDataRecreator>> result =
+                            peers.get(owner).getCachedResult(
+                                    processIdentifier, hash);
+                    if (result.isPresent()) {
+                        nearCacher.insertResultIntoCache(hash, result.get());
+                        return result;
+                    }
+                } catch (final IOException exception) {
+                    markUnreachable(owner, exception);
+                }
+            }
+        }
+        if (processIdentifier == null) {
+            return localCacher.getCachedResult(hash);
+        }
+        return localCacher.getCachedResult(processIdentifier, hash);
+    }
+
+    /**
+     * This is the method to call once the algorithm is done and the
+     * result should be included in the caching system.
+     *
+     * @param hash hash that is computed from the configuration and the
+     *             input data
+     * @param outputData    resulting data to store
+     */
+    @Override
+    public void insertResultIntoCache(
+            final String hash,
+            final Map<String, IDataRecreator> outputData) {
+        insertResultIntoCache(null, hash, outputData);
+    }
+
+    /**
+     * This is the method to call once the algorithm is done and the
+     * result should be included in the caching system.
+     * The result is sent to the server it belongs to. If this server
+     * can't be reached, the result is stored in the local cache.
+     *
+     * @param processIdentifier identifier of the process (may be null)
+     * @param hash hash that is computed from the configuration and the
+     *             input data
+     * @param outputData    resulting data to store
+     */
+    @Override
+    public void insertResultIntoCache(
+            final String processIdentifier,
+            final String hash,
+            final Map<String, IDataRecreator> outputData) {
+        final String owner = ring.getPeer(hash);
+        if (!owner.equals(self) && isReachable(owner)) {
+            try {
+                peers.get(owner).insertResultIntoCache(
+                        processIdentifier, hash, outputData);
+                nearCacher.insertResultIntoCache(hash, outputData);
+                return;
+            } catch (final IOException exception) {
+                markUnreachable(owner, exception);
+            }
+        }
+        if (processIdentifier == null) {
+            localCacher.insertResultIntoCache(hash, outputData);
+        } else {
+            localCacher.insertResultIntoCache(
+                    processIdentifier, hash, outputData);
+        }
+    }
+
+    /**
+     *
+     * @param peer address of the server
+     * @return false if the server could not be reached some seconds ago
+     */
+    private boolean isReachable(final String peer) {
+        final Long until = unreachableUntil.get(peer);
+        if (until == null) {
+            return true;
+        }
+        if (clock.getAsLong() >= until) {
+            unreachableUntil.remove(peer, until);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remembers that a server could not be reached.
+     * @param peer address of the server
+     * @param exception exception on asking the server
+     */
+    private void markUnreachable(
+            final String peer,
+            final IOException exception) {
+        LOGGER.warn("Can't reach the cache of " + peer
+                + ", the local cache is used for "
+                + retryAfterMillis + " ms", exception);
+        unreachableUntil.put(peer, clock.getAsLong() + retryAfterMillis);
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.distributed;
+
+import org.n52.gfz.riesgos.cache.IDataRecreator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Access to the cache of another server that runs a
+ * {@link CachePeerServer}.
+ * The results are sent as serialized java objects (the same way as
+ * they are stored on disk). The requests contain the shared secret
+ * of the servers and only the classes that are part of cached results
+ * are read from the answers.
+ */
+public class HttpCachePeer implements ICachePeer {
+
+    /**
+     * Time in milliseconds to wait for the connection.
+     */
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+
+    /**
+     * Time in milliseconds to wait for data.
+     */
+    private static final int READ_TIMEOUT_MILLIS = 30000;
+
+    /**
+     * Size of the chunks to send the results.
+     */
+    private static final int CHUNK_SIZE = 8192;
+
+    /**
+     * Url of the cache on the other server.
+     */
+    private final String baseUrl;
+
+    /**
+     * Shared secret of the servers.
+     */
+    private final String secret;
+
+    /**
+     *
+     * @param address host and port of the other server
+     * @param aSecret shared secret of the servers
+     */
+    public HttpCachePeer(final String address, final String aSecret) {
+        this.baseUrl = "http://" + address + CachePeerServer.CONTEXT_PATH;
+        this.secret = aSecret;
+    }
+
+    /**
+     * Asks the other server for a cached result.
+     * @param processIdentifier identifier of the process (may be null)
+     * @param hash hash that is computed from the configuration and the
+     *             input data
+     * @return optional map with output data
+     * @throws IOException exception if the other server can't be asked
+     */
+    @Override
+    public Optional<Map<String, IDataRecreator>> getCachedResult(
+            final String processIdentifier,
+            final String hash) throws IOException {
+        final HttpURLConnection connection =
+                open(processIdentifier, hash, "GET");
+        try {
+            final int responseCode = connection.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_NOT_FOUND) {
+                return Optional.empty();
+            }
+            checkResponseCode(responseCode, HttpURLConnection.HTTP_OK);
+            try (ObjectInputStream in = new PeerObjectInputStream(
+                    new BufferedInputStream(connection.getInputStream()))) {
+                @SuppressWarnings("unchecked")
+                final Map<String, IDataRecreator> result =
+                        (Map<String, IDataRecreator>) in.readObject();
+                return Optional.of(result);
+            } catch (final ClassNotFoundException
+                    | ClassCastException exception) {
+                throw new IOException("Can't read the result from "
+                        + baseUrl, exception);
+            }
+        } finally {
+            close(connection);
+        }
+    }
+
+    /**
+     * Inserts the result into the cache of the other server.
+     * @param processIdentifier identifier of the process (may be null)
+     * @param hash hash that is computed from the configuration and the
+     *             input data
+     * @param outputData resulting data to store
+     * @throws IOException exception if the other server can't be reached
+     */
+    @Override
+    public void insertResultIntoCache(
+            final String processIdentifier,
+            final String hash,
+            final Map<String, IDataRecreator> outputData)
+            throws IOException {
+        final HttpURLConnection connection =
+                open(processIdentifier, hash, "PUT");
+        try {
+            connection.setDoOutput(true);
+            connection.setChunkedStreamingMode(CHUNK_SIZE);
+            try (ObjectOutputStream out = new ObjectOutputStream(
+                    new BufferedOutputStream(
+                            connection.getOutputStream()))) {
+                out.writeObject(new HashMap<>(outputData));
+            }
+            checkResponseCode(connection.getResponseCode(),
+                    HttpURLConnection.HTTP_NO_CONTENT);
+        } finally {
+            close(connection);
+        }
+    }
+
+    /**
+     * Opens the connection for a cache entry.
+     * @param processIdentifier identifier of the process (may be null)
+     * @param hash hash of the entry
+     * @param method http method
+     * @return connection
+     * @throws IOException exception on opening the connection
+     */
+    private HttpURLConnection open(
+            final String processIdentifier,
+            final String hash,
+            final String method) throws IOException {
+        String url = baseUrl + encode(hash);
+        if (processIdentifier != null) {
+            url += "?" + CachePeerServer.PROCESS_PARAMETER + "="
+                    + encode(processIdentifier);
+        }
+        final HttpURLConnection connection =
+                (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+        connection.setRequestMethod(method);
+        connection.setRequestProperty(CachePeerServer.SECRET_HEADER, secret);
+        return connection;
+    }
+
+    /**
+     * Checks the response code.
+     * @param responseCode response code of the other server
+     * @param expected expected response code
+     * @throws IOException exception if the response code is another one
+     */
+    private void checkResponseCode(
+            final int responseCode,
+            final int expected) throws IOException {
+        if (responseCode != expected) {
+            throw new IOException("Unexpected response code "
+                    + responseCode + " from " + baseUrl);
+        }
+    }
+
+    /**
+     * Reads the rest of the response, so that the connection
+     * can be used again.
+     * @param connection connection to close
+     */
+    private static void close(final HttpURLConnection connection) {
+        try (InputStream errorStream = connection.getErrorStream()) {
+            if (errorStream != null) {
+                while (errorStream.read() >= 0) {
+                    // only read it
+                }
+            }
+        } catch (final IOException exception) {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     *
+     * @param text text for the url
+     * @return url encoded text
+     */
+    private static String encode(final String text) {
+        try {
+            return URLEncoder.encode(text, StandardCharsets.UTF_8.name());
+        } catch (final UnsupportedEncodingException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
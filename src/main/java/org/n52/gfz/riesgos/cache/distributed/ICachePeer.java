@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.distributed;
+
+import org.n52.gfz.riesgos.cache.IDataRecreator;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Interface to access the cache of another server.
+ */
+public interface ICachePeer {
+
+    /**
+     * Asks the other server for a cached result.
+     * @param processIdentifier identifier of the process (may be null)
+     * @param hash hash that is computed from the configuration and the
+     *             input data
+     * @return optional map with output data
+     * @throws IOException exception if the other server can't be asked
+     */
+    Optional<Map<String, IDataRecreator>> getCachedResult(
+            String processIdentifier,
+            String hash) throws IOException;
+
+    /**
+     * Inserts the result into the cache of the other server.
+     * @param processIdentifier identifier of the process (may be null)
+     * @param hash hash that is computed from the configuration and the
+     *             input data
+     * @param outputData resulting data to store
+     * @throws IOException exception if the other server can't be reached
+     */
+    void insertResultIntoCache(
+            String processIdentifier,
+            String hash,
+            Map<String, IDataRecreator> outputData) throws IOException;
+}
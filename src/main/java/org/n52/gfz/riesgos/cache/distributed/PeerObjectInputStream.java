@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.distributed;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Object input stream for the results that are sent between the servers.
+ * Only the classes that are part of cached results can be read
+ * (the recreators, blobs and converters of this repository, the
+ * bindings of the wps and some basic java classes), so that a request
+ * can't create objects of any other class on the classpath.
+ */
+final class PeerObjectInputStream extends ObjectInputStream {
+
+    /**
+     * Packages with classes that may be part of a cached result.
+     */
+    private static final List<String> ALLOWED_PACKAGES = Arrays.asList(
+            "org.n52.gfz.riesgos.",
+            "org.n52.wps.io.data.");
+
+    /**
+     * Other classes that may be part of a cached result.
+     */
+    private static final Set<String> ALLOWED_CLASSES =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+                    "java.lang.String",
+                    "java.lang.Boolean",
+                    "java.lang.Byte",
+                    "java.lang.Character",
+                    "java.lang.Short",
+                    "java.lang.Integer",
+                    "java.lang.Long",
+                    "java.lang.Float",
+                    "java.lang.Double",
+                    "java.lang.Number",
+                    "java.lang.Enum",
+                    "java.io.File",
+                    "java.util.ArrayList",
+                    "java.util.HashMap",
+                    "java.util.LinkedHashMap")));
+
+    /**
+     *
+     * @param in stream to read from
+     * @throws IOException exception on reading the stream header
+     */
+    PeerObjectInputStream(final InputStream in) throws IOException {
+        super(in);
+    }
+
+    /**
+     * Loads only the classes that may be part of a cached result.
+     * @param desc description of the class in the stream
+     * @return class to use
+     * @throws IOException exception if the class is not allowed
+     * @throws ClassNotFoundException if the class can't be found
+     */
+    @Override
+    protected Class<?> resolveClass(final ObjectStreamClass desc)
+            throws IOException, ClassNotFoundException {
+        if (!isAllowed(desc.getName())) {
+            throw new InvalidClassException(desc.getName(),
+                    "The class is not allowed in a cached result");
+        }
+        return super.resolveClass(desc);
+    }
+
+    /**
+     * Proxy classes are never part of a cached result.
+     * @param interfaces names of the interfaces of the proxy
+     * @return nothing
+     * @throws IOException always
+     */
+    @Override
+    protected Class<?> resolveProxyClass(final String[] interfaces)
+            throws IOException {
+        throw new InvalidClassException(Arrays.toString(interfaces),
+                "Proxy classes are not allowed in a cached result");
+    }
+
+    /**
+     * Checks if the class may be part of a cached result.
+     * For arrays the type of the elements is checked.
+     * @param className name of the class (as in the stream)
+     * @return true if the class may be read
+     */
+    static boolean isAllowed(final String className) {
+        String name = className;
+        if (name.startsWith("[")) {
+            while (name.startsWith("[")) {
+                name = name.substring(1);
+            }
+            if (name.length() == 1) {
+                // array of a primitive type
+                return true;
+            }
+            if (!name.startsWith("L") || !name.endsWith(";")) {
+                return false;
+            }
+            name = name.substring(1, name.length() - 1);
+        }
+        if (ALLOWED_CLASSES.contains(name)) {
+            return true;
+        }
+        for (final String allowedPackage : ALLOWED_PACKAGES) {
+            if (name.startsWith(allowedPackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
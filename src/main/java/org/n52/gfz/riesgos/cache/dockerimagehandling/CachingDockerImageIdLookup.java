@@ -0,0 +1,153 @@
+package org.n52.gfz.riesgos.cache.dockerimagehandling;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Implementation of the docker image id lookup that keeps the results
+ * of another lookup in memory for a limited time.
+ * So there is no need to ask docker on every single request
+ * (as this takes much longer than a lookup in the cache itself).
+ *
+ * If an image gets a new id (for example because it was built again
+ * with the same label) this is noticed after the time to live
+ * or once the entries are invalidated explicitly.
+ * Failures are not cached.
+ */
+public class CachingDockerImageIdLookup implements IDockerImageIdLookup {
+
+    /**
+     * Prefix of the keys for the image ids.
+     */
+    private static final String IMAGE_KEY_PREFIX = "image:";
+
+    /**
+     * Key for the docker version.
+     */
+    private static final String DOCKER_VERSION_KEY = "docker-version";
+
+    /**
+     * Lookup that asks docker.
+     */
+    private final IDockerImageIdLookup innerLookup;
+
+    /**
+     * Cache with the image ids and the docker version.
+     */
+    private final Cache<String, Optional<String>> cache;
+
+    /**
+     * Constructor with the lookup to ask and the time to live.
+     * @param aInnerLookup lookup that asks docker
+     * @param timeToLiveMillis time in milliseconds to keep the results
+     */
+    public CachingDockerImageIdLookup(
+            final IDockerImageIdLookup aInnerLookup,
+            final long timeToLiveMillis) {
+        this(aInnerLookup, timeToLiveMillis, Ticker.systemTicker());
+    }
+
+    /**
+     * Constructor with the lookup to ask, the time to live
+     * and a ticker to measure the time (only meant for testing).
+     * @param aInnerLookup lookup that asks docker
+     * @param timeToLiveMillis time in milliseconds to keep the results
+     * @param ticker source of the time
+     */
+    CachingDockerImageIdLookup(
+            final IDockerImageIdLookup aInnerLookup,
+            final long timeToLiveMillis,
+            final Ticker ticker) {
+        this.innerLookup = aInnerLookup;
+        this.cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(timeToLiveMillis, TimeUnit.MILLISECONDS)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Gives back the cached image id or asks the inner lookup.
+     * Several requests for the same image at the same time
+     * ask docker only once.
+     * @param imageIdWithLabel given image id (maybe with label)
+     * @return image id
+     */
+    @Override
+    public String lookUpImageId(final String imageIdWithLabel) {
+        return getOrLoad(
+                IMAGE_KEY_PREFIX + imageIdWithLabel,
+                () -> innerLookup.lookUpImageId(imageIdWithLabel));
+    }
+
+    /**
+     * Gives back the cached docker version or asks the inner lookup.
+     * @return version string from docker
+     */
+    @Override
+    public String getDockerVersion() {
+        return getOrLoad(DOCKER_VERSION_KEY, innerLookup::getDockerVersion);
+    }
+
+    /**
+     * Removes the image id for the label, so that docker is
+     * asked again on the next lookup.
+     * @param imageIdWithLabel given image id (maybe with label)
+     */
+    public void invalidate(final String imageIdWithLabel) {
+        cache.invalidate(IMAGE_KEY_PREFIX + imageIdWithLabel);
+    }
+
+    /**
+     * Removes all the image ids and the docker version,
+     * so that docker is asked again on the next lookups.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Gives back the cached value or loads it.
+     * @param key key in the cache
+     * @param loader function to load the value
+     * @return value (may be null if the inner lookup gives back null)
+     */
+    private String getOrLoad(
+            final String key,
+            final Supplier<String> loader) {
+        try {
+            // guava does not allow null values
+            return cache.get(key, () -> Optional.ofNullable(loader.get()))
+                    .orElse(null);
+        } catch (final ExecutionException | UncheckedExecutionException
+                exception) {
+            final Throwable cause = exception.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+}
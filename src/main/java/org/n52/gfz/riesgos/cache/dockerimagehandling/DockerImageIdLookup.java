@@ -53,22 +53,22 @@ public class DockerImageIdLookup implements IDockerImageIdLookup {
             final Process process = processBuilder.start();
             final IExecutionRun run = new ExecutionRunImpl(process);
 
-            final IExecutionRunResult result = run.waitForCompletion();
-
-            final String errorText = result.getStderrResult();
-            if (!errorText.isEmpty()) {
-                throw new RuntimeException(
-                        "Can't check the image id:"  + errorText);
-            }
-            final int exitValue = result.getExitValue();
-            if (exitValue != 0) {
-                throw new RuntimeException(
-                        "Can't check the image id. Exit value != 0: "
-                                + exitValue);
+            try (IExecutionRunResult result = run.waitForCompletion()) {
+                final String errorText = result.getStderrResult();
+                if (!errorText.isEmpty()) {
+                    throw new RuntimeException(
+                            "Can't check the image id:"  + errorText);
+                }
+                final int exitValue = result.getExitValue();
+                if (exitValue != 0) {
+                    throw new RuntimeException(
+                            "Can't check the image id. Exit value != 0: "
+                                    + exitValue);
+                }
+
+                return result.getStdoutResult().trim();
             }
 
-            return result.getStdoutResult().trim();
-
         } catch (final IOException | InterruptedException ioException) {
             throw new RuntimeException(ioException);
         }
@@ -88,22 +88,22 @@ public class DockerImageIdLookup implements IDockerImageIdLookup {
             final Process process = processBuilder.start();
             final IExecutionRun run = new ExecutionRunImpl(process);
 
-            final IExecutionRunResult result = run.waitForCompletion();
-
-            final String errorText = result.getStderrResult();
-            if (!errorText.isEmpty()) {
-                throw new RuntimeException(
-                        "Can't check the docker version:"  + errorText);
-            }
-            final int exitValue = result.getExitValue();
-            if (exitValue != 0) {
-                throw new RuntimeException(
-                        "Can't check the docker version. Exit value != 0: "
-                                + exitValue);
+            try (IExecutionRunResult result = run.waitForCompletion()) {
+                final String errorText = result.getStderrResult();
+                if (!errorText.isEmpty()) {
+                    throw new RuntimeException(
+                            "Can't check the docker version:"  + errorText);
+                }
+                final int exitValue = result.getExitValue();
+                if (exitValue != 0) {
+                    throw new RuntimeException(
+                            "Can't check the docker version. Exit value != 0: "
+                                    + exitValue);
+                }
+
+                return result.getStdoutResult().trim();
             }
 
-            return result.getStdoutResult().trim();
-
         } catch (final IOException | InterruptedException ioException) {
             throw new RuntimeException(ioException);
         }
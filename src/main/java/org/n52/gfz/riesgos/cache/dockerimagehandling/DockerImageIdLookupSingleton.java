@@ -0,0 +1,75 @@
+package org.n52.gfz.riesgos.cache.dockerimagehandling;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+/**
+ * Singleton to share the cached docker image ids between all
+ * the processes.
+ */
+public enum DockerImageIdLookupSingleton implements IDockerImageIdLookup {
+
+    /**
+     * Singleton instance.
+     */
+    INSTANCE;
+
+    /**
+     * Time in milliseconds to keep the image ids.
+     */
+    private static final long TIME_TO_LIVE_MILLIS = 60_000L;
+
+    /**
+     * The lookup that is used for all the work.
+     */
+    private final CachingDockerImageIdLookup innerLookup;
+
+    /**
+     * Constructor that creates the lookup that asks docker
+     * via the command line and caches the results.
+     */
+    DockerImageIdLookupSingleton() {
+        innerLookup = new CachingDockerImageIdLookup(
+                new DockerImageIdLookup(), TIME_TO_LIVE_MILLIS);
+    }
+
+    /**
+     * Gives back the (cached) image id.
+     * @param imageIdWithLabel given image id (maybe with label)
+     * @return image id
+     */
+    @Override
+    public String lookUpImageId(final String imageIdWithLabel) {
+        return innerLookup.lookUpImageId(imageIdWithLabel);
+    }
+
+    /**
+     * Gives back the (cached) docker version.
+     * @return version string from docker
+     */
+    @Override
+    public String getDockerVersion() {
+        return innerLookup.getDockerVersion();
+    }
+
+    /**
+     * Removes all the cached values, so that docker is asked again
+     * (for example after new images were built).
+     */
+    public void invalidateAll() {
+        innerLookup.invalidateAll();
+    }
+}
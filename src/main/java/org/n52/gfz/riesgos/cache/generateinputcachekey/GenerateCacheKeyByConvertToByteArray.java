@@ -17,13 +17,17 @@
 package org.n52.gfz.riesgos.cache.generateinputcachekey;
 
 import org.n52.gfz.riesgos.cache.IFunctionToGenerateCacheKey;
+import org.n52.gfz.riesgos.cache.inputparametercachekey.ContentDigest;
 import org.n52.gfz.riesgos.cache.inputparametercachekey.InputParameterCacheKeyByByteArray;
 import org.n52.gfz.riesgos.cache.inputparametercachekey.InputParameterCacheKeyByException;
 import org.n52.gfz.riesgos.cache.IInputParameterCacheKey;
 import org.n52.gfz.riesgos.exceptions.ConvertToBytesException;
 import org.n52.gfz.riesgos.functioninterfaces.IConvertIDataToByteArray;
+import org.n52.gfz.riesgos.functioninterfaces.IConvertIDataToFile;
 import org.n52.wps.io.data.IData;
 
+import java.io.IOException;
+
 /**
  * Implementation of a cache key generator for cases in which
  * the input data is given to stdin.
@@ -64,6 +68,9 @@ public class GenerateCacheKeyByConvertToByteArray<T extends IData>
 
     /**
      * Generates the cache key for the input data.
+     * The key only keeps the digest of the converted data.
+     * If the data is backed by a file, the file is streamed to
+     * compute the digest.
      * @param idata data to compute a cache key for
      * @return InputParameterCacheKeyByByteArray
      */
@@ -71,13 +78,20 @@ public class GenerateCacheKeyByConvertToByteArray<T extends IData>
     public IInputParameterCacheKey generateCacheKey(final T idata) {
 
         try {
-            final byte[] content =
-                    functionToConvertToByteArray.convertToBytes(idata);
+            final ContentDigest digest;
+            if (functionToConvertToByteArray instanceof IConvertIDataToFile) {
+                digest = ContentDigest.of(
+                        ((IConvertIDataToFile<T>) functionToConvertToByteArray)
+                                .convertToFile(idata));
+            } else {
+                digest = ContentDigest.of(
+                        functionToConvertToByteArray.convertToBytes(idata));
+            }
             return new InputParameterCacheKeyByByteArray(
-                    content,
+                    digest,
                     path,
                     isOptional);
-        } catch (final ConvertToBytesException exception) {
+        } catch (final ConvertToBytesException | IOException exception) {
             return new InputParameterCacheKeyByException(
                     exception,
                     path,
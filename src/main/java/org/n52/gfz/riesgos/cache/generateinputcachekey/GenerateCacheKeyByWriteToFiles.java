@@ -17,6 +17,7 @@
 package org.n52.gfz.riesgos.cache.generateinputcachekey;
 
 import org.n52.gfz.riesgos.cache.IFunctionToGenerateCacheKey;
+import org.n52.gfz.riesgos.cache.inputparametercachekey.ContentDigest;
 import org.n52.gfz.riesgos.cache.inputparametercachekey.InputParameterCacheKeyByByteArrayList;
 import org.n52.gfz.riesgos.cache.inputparametercachekey.InputParameterCacheKeyByException;
 import org.n52.gfz.riesgos.cache.IInputParameterCacheKey;
@@ -26,6 +27,7 @@ import org.n52.gfz.riesgos.exceptions.ConvertToBytesException;
 import org.n52.gfz.riesgos.functioninterfaces.IWriteIDataToFiles;
 import org.n52.wps.io.data.IData;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -94,8 +96,8 @@ public class GenerateCacheKeyByWriteToFiles<T extends IData>
                     context,
                     PSEUDO_WORK_DIR,
                     PSEUDO_PATH);
-            return new InputParameterCacheKeyByByteArrayList(
-                    context.contents, path, isOptional);
+            return InputParameterCacheKeyByByteArrayList.fromDigests(
+                    context.digests, path, isOptional);
         } catch (final IOException | ConvertToBytesException exception) {
             return new InputParameterCacheKeyByException(
                     exception, path, isOptional);
@@ -105,21 +107,21 @@ public class GenerateCacheKeyByWriteToFiles<T extends IData>
 
     /**
      * Inner class that is used as IExecutionContext implementation.
-     * It is just used to read all the files in and store it in byte
-     * arrays.
+     * It is just used to compute the digests of all the files
+     * (without keeping the contents).
      */
     private class CollectorExecutionContext implements IExecutionContext {
 
         /**
-         * List with the contents of the byte arrays.
+         * List with the digests of the contents.
          */
-        private final List<byte[]> contents;
+        private final List<ContentDigest> digests;
 
         /**
          * Constructor without arguments.
          */
         CollectorExecutionContext() {
-            contents = new ArrayList<>();
+            digests = new ArrayList<>();
         }
 
         /**
@@ -154,8 +156,7 @@ public class GenerateCacheKeyByWriteToFiles<T extends IData>
         }
 
         /**
-         * This is the only method in that interface that is used.
-         * It will just add the byte array to a list.
+         * Adds the digest of the byte array to the list.
          *
          * @param content    byte array with the data
          * @param workingDir working directory to write to
@@ -166,7 +167,24 @@ public class GenerateCacheKeyByWriteToFiles<T extends IData>
                 final byte[] content,
                 final String workingDir,
                 final String fileName) {
-            contents.add(content);
+            digests.add(ContentDigest.of(content));
+        }
+
+        /**
+         * Adds the digest of the file to the list.
+         * The file is streamed and not read into memory.
+         *
+         * @param source     file on the host
+         * @param workingDir working directory to write to
+         * @param fileName   filename in the working directory
+         * @throws IOException exception on reading the file
+         */
+        @Override
+        public void writeToFile(
+                final File source,
+                final String workingDir,
+                final String fileName) throws IOException {
+            digests.add(ContentDigest.of(source));
         }
     }
 }
@@ -0,0 +1,58 @@
+package org.n52.gfz.riesgos.cache.hash;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * Hash functions that can be used to compute the cache keys.
+ */
+public enum HashAlgorithm {
+
+    /**
+     * Cryptographic hash with 256 bits.
+     */
+    SHA_256(Hashing.sha256()),
+
+    /**
+     * Fast non cryptographic hash with 128 bits.
+     * Only useful if nobody can choose inputs to provoke collisions.
+     */
+    MURMUR3_128(Hashing.murmur3_128());
+
+    /**
+     * Hash function to use.
+     */
+    private final HashFunction hashFunction;
+
+    /**
+     *
+     * @param aHashFunction hash function to use
+     */
+    HashAlgorithm(final HashFunction aHashFunction) {
+        this.hashFunction = aHashFunction;
+    }
+
+    /**
+     *
+     * @return hash function
+     */
+    public HashFunction getHashFunction() {
+        return hashFunction;
+    }
+}
@@ -16,7 +16,7 @@
 
 package org.n52.gfz.riesgos.cache.hash;
 
-import org.n52.gfz.riesgos.cache.dockerimagehandling.DockerImageIdLookup;
+import org.n52.gfz.riesgos.cache.dockerimagehandling.DockerImageIdLookupSingleton;
 import org.n52.gfz.riesgos.cache.wpsversionhandling.StaticWpsVersionHandler;
 import org.n52.gfz.riesgos.configuration.IConfiguration;
 import org.n52.wps.io.data.IData;
@@ -32,11 +32,13 @@ public enum HasherSingleton implements IHasher {
 
     /**
      * Singleton implementation.
-     * Cares about the docker image ids.
+     * Cares about the docker image ids (that are cached for a short time)
+     * and uses sha256.
      */
-    INSTANCE(new HasherImpl(
-            new DockerImageIdLookup(),
-            new StaticWpsVersionHandler()));
+    INSTANCE(new StreamingHasherImpl(
+            DockerImageIdLookupSingleton.INSTANCE,
+            new StaticWpsVersionHandler(),
+            HashAlgorithm.SHA_256));
 
     /**
      * Inner hasher instance.
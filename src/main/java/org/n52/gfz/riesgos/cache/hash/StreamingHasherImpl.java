@@ -0,0 +1,192 @@
+package org.n52.gfz.riesgos.cache.hash;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import com.google.common.hash.Funnels;
+import com.google.common.hash.Hasher;
+import org.n52.gfz.riesgos.cache.CacheKeyOutputStream;
+import org.n52.gfz.riesgos.cache.IInputParameterCacheKey;
+import org.n52.gfz.riesgos.cache.dockerimagehandling.IDockerImageIdLookup;
+import org.n52.gfz.riesgos.cache.inputparametercachekey.InputParameterCacheKeyByException;
+import org.n52.gfz.riesgos.cache.wpsversionhandling.IWpsVersionHandler;
+import org.n52.gfz.riesgos.configuration.IConfiguration;
+import org.n52.gfz.riesgos.configuration.IInputParameter;
+import org.n52.wps.io.data.IData;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of the hasher that writes a canonical form of the
+ * configuration, the input data and the versions directly into the hash
+ * function (without a serialized copy of the whole key in memory).
+ *
+ * Every call uses its own hasher, so it can be used from many threads
+ * at the same time.
+ * The canonical form starts with a version, which must be increased
+ * whenever the form changes.
+ */
+public class StreamingHasherImpl implements IHasher {
+
+    /**
+     * Text at the start of the canonical form.
+     */
+    private static final String KEY_TYPE = "gfz-riesgos-cache-key";
+
+    /**
+     * Version of the canonical form.
+     * Version 2 writes the digests of the inputs instead of the contents.
+     * Version 3 only writes the requested outputs that are not read
+     * on every run.
+     */
+    private static final int KEY_VERSION = 3;
+
+    /**
+     * Lookup function for the image id and the docker version.
+     */
+    private final IDockerImageIdLookup imageIdLookup;
+    /**
+     * Lookup function for the wps and repository version.
+     */
+    private final IWpsVersionHandler wpsVersionHandler;
+    /**
+     * Hash function to use.
+     */
+    private final HashAlgorithm algorithm;
+
+    /**
+     * Constructor with some handlers for docker images and server versions
+     * and the hash function to use.
+     * @param aImageIdLookup handler for asking for real image ids
+     * @param aWpsVersionHandler handler for asking for versions
+     * @param aAlgorithm hash function to use
+     */
+    public StreamingHasherImpl(
+            final IDockerImageIdLookup aImageIdLookup,
+            final IWpsVersionHandler aWpsVersionHandler,
+            final HashAlgorithm aAlgorithm) {
+        this.imageIdLookup = aImageIdLookup;
+        this.wpsVersionHandler = aWpsVersionHandler;
+        this.algorithm = aAlgorithm;
+    }
+
+    /**
+     * Creates a hash from the configuration and the input data.
+     * @param configuration configuration used for the process
+     * @param inputData input data for the process
+     * @param requestedParameters output parameters that the user requested
+     * @return hash (as hex string) for the overall input environment
+     * and the output handling
+     */
+    @Override
+    public String hash(
+            final IConfiguration configuration,
+            final Map<String, List<IData>> inputData,
+            final Set<String> requestedParameters) {
+
+        final Hasher hasher = algorithm.getHashFunction().newHasher();
+        try (CacheKeyOutputStream output = new CacheKeyOutputStream(
+                Funnels.asOutputStream(hasher))) {
+            output.writeString(KEY_TYPE);
+            output.writeInt(KEY_VERSION);
+
+            output.writeString(configuration.getFullQualifiedIdentifier());
+            output.writeString(
+                    imageIdLookup.lookUpImageId(configuration.getImageId()));
+            // abstract does not matter for the caching
+            output.writeString(configuration.getWorkingDirectory());
+            output.writeStrings(configuration.getCommandToExecute());
+            output.writeStrings(configuration.getDefaultCommandLineFlags());
+
+            // the handlers and the output parameters have no canonical form
+            output.writeSerializable(
+                    configuration.getExitValueHandler().orElse(null));
+            output.writeSerializable(
+                    configuration.getStderrHandler().orElse(null));
+            output.writeSerializable(
+                    configuration.getStdoutHandler().orElse(null));
+            output.writeSerializable(
+                    new ArrayList<>(configuration.getOutputIdentifiers()));
+
+            // all the other outputs are read on every run
+            // so a run serves requests for any subset of them
+            final List<String> outputsReadOnlyIfRequested =
+                    new ArrayList<>(
+                            configuration.getOutputsReadOnlyIfRequested());
+            Collections.sort(outputsReadOnlyIfRequested);
+            output.writeStrings(outputsReadOnlyIfRequested);
+            final List<String> sortedRequestedParameters =
+                    outputsReadOnlyIfRequested.stream()
+                            .filter(requestedParameters::contains)
+                            .collect(Collectors.toList());
+            output.writeStrings(sortedRequestedParameters);
+
+            // in the order of the configuration
+            // (important for the command line arguments)
+            final List<IInputParameter> inputParameters =
+                    configuration.getInputIdentifiers();
+            output.writeInt(inputParameters.size());
+            for (final IInputParameter inputParameter : inputParameters) {
+                output.writeString(inputParameter.getIdentifier());
+                createInputCacheKey(inputParameter, inputData)
+                        .writeTo(output);
+            }
+
+            output.writeString(imageIdLookup.getDockerVersion());
+            output.writeString(wpsVersionHandler.getWpsVersion());
+            output.writeString(wpsVersionHandler.getRepositoryVersion());
+        } catch (final IOException ioException) {
+            throw new RuntimeException(ioException);
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Creates the key for a single input.
+     * @param inputParameter input parameter
+     * @param inputData input data for the process
+     * @return key for the input (or for the exception on creating it)
+     */
+    private static IInputParameterCacheKey createInputCacheKey(
+            final IInputParameter inputParameter,
+            final Map<String, List<IData>> inputData) {
+        try {
+            final List<IData> iDataList =
+                    inputData.get(inputParameter.getIdentifier());
+            final IData iData = iDataList.get(0);
+
+            @SuppressWarnings("unchecked")
+            final IInputParameterCacheKey cacheKey =
+                    inputParameter
+                            .getFunctionToGenerateCacheKey()
+                            .generateCacheKey(iData);
+            return cacheKey;
+        } catch (final Exception exception) {
+            return new InputParameterCacheKeyByException(
+                    exception,
+                    inputParameter
+                            .getPathToWriteToOrReadFromFile()
+                            .orElse(null),
+                    inputParameter.isOptional());
+        }
+    }
+}
@@ -19,22 +19,57 @@ package org.n52.gfz.riesgos.cache.impl;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
 import org.n52.gfz.riesgos.cache.ICacher;
 import org.n52.gfz.riesgos.cache.IDataRecreator;
+import org.n52.gfz.riesgos.cache.blob.Blob;
+import org.n52.gfz.riesgos.cache.blob.BlobStoreSingleton;
+import org.n52.gfz.riesgos.cache.blob.IBlobRecreator;
+import org.n52.gfz.riesgos.cache.blob.IBlobStore;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of the caching mechanism.
  *
+ * The entries are weighed by the size that their recreators keep
+ * in memory, so that one large result counts as much as many
+ * small ones.
+ *
+ * The content of the outputs is shared by its digest with all the
+ * other entries (also of other processes), so that equal
+ * content is kept in memory only once.
+ * The weight still counts the full content of each entry, so the
+ * maximum size is an upper bound for the memory that is used.
+ *
+ * Content that is larger than the compression threshold is kept
+ * compressed. It is uncompressed once it is recreated (and the
+ * recreated data is kept as long as there is enough memory).
  */
-public class CacheImpl implements ICacher {
+public class CacheImpl implements ICacher, ICacheMetrics {
+
+    /**
+     * Default maximum size of all the entries in bytes.
+     */
+    public static final long DEFAULT_MAX_SIZE_IN_BYTES = 256L * 1024L * 1024L;
+
+    /**
+     * Default minimum size of the content in bytes to keep it compressed.
+     */
+    public static final long DEFAULT_COMPRESSION_THRESHOLD_IN_BYTES =
+            64L * 1024L;
 
     /**
-     * Maximum size of the cache map.
+     * Process identifier for entries that are inserted
+     * without one.
      */
-    private static final long MAX_SIZE = 50L;
+    private static final String UNKNOWN_PROCESS = "unknown";
 
     /**
      * Maximum duration to store the
@@ -42,18 +77,87 @@ public class CacheImpl implements ICacher {
      */
     private static final long MAX_DURATION_DAYS = 60;
 
+    /**
+     * Maximum size of all the entries in bytes.
+     */
+    private final long maxSizeInBytes;
+
+    /**
+     * Minimum size of the content in bytes to keep it compressed
+     * (0 to keep all the content uncompressed).
+     */
+    private final long compressionThresholdInBytes;
+
     /**
      * Map to save the data.
      */
-    private final Cache<String, Map<String, IDataRecreator>> cache;
+    private final Cache<String, CacheEntry> cache;
+
+    /**
+     * Counters for each process identifier.
+     */
+    private final ConcurrentMap<String, Counters> counters;
+
+    /**
+     * Store to share equal content between the entries.
+     */
+    private final IBlobStore blobStore;
 
 
     /**
      * Constructor without parameters.
+     * It uses the default maximum size.
      */
     public CacheImpl() {
+        this(DEFAULT_MAX_SIZE_IN_BYTES);
+    }
+
+    /**
+     * Constructor with the maximum size of all the entries.
+     * @param aMaxSizeInBytes maximum size of all the entries in bytes
+     */
+    public CacheImpl(final long aMaxSizeInBytes) {
+        this(aMaxSizeInBytes, BlobStoreSingleton.INSTANCE);
+    }
+
+    /**
+     * Constructor with the maximum size of all the entries and the
+     * store to share equal content.
+     * @param aMaxSizeInBytes maximum size of all the entries in bytes
+     * @param aBlobStore store to share equal content between the entries
+     */
+    public CacheImpl(
+            final long aMaxSizeInBytes,
+            final IBlobStore aBlobStore) {
+        this(aMaxSizeInBytes, DEFAULT_COMPRESSION_THRESHOLD_IN_BYTES,
+                aBlobStore);
+    }
+
+    /**
+     * Constructor with the maximum size of all the entries, the minimum
+     * size of the content to keep it compressed and the store to share
+     * equal content.
+     * @param aMaxSizeInBytes maximum size of all the entries in bytes
+     * @param aCompressionThresholdInBytes minimum size of the content in
+     *                                     bytes to keep it compressed
+     *                                     (0 to never compress)
+     * @param aBlobStore store to share equal content between the entries
+     */
+    public CacheImpl(
+            final long aMaxSizeInBytes,
+            final long aCompressionThresholdInBytes,
+            final IBlobStore aBlobStore) {
+        maxSizeInBytes = aMaxSizeInBytes;
+        compressionThresholdInBytes = aCompressionThresholdInBytes;
+        blobStore = aBlobStore;
+        counters = new ConcurrentHashMap<>();
         cache = CacheBuilder.newBuilder()
-                .maximumSize(MAX_SIZE)
+                // the weight limit is split between the segments,
+                // so a single segment is needed for large entries
+                .concurrencyLevel(1)
+                .maximumWeight(aMaxSizeInBytes)
+                .weigher((String hash, CacheEntry entry) -> entry.getWeight())
+                .removalListener(this::onRemoval)
                 .expireAfterAccess(MAX_DURATION_DAYS, TimeUnit.DAYS)
                 .build();
     }
@@ -70,10 +174,30 @@ public class CacheImpl implements ICacher {
     @Override
     public Optional<Map<String, IDataRecreator>> getCachedResult(
             final String hash) {
+        return getCachedResult(null, hash);
+    }
 
-
-        if (cache.asMap().containsKey(hash)) {
-            return Optional.ofNullable(cache.getIfPresent(hash));
+    /**
+     * This is the method to ask the caching system about if it has data in it.
+     * A hit is counted for the process that inserted the entry,
+     * a miss for the process that asks.
+     *
+     * @param processIdentifier identifier of the process (may be null)
+     * @param hash hash that is computed from the configuration and
+     *             the input data
+     * @return optional map with output data
+     */
+    @Override
+    public Optional<Map<String, IDataRecreator>> getCachedResult(
+            final String processIdentifier,
+            final String hash) {
+        final CacheEntry entry = cache.getIfPresent(hash);
+        if (entry != null) {
+            getCounters(entry.getProcessIdentifier()).hits.incrementAndGet();
+            return Optional.of(entry.getOutputData());
+        }
+        if (processIdentifier != null) {
+            getCounters(processIdentifier).misses.incrementAndGet();
         }
         return Optional.empty();
     }
@@ -90,9 +214,218 @@ public class CacheImpl implements ICacher {
     public void insertResultIntoCache(
             final String hash,
             final Map<String, IDataRecreator> outputData) {
+        insertResultIntoCache(UNKNOWN_PROCESS, hash, outputData);
+    }
 
-        cache.put(hash, outputData);
+    /**
+     * This is the method to call once the algorithm is done and the
+     * result should be included in the caching system.
+     *
+     * @param processIdentifier identifier of the process
+     * @param hash hash that is computed from the configuration and the
+     *             input data
+     * @param outputData    resulting data to store
+     */
+    @Override
+    public void insertResultIntoCache(
+            final String processIdentifier,
+            final String hash,
+            final Map<String, IDataRecreator> outputData) {
+        final CacheEntry entry = new CacheEntry(
+                processIdentifier, acquireBlobs(outputData));
+        getCounters(processIdentifier).size.addAndGet(entry.getWeight());
+        cache.put(hash, entry);
     }
 
+    /**
+     *
+     * @return size of all the entries in bytes
+     */
+    @Override
+    public long getSizeInBytes() {
+        return counters.values().stream()
+                .mapToLong(counter -> counter.size.get())
+                .sum();
+    }
 
+    /**
+     *
+     * @return maximum size of all the entries in bytes
+     */
+    @Override
+    public long getMaxSizeInBytes() {
+        return maxSizeInBytes;
+    }
+
+    /**
+     *
+     * @return minimum size of the content in bytes to keep it compressed
+     * (0 if the content is never compressed)
+     */
+    public long getCompressionThresholdInBytes() {
+        return compressionThresholdInBytes;
+    }
+
+    /**
+     *
+     * @return statistics for each process identifier
+     */
+    @Override
+    public Map<String, CacheStatistics> getStatistics() {
+        return counters.entrySet().stream().collect(Collectors.toMap(
+                Map.Entry::getKey,
+                entry -> entry.getValue().toStatistics()
+        ));
+    }
+
+    /**
+     * Replaces the blobs of the recreators with the ones from the
+     * store that have the same content.
+     * Large content is compressed before.
+     * @param outputData output data
+     * @return output data with the shared blobs
+     */
+    private Map<String, IDataRecreator> acquireBlobs(
+            final Map<String, IDataRecreator> outputData) {
+        final Map<String, IDataRecreator> result = new HashMap<>();
+        for (final Map.Entry<String, IDataRecreator> output
+                : outputData.entrySet()) {
+            IDataRecreator recreator = output.getValue();
+            if (recreator instanceof IBlobRecreator) {
+                final IBlobRecreator blobRecreator =
+                        (IBlobRecreator) recreator;
+                Blob blob = blobRecreator.getBlob();
+                if (compressionThresholdInBytes > 0
+                        && blob.getLength() >= compressionThresholdInBytes) {
+                    blob = blob.compress();
+                }
+                recreator = blobRecreator.withBlob(blobStore.acquire(blob));
+            }
+            result.put(output.getKey(), recreator);
+        }
+        return result;
+    }
+
+    /**
+     * Updates the counters once an entry is removed
+     * and releases its blobs.
+     * @param notification notification about the removed entry
+     */
+    private void onRemoval(
+            final RemovalNotification<String, CacheEntry> notification) {
+        final CacheEntry entry = notification.getValue();
+        if (entry == null) {
+            return;
+        }
+        final Counters counter = getCounters(entry.getProcessIdentifier());
+        counter.size.addAndGet(-entry.getWeight());
+        if (notification.wasEvicted()) {
+            counter.evictions.incrementAndGet();
+        }
+        for (final IDataRecreator recreator
+                : entry.getOutputData().values()) {
+            if (recreator instanceof IBlobRecreator) {
+                blobStore.release(((IBlobRecreator) recreator).getBlob());
+            }
+        }
+    }
+
+    /**
+     *
+     * @param processIdentifier identifier of the process
+     * @return counters of the process
+     */
+    private Counters getCounters(final String processIdentifier) {
+        return counters.computeIfAbsent(
+                processIdentifier, key -> new Counters());
+    }
+
+    /**
+     * Entry of the cache with the process that inserted it.
+     */
+    private static final class CacheEntry {
+        /**
+         * Identifier of the process.
+         */
+        private final String processIdentifier;
+        /**
+         * Output data.
+         */
+        private final Map<String, IDataRecreator> outputData;
+        /**
+         * Size of the output data in bytes.
+         */
+        private final int weight;
+
+        /**
+         *
+         * @param aProcessIdentifier identifier of the process
+         * @param aOutputData output data
+         */
+        private CacheEntry(
+                final String aProcessIdentifier,
+                final Map<String, IDataRecreator> aOutputData) {
+            this.processIdentifier = aProcessIdentifier;
+            this.outputData = aOutputData;
+            final long size = aOutputData.values().stream()
+                    .mapToLong(IDataRecreator::getSizeInBytes)
+                    .sum();
+            this.weight = (int) Math.min(Integer.MAX_VALUE, size);
+        }
+
+        /**
+         *
+         * @return identifier of the process
+         */
+        private String getProcessIdentifier() {
+            return processIdentifier;
+        }
+
+        /**
+         *
+         * @return output data
+         */
+        private Map<String, IDataRecreator> getOutputData() {
+            return outputData;
+        }
+
+        /**
+         *
+         * @return size of the output data in bytes
+         */
+        private int getWeight() {
+            return weight;
+        }
+    }
+
+    /**
+     * Counters for one process.
+     */
+    private static final class Counters {
+        /**
+         * Number of hits.
+         */
+        private final AtomicLong hits = new AtomicLong();
+        /**
+         * Number of misses.
+         */
+        private final AtomicLong misses = new AtomicLong();
+        /**
+         * Number of evictions.
+         */
+        private final AtomicLong evictions = new AtomicLong();
+        /**
+         * Size of the entries in bytes.
+         */
+        private final AtomicLong size = new AtomicLong();
+
+        /**
+         *
+         * @return statistics with the current values
+         */
+        private CacheStatistics toStatistics() {
+            return new CacheStatistics(
+                    hits.get(), misses.get(), evictions.get(), size.get());
+        }
+    }
 }
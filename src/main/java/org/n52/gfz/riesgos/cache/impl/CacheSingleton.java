@@ -18,33 +18,284 @@ package org.n52.gfz.riesgos.cache.impl;
 
 import org.n52.gfz.riesgos.cache.ICacher;
 import org.n52.gfz.riesgos.cache.IDataRecreator;
+import org.n52.gfz.riesgos.cache.blob.BlobStoreSingleton;
+import org.n52.gfz.riesgos.cache.distributed.CachePeerServer;
+import org.n52.gfz.riesgos.cache.distributed.DistributedCacheImpl;
+import org.n52.gfz.riesgos.cache.distributed.HttpCachePeer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
  * This is the singleton implementation to
  * store all the data of the cache in on
  * on memory "database".
+ * The metrics of the cache in memory are registered as MXBean
+ * with the name org.n52.gfz.riesgos:type=Cache.
+ * If other servers are configured as peers, the results are shared
+ * with them.
  */
-public enum CacheSingleton implements ICacher {
+public enum CacheSingleton implements ICacher, ICacheMetrics {
 
     /**
      * Singleton instance.
      */
     INSTANCE;
 
+    /**
+     * Name for the registration of the metrics.
+     */
+    private static final String METRICS_NAME =
+            "org.n52.gfz.riesgos:type=Cache";
+
+    /**
+     * The cache in memory.
+     * It is kept if only the cache on disk is changed.
+     */
+    private volatile CacheImpl memoryCacher;
+
+    /**
+     * The cache of this server (in memory and maybe on disk).
+     */
+    private volatile ICacher localCacher;
+
     /**
      * The cache implementation that is used for all the work.
      */
-    private final ICacher innerCacher;
+    private volatile ICacher innerCacher;
+
+    /**
+     * Folder of the cache on disk (null if there is none).
+     */
+    private File diskFolder;
+
+    /**
+     * Maximum size of the cache on disk in bytes.
+     */
+    private long diskMaxSizeInBytes;
+
+    /**
+     * Address of this server for the other servers (null if the
+     * results are not shared).
+     */
+    private String peerAddress;
+
+    /**
+     * Addresses of all the servers that share the results.
+     */
+    private List<String> peerAddresses = Collections.emptyList();
+
+    /**
+     * Shared secret of the servers (null if there is none).
+     */
+    private String peerSecret;
 
+    /**
+     * Server to give the other servers access to the local cache
+     * (null if the results are not shared).
+     */
+    private CachePeerServer peerServer;
 
     /**
      * Constructor for assigning the internal cacher.
      */
     CacheSingleton() {
-        innerCacher = new CacheImpl();
+        memoryCacher = new CacheImpl();
+        localCacher = memoryCacher;
+        innerCacher = memoryCacher;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    this, new ObjectName(METRICS_NAME));
+        } catch (final JMException exception) {
+            final Logger logger = LoggerFactory.getLogger(
+                    CacheSingleton.class);
+            logger.warn("Can't register the metrics for the cache",
+                    exception);
+        }
+    }
+
+    /**
+     * Sets the size of the cache in memory and the cache on disk
+     * that is used behind it.
+     * The cache in memory is only replaced (and so emptied) if
+     * its size or its compression threshold changes.
+     * Nothing changes if all the values are the same as before.
+     * @param memoryMaxSizeInBytes maximum size of all the entries
+     *                             in memory
+     * @param compressionThresholdInBytes minimum size of the content
+     *                                    in bytes to keep it compressed
+     *                                    in memory (0 to never compress)
+     * @param folder folder to store the entries on disk in (null to use
+     *               only the cache in memory)
+     * @param maxSizeInBytes maximum size of all the entries on disk
+     */
+    public synchronized void configure(
+            final long memoryMaxSizeInBytes,
+            final long compressionThresholdInBytes,
+            final File folder,
+            final long maxSizeInBytes) {
+        final boolean memoryChanged =
+                memoryMaxSizeInBytes != memoryCacher.getMaxSizeInBytes()
+                || compressionThresholdInBytes
+                != memoryCacher.getCompressionThresholdInBytes();
+        if (!memoryChanged
+                && Objects.equals(folder, diskFolder)
+                && maxSizeInBytes == diskMaxSizeInBytes) {
+            return;
+        }
+        if (memoryChanged) {
+            memoryCacher = new CacheImpl(
+                    memoryMaxSizeInBytes,
+                    compressionThresholdInBytes,
+                    BlobStoreSingleton.INSTANCE);
+        }
+        diskFolder = folder;
+        diskMaxSizeInBytes = maxSizeInBytes;
+        if (folder == null) {
+            localCacher = memoryCacher;
+        } else {
+            localCacher = new TieredCacheImpl(
+                    memoryCacher,
+                    new DiskCacheImpl(folder, maxSizeInBytes));
+        }
+        updateInnerCacher();
+    }
+
+    /**
+     * Sets the servers that share their results.
+     * Each result is stored by only one of them, the others ask
+     * this server for it.
+     * Nothing changes if all the values are the same as before.
+     * @param address address (host:port) of this server for the other
+     *                servers (null or empty to not share the results);
+     *                the server answers their requests only on this
+     *                host and port
+     * @param addresses addresses (host:port) of all the servers
+     *                  that share the results
+     * @param secret shared secret of all the servers (the results are
+     *               not shared without it)
+     */
+    public synchronized void configurePeers(
+            final String address,
+            final List<String> addresses,
+            final String secret) {
+        final String newAddress;
+        if (address == null || address.trim().isEmpty()) {
+            newAddress = null;
+        } else {
+            newAddress = address.trim();
+        }
+        final String newSecret;
+        if (secret == null || secret.trim().isEmpty()) {
+            newSecret = null;
+        } else {
+            newSecret = secret.trim();
+        }
+        if (Objects.equals(newAddress, peerAddress)
+                && addresses.equals(peerAddresses)
+                && Objects.equals(newSecret, peerSecret)) {
+            return;
+        }
+        if (peerServer != null) {
+            peerServer.stop();
+            peerServer = null;
+        }
+        peerAddress = newAddress;
+        peerAddresses = new ArrayList<>(addresses);
+        peerSecret = newSecret;
+        if (peerAddress != null && peerSecret == null) {
+            LoggerFactory.getLogger(CacheSingleton.class).warn(
+                    "There is no secret for the cache peers, "
+                    + "the results are not shared");
+            peerAddress = null;
+        }
+        if (peerAddress != null) {
+            try {
+                peerServer = new CachePeerServer(
+                        new InetSocketAddress(
+                                getHost(peerAddress), getPort(peerAddress)),
+                        localCacher,
+                        peerSecret);
+                peerServer.start();
+            } catch (final IOException
+                    | IllegalArgumentException exception) {
+                LoggerFactory.getLogger(CacheSingleton.class).warn(
+                        "Can't answer the cache requests of the other "
+                        + "servers on " + peerAddress
+                        + ", the results are not shared", exception);
+                peerAddress = null;
+            }
+        }
+        updateInnerCacher();
+    }
+
+    /**
+     * Sets the cache that is used for all the work after the
+     * local cache or the peers changed.
+     */
+    private void updateInnerCacher() {
+        if (peerServer != null) {
+            peerServer.setCacher(localCacher);
+        }
+        if (peerAddress == null) {
+            innerCacher = localCacher;
+        } else {
+            final String secret = peerSecret;
+            innerCacher = new DistributedCacheImpl(
+                    peerAddress,
+                    peerAddresses,
+                    localCacher,
+                    new CacheImpl(
+                            DistributedCacheImpl
+                                    .DEFAULT_NEAR_CACHE_SIZE_IN_BYTES,
+                            memoryCacher.getCompressionThresholdInBytes(),
+                            BlobStoreSingleton.INSTANCE),
+                    peer -> new HttpCachePeer(peer, secret));
+        }
+    }
+
+    /**
+     *
+     * @param address address (host:port)
+     * @return host of the address (without the brackets of ipv6)
+     */
+    private static String getHost(final String address) {
+        final int index = address.lastIndexOf(':');
+        if (index <= 0) {
+            throw new IllegalArgumentException(
+                    "No host in the address " + address);
+        }
+        final String host = address.substring(0, index);
+        if (host.startsWith("[") && host.endsWith("]")) {
+            return host.substring(1, host.length() - 1);
+        }
+        return host;
+    }
+
+    /**
+     *
+     * @param address address (host:port)
+     * @return port of the address
+     */
+    private static int getPort(final String address) {
+        final int index = address.lastIndexOf(':');
+        if (index < 0) {
+            throw new IllegalArgumentException(
+                    "No port in the address " + address);
+        }
+        return Integer.parseInt(address.substring(index + 1));
     }
 
     /**
@@ -78,4 +329,63 @@ public enum CacheSingleton implements ICacher {
         innerCacher.insertResultIntoCache(hash, outputData);
 
     }
+
+    /**
+     * This is the method to ask the caching system about if it has data in it.
+     *
+     * @param processIdentifier identifier of the process
+     * @param hash hash that takes the configuration and the input data into
+     *             account
+     * @return optional map with output data
+     */
+    @Override
+    public Optional<Map<String, IDataRecreator>> getCachedResult(
+            final String processIdentifier,
+            final String hash) {
+        return innerCacher.getCachedResult(processIdentifier, hash);
+    }
+
+    /**
+     * This is the method to call once the algorithm is done and the
+     * result should be included in the caching system.
+     *
+     * @param processIdentifier identifier of the process
+     * @param hash hash that takes the configuration and the input data
+     *             into account
+     * @param outputData    resulting data to store
+     */
+    @Override
+    public void insertResultIntoCache(
+            final String processIdentifier,
+            final String hash,
+            final Map<String, IDataRecreator> outputData) {
+        innerCacher.insertResultIntoCache(processIdentifier, hash, outputData);
+    }
+
+    /**
+     *
+     * @return size of all the entries in memory in bytes
+     */
+    @Override
+    public long getSizeInBytes() {
+        return memoryCacher.getSizeInBytes();
+    }
+
+    /**
+     *
+     * @return maximum size of all the entries in memory in bytes
+     */
+    @Override
+    public long getMaxSizeInBytes() {
+        return memoryCacher.getMaxSizeInBytes();
+    }
+
+    /**
+     *
+     * @return statistics of the cache in memory for each process identifier
+     */
+    @Override
+    public Map<String, CacheStatistics> getStatistics() {
+        return memoryCacher.getStatistics();
+    }
 }
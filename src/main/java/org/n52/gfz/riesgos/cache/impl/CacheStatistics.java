@@ -0,0 +1,98 @@
+package org.n52.gfz.riesgos.cache.impl;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Statistics of the cache for one process.
+ */
+public class CacheStatistics {
+
+    /**
+     * Number of requests that could be served from the cache.
+     */
+    private final long hitCount;
+    /**
+     * Number of requests that could not be served from the cache.
+     */
+    private final long missCount;
+    /**
+     * Number of entries that were removed because of the size limit
+     * or because they expired.
+     */
+    private final long evictionCount;
+    /**
+     * Size of the entries of the process in bytes.
+     */
+    private final long sizeInBytes;
+
+    /**
+     * Constructor with all the values.
+     * @param aHitCount number of requests that could be served
+     *                  from the cache
+     * @param aMissCount number of requests that could not be served
+     *                   from the cache
+     * @param aEvictionCount number of entries that were removed
+     * @param aSizeInBytes size of the entries of the process in bytes
+     */
+    @ConstructorProperties({
+            "hitCount", "missCount", "evictionCount", "sizeInBytes"})
+    public CacheStatistics(
+            final long aHitCount,
+            final long aMissCount,
+            final long aEvictionCount,
+            final long aSizeInBytes) {
+        this.hitCount = aHitCount;
+        this.missCount = aMissCount;
+        this.evictionCount = aEvictionCount;
+        this.sizeInBytes = aSizeInBytes;
+    }
+
+    /**
+     *
+     * @return number of requests that could be served from the cache
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     *
+     * @return number of requests that could not be served from the cache
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     *
+     * @return number of entries that were removed because of the size
+     * limit or because they expired
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     *
+     * @return size of the entries of the process in bytes
+     */
+    public long getSizeInBytes() {
+        return sizeInBytes;
+    }
+}
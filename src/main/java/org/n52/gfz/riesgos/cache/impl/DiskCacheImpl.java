@@ -0,0 +1,777 @@
+package org.n52.gfz.riesgos.cache.impl;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.gfz.riesgos.cache.ICacher;
+import org.n52.gfz.riesgos.cache.IDataRecreator;
+import org.n52.gfz.riesgos.cache.blob.Blob;
+import org.n52.gfz.riesgos.cache.blob.IBlobRecreator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Implementation of the caching mechanism that stores the serialized
+ * recreators on disk, so that they survive a restart of the server.
+ *
+ * Each result is stored in its own file that is named by the hash
+ * (in a sub folder with the first two characters of the hash).
+ * The files are written to a temporary file first and then moved
+ * into place, so that a crash never leaves a half written entry.
+ * The least recently used entries are removed once the total size
+ * of all the files is over the limit. The last access is stored as
+ * the modification time of the files, so that the order can be
+ * rebuilt on startup.
+ *
+ * The content of recreators that hold a blob is not written into
+ * the entries, but into a blob file that is named by the digest of
+ * the content (in the blobs folder). Entries with the same content
+ * share the blob file. The entries start with the list of the digests
+ * they refer to, so that the references of the blob files can be
+ * counted again on startup. A blob file is removed with the last
+ * entry that refers to it.
+ */
+public class DiskCacheImpl implements ICacher {
+
+    /**
+     * Ending of the files with the entries.
+     */
+    private static final String ENTRY_SUFFIX = ".entry";
+
+    /**
+     * Ending of the files that are not completely written yet.
+     */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Ending of the files with the content of the blobs.
+     */
+    private static final String BLOB_SUFFIX = ".blob";
+
+    /**
+     * Name of the folder with the blob files.
+     */
+    private static final String BLOB_FOLDER = "blobs";
+
+    /**
+     * Number of characters of the hash that are used for the sub folders.
+     */
+    private static final int PREFIX_LENGTH = 2;
+
+    /**
+     * Pattern for the hashes that can be used as file names.
+     */
+    private static final Pattern VALID_HASH =
+            Pattern.compile("[0-9a-zA-Z_-]{" + (PREFIX_LENGTH + 1) + ",}");
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(DiskCacheImpl.class);
+
+    /**
+     * Folder to store the entries in.
+     */
+    private final File folder;
+
+    /**
+     * Maximum size of all the entries in bytes.
+     */
+    private final long maxSizeInBytes;
+
+    /**
+     * Entries by their hash in the order of the last access
+     * (the least recently used comes first).
+     */
+    private final LinkedHashMap<String, IndexEntry> index;
+
+    /**
+     * Blob files by their digest.
+     * Guarded by the lock of the index.
+     */
+    private final Map<String, BlobFile> blobs;
+
+    /**
+     * Size of all the entries and blob files in bytes.
+     */
+    private long sizeInBytes;
+
+    /**
+     * Creates the cache and rebuilds the index from the files in the folder.
+     * @param aFolder folder to store the entries in
+     * @param aMaxSizeInBytes maximum size of all the entries in bytes
+     */
+    public DiskCacheImpl(final File aFolder, final long aMaxSizeInBytes) {
+        this.folder = aFolder;
+        this.maxSizeInBytes = aMaxSizeInBytes;
+        this.index = new LinkedHashMap<>(16, 0.75f, true);
+        this.blobs = new HashMap<>();
+        this.sizeInBytes = 0L;
+        rebuildIndex();
+    }
+
+    /**
+     * This is the method to ask the caching system about if it has data in it.
+     * If there is no data for in the caching system, than it will just give
+     * back Optional.empty
+     *
+     * @param hash hash that is computed from the configuration and
+     *             the input data
+     * @return optional map with output data
+     */
+    @Override
+    public Optional<Map<String, IDataRecreator>> getCachedResult(
+            final String hash) {
+        synchronized (index) {
+            // marks the entry as used
+            if (index.get(hash) == null) {
+                return Optional.empty();
+            }
+        }
+        final File entryFile = getEntryFile(hash);
+        try (ObjectInputStream in = new BlobResolvingInputStream(
+                new BufferedInputStream(
+                        Files.newInputStream(entryFile.toPath())))) {
+            // skips the list of the digests
+            in.readObject();
+            @SuppressWarnings("unchecked")
+            final Map<String, IDataRecreator> result =
+                    (Map<String, IDataRecreator>) in.readObject();
+            touch(entryFile);
+            return Optional.of(result);
+        } catch (final NoSuchFileException exception) {
+            // the entry was evicted while reading it, which is a normal miss
+            // (removing it again could remove a newer entry for the hash)
+            LOGGER.debug("Cache entry " + entryFile + " was removed",
+                    exception);
+            return Optional.empty();
+        } catch (final IOException | ClassNotFoundException
+                | ClassCastException exception) {
+            LOGGER.warn("Can't read the cache entry " + entryFile
+                    + ", it will be removed", exception);
+            remove(hash);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * This is the method to call once the algorithm is done and the
+     * result should be included in the caching system.
+     * Results that can't be serialized are not stored.
+     *
+     * @param hash hash that is computed from the configuration and the
+     *             input data
+     * @param outputData    resulting data to store
+     */
+    @Override
+    public void insertResultIntoCache(
+            final String hash,
+            final Map<String, IDataRecreator> outputData) {
+        if (!VALID_HASH.matcher(hash).matches()) {
+            LOGGER.warn("Can't use the hash '" + hash + "' as file name");
+            return;
+        }
+        final File entryFile = getEntryFile(hash);
+        final File tempFile = new File(entryFile.getParentFile(),
+                hash + "." + UUID.randomUUID() + TEMP_SUFFIX);
+        final Map<String, Blob> blobsOfEntry = getBlobs(outputData);
+        final List<String> acquired = new ArrayList<>();
+        boolean stored = false;
+        try {
+            Files.createDirectories(entryFile.getParentFile().toPath());
+            try (FileOutputStream fileOut = new FileOutputStream(tempFile);
+                 ObjectOutputStream out = new BlobReferencingOutputStream(
+                         new BufferedOutputStream(fileOut),
+                         blobsOfEntry.keySet())) {
+                out.writeObject(new ArrayList<>(blobsOfEntry.keySet()));
+                out.writeObject(new HashMap<>(outputData));
+                out.flush();
+                fileOut.getFD().sync();
+            }
+            final long size = tempFile.length();
+            final long sizeOfBlobs = blobsOfEntry.values().stream()
+                    .mapToLong(Blob::getLength)
+                    .sum();
+            if (size + sizeOfBlobs > maxSizeInBytes) {
+                LOGGER.info("The result for " + hash
+                        + " is too large for the cache on disk");
+                Files.delete(tempFile.toPath());
+                return;
+            }
+            acquireBlobFiles(blobsOfEntry.values(), acquired);
+            synchronized (index) {
+                moveIntoPlace(tempFile.toPath(), entryFile.toPath());
+                final IndexEntry oldEntry =
+                        index.put(hash, new IndexEntry(size, acquired));
+                stored = true;
+                sizeInBytes += size;
+                if (oldEntry != null) {
+                    sizeInBytes -= oldEntry.size;
+                    releaseBlobFiles(oldEntry.digests);
+                }
+                evict();
+            }
+        } catch (final IOException exception) {
+            LOGGER.warn("Can't write the result for " + hash
+                    + " into the cache on disk", exception);
+            if (!tempFile.delete() && tempFile.exists()) {
+                LOGGER.warn("Can't remove " + tempFile);
+            }
+        } finally {
+            if (!stored) {
+                synchronized (index) {
+                    releaseBlobFiles(acquired);
+                }
+            }
+        }
+    }
+
+    /**
+     *
+     * @return size of all the entries in bytes
+     */
+    public long getSizeInBytes() {
+        synchronized (index) {
+            return sizeInBytes;
+        }
+    }
+
+    /**
+     *
+     * @return number of the entries
+     */
+    public int getNumberOfEntries() {
+        synchronized (index) {
+            return index.size();
+        }
+    }
+
+    /**
+     *
+     * @return number of the blob files
+     */
+    public int getNumberOfBlobFiles() {
+        synchronized (index) {
+            return blobs.size();
+        }
+    }
+
+    /**
+     * Reads all the entries from the folder, ordered by their last access,
+     * and counts the references to the blob files.
+     * Files that are left from an unfinished write, entries that
+     * can't be read or that refer to missing blob files and blob files
+     * without references are removed.
+     */
+    private void rebuildIndex() {
+        final File[] subFolders = folder.listFiles(File::isDirectory);
+        if (subFolders == null) {
+            return;
+        }
+        final List<Path> entries = new ArrayList<>();
+        final List<Path> blobPaths = new ArrayList<>();
+        for (final File subFolder : subFolders) {
+            if (BLOB_FOLDER.equals(subFolder.getName())) {
+                final File[] blobFolders =
+                        subFolder.listFiles(File::isDirectory);
+                if (blobFolders != null) {
+                    for (final File blobFolder : blobFolders) {
+                        collectFiles(blobFolder, BLOB_SUFFIX, blobPaths);
+                    }
+                }
+            } else {
+                collectFiles(subFolder, ENTRY_SUFFIX, entries);
+            }
+        }
+        entries.sort(Comparator.comparingLong(
+                path -> path.toFile().lastModified()));
+        synchronized (index) {
+            for (final Path path : blobPaths) {
+                blobs.put(
+                        removeSuffix(path, BLOB_SUFFIX),
+                        new BlobFile(path.toFile().length(), 0));
+            }
+            for (final Path path : entries) {
+                final Optional<List<String>> digests = readDigests(path);
+                if (!digests.isPresent()
+                        || !blobs.keySet().containsAll(digests.get())) {
+                    LOGGER.warn("Can't use the cache entry " + path
+                            + ", it will be removed");
+                    deleteFile(path.toFile());
+                    continue;
+                }
+                for (final String digest : digests.get()) {
+                    blobs.get(digest).references++;
+                }
+                final long size = path.toFile().length();
+                index.put(
+                        removeSuffix(path, ENTRY_SUFFIX),
+                        new IndexEntry(size, digests.get()));
+                sizeInBytes += size;
+            }
+            final Iterator<Map.Entry<String, BlobFile>> iterator =
+                    blobs.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<String, BlobFile> blob = iterator.next();
+                if (blob.getValue().references == 0) {
+                    iterator.remove();
+                    deleteFile(getBlobFile(blob.getKey()));
+                } else {
+                    sizeInBytes += blob.getValue().size;
+                }
+            }
+            evict();
+            LOGGER.info("Found " + index.size() + " entries in the cache "
+                    + "folder " + folder);
+        }
+    }
+
+    /**
+     * Collects the files with the ending from the folder.
+     * Files that are left from an unfinished write are removed.
+     * @param subFolder folder to search in
+     * @param suffix ending of the files to collect
+     * @param files list to add the files to
+     */
+    private static void collectFiles(
+            final File subFolder,
+            final String suffix,
+            final List<Path> files) {
+        try (DirectoryStream<Path> stream =
+                     Files.newDirectoryStream(subFolder.toPath())) {
+            for (final Path path : stream) {
+                final String name = path.getFileName().toString();
+                if (name.endsWith(suffix)) {
+                    files.add(path);
+                } else if (name.endsWith(TEMP_SUFFIX)) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        } catch (final IOException exception) {
+            LOGGER.warn("Can't read the cache folder " + subFolder,
+                    exception);
+        }
+    }
+
+    /**
+     *
+     * @param path path of the file
+     * @param suffix ending of the file
+     * @return name of the file without the ending
+     */
+    private static String removeSuffix(final Path path, final String suffix) {
+        final String name = path.getFileName().toString();
+        return name.substring(0, name.length() - suffix.length());
+    }
+
+    /**
+     * Reads the digests of the blobs that the entry refers to.
+     * @param path path of the entry
+     * @return optional list of the digests
+     * (empty if the entry can't be read)
+     */
+    private static Optional<List<String>> readDigests(final Path path) {
+        try (ObjectInputStream in = new ObjectInputStream(
+                new BufferedInputStream(Files.newInputStream(path)))) {
+            final List<String> digests = new ArrayList<>();
+            for (final Object digest : (List<?>) in.readObject()) {
+                digests.add((String) digest);
+            }
+            return Optional.of(digests);
+        } catch (final IOException | ClassNotFoundException
+                | ClassCastException exception) {
+            LOGGER.debug("Can't read the digests of " + path, exception);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     *
+     * @param outputData output data
+     * @return blobs of the output data by their digest
+     */
+    private static Map<String, Blob> getBlobs(
+            final Map<String, IDataRecreator> outputData) {
+        final Map<String, Blob> result = new LinkedHashMap<>();
+        for (final IDataRecreator recreator : outputData.values()) {
+            if (recreator instanceof IBlobRecreator) {
+                final Blob blob = ((IBlobRecreator) recreator).getBlob();
+                result.putIfAbsent(blob.getDigest(), blob);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds a reference to the blob files for all the blobs.
+     * Blob files that are not there are written.
+     * @param blobsOfEntry blobs to refer to
+     * @param acquired list to add the digests of the referred
+     *                 blob files to
+     * @throws IOException exception on writing a blob file
+     */
+    private void acquireBlobFiles(
+            final Iterable<Blob> blobsOfEntry,
+            final List<String> acquired) throws IOException {
+        final List<Blob> missing = new ArrayList<>();
+        synchronized (index) {
+            for (final Blob blob : blobsOfEntry) {
+                if (tryAcquireBlobFile(blob.getDigest())) {
+                    acquired.add(blob.getDigest());
+                } else {
+                    missing.add(blob);
+                }
+            }
+        }
+        for (final Blob blob : missing) {
+            final File blobFile = getBlobFile(blob.getDigest());
+            final File tempFile = new File(blobFile.getParentFile(),
+                    blob.getDigest() + "." + UUID.randomUUID() + TEMP_SUFFIX);
+            try {
+                Files.createDirectories(blobFile.getParentFile().toPath());
+                try (FileOutputStream out = new FileOutputStream(tempFile)) {
+                    out.write(blob.getContent());
+                    out.getFD().sync();
+                }
+                synchronized (index) {
+                    if (tryAcquireBlobFile(blob.getDigest())) {
+                        Files.delete(tempFile.toPath());
+                    } else {
+                        moveIntoPlace(tempFile.toPath(), blobFile.toPath());
+                        blobs.put(blob.getDigest(),
+                                new BlobFile(blob.getLength(), 1));
+                        sizeInBytes += blob.getLength();
+                    }
+                    acquired.add(blob.getDigest());
+                }
+            } finally {
+                if (!tempFile.delete() && tempFile.exists()) {
+                    LOGGER.warn("Can't remove " + tempFile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a reference to the blob file if it is there.
+     * Must be called with the lock of the index.
+     * @param digest digest of the blob
+     * @return true if the blob file is there
+     */
+    private boolean tryAcquireBlobFile(final String digest) {
+        final BlobFile blobFile = blobs.get(digest);
+        if (blobFile == null) {
+            return false;
+        }
+        blobFile.references++;
+        return true;
+    }
+
+    /**
+     * Removes a reference to the blob files and deletes the
+     * ones without references.
+     * Must be called with the lock of the index.
+     * @param digests digests of the blobs
+     */
+    private void releaseBlobFiles(final List<String> digests) {
+        for (final String digest : digests) {
+            final BlobFile blobFile = blobs.get(digest);
+            if (blobFile != null) {
+                blobFile.references--;
+                if (blobFile.references == 0) {
+                    blobs.remove(digest);
+                    sizeInBytes -= blobFile.size;
+                    deleteFile(getBlobFile(digest));
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the least recently used entries until the size of all
+     * the entries is under the limit.
+     * Must be called with the lock of the index.
+     */
+    private void evict() {
+        final Iterator<Map.Entry<String, IndexEntry>> iterator =
+                index.entrySet().iterator();
+        while (sizeInBytes > maxSizeInBytes && iterator.hasNext()) {
+            final Map.Entry<String, IndexEntry> eldest = iterator.next();
+            iterator.remove();
+            sizeInBytes -= eldest.getValue().size;
+            deleteFile(getEntryFile(eldest.getKey()));
+            releaseBlobFiles(eldest.getValue().digests);
+        }
+    }
+
+    /**
+     * Removes a single entry.
+     * @param hash hash of the entry
+     */
+    private void remove(final String hash) {
+        synchronized (index) {
+            final IndexEntry entry = index.remove(hash);
+            if (entry != null) {
+                sizeInBytes -= entry.size;
+                deleteFile(getEntryFile(hash));
+                releaseBlobFiles(entry.digests);
+            }
+        }
+    }
+
+    /**
+     * Moves the completely written file to its final place.
+     * @param source temporary file
+     * @param target file of the entry
+     * @throws IOException exception on moving the file
+     */
+    private static void moveIntoPlace(final Path source, final Path target)
+            throws IOException {
+        try {
+            Files.move(source, target,
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (final AtomicMoveNotSupportedException exception) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Stores the time of the last access as modification time.
+     * @param entryFile file of the entry
+     */
+    private static void touch(final File entryFile) {
+        try {
+            Files.setLastModifiedTime(entryFile.toPath(),
+                    FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (final IOException exception) {
+            LOGGER.debug("Can't update the access time of " + entryFile,
+                    exception);
+        }
+    }
+
+    /**
+     * Deletes a file and logs if that fails.
+     * @param file file to delete
+     */
+    private static void deleteFile(final File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (final IOException exception) {
+            LOGGER.warn("Can't remove the cache entry " + file, exception);
+        }
+    }
+
+    /**
+     *
+     * @param hash hash of the entry
+     * @return file to store the entry in
+     */
+    private File getEntryFile(final String hash) {
+        return new File(new File(folder, hash.substring(0, PREFIX_LENGTH)),
+                hash + ENTRY_SUFFIX);
+    }
+
+    /**
+     *
+     * @param digest digest of the blob
+     * @return file to store the content of the blob in
+     */
+    private File getBlobFile(final String digest) {
+        return new File(new File(new File(folder, BLOB_FOLDER),
+                digest.substring(0, PREFIX_LENGTH)), digest + BLOB_SUFFIX);
+    }
+
+    /**
+     * Entry in the index.
+     */
+    private static final class IndexEntry {
+        /**
+         * Size of the file of the entry in bytes.
+         */
+        private final long size;
+        /**
+         * Digests of the blobs that the entry refers to.
+         */
+        private final List<String> digests;
+
+        /**
+         *
+         * @param aSize size of the file of the entry in bytes
+         * @param aDigests digests of the blobs that the entry refers to
+         */
+        private IndexEntry(final long aSize, final List<String> aDigests) {
+            this.size = aSize;
+            this.digests = aDigests;
+        }
+    }
+
+    /**
+     * Blob file with the number of the entries that refer to it.
+     */
+    private static final class BlobFile {
+        /**
+         * Size of the blob file in bytes.
+         */
+        private final long size;
+        /**
+         * Number of the entries that refer to the blob file.
+         */
+        private int references;
+
+        /**
+         *
+         * @param aSize size of the blob file in bytes
+         * @param aReferences number of references
+         */
+        private BlobFile(final long aSize, final int aReferences) {
+            this.size = aSize;
+            this.references = aReferences;
+        }
+    }
+
+    /**
+     * Reference to a blob file that is written instead of the blob.
+     */
+    private static final class BlobReference implements Serializable {
+
+        private static final long serialVersionUID = 4472358146630278185L;
+
+        /**
+         * Digest of the blob.
+         */
+        private final String digest;
+
+        /**
+         *
+         * @param aDigest digest of the blob
+         */
+        private BlobReference(final String aDigest) {
+            this.digest = aDigest;
+        }
+    }
+
+    /**
+     * Stream that writes references instead of the blobs
+     * that are stored in blob files.
+     */
+    private static final class BlobReferencingOutputStream
+            extends ObjectOutputStream {
+
+        /**
+         * Digests of the blobs that are stored in blob files.
+         */
+        private final Set<String> digests;
+
+        /**
+         *
+         * @param out stream to write to
+         * @param aDigests digests of the blobs that are stored in blob files
+         * @throws IOException exception on writing the stream header
+         */
+        private BlobReferencingOutputStream(
+                final OutputStream out,
+                final Set<String> aDigests) throws IOException {
+            super(out);
+            this.digests = aDigests;
+            enableReplaceObject(true);
+        }
+
+        /**
+         *
+         * @param obj object to write
+         * @return reference for blobs in blob files, the object otherwise
+         */
+        @Override
+        protected Object replaceObject(final Object obj) {
+            if (obj instanceof Blob
+                    && digests.contains(((Blob) obj).getDigest())) {
+                return new BlobReference(((Blob) obj).getDigest());
+            }
+            return obj;
+        }
+    }
+
+    /**
+     * Stream that reads the blobs from the blob files.
+     */
+    private final class BlobResolvingInputStream extends ObjectInputStream {
+
+        /**
+         *
+         * @param in stream to read from
+         * @throws IOException exception on reading the stream header
+         */
+        private BlobResolvingInputStream(final InputStream in)
+                throws IOException {
+            super(in);
+            enableResolveObject(true);
+        }
+
+        /**
+         *
+         * @param obj object that was read
+         * @return blob with the content of the blob file for references,
+         * the object otherwise
+         * @throws IOException exception if the blob file can't be read
+         * or the content does not fit to the digest
+         */
+        @Override
+        protected Object resolveObject(final Object obj) throws IOException {
+            if (!(obj instanceof BlobReference)) {
+                return obj;
+            }
+            final String digest = ((BlobReference) obj).digest;
+            final Blob blob = Blob.of(
+                    Files.readAllBytes(getBlobFile(digest).toPath()));
+            if (!blob.getDigest().equals(digest)) {
+                throw new IOException("The content of the blob file for "
+                        + digest + " is broken");
+            }
+            return blob;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.n52.gfz.riesgos.cache.impl;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import javax.management.MXBean;
+import java.util.Map;
+
+/**
+ * Metrics of the cache in memory.
+ * They are registered as MXBean, so that they can be read with
+ * any jmx client.
+ */
+@MXBean
+public interface ICacheMetrics {
+
+    /**
+     *
+     * @return size of all the entries in bytes
+     */
+    long getSizeInBytes();
+
+    /**
+     *
+     * @return maximum size of all the entries in bytes
+     */
+    long getMaxSizeInBytes();
+
+    /**
+     *
+     * @return statistics for each process identifier
+     */
+    Map<String, CacheStatistics> getStatistics();
+}
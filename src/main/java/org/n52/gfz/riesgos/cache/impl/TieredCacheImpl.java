@@ -0,0 +1,139 @@
+package org.n52.gfz.riesgos.cache.impl;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.gfz.riesgos.cache.ICacher;
+import org.n52.gfz.riesgos.cache.IDataRecreator;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Implementation of the caching mechanism with two tiers:
+ * a small and fast cache in memory in front of a larger (and slower)
+ * cache that can survive a restart (for example on disk).
+ * Results that are only found in the second tier are copied
+ * into the first one.
+ */
+public class TieredCacheImpl implements ICacher {
+
+    /**
+     * First tier that is asked first.
+     */
+    private final ICacher firstTier;
+
+    /**
+     * Second tier that is asked if the first tier has no result.
+     */
+    private final ICacher secondTier;
+
+    /**
+     * Constructor with both tiers.
+     * @param aFirstTier first tier (in memory)
+     * @param aSecondTier second tier (for example on disk)
+     */
+    public TieredCacheImpl(
+            final ICacher aFirstTier,
+            final ICacher aSecondTier) {
+        this.firstTier = aFirstTier;
+        this.secondTier = aSecondTier;
+    }
+
+    /**
+     * This is the method to ask the caching system about if it has data in it.
+     * If there is no data for in the caching system, than it will just give
+     * back Optional.empty
+     *
+     * @param hash hash that is computed from the configuration and
+     *             the input data
+     * @return optional map with output data
+     */
+    @Override
+    public Optional<Map<String, IDataRecreator>> getCachedResult(
+            final String hash) {
+        final Optional<Map<String, IDataRecreator>> firstResult =
+                firstTier.getCachedResult(hash);
+        if (firstResult.isPresent()) {
+            return firstResult;
+        }
+        final Optional<Map<String, IDataRecreator>> secondResult =
+                secondTier.getCachedResult(hash);
+        secondResult.ifPresent(
+                result -> firstTier.insertResultIntoCache(hash, result));
+        return secondResult;
+    }
+
+    /**
+     * This is the method to call once the algorithm is done and the
+     * result should be included in the caching system.
+     * The result is stored in both tiers.
+     *
+     * @param hash hash that is computed from the configuration and the
+     *             input data
+     * @param outputData    resulting data to store
+     */
+    @Override
+    public void insertResultIntoCache(
+            final String hash,
+            final Map<String, IDataRecreator> outputData) {
+        firstTier.insertResultIntoCache(hash, outputData);
+        secondTier.insertResultIntoCache(hash, outputData);
+    }
+
+    /**
+     * Asks the first and then the second tier and passes the
+     * identifier of the process to both.
+     *
+     * @param processIdentifier identifier of the process
+     * @param hash hash that is computed from the configuration and
+     *             the input data
+     * @return optional map with output data
+     */
+    @Override
+    public Optional<Map<String, IDataRecreator>> getCachedResult(
+            final String processIdentifier,
+            final String hash) {
+        final Optional<Map<String, IDataRecreator>> firstResult =
+                firstTier.getCachedResult(processIdentifier, hash);
+        if (firstResult.isPresent()) {
+            return firstResult;
+        }
+        final Optional<Map<String, IDataRecreator>> secondResult =
+                secondTier.getCachedResult(processIdentifier, hash);
+        secondResult.ifPresent(result -> firstTier.insertResultIntoCache(
+                processIdentifier, hash, result));
+        return secondResult;
+    }
+
+    /**
+     * Stores the result in both tiers and passes the
+     * identifier of the process to both.
+     *
+     * @param processIdentifier identifier of the process
+     * @param hash hash that is computed from the configuration and the
+     *             input data
+     * @param outputData    resulting data to store
+     */
+    @Override
+    public void insertResultIntoCache(
+            final String processIdentifier,
+            final String hash,
+            final Map<String, IDataRecreator> outputData) {
+        firstTier.insertResultIntoCache(processIdentifier, hash, outputData);
+        secondTier.insertResultIntoCache(processIdentifier, hash, outputData);
+    }
+}
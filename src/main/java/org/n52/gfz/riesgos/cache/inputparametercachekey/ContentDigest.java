@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.inputparametercachekey;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.n52.gfz.riesgos.cache.CacheKeyOutputStream;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Digest of a content (for example of a converted input) together
+ * with its length.
+ * This is used in the cache keys instead of the content itself,
+ * so that the keys don't keep large inputs in memory.
+ */
+public final class ContentDigest implements Serializable {
+
+    private static final long serialVersionUID = 2921557401358224135L;
+
+    /**
+     * Function to compute the digests.
+     */
+    private static final HashFunction DIGEST_FUNCTION = Hashing.sha256();
+
+    /**
+     * Digest of the content.
+     */
+    private final byte[] digest;
+    /**
+     * Length of the content in bytes.
+     */
+    private final long length;
+
+    /**
+     * Constructor with the digest and the length.
+     * @param aDigest digest of the content
+     * @param aLength length of the content in bytes
+     */
+    private ContentDigest(final byte[] aDigest, final long aLength) {
+        this.digest = aDigest;
+        this.length = aLength;
+    }
+
+    /**
+     * Computes the digest of a byte array.
+     * @param content content to compute the digest for
+     * @return digest of the content
+     */
+    public static ContentDigest of(final byte[] content) {
+        return new ContentDigest(
+                DIGEST_FUNCTION.hashBytes(content).asBytes(),
+                content.length);
+    }
+
+    /**
+     * Computes the digest of a file.
+     * The file is streamed, so it is never loaded into memory
+     * as a whole.
+     * @param file file to compute the digest for
+     * @return digest of the content of the file
+     * @throws IOException exception on reading the file
+     */
+    public static ContentDigest of(final File file) throws IOException {
+        return new ContentDigest(
+                Files.asByteSource(file).hash(DIGEST_FUNCTION).asBytes(),
+                file.length());
+    }
+
+    /**
+     *
+     * @return length of the content in bytes
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Writes the length and the digest.
+     * @param output stream to write to
+     * @throws IOException exception on writing
+     */
+    public void writeTo(final CacheKeyOutputStream output)
+            throws IOException {
+        output.writeLong(length);
+        output.writeByteArray(digest);
+    }
+
+    /**
+     * Tests equality.
+     * @param o other object
+     * @return true if both are equal
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ContentDigest that = (ContentDigest) o;
+        return length == that.length
+                && Arrays.equals(digest, that.digest);
+    }
+
+    /**
+     *
+     * @return hashcode of the object
+     */
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(length);
+        final int prime = 31;
+        result = prime * result + Arrays.hashCode(digest);
+        return result;
+    }
+}
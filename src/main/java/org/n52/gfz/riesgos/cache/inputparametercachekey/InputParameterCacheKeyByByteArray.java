@@ -16,22 +16,25 @@
 
 package org.n52.gfz.riesgos.cache.inputparametercachekey;
 
+import org.n52.gfz.riesgos.cache.CacheKeyOutputStream;
 import org.n52.gfz.riesgos.cache.IInputParameterCacheKey;
 
-import java.util.Arrays;
+import java.io.IOException;
 import java.util.Objects;
 
 /**
  * Key that works with a byte array.
+ * It only keeps the digest and the length of the content,
+ * so that large inputs are not held in memory by the key.
  */
 public class InputParameterCacheKeyByByteArray
         implements IInputParameterCacheKey {
 
-    private static final long serialVersionUID = -4274760777940747832L;
+    private static final long serialVersionUID = -1837645265620314921L;
     /**
-     * Byte array with the content.
+     * Digest of the content.
      */
-    private final byte[] content;
+    private final ContentDigest digest;
     /**
      * Path of the input.
      */
@@ -51,7 +54,20 @@ public class InputParameterCacheKeyByByteArray
             final byte[] aContent,
             final String aPath,
             final boolean aIsOptional) {
-        this.content = aContent;
+        this(ContentDigest.of(aContent), aPath, aIsOptional);
+    }
+
+    /**
+     * Constructor with the digest of the content.
+     * @param aDigest digest of the content of an idata
+     * @param aPath path of the input
+     * @param aIsOptional value if the input is optional
+     */
+    public InputParameterCacheKeyByByteArray(
+            final ContentDigest aDigest,
+            final String aPath,
+            final boolean aIsOptional) {
+        this.digest = aDigest;
         this.path = aPath;
         this.isOptional = aIsOptional;
     }
@@ -72,7 +88,7 @@ public class InputParameterCacheKeyByByteArray
         InputParameterCacheKeyByByteArray that =
                 (InputParameterCacheKeyByByteArray) o;
         return isOptional == that.isOptional
-                && Arrays.equals(content, that.content)
+                && Objects.equals(digest, that.digest)
                 && Objects.equals(path, that.path);
     }
 
@@ -82,9 +98,19 @@ public class InputParameterCacheKeyByByteArray
      */
     @Override
     public int hashCode() {
-        int result = Objects.hash(path, isOptional);
-        final int prime = 31;
-        result = prime * result + Arrays.hashCode(content);
-        return result;
+        return Objects.hash(digest, path, isOptional);
+    }
+
+    /**
+     * Writes the path, the optional flag and the digest of the content.
+     * @param output stream to write to
+     * @throws IOException exception on writing
+     */
+    @Override
+    public void writeTo(final CacheKeyOutputStream output)
+            throws IOException {
+        output.writeString(path);
+        output.writeBoolean(isOptional);
+        digest.writeTo(output);
     }
 }
@@ -16,8 +16,10 @@
 
 package org.n52.gfz.riesgos.cache.inputparametercachekey;
 
+import org.n52.gfz.riesgos.cache.CacheKeyOutputStream;
 import org.n52.gfz.riesgos.cache.IInputParameterCacheKey;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -53,14 +55,48 @@ public class InputParameterCacheKeyByByteArrayList
             final List<byte[]> aContents,
             final String aPath,
             final boolean aIsOptional) {
-        this.keys = aContents.stream()
-                .map(content -> new InputParameterCacheKeyByByteArray(
-                        content, aPath, aIsOptional))
+        this(aContents.stream()
+                .map(ContentDigest::of)
+                .collect(Collectors.toList()),
+                aIsOptional,
+                aPath);
+    }
+
+    /**
+     * Constructor with a list of digests.
+     * The order of the parameters differs from the public constructor
+     * as both lists have the same erasure.
+     * @param aDigests list of digests of the contents
+     * @param aIsOptional value if the input is optional
+     * @param aPath path of the input
+     */
+    private InputParameterCacheKeyByByteArrayList(
+            final List<ContentDigest> aDigests,
+            final boolean aIsOptional,
+            final String aPath) {
+        this.keys = aDigests.stream()
+                .map(digest -> new InputParameterCacheKeyByByteArray(
+                        digest, aPath, aIsOptional))
                 .collect(Collectors.toList());
         this.path = aPath;
         this.isOptional = aIsOptional;
     }
 
+    /**
+     * Creates the key from the digests of the contents.
+     * @param digests list of digests (maybe several files)
+     * @param path path of the input
+     * @param isOptional value if the input is optional
+     * @return key for the contents
+     */
+    public static InputParameterCacheKeyByByteArrayList fromDigests(
+            final List<ContentDigest> digests,
+            final String path,
+            final boolean isOptional) {
+        return new InputParameterCacheKeyByByteArrayList(
+                digests, isOptional, path);
+    }
+
     /**
      * Tests equality.
      * @param o other object
@@ -89,4 +125,20 @@ public class InputParameterCacheKeyByByteArrayList
     public int hashCode() {
         return Objects.hash(keys, path, isOptional);
     }
+
+    /**
+     * Writes the path, the optional flag and all of the contents.
+     * @param output stream to write to
+     * @throws IOException exception on writing
+     */
+    @Override
+    public void writeTo(final CacheKeyOutputStream output)
+            throws IOException {
+        output.writeString(path);
+        output.writeBoolean(isOptional);
+        output.writeInt(keys.size());
+        for (final IInputParameterCacheKey key : keys) {
+            key.writeTo(output);
+        }
+    }
 }
@@ -16,8 +16,10 @@
 
 package org.n52.gfz.riesgos.cache.inputparametercachekey;
 
+import org.n52.gfz.riesgos.cache.CacheKeyOutputStream;
 import org.n52.gfz.riesgos.cache.IInputParameterCacheKey;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
 
@@ -78,4 +80,16 @@ public class InputParameterCacheKeyByCmdArguments
     public int hashCode() {
         return Objects.hash(cmds, isOptional);
     }
+
+    /**
+     * Writes the optional flag and the command line arguments.
+     * @param output stream to write to
+     * @throws IOException exception on writing
+     */
+    @Override
+    public void writeTo(final CacheKeyOutputStream output)
+            throws IOException {
+        output.writeBoolean(isOptional);
+        output.writeStrings(cmds);
+    }
 }
@@ -16,8 +16,10 @@
 
 package org.n52.gfz.riesgos.cache.inputparametercachekey;
 
+import org.n52.gfz.riesgos.cache.CacheKeyOutputStream;
 import org.n52.gfz.riesgos.cache.IInputParameterCacheKey;
 
+import java.io.IOException;
 import java.util.Objects;
 
 /**
@@ -89,4 +91,19 @@ public class InputParameterCacheKeyByException
     public int hashCode() {
         return Objects.hash(exception, path, isOptional);
     }
+
+    /**
+     * Writes the path, the optional flag and the type and message
+     * of the exception (but not the stack trace).
+     * @param output stream to write to
+     * @throws IOException exception on writing
+     */
+    @Override
+    public void writeTo(final CacheKeyOutputStream output)
+            throws IOException {
+        output.writeString(path);
+        output.writeBoolean(isOptional);
+        output.writeString(exception.getClass().getName());
+        output.writeString(exception.getMessage());
+    }
 }
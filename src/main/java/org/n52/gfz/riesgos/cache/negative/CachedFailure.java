@@ -0,0 +1,69 @@
+package org.n52.gfz.riesgos.cache.negative;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.wps.server.ExceptionReport;
+
+/**
+ * Failure of a run that is remembered.
+ * Only the type and the message are kept (not the whole exception).
+ */
+public class CachedFailure {
+
+    /**
+     * Type of the failure.
+     */
+    private final FailureType type;
+    /**
+     * Message of the exception report.
+     */
+    private final String message;
+
+    /**
+     * Constructor with the type and the message.
+     * @param aType type of the failure
+     * @param aMessage message of the exception report
+     */
+    public CachedFailure(final FailureType aType, final String aMessage) {
+        this.type = aType;
+        this.message = aMessage;
+    }
+
+    /**
+     *
+     * @return type of the failure
+     */
+    public FailureType getType() {
+        return type;
+    }
+
+    /**
+     *
+     * @return message of the exception report
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Creates an exception report to report the failure again.
+     * @return exception report with the message and the exception code
+     */
+    public ExceptionReport toExceptionReport() {
+        return new ExceptionReport(message, type.getExceptionCode());
+    }
+}
@@ -0,0 +1,109 @@
+package org.n52.gfz.riesgos.cache.negative;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.gfz.riesgos.exceptions.ConvertToIDataException;
+import org.n52.gfz.riesgos.exceptions.ConvertToStringCmdException;
+import org.n52.gfz.riesgos.exceptions.NonEmptyStderrException;
+import org.n52.gfz.riesgos.exceptions.NonZeroExitValueException;
+import org.n52.gfz.riesgos.exceptions.RunTimeoutException;
+import org.n52.wps.server.ExceptionReport;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Types of the failures of a run that can be remembered.
+ * All of them are caused by the process itself (and its input),
+ * so running it again with the same input fails again.
+ * Errors of the infrastructure (docker, io, timeouts, ...) have no
+ * failure type and are never remembered. A run that was stopped because
+ * of the timeout may succeed on a less busy server, so it is never
+ * remembered either (even if a cause of the failure is set).
+ */
+public enum FailureType {
+
+    /**
+     * The stderr handler found an error (for example a python traceback).
+     */
+    STDERR(NonEmptyStderrException.class,
+            ExceptionReport.REMOTE_COMPUTATION_ERROR),
+
+    /**
+     * The exit value handler found an error.
+     */
+    EXIT_VALUE(NonZeroExitValueException.class,
+            ExceptionReport.REMOTE_COMPUTATION_ERROR),
+
+    /**
+     * The input could not be used as command line argument.
+     */
+    INVALID_INPUT(ConvertToStringCmdException.class,
+            ExceptionReport.INVALID_PARAMETER_VALUE),
+
+    /**
+     * The output of the process could not be converted.
+     */
+    INVALID_OUTPUT(ConvertToIDataException.class,
+            ExceptionReport.REMOTE_COMPUTATION_ERROR);
+
+    /**
+     * Class of the exception that causes the failure.
+     */
+    private final Class<? extends Exception> causeClass;
+
+    /**
+     * Exception code to report the failure.
+     */
+    private final String exceptionCode;
+
+    /**
+     * Constructor with the class of the cause and the exception code.
+     * @param aCauseClass class of the exception that causes the failure
+     * @param aExceptionCode exception code to report the failure
+     */
+    FailureType(
+            final Class<? extends Exception> aCauseClass,
+            final String aExceptionCode) {
+        this.causeClass = aCauseClass;
+        this.exceptionCode = aExceptionCode;
+    }
+
+    /**
+     *
+     * @return exception code to report the failure
+     */
+    public String getExceptionCode() {
+        return exceptionCode;
+    }
+
+    /**
+     * Finds the type of the failure by the cause of the exception report.
+     * @param exceptionReport exception report of a failed run
+     * @return type of the failure (empty for errors of the infrastructure)
+     */
+    public static Optional<FailureType> of(
+            final ExceptionReport exceptionReport) {
+        final Throwable cause = exceptionReport.getCause();
+        if (cause instanceof RunTimeoutException) {
+            return Optional.empty();
+        }
+        return Arrays.stream(values())
+                .filter(type -> type.causeClass.isInstance(cause))
+                .findFirst();
+    }
+}
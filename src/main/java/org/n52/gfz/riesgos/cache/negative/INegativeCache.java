@@ -0,0 +1,43 @@
+package org.n52.gfz.riesgos.cache.negative;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.wps.server.ExceptionReport;
+
+import java.util.Optional;
+
+/**
+ * Interface to remember failed runs.
+ * The keys are the same hashes as for the cached results.
+ */
+public interface INegativeCache {
+
+    /**
+     * Gives back the failure of an earlier identical run.
+     * @param hash hash of the run
+     * @return failure (empty if there is none)
+     */
+    Optional<CachedFailure> getFailure(String hash);
+
+    /**
+     * Remembers the failure of a run (if it is of a type
+     * that should be remembered).
+     * @param hash hash of the run
+     * @param exceptionReport exception report of the failed run
+     */
+    void insertFailure(String hash, ExceptionReport exceptionReport);
+}
@@ -0,0 +1,114 @@
+package org.n52.gfz.riesgos.cache.negative;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.n52.wps.server.ExceptionReport;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation that remembers the failures of some types
+ * for a short time in memory.
+ */
+public class NegativeCacheImpl implements INegativeCache {
+
+    /**
+     * Maximum number of failures to remember.
+     */
+    private static final long MAX_FAILURES = 10_000L;
+
+    /**
+     * Types of the failures that are remembered.
+     */
+    private final Set<FailureType> failureTypes;
+
+    /**
+     * Failures by the hashes of the runs.
+     */
+    private final Cache<String, CachedFailure> failures;
+
+    /**
+     * Constructor with the time to live and the types of the failures
+     * to remember.
+     * @param timeToLiveMillis time in milliseconds to remember a failure
+     * @param aFailureTypes types of the failures to remember
+     */
+    public NegativeCacheImpl(
+            final long timeToLiveMillis,
+            final Set<FailureType> aFailureTypes) {
+        this(timeToLiveMillis, aFailureTypes, Ticker.systemTicker());
+    }
+
+    /**
+     * Constructor with the time to live, the types of the failures
+     * to remember and a ticker to measure the time (only meant for
+     * testing).
+     * @param timeToLiveMillis time in milliseconds to remember a failure
+     * @param aFailureTypes types of the failures to remember
+     * @param ticker source of the time
+     */
+    NegativeCacheImpl(
+            final long timeToLiveMillis,
+            final Set<FailureType> aFailureTypes,
+            final Ticker ticker) {
+        final Set<FailureType> copyOfFailureTypes =
+                EnumSet.noneOf(FailureType.class);
+        copyOfFailureTypes.addAll(aFailureTypes);
+        this.failureTypes = Collections.unmodifiableSet(copyOfFailureTypes);
+        this.failures = CacheBuilder.newBuilder()
+                .expireAfterWrite(timeToLiveMillis, TimeUnit.MILLISECONDS)
+                .maximumSize(MAX_FAILURES)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Gives back the failure of an earlier identical run
+     * (if it is not too old).
+     * @param hash hash of the run
+     * @return failure (empty if there is none)
+     */
+    @Override
+    public Optional<CachedFailure> getFailure(final String hash) {
+        return Optional.ofNullable(failures.getIfPresent(hash));
+    }
+
+    /**
+     * Remembers the failure of a run if its type should be remembered.
+     * @param hash hash of the run
+     * @param exceptionReport exception report of the failed run
+     */
+    @Override
+    public void insertFailure(
+            final String hash,
+            final ExceptionReport exceptionReport) {
+        final Optional<FailureType> failureType =
+                FailureType.of(exceptionReport);
+        if (failureType.isPresent()
+                && failureTypes.contains(failureType.get())) {
+            failures.put(hash, new CachedFailure(
+                    failureType.get(), exceptionReport.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.n52.gfz.riesgos.cache.negative;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.wps.server.ExceptionReport;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Singleton to share the remembered failures between all the processes.
+ * It remembers nothing until it is configured.
+ */
+public enum NegativeCacheSingleton implements INegativeCache {
+
+    /**
+     * Singleton instance.
+     */
+    INSTANCE;
+
+    /**
+     * Number of milliseconds in a second.
+     */
+    private static final long MILLIS_PER_SECOND = 1000L;
+
+    /**
+     * The implementation that is used for all the work.
+     */
+    private volatile INegativeCache negativeCache;
+    /**
+     * Configured time to live in seconds.
+     */
+    private long timeToLiveSeconds;
+    /**
+     * Configured types of the failures to remember.
+     */
+    private Set<FailureType> failureTypes;
+
+    /**
+     * Constructor that remembers nothing.
+     */
+    NegativeCacheSingleton() {
+        negativeCache = new NoNegativeCache();
+        timeToLiveSeconds = 0L;
+        failureTypes = Collections.emptySet();
+    }
+
+    /**
+     * Sets the time to live and the types of the failures to remember.
+     * The remembered failures are only dropped if the settings change.
+     * @param aTimeToLiveSeconds time in seconds to remember a failure
+     *                           (0 to remember nothing)
+     * @param aFailureTypes types of the failures to remember
+     */
+    public synchronized void configure(
+            final long aTimeToLiveSeconds,
+            final Set<FailureType> aFailureTypes) {
+        if (aTimeToLiveSeconds == timeToLiveSeconds
+                && aFailureTypes.equals(failureTypes)) {
+            return;
+        }
+        timeToLiveSeconds = aTimeToLiveSeconds;
+        failureTypes = aFailureTypes;
+        if (aTimeToLiveSeconds <= 0 || aFailureTypes.isEmpty()) {
+            negativeCache = new NoNegativeCache();
+        } else {
+            negativeCache = new NegativeCacheImpl(
+                    aTimeToLiveSeconds * MILLIS_PER_SECOND, aFailureTypes);
+        }
+    }
+
+    /**
+     * Gives back the failure of an earlier identical run.
+     * @param hash hash of the run
+     * @return failure (empty if there is none)
+     */
+    @Override
+    public Optional<CachedFailure> getFailure(final String hash) {
+        return negativeCache.getFailure(hash);
+    }
+
+    /**
+     * Remembers the failure of a run (if it is of a type
+     * that should be remembered).
+     * @param hash hash of the run
+     * @param exceptionReport exception report of the failed run
+     */
+    @Override
+    public void insertFailure(
+            final String hash,
+            final ExceptionReport exceptionReport) {
+        negativeCache.insertFailure(hash, exceptionReport);
+    }
+}
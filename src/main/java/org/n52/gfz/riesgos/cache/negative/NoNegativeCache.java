@@ -0,0 +1,49 @@
+package org.n52.gfz.riesgos.cache.negative;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.wps.server.ExceptionReport;
+
+import java.util.Optional;
+
+/**
+ * Implementation that does not remember any failure.
+ */
+public class NoNegativeCache implements INegativeCache {
+
+    /**
+     * There are never failures.
+     * @param hash ignored
+     * @return empty optional
+     */
+    @Override
+    public Optional<CachedFailure> getFailure(final String hash) {
+        return Optional.empty();
+    }
+
+    /**
+     * Does nothing.
+     * @param hash ignored
+     * @param exceptionReport ignored
+     */
+    @Override
+    public void insertFailure(
+            final String hash,
+            final ExceptionReport exceptionReport) {
+        // nothing to do
+    }
+}
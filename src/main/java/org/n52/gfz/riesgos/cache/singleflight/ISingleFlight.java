@@ -0,0 +1,35 @@
+package org.n52.gfz.riesgos.cache.singleflight;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+/**
+ * Interface to coalesce identical runs (runs with the same cache hash)
+ * that are in progress at the same time.
+ */
+public interface ISingleFlight {
+
+    /**
+     * Joins the run for the hash.
+     * If there is no run with the same hash in progress the call
+     * is the leader and must run the process itself.
+     * Otherwise it can wait for the result of the leader.
+     * @param hash hash that is computed from the configuration and
+     *             the input data
+     * @return call that must be closed after use
+     */
+    ISingleFlightCall join(String hash);
+}
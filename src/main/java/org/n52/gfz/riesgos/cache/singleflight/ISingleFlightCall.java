@@ -0,0 +1,66 @@
+package org.n52.gfz.riesgos.cache.singleflight;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.gfz.riesgos.cache.IDataRecreator;
+import org.n52.gfz.riesgos.exceptions.SingleFlightException;
+
+import java.util.Map;
+
+/**
+ * Participation in a run for one hash.
+ * The leader runs the process and gives its result (or its failure)
+ * to all of the other calls with the same hash.
+ * If the leader is closed without doing so, the waiting calls fail.
+ */
+public interface ISingleFlightCall extends AutoCloseable {
+
+    /**
+     *
+     * @return true if this call must run the process itself
+     */
+    boolean isLeader();
+
+    /**
+     * Waits for the result of the leader.
+     * Only for calls that are not the leader.
+     * @return data to recreate the results of the leader
+     * @throws SingleFlightException if the leader failed, the waiting
+     * time is over or the thread was interrupted
+     */
+    Map<String, IDataRecreator> awaitResult() throws SingleFlightException;
+
+    /**
+     * Gives the result of the leader to all of the waiting calls.
+     * @param result data to recreate the results
+     */
+    void complete(Map<String, IDataRecreator> result);
+
+    /**
+     * Gives the failure of the leader to all of the waiting calls.
+     * @param failure reason why the run failed
+     */
+    void fail(Exception failure);
+
+    /**
+     * Ends the call.
+     * For the leader that has not given a result or a failure yet,
+     * all of the waiting calls fail.
+     */
+    @Override
+    void close();
+}
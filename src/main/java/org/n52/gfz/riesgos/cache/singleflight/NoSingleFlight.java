@@ -0,0 +1,89 @@
+package org.n52.gfz.riesgos.cache.singleflight;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.gfz.riesgos.cache.IDataRecreator;
+
+import java.util.Map;
+
+/**
+ * Implementation that does not coalesce any runs.
+ * Every call is the leader.
+ */
+public class NoSingleFlight implements ISingleFlight {
+
+    /**
+     * Gives back a call that is always the leader.
+     * @param hash ignored
+     * @return call that runs the process itself
+     */
+    @Override
+    public ISingleFlightCall join(final String hash) {
+        return new LeaderOnlyCall();
+    }
+
+    /**
+     * Call that runs the process itself and shares nothing.
+     */
+    private static class LeaderOnlyCall implements ISingleFlightCall {
+
+        /**
+         *
+         * @return always true
+         */
+        @Override
+        public boolean isLeader() {
+            return true;
+        }
+
+        /**
+         * There is no leader to wait for.
+         * @return never returns
+         */
+        @Override
+        public Map<String, IDataRecreator> awaitResult() {
+            throw new IllegalStateException(
+                    "The leader can't wait for its own result");
+        }
+
+        /**
+         * There is no one to share the result with.
+         * @param result ignored
+         */
+        @Override
+        public void complete(final Map<String, IDataRecreator> result) {
+            // nothing to share
+        }
+
+        /**
+         * There is no one to share the failure with.
+         * @param failure ignored
+         */
+        @Override
+        public void fail(final Exception failure) {
+            // nothing to share
+        }
+
+        /**
+         * Nothing to release.
+         */
+        @Override
+        public void close() {
+            // nothing to release
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package org.n52.gfz.riesgos.cache.singleflight;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.gfz.riesgos.cache.IDataRecreator;
+import org.n52.gfz.riesgos.exceptions.SingleFlightException;
+import org.n52.gfz.riesgos.exceptions.SingleFlightTimeoutException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation that keeps the runs in progress in a map
+ * with the hash as key.
+ * A run is removed from the map as soon as its leader gives
+ * a result or a failure, so later requests go to the cache again.
+ */
+public class SingleFlightImpl implements ISingleFlight {
+
+    /**
+     * Runs in progress by their hash.
+     */
+    private final ConcurrentMap<String, Flight> flights;
+
+    /**
+     * Maximum time in milliseconds to wait for the leader (0 for no limit).
+     */
+    private volatile long waitTimeoutMillis;
+
+    /**
+     * Constructor with the maximum waiting time.
+     * @param aWaitTimeoutMillis maximum time in milliseconds to wait
+     *                           for the leader (0 for no limit)
+     */
+    public SingleFlightImpl(final long aWaitTimeoutMillis) {
+        this.flights = new ConcurrentHashMap<>();
+        this.waitTimeoutMillis = aWaitTimeoutMillis;
+    }
+
+    /**
+     * Changes the maximum waiting time.
+     * It is used for all calls that start to wait afterwards.
+     * @param aWaitTimeoutMillis maximum time in milliseconds to wait
+     *                           for the leader (0 for no limit)
+     */
+    public void updateWaitTimeout(final long aWaitTimeoutMillis) {
+        this.waitTimeoutMillis = aWaitTimeoutMillis;
+    }
+
+    /**
+     * Joins the run for the hash.
+     * @param hash hash that is computed from the configuration and
+     *             the input data
+     * @return call that must be closed after use
+     */
+    @Override
+    public ISingleFlightCall join(final String hash) {
+        final Flight ownFlight = new Flight(hash);
+        final Flight runningFlight = flights.putIfAbsent(hash, ownFlight);
+        if (runningFlight == null) {
+            return new LeaderCall(ownFlight);
+        }
+        return new FollowerCall(runningFlight);
+    }
+
+    /**
+     *
+     * @return number of runs in progress
+     */
+    public int getNumberOfFlights() {
+        return flights.size();
+    }
+
+    /**
+     * One run in progress.
+     */
+    private class Flight {
+        /**
+         * Hash of the run.
+         */
+        private final String hash;
+        /**
+         * Latch that is opened once there is a result or a failure.
+         */
+        private final CountDownLatch done;
+        /**
+         * Result of the leader.
+         */
+        private volatile Map<String, IDataRecreator> result;
+        /**
+         * Failure of the leader.
+         */
+        private volatile Exception failure;
+
+        /**
+         *
+         * @param aHash hash of the run
+         */
+        Flight(final String aHash) {
+            this.hash = aHash;
+            this.done = new CountDownLatch(1);
+        }
+
+        /**
+         * Sets result or failure (only the first time) and
+         * wakes up all the waiting calls.
+         * @param aResult result of the leader
+         * @param aFailure failure of the leader
+         */
+        private synchronized void finish(
+                final Map<String, IDataRecreator> aResult,
+                final Exception aFailure) {
+            if (done.getCount() == 0) {
+                return;
+            }
+            result = aResult;
+            failure = aFailure;
+            flights.remove(hash, this);
+            done.countDown();
+        }
+
+        /**
+         * Waits for the result.
+         * @return result of the leader
+         * @throws SingleFlightException if the leader failed, the waiting
+         * time is over or the thread was interrupted
+         */
+        private Map<String, IDataRecreator> await()
+                throws SingleFlightException {
+            final long timeout = waitTimeoutMillis;
+            try {
+                if (timeout > 0) {
+                    if (!done.await(timeout, TimeUnit.MILLISECONDS)) {
+                        throw new SingleFlightTimeoutException(
+                                "Waited " + timeout + " ms for an "
+                                + "identical run without a result");
+                    }
+                } else {
+                    done.await();
+                }
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new SingleFlightException(
+                        "Interrupted while waiting for an identical run",
+                        exception);
+            }
+            if (failure != null) {
+                throw new SingleFlightException(
+                        "The identical run failed: " + failure.getMessage(),
+                        failure);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Call of the leader that runs the process itself.
+     */
+    private static class LeaderCall implements ISingleFlightCall {
+        /**
+         * Run of the leader.
+         */
+        private final Flight flight;
+
+        /**
+         *
+         * @param aFlight run of the leader
+         */
+        LeaderCall(final Flight aFlight) {
+            this.flight = aFlight;
+        }
+
+        /**
+         *
+         * @return always true
+         */
+        @Override
+        public boolean isLeader() {
+            return true;
+        }
+
+        /**
+         * The leader can't wait for its own result.
+         * @return never returns
+         */
+        @Override
+        public Map<String, IDataRecreator> awaitResult() {
+            throw new IllegalStateException(
+                    "The leader can't wait for its own result");
+        }
+
+        /**
+         * Gives the result to all of the waiting calls.
+         * @param result data to recreate the results
+         */
+        @Override
+        public void complete(final Map<String, IDataRecreator> result) {
+            flight.finish(result, null);
+        }
+
+        /**
+         * Gives the failure to all of the waiting calls.
+         * @param failure reason why the run failed
+         */
+        @Override
+        public void fail(final Exception failure) {
+            flight.finish(null, failure);
+        }
+
+        /**
+         * Lets all of the waiting calls fail if there is no result yet.
+         */
+        @Override
+        public void close() {
+            flight.finish(null, new IllegalStateException(
+                    "The run ended without a result"));
+        }
+    }
+
+    /**
+     * Call that waits for the result of the leader.
+     */
+    private static class FollowerCall implements ISingleFlightCall {
+        /**
+         * Run of the leader.
+         */
+        private final Flight flight;
+
+        /**
+         *
+         * @param aFlight run of the leader
+         */
+        FollowerCall(final Flight aFlight) {
+            this.flight = aFlight;
+        }
+
+        /**
+         *
+         * @return always false
+         */
+        @Override
+        public boolean isLeader() {
+            return false;
+        }
+
+        /**
+         * Waits for the result of the leader.
+         * @return data to recreate the results of the leader
+         * @throws SingleFlightException if the leader failed, the waiting
+         * time is over or the thread was interrupted
+         */
+        @Override
+        public Map<String, IDataRecreator> awaitResult()
+                throws SingleFlightException {
+            return flight.await();
+        }
+
+        /**
+         * Only the leader can give a result.
+         * @param result ignored
+         */
+        @Override
+        public void complete(final Map<String, IDataRecreator> result) {
+            throw new IllegalStateException(
+                    "Only the leader can give a result");
+        }
+
+        /**
+         * Only the leader can give a failure.
+         * @param failure ignored
+         */
+        @Override
+        public void fail(final Exception failure) {
+            throw new IllegalStateException(
+                    "Only the leader can give a failure");
+        }
+
+        /**
+         * Nothing to release.
+         */
+        @Override
+        public void close() {
+            // nothing to release
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.n52.gfz.riesgos.cache.singleflight;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+/**
+ * Singleton to share the runs in progress between all the processes.
+ */
+public enum SingleFlightSingleton {
+
+    /**
+     * Singleton instance.
+     */
+    INSTANCE;
+
+    /**
+     * Number of milliseconds in a second.
+     */
+    private static final long MILLIS_PER_SECOND = 1000L;
+
+    /**
+     * The implementation that is used for all the work.
+     */
+    private final SingleFlightImpl singleFlight;
+
+    /**
+     * Constructor that creates the implementation without a waiting limit.
+     */
+    SingleFlightSingleton() {
+        singleFlight = new SingleFlightImpl(0L);
+    }
+
+    /**
+     * Gives back the shared implementation with the current waiting limit.
+     * @param waitTimeoutSeconds maximum time in seconds to wait for
+     *                           an identical run (0 for no limit)
+     * @return implementation to coalesce identical runs
+     */
+    public ISingleFlight getSingleFlight(final long waitTimeoutSeconds) {
+        singleFlight.updateWaitTimeout(waitTimeoutSeconds * MILLIS_PER_SECOND);
+        return singleFlight;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.warmup;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.n52.wps.commons.context.ExecutionContext;
+import org.n52.wps.commons.context.ExecutionContextFactory;
+import org.n52.wps.server.ExceptionReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warms up the cache by executing the runs of a manifest in the
+ * background.
+ * The runs use the normal processes, so their results are stored
+ * in the cache with the same keys as for the requests of the users.
+ * Runs whose results are already in the cache are done at once.
+ */
+public class CacheWarmupImpl implements ICacheWarmupMetrics {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(CacheWarmupImpl.class);
+
+    /**
+     * Runs to execute.
+     */
+    private final List<WarmupRun> runs;
+
+    /**
+     * Threads for the runs (the number limits the runs at the same time).
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Number of the runs that are done.
+     */
+    private final AtomicInteger finishedRuns;
+
+    /**
+     * Number of the runs that failed.
+     */
+    private final AtomicInteger failedRuns;
+
+    /**
+     * Creates the warm up (but does not start it).
+     * @param aRuns runs to execute
+     * @param parallelRuns maximum number of runs at the same time
+     */
+    public CacheWarmupImpl(
+            final List<WarmupRun> aRuns,
+            final int parallelRuns) {
+        this.runs = new ArrayList<>(aRuns);
+        this.executor = Executors.newFixedThreadPool(
+                Math.max(1, parallelRuns),
+                new ThreadFactoryBuilder()
+                        .setDaemon(true)
+                        .setNameFormat("cache-warmup-%d")
+                        .build());
+        this.finishedRuns = new AtomicInteger();
+        this.failedRuns = new AtomicInteger();
+    }
+
+    /**
+     * Starts the runs in the background.
+     */
+    public void start() {
+        LOGGER.info("Start to warm up the cache with " + runs.size()
+                + " runs");
+        for (final WarmupRun run : runs) {
+            executor.execute(() -> execute(run));
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Stops the warm up.
+     * The runs that are in progress are interrupted,
+     * the others are not started.
+     */
+    public void cancel() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Waits until all the runs are done.
+     * @param timeout maximum time to wait
+     * @param unit unit of the timeout
+     * @return true if all the runs are done
+     * @throws InterruptedException if the thread is interrupted on waiting
+     */
+    public boolean awaitDone(
+            final long timeout,
+            final TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     *
+     * @return number of all the runs
+     */
+    @Override
+    public int getNumberOfRuns() {
+        return runs.size();
+    }
+
+    /**
+     *
+     * @return number of the runs that are done (with or without success)
+     */
+    @Override
+    public int getNumberOfFinishedRuns() {
+        return finishedRuns.get();
+    }
+
+    /**
+     *
+     * @return number of the runs that failed
+     */
+    @Override
+    public int getNumberOfFailedRuns() {
+        return failedRuns.get();
+    }
+
+    /**
+     *
+     * @return true if there is no run left to do
+     */
+    @Override
+    public boolean isDone() {
+        return executor.isTerminated();
+    }
+
+    /**
+     * Executes one run.
+     * The run gets its own execution context, as there is no
+     * request of a user that it belongs to.
+     * @param run run to execute
+     */
+    private void execute(final WarmupRun run) {
+        ExecutionContextFactory.registerContext(new ExecutionContext());
+        try {
+            run.getAlgorithm().run(run.getInputData());
+        } catch (final ExceptionReport | RuntimeException exception) {
+            failedRuns.incrementAndGet();
+            LOGGER.warn("Warm up run of " + run.getProcessIdentifier()
+                    + " failed", exception);
+        } finally {
+            ExecutionContextFactory.unregisterContext();
+            LOGGER.info("Warm up of the cache: "
+                    + finishedRuns.incrementAndGet() + " of " + runs.size()
+                    + " runs done");
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.warmup;
+
+import org.n52.gfz.riesgos.exceptions.ParseConfigurationException;
+import org.n52.wps.server.IAlgorithm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Singleton that warms up the cache with the runs of a manifest.
+ * The progress is registered as MXBean with the name
+ * org.n52.gfz.riesgos:type=CacheWarmup.
+ */
+public enum CacheWarmupSingleton implements ICacheWarmupMetrics {
+
+    /**
+     * Singleton instance.
+     */
+    INSTANCE;
+
+    /**
+     * Name for the registration of the progress.
+     */
+    private static final String METRICS_NAME =
+            "org.n52.gfz.riesgos:type=CacheWarmup";
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(CacheWarmupSingleton.class);
+
+    /**
+     * Current warm up (null if there is none).
+     */
+    private volatile CacheWarmupImpl warmup;
+
+    /**
+     * Manifest file, its last modification and the number of
+     * parallel runs of the current warm up.
+     */
+    private List<Object> warmupKey = Collections.emptyList();
+
+    /**
+     * Constructor that registers the progress.
+     */
+    CacheWarmupSingleton() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    this, new ObjectName(METRICS_NAME));
+        } catch (final JMException exception) {
+            final Logger logger = LoggerFactory.getLogger(
+                    CacheWarmupSingleton.class);
+            logger.warn("Can't register the progress of the cache warm up",
+                    exception);
+        }
+    }
+
+    /**
+     * Starts the warm up with the runs of the manifest in the background.
+     * Nothing happens if the manifest and the number of parallel runs are
+     * the same as for the last call, so the runs are only executed
+     * again if the manifest changes.
+     * A warm up that is still in progress is stopped if the
+     * manifest changes.
+     * @param manifest json file with the runs (null for no warm up)
+     * @param parallelRuns maximum number of runs at the same time
+     * @param processLookup function to look up the processes by
+     *                      their identifier
+     */
+    public synchronized void warmUp(
+            final File manifest,
+            final int parallelRuns,
+            final Function<String, Optional<IAlgorithm>> processLookup) {
+        final List<Object> newKey;
+        if (manifest == null) {
+            newKey = Collections.emptyList();
+        } else {
+            newKey = Arrays.asList(manifest.getAbsolutePath(),
+                    manifest.lastModified(), parallelRuns);
+        }
+        if (Objects.equals(newKey, warmupKey)) {
+            return;
+        }
+        if (warmup != null) {
+            warmup.cancel();
+            warmup = null;
+        }
+        warmupKey = newKey;
+        if (manifest == null) {
+            return;
+        }
+        try {
+            final String text = new String(
+                    Files.readAllBytes(manifest.toPath()),
+                    StandardCharsets.UTF_8);
+            final List<WarmupRun> runs = new ParseJsonWarmupManifestImpl(
+                    manifest.getAbsoluteFile().getParentFile(),
+                    processLookup).parse(text);
+            warmup = new CacheWarmupImpl(runs, parallelRuns);
+            warmup.start();
+        } catch (final IOException | ParseConfigurationException exception) {
+            LOGGER.warn("Can't read the manifest " + manifest
+                    + " to warm up the cache", exception);
+        }
+    }
+
+    /**
+     *
+     * @return number of all the runs in the manifest
+     */
+    @Override
+    public int getNumberOfRuns() {
+        final CacheWarmupImpl current = warmup;
+        if (current == null) {
+            return 0;
+        }
+        return current.getNumberOfRuns();
+    }
+
+    /**
+     *
+     * @return number of the runs that are done (with or without success)
+     */
+    @Override
+    public int getNumberOfFinishedRuns() {
+        final CacheWarmupImpl current = warmup;
+        if (current == null) {
+            return 0;
+        }
+        return current.getNumberOfFinishedRuns();
+    }
+
+    /**
+     *
+     * @return number of the runs that failed
+     */
+    @Override
+    public int getNumberOfFailedRuns() {
+        final CacheWarmupImpl current = warmup;
+        if (current == null) {
+            return 0;
+        }
+        return current.getNumberOfFailedRuns();
+    }
+
+    /**
+     *
+     * @return true if there is no run left to do
+     */
+    @Override
+    public boolean isDone() {
+        final CacheWarmupImpl current = warmup;
+        return current == null || current.isDone();
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.warmup;
+
+import javax.management.MXBean;
+
+/**
+ * Progress of the warm up of the cache.
+ * It is registered as MXBean, so that it can be read with
+ * any jmx client.
+ */
+@MXBean
+public interface ICacheWarmupMetrics {
+
+    /**
+     *
+     * @return number of all the runs in the manifest
+     */
+    int getNumberOfRuns();
+
+    /**
+     *
+     * @return number of the runs that are done (with or without success)
+     */
+    int getNumberOfFinishedRuns();
+
+    /**
+     *
+     * @return number of the runs that failed
+     */
+    int getNumberOfFailedRuns();
+
+    /**
+     *
+     * @return true if there is no run left to do
+     */
+    boolean isDone();
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.warmup;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.n52.gfz.riesgos.bytetoidataconverter.ConvertBytesToGenericFileDataBinding;
+import org.n52.gfz.riesgos.bytetoidataconverter.ConvertBytesToGenericXMLDataBinding;
+import org.n52.gfz.riesgos.bytetoidataconverter.ConvertBytesToGeotiffBinding;
+import org.n52.gfz.riesgos.bytetoidataconverter.ConvertBytesToJsonDataBinding;
+import org.n52.gfz.riesgos.bytetoidataconverter.ConvertBytesToNrmlXMLDataBinding;
+import org.n52.gfz.riesgos.bytetoidataconverter.ConvertBytesToQuakeMLXmlBinding;
+import org.n52.gfz.riesgos.bytetoidataconverter.ConvertBytesToShakemapXmlBinding;
+import org.n52.gfz.riesgos.configuration.parse.formats.json.AbstractParseJson;
+import org.n52.gfz.riesgos.exceptions.ConvertToIDataException;
+import org.n52.gfz.riesgos.exceptions.ParseConfigurationException;
+import org.n52.gfz.riesgos.formats.json.binding.JsonDataBinding;
+import org.n52.gfz.riesgos.formats.nrml.binding.NrmlXmlDataBinding;
+import org.n52.gfz.riesgos.formats.quakeml.binding.QuakeMLXmlDataBinding;
+import org.n52.gfz.riesgos.formats.shakemap.binding.ShakemapXmlDataBinding;
+import org.n52.gfz.riesgos.functioninterfaces.IConvertByteArrayToIData;
+import org.n52.wps.io.data.IData;
+import org.n52.wps.io.data.binding.bbox.BoundingBoxData;
+import org.n52.wps.io.data.binding.complex.GenericFileDataBinding;
+import org.n52.wps.io.data.binding.complex.GenericXMLDataBinding;
+import org.n52.wps.io.data.binding.complex.GeotiffBinding;
+import org.n52.wps.io.data.binding.literal.LiteralBooleanBinding;
+import org.n52.wps.io.data.binding.literal.LiteralDoubleBinding;
+import org.n52.wps.io.data.binding.literal.LiteralIntBinding;
+import org.n52.wps.io.data.binding.literal.LiteralStringBinding;
+import org.n52.wps.server.IAlgorithm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Parses a json manifest with the runs to warm up the cache.
+ *
+ * The manifest is a list of objects with the identifier of the
+ * process and its inputs. Literal inputs are given as values,
+ * bounding boxes with lowerCorner, upperCorner and crs and complex
+ * inputs with a file (relative to the manifest) or the content:
+ *
+ * <pre>
+ * [{
+ *   "process": "QuakeledgerProcess",
+ *   "inputs": {
+ *     "input-boundingbox": {
+ *       "lowerCorner": [-71.8, -33.2],
+ *       "upperCorner": [-71.4, -33.0],
+ *       "crs": "EPSG:4326"
+ *     },
+ *     "mmin": 6.6
+ *   }
+ * }, {
+ *   "process": "ShakygroundProcess",
+ *   "inputs": {
+ *     "quakeMLFile": {"file": "valparaiso.xml"},
+ *     "gmpe": "MontalvaEtAl2016SInter"
+ *   }
+ * }]
+ * </pre>
+ *
+ * Runs that can't be used (for example for processes that are not
+ * configured on this server) are skipped with a warning.
+ */
+public class ParseJsonWarmupManifestImpl extends AbstractParseJson {
+
+    /**
+     * Field with the identifier of the process.
+     */
+    private static final String PROCESS = "process";
+
+    /**
+     * Field with the inputs of the process.
+     */
+    private static final String INPUTS = "inputs";
+
+    /**
+     * Field with the file of a complex input.
+     */
+    private static final String FILE = "file";
+
+    /**
+     * Field with the content of a complex input.
+     */
+    private static final String CONTENT = "content";
+
+    /**
+     * Field with the mime type of a generic file input.
+     */
+    private static final String MIME_TYPE = "mimeType";
+
+    /**
+     * Field with the lower corner of a bounding box.
+     */
+    private static final String LOWER_CORNER = "lowerCorner";
+
+    /**
+     * Field with the upper corner of a bounding box.
+     */
+    private static final String UPPER_CORNER = "upperCorner";
+
+    /**
+     * Field with the coordinate reference system of a bounding box.
+     */
+    private static final String CRS = "crs";
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(ParseJsonWarmupManifestImpl.class);
+
+    /**
+     * Converters for the complex inputs by their binding class.
+     */
+    private static final Map<Class<?>, IConvertByteArrayToIData<?>>
+            CONVERTERS = createConverters();
+
+    /**
+     * Folder to read the files of the complex inputs from.
+     */
+    private final File folder;
+
+    /**
+     * Function to look up the processes by their identifier.
+     */
+    private final Function<String, Optional<IAlgorithm>> processLookup;
+
+    /**
+     * Creates the parser.
+     * @param aFolder folder to read the files of the complex inputs from
+     *                (normally the folder of the manifest)
+     * @param aProcessLookup function to look up the processes by their
+     *                       identifier
+     */
+    public ParseJsonWarmupManifestImpl(
+            final File aFolder,
+            final Function<String, Optional<IAlgorithm>> aProcessLookup) {
+        this.folder = aFolder;
+        this.processLookup = aProcessLookup;
+    }
+
+    /**
+     *
+     * @return map with the converters for the complex inputs
+     */
+    private static Map<Class<?>, IConvertByteArrayToIData<?>>
+    createConverters() {
+        final Map<Class<?>, IConvertByteArrayToIData<?>> converters =
+                new HashMap<>();
+        converters.put(QuakeMLXmlDataBinding.class,
+                new ConvertBytesToQuakeMLXmlBinding());
+        converters.put(ShakemapXmlDataBinding.class,
+                new ConvertBytesToShakemapXmlBinding());
+        converters.put(NrmlXmlDataBinding.class,
+                new ConvertBytesToNrmlXMLDataBinding());
+        converters.put(JsonDataBinding.class,
+                new ConvertBytesToJsonDataBinding());
+        converters.put(GenericXMLDataBinding.class,
+                new ConvertBytesToGenericXMLDataBinding());
+        converters.put(GeotiffBinding.class,
+                new ConvertBytesToGeotiffBinding());
+        return Collections.unmodifiableMap(converters);
+    }
+
+    /**
+     * Parses the manifest.
+     * @param inputText text with the json list of the runs
+     * @return runs that can be used
+     * @throws ParseConfigurationException exception if the text is not
+     * a json list
+     */
+    public List<WarmupRun> parse(final String inputText)
+            throws ParseConfigurationException {
+        final Object parsed;
+        try {
+            parsed = new JSONParser().parse(inputText);
+        } catch (final ParseException exception) {
+            throw new ParseConfigurationException(exception);
+        }
+        if (!(parsed instanceof JSONArray)) {
+            throw new ParseConfigurationException(
+                    "Wrong type for the manifest, expected a list");
+        }
+        final List<WarmupRun> runs = new ArrayList<>();
+        for (final Object element : (JSONArray) parsed) {
+            try {
+                runs.add(parseRun(element));
+            } catch (final ParseConfigurationException exception) {
+                LOGGER.warn("Skip the warm up run " + element + ": "
+                        + exception.getMessage());
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Parses one run.
+     * @param element json element of the run
+     * @return run
+     * @throws ParseConfigurationException exception if the run
+     * can't be used
+     */
+    private WarmupRun parseRun(final Object element)
+            throws ParseConfigurationException {
+        if (!(element instanceof JSONObject)) {
+            throw new ParseConfigurationException(
+                    "Wrong type for the run, expected an object");
+        }
+        final JSONObject json = (JSONObject) element;
+        final String processIdentifier = getString(json, PROCESS);
+        final IAlgorithm algorithm = processLookup.apply(processIdentifier)
+                .orElseThrow(() -> new ParseConfigurationException(
+                        "Unknown process '" + processIdentifier + "'"));
+        final Map<String, List<IData>> inputData = new LinkedHashMap<>();
+        final Object rawInputs = json.get(INPUTS);
+        if (rawInputs != null) {
+            if (!(rawInputs instanceof JSONObject)) {
+                throw new ParseConfigurationException(
+                        "Wrong type for element '" + INPUTS
+                                + "', expected an object");
+            }
+            for (final Object rawEntry : ((JSONObject) rawInputs).entrySet()) {
+                final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) rawEntry;
+                final String identifier = String.valueOf(entry.getKey());
+                final Class<?> bindingClass =
+                        algorithm.getInputDataType(identifier);
+                if (bindingClass == null) {
+                    throw new ParseConfigurationException(
+                            "Unknown input '" + identifier + "'");
+                }
+                inputData.put(identifier,
+                        parseInput(identifier, bindingClass,
+                                entry.getValue()));
+            }
+        }
+        return new WarmupRun(processIdentifier, algorithm, inputData);
+    }
+
+    /**
+     * Parses the values of one input.
+     * @param identifier identifier of the input
+     * @param bindingClass binding class of the input
+     * @param value json value (a list for several values)
+     * @return list with the input data
+     * @throws ParseConfigurationException exception if a value
+     * can't be used
+     */
+    private List<IData> parseInput(
+            final String identifier,
+            final Class<?> bindingClass,
+            final Object value) throws ParseConfigurationException {
+        final List<IData> result = new ArrayList<>();
+        if (value instanceof JSONArray) {
+            for (final Object element : (JSONArray) value) {
+                result.add(parseValue(identifier, bindingClass, element));
+            }
+        } else {
+            result.add(parseValue(identifier, bindingClass, value));
+        }
+        return result;
+    }
+
+    /**
+     * Parses one value of an input.
+     * @param identifier identifier of the input
+     * @param bindingClass binding class of the input
+     * @param value json value
+     * @return input data
+     * @throws ParseConfigurationException exception if the value
+     * can't be used
+     */
+    private IData parseValue(
+            final String identifier,
+            final Class<?> bindingClass,
+            final Object value) throws ParseConfigurationException {
+        try {
+            if (LiteralStringBinding.class.equals(bindingClass)) {
+                return new LiteralStringBinding(String.valueOf(value));
+            } else if (LiteralDoubleBinding.class.equals(bindingClass)) {
+                return new LiteralDoubleBinding(
+                        Double.parseDouble(String.valueOf(value)));
+            } else if (LiteralIntBinding.class.equals(bindingClass)) {
+                return new LiteralIntBinding(
+                        Integer.parseInt(String.valueOf(value)));
+            } else if (LiteralBooleanBinding.class.equals(bindingClass)) {
+                return new LiteralBooleanBinding(
+                        Boolean.parseBoolean(String.valueOf(value)));
+            } else if (BoundingBoxData.class.equals(bindingClass)) {
+                final JSONObject json = asObject(identifier, value);
+                return new BoundingBoxData(
+                        getCorner(json, LOWER_CORNER),
+                        getCorner(json, UPPER_CORNER),
+                        getString(json, CRS));
+            } else if (GenericFileDataBinding.class.equals(bindingClass)) {
+                final JSONObject json = asObject(identifier, value);
+                return getOptionalString(json, MIME_TYPE)
+                        .map(ConvertBytesToGenericFileDataBinding::new)
+                        .orElseGet(ConvertBytesToGenericFileDataBinding::new)
+                        .convertToIData(getContent(json));
+            } else if (CONVERTERS.containsKey(bindingClass)) {
+                return CONVERTERS.get(bindingClass).convertToIData(
+                        getContent(asObject(identifier, value)));
+            }
+        } catch (final NumberFormatException
+                | ConvertToIDataException exception) {
+            throw new ParseConfigurationException(
+                    "Invalid value for input '" + identifier + "': "
+                            + exception.getMessage());
+        }
+        throw new ParseConfigurationException(
+                "Input '" + identifier + "' of type "
+                        + bindingClass.getSimpleName()
+                        + " is not supported");
+    }
+
+    /**
+     *
+     * @param identifier identifier of the input
+     * @param value json value
+     * @return json object
+     * @throws ParseConfigurationException exception if the value is
+     * no json object
+     */
+    private static JSONObject asObject(
+            final String identifier,
+            final Object value) throws ParseConfigurationException {
+        if (!(value instanceof JSONObject)) {
+            throw new ParseConfigurationException(
+                    "Wrong type for input '" + identifier
+                            + "', expected an object");
+        }
+        return (JSONObject) value;
+    }
+
+    /**
+     *
+     * @param json json object of a bounding box
+     * @param key field of the corner
+     * @return coordinates of the corner
+     * @throws ParseConfigurationException exception if the corner
+     * is no list of numbers
+     */
+    private static double[] getCorner(
+            final JSONObject json,
+            final String key) throws ParseConfigurationException {
+        final Object rawValue = json.get(key);
+        if (!(rawValue instanceof JSONArray)) {
+            throw new ParseConfigurationException(
+                    "Wrong type for element '" + key
+                            + "', expected a list of numbers");
+        }
+        final JSONArray array = (JSONArray) rawValue;
+        final double[] corner = new double[array.size()];
+        for (int i = 0; i < corner.length; i++) {
+            if (!(array.get(i) instanceof Number)) {
+                throw new ParseConfigurationException(
+                        "Wrong type for element '" + key
+                                + "', expected a list of numbers");
+            }
+            corner[i] = ((Number) array.get(i)).doubleValue();
+        }
+        return corner;
+    }
+
+    /**
+     *
+     * @param json json object of a complex input
+     * @return content of the file or the content field
+     * @throws ParseConfigurationException exception if there is neither
+     * a file nor a content or the file can't be read
+     */
+    private byte[] getContent(final JSONObject json)
+            throws ParseConfigurationException {
+        final Optional<String> file = getOptionalString(json, FILE);
+        if (file.isPresent()) {
+            try {
+                return Files.readAllBytes(
+                        folder.toPath().resolve(file.get()));
+            } catch (final IOException exception) {
+                throw new ParseConfigurationException(exception);
+            }
+        }
+        return getString(json, CONTENT).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.warmup;
+
+import org.n52.wps.io.data.IData;
+import org.n52.wps.server.IAlgorithm;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Run of a process with fixed inputs to warm up the cache.
+ */
+public class WarmupRun {
+
+    /**
+     * Identifier of the process.
+     */
+    private final String processIdentifier;
+
+    /**
+     * Process to run.
+     */
+    private final IAlgorithm algorithm;
+
+    /**
+     * Input data for the process.
+     */
+    private final Map<String, List<IData>> inputData;
+
+    /**
+     * Creates the run.
+     * @param aProcessIdentifier identifier of the process
+     * @param aAlgorithm process to run
+     * @param aInputData input data for the process
+     */
+    public WarmupRun(
+            final String aProcessIdentifier,
+            final IAlgorithm aAlgorithm,
+            final Map<String, List<IData>> aInputData) {
+        this.processIdentifier = aProcessIdentifier;
+        this.algorithm = aAlgorithm;
+        this.inputData = Collections.unmodifiableMap(aInputData);
+    }
+
+    /**
+     *
+     * @return identifier of the process
+     */
+    public String getProcessIdentifier() {
+        return processIdentifier;
+    }
+
+    /**
+     *
+     * @return process to run
+     */
+    public IAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     *
+     * @return input data for the process
+     */
+    public Map<String, List<IData>> getInputData() {
+        return inputData;
+    }
+}
@@ -16,7 +16,13 @@ package org.n52.gfz.riesgos.cmdexecution;
  * limitations under the Licence.
  */
 
+import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Predicate;
 
 /**
  * Interface for an context to run an executable.
@@ -44,6 +50,40 @@ public interface IExecutionContext extends AutoCloseable {
      */
     byte[] readFromFile(String path) throws IOException;
 
+    /**
+     * Reads a file from the path (maybe out of a docker container)
+     * and copies the content to the target stream.
+     * The default implementation reads the whole file into memory;
+     * implementations for containers stream it with a buffer of
+     * constant size, so that large files can be copied to a scratch
+     * file on the host.
+     * The target stream will not be closed.
+     * @param path path of a file
+     * @param target stream to copy the content to
+     * @throws IOException there may be an IOException on reading the file
+     */
+    default void readFromFile(
+            final String path,
+            final OutputStream target) throws IOException {
+        target.write(readFromFile(path));
+    }
+
+    /**
+     * Reads all the files in a directory (and its subdirectories)
+     * that are accepted by the filter in one step.
+     * The default implementation reads nothing, so the files
+     * must be read one by one with readFromFile.
+     * @param directory directory to read
+     * @param filter filter for the paths of the files
+     * @return map with the paths of the files and the contents
+     * @throws IOException there may be an IOException on reading the files
+     */
+    default Map<String, byte[]> readFromDirectory(
+            final String directory,
+            final Predicate<String> filter) throws IOException {
+        return Collections.emptyMap();
+    }
+
     /**
      * Write the contents of a byte array to a path
      * (maybe in a docker container).
@@ -56,4 +96,39 @@ public interface IExecutionContext extends AutoCloseable {
             byte[] content,
             String workingDir,
             String fileName) throws IOException;
+
+    /**
+     * Writes the content of a file on the host to a path
+     * (maybe in a docker container).
+     * The default implementation reads the whole file into memory;
+     * implementations for containers stream it.
+     * @param source file on the host
+     * @param workingDir working directory to write to
+     * @param fileName filename in the working directory
+     * @throws IOException there may be an IOException on writing the file
+     */
+    default void writeToFile(
+            final File source,
+            final String workingDir,
+            final String fileName) throws IOException {
+        writeToFile(Files.readAllBytes(source.toPath()), workingDir, fileName);
+    }
+
+    /**
+     * Writes several files at once into the working directory
+     * (maybe in a docker container).
+     * The default implementation writes them one by one;
+     * implementations for containers can copy them all in one step.
+     * @param files map with the file names (relative to the working
+     *              directory) and the contents
+     * @param workingDir working directory to write to
+     * @throws IOException there may be an IOException on writing the files
+     */
+    default void writeToFiles(
+            final Map<String, byte[]> files,
+            final String workingDir) throws IOException {
+        for (final Map.Entry<String, byte[]> file : files.entrySet()) {
+            writeToFile(file.getValue(), workingDir, file.getKey());
+        }
+    }
 }
@@ -17,6 +17,7 @@ package org.n52.gfz.riesgos.cmdexecution;
  */
 
 import java.io.PrintStream;
+import java.util.function.Predicate;
 
 /**
  * Interface for a running process to provide.
@@ -40,4 +41,50 @@ public interface IExecutionRun {
      */
     IExecutionRunResult waitForCompletion() throws InterruptedException;
 
+    /**
+     * Blocks until the process completed or until a line of stderr
+     * shows that the process failed.
+     * In the second case the process is stopped (after a short time
+     * to write the rest of the error message) and the result contains
+     * the output up to that point.
+     *
+     * The default implementation only waits for the process
+     * to complete.
+     *
+     * @param isFailureLine check for the single lines of stderr
+     * @return result of the process with access to the
+     * exit value and stderr and stdout text
+     * @throws InterruptedException there maybe is an interrupted exception
+     * on waiting for the process to complete
+     */
+    default IExecutionRunResult waitForCompletion(
+            final Predicate<String> isFailureLine)
+            throws InterruptedException {
+        return waitForCompletion();
+    }
+
+    /**
+     * Blocks until the process completed, until a line of stderr
+     * shows that the process failed or until the maximum time
+     * for the run is over.
+     * In the last case the process is stopped at once and the result
+     * contains the output up to that point.
+     *
+     * The default implementation ignores the maximum time.
+     *
+     * @param isFailureLine check for the single lines of stderr
+     * @param timeoutMillis maximum time for the run in milliseconds
+     *                      (0 for no limit)
+     * @return result of the process with access to the
+     * exit value and stderr and stdout text
+     * @throws InterruptedException there maybe is an interrupted exception
+     * on waiting for the process to complete
+     */
+    default IExecutionRunResult waitForCompletion(
+            final Predicate<String> isFailureLine,
+            final long timeoutMillis)
+            throws InterruptedException {
+        return waitForCompletion(isFailureLine);
+    }
+
 }
@@ -16,10 +16,15 @@ package org.n52.gfz.riesgos.cmdexecution;
  * limitations under the Licence.
  */
 
+import java.io.File;
+import java.util.Optional;
+
 /**
  * Interface to represent a result of a process.
+ * The result should be closed after use, so that scratch files
+ * for large output can be deleted.
  */
-public interface IExecutionRunResult  {
+public interface IExecutionRunResult extends AutoCloseable {
 
     /**
      *
@@ -29,13 +34,88 @@ public interface IExecutionRunResult  {
 
     /**
      *
-     * @return joined string of stderr stream
+     * @return bytes of the stderr stream
      */
-    String getStderrResult();
+    byte[] getStderrBytes();
 
     /**
      *
-     * @return joined string of stdout stream
+     * @return bytes of the stdout stream
+     */
+    byte[] getStdoutBytes();
+
+    /**
+     * If the stream was too large to keep it in memory, the text
+     * contains only the start and the end of it.
+     * @return text of the stderr stream (decoded on the first call)
+     */
+    String getStderrResult();
+
+    /**
+     * If the stream was too large to keep it in memory, the text
+     * contains only the start and the end of it.
+     * @return text of the stdout stream (decoded on the first call)
      */
     String getStdoutResult();
+
+    /**
+     *
+     * @return true if stderr was larger than its maximum size, so that
+     * the bytes are not complete
+     */
+    default boolean isStderrTruncated() {
+        return false;
+    }
+
+    /**
+     *
+     * @return true if stdout was larger than its maximum size, so that
+     * the bytes are not complete
+     */
+    default boolean isStdoutTruncated() {
+        return false;
+    }
+
+    /**
+     *
+     * @return number of all the bytes of stdout
+     */
+    default long getStdoutSize() {
+        return getStdoutBytes().length;
+    }
+
+    /**
+     * Gives the scratch file with the stdout bytes to the caller,
+     * who is responsible for deleting it afterwards.
+     * @return scratch file if stdout was too large to keep it in memory
+     */
+    default Optional<File> takeStdoutFile() {
+        return Optional.empty();
+    }
+
+    /**
+     * Deletes the scratch files of the output (that were not taken).
+     */
+    @Override
+    default void close() {
+        // nothing to clean up by default
+    }
+
+    /**
+     *
+     * @return true if the process was stopped early because of
+     * a failure line on stderr
+     */
+    default boolean isStoppedOnFailure() {
+        return false;
+    }
+
+    /**
+     *
+     * @return true if the process was stopped because it took longer
+     * than the maximum time for a run
+     */
+    default boolean isTimedOut() {
+        return false;
+    }
 }
@@ -0,0 +1,424 @@
+package org.n52.gfz.riesgos.cmdexecution.admission;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.gfz.riesgos.exceptions.AdmissionRejectedException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Implementation of the admission control with a global limit,
+ * limits per docker image and a bounded fifo queue.
+ *
+ * The waiting runs are admitted in the order of their arrival.
+ * A run whose image is at its limit does not block the runs of other
+ * images behind it. A limit of 0 means that there is no limit.
+ */
+public class AdmissionControllerImpl
+        implements IAdmissionController, IAdmissionMetrics {
+
+    /**
+     * Lock for all the state.
+     */
+    private final ReentrantLock lock;
+
+    /**
+     * Waiting runs in the order of their arrival.
+     */
+    private final Deque<Waiter> queue;
+
+    /**
+     * Number of running runs by image id.
+     */
+    private final Map<String, Integer> runningByImage;
+
+    /**
+     * Maximum number of runs at the same time (0 for no limit).
+     */
+    private int maxConcurrentRuns;
+
+    /**
+     * Maximum number of waiting runs (0 for no limit).
+     */
+    private int maxQueuedRuns;
+
+    /**
+     * Maximum waiting time in milliseconds (0 for no limit).
+     */
+    private long queueTimeoutMillis;
+
+    /**
+     * Number of running runs.
+     */
+    private int runningCount;
+
+    /**
+     * Number of admitted runs.
+     */
+    private long admittedCount;
+
+    /**
+     * Number of runs that were rejected because of a full queue.
+     */
+    private long rejectedCount;
+
+    /**
+     * Number of runs that waited too long.
+     */
+    private long timedOutCount;
+
+    /**
+     * Sum of the waiting times of the admitted runs in milliseconds.
+     */
+    private long totalWaitMillis;
+
+    /**
+     * Longest waiting time of an admitted run in milliseconds.
+     */
+    private long maxWaitMillis;
+
+    /**
+     * Constructor with the limits.
+     * @param aMaxConcurrentRuns maximum number of runs at the same time
+     *                           (0 for no limit)
+     * @param aMaxQueuedRuns maximum number of waiting runs (0 for no limit)
+     * @param aQueueTimeoutMillis maximum waiting time in milliseconds
+     *                            (0 for no limit)
+     */
+    public AdmissionControllerImpl(
+            final int aMaxConcurrentRuns,
+            final int aMaxQueuedRuns,
+            final long aQueueTimeoutMillis) {
+        this.lock = new ReentrantLock();
+        this.queue = new ArrayDeque<>();
+        this.runningByImage = new HashMap<>();
+        this.maxConcurrentRuns = aMaxConcurrentRuns;
+        this.maxQueuedRuns = aMaxQueuedRuns;
+        this.queueTimeoutMillis = aQueueTimeoutMillis;
+    }
+
+    /**
+     * Changes the limits. Runs that are already running are not
+     * affected; waiting runs are admitted if the new limits allow it.
+     * @param aMaxConcurrentRuns maximum number of runs at the same time
+     *                           (0 for no limit)
+     * @param aMaxQueuedRuns maximum number of waiting runs (0 for no limit)
+     * @param aQueueTimeoutMillis maximum waiting time in milliseconds
+     *                            (0 for no limit)
+     */
+    public void updateLimits(
+            final int aMaxConcurrentRuns,
+            final int aMaxQueuedRuns,
+            final long aQueueTimeoutMillis) {
+        lock.lock();
+        try {
+            this.maxConcurrentRuns = aMaxConcurrentRuns;
+            this.maxQueuedRuns = aMaxQueuedRuns;
+            this.queueTimeoutMillis = aQueueTimeoutMillis;
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the run may start.
+     * @param imageId id of the docker image that is used for the run
+     * @param maxRunsForImage maximum number of runs of the image at the
+     *                        same time (0 for no limit)
+     * @return admission that must be closed after the run
+     * @throws AdmissionRejectedException exception if the run can't be
+     * admitted (full queue, timeout or interruption)
+     */
+    @Override
+    public IAdmission admit(
+            final String imageId,
+            final int maxRunsForImage) throws AdmissionRejectedException {
+        final long start = System.nanoTime();
+        lock.lock();
+        try {
+            final Waiter waiter = new Waiter(imageId, maxRunsForImage);
+            queue.addLast(waiter);
+            dispatch();
+            if (!waiter.admitted
+                    && maxQueuedRuns > 0 && queue.size() > maxQueuedRuns) {
+                queue.remove(waiter);
+                rejectedCount++;
+                throw new AdmissionRejectedException(
+                        "The queue is full (" + maxQueuedRuns
+                                + " waiting runs)");
+            }
+            long remainingNanos =
+                    TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis);
+            while (!waiter.admitted) {
+                try {
+                    if (queueTimeoutMillis > 0) {
+                        if (remainingNanos <= 0) {
+                            queue.remove(waiter);
+                            timedOutCount++;
+                            throw new AdmissionRejectedException(
+                                    "The run waited longer than "
+                                            + queueTimeoutMillis
+                                            + " ms to start");
+                        }
+                        remainingNanos =
+                                waiter.condition.awaitNanos(remainingNanos);
+                    } else {
+                        waiter.condition.await();
+                    }
+                } catch (final InterruptedException exception) {
+                    if (waiter.admitted) {
+                        release(imageId);
+                    } else {
+                        queue.remove(waiter);
+                    }
+                    Thread.currentThread().interrupt();
+                    throw new AdmissionRejectedException(
+                            "Interrupted while waiting to start");
+                }
+            }
+            final long waitMillis = TimeUnit.NANOSECONDS.toMillis(
+                    System.nanoTime() - start);
+            admittedCount++;
+            totalWaitMillis += waitMillis;
+            maxWaitMillis = Math.max(maxWaitMillis, waitMillis);
+            return new Admission(imageId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives the permission of a run back and admits waiting runs.
+     * @param imageId id of the image of the run
+     */
+    private void release(final String imageId) {
+        lock.lock();
+        try {
+            runningCount--;
+            final int runningForImage = runningByImage.get(imageId) - 1;
+            if (runningForImage == 0) {
+                runningByImage.remove(imageId);
+            } else {
+                runningByImage.put(imageId, runningForImage);
+            }
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Admits the waiting runs in the order of their arrival
+     * as long as the limits allow it.
+     * Must be called with the lock held.
+     */
+    private void dispatch() {
+        final Iterator<Waiter> iterator = queue.iterator();
+        while (iterator.hasNext()
+                && (maxConcurrentRuns <= 0
+                    || runningCount < maxConcurrentRuns)) {
+            final Waiter waiter = iterator.next();
+            final int runningForImage =
+                    runningByImage.getOrDefault(waiter.imageId, 0);
+            if (waiter.maxRunsForImage <= 0
+                    || runningForImage < waiter.maxRunsForImage) {
+                iterator.remove();
+                runningCount++;
+                runningByImage.put(waiter.imageId, runningForImage + 1);
+                waiter.admitted = true;
+                waiter.condition.signal();
+            }
+        }
+    }
+
+    /**
+     *
+     * @return number of runs that are running at the moment
+     */
+    @Override
+    public int getRunningCount() {
+        lock.lock();
+        try {
+            return runningCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     *
+     * @return number of runs that are waiting at the moment
+     */
+    @Override
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     *
+     * @return number of runs that were admitted so far
+     */
+    @Override
+    public long getAdmittedCount() {
+        lock.lock();
+        try {
+            return admittedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     *
+     * @return number of runs that were rejected because the queue was full
+     */
+    @Override
+    public long getRejectedCount() {
+        lock.lock();
+        try {
+            return rejectedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     *
+     * @return number of runs that waited too long in the queue
+     */
+    @Override
+    public long getTimedOutCount() {
+        lock.lock();
+        try {
+            return timedOutCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     *
+     * @return average waiting time of the admitted runs in milliseconds
+     */
+    @Override
+    public long getAverageWaitMillis() {
+        lock.lock();
+        try {
+            if (admittedCount == 0) {
+                return 0L;
+            }
+            return totalWaitMillis / admittedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     *
+     * @return longest waiting time of an admitted run in milliseconds
+     */
+    @Override
+    public long getMaxWaitMillis() {
+        lock.lock();
+        try {
+            return maxWaitMillis;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A run that waits to start.
+     */
+    private final class Waiter {
+        /**
+         * Id of the docker image.
+         */
+        private final String imageId;
+        /**
+         * Maximum number of runs of the image (0 for no limit).
+         */
+        private final int maxRunsForImage;
+        /**
+         * Condition to wake up the waiting thread.
+         */
+        private final Condition condition;
+        /**
+         * True as soon as the run may start.
+         */
+        private boolean admitted;
+
+        /**
+         * Constructor with the image and its limit.
+         * @param aImageId id of the docker image
+         * @param aMaxRunsForImage maximum number of runs of the image
+         */
+        Waiter(final String aImageId, final int aMaxRunsForImage) {
+            this.imageId = aImageId;
+            this.maxRunsForImage = aMaxRunsForImage;
+            this.condition = lock.newCondition();
+            this.admitted = false;
+        }
+    }
+
+    /**
+     * Admission that gives its permission back (only once) on closing.
+     */
+    private final class Admission implements IAdmission {
+        /**
+         * Id of the docker image.
+         */
+        private final String imageId;
+        /**
+         * Flag to give the permission back only once.
+         */
+        private final AtomicBoolean closed;
+
+        /**
+         * Constructor with the image id.
+         * @param aImageId id of the docker image
+         */
+        Admission(final String aImageId) {
+            this.imageId = aImageId;
+            this.closed = new AtomicBoolean(false);
+        }
+
+        /**
+         * Gives the permission back.
+         */
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(imageId);
+            }
+        }
+    }
+}
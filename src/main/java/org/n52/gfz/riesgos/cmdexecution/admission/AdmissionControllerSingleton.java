@@ -0,0 +1,99 @@
+package org.n52.gfz.riesgos.cmdexecution.admission;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Singleton to share one admission control between all the processes
+ * (as the limits are for the whole server).
+ * The metrics are registered as MXBean with the name
+ * org.n52.gfz.riesgos:type=AdmissionControl.
+ */
+public enum AdmissionControllerSingleton {
+
+    /**
+     * Singleton instance.
+     */
+    INSTANCE;
+
+    /**
+     * Name for the registration of the metrics.
+     */
+    private static final String METRICS_NAME =
+            "org.n52.gfz.riesgos:type=AdmissionControl";
+
+    /**
+     * Number of milliseconds in a second.
+     */
+    private static final long MILLIS_PER_SECOND = 1000L;
+
+    /**
+     * The admission control that is used for all the work.
+     */
+    private final AdmissionControllerImpl controller;
+
+    /**
+     * Constructor that creates the admission control without limits
+     * and registers the metrics.
+     */
+    AdmissionControllerSingleton() {
+        controller = new AdmissionControllerImpl(0, 0, 0L);
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    controller, new ObjectName(METRICS_NAME));
+        } catch (final JMException exception) {
+            final Logger logger = LoggerFactory.getLogger(
+                    AdmissionControllerSingleton.class);
+            logger.warn("Can't register the metrics for the admission "
+                    + "control", exception);
+        }
+    }
+
+    /**
+     * Gives back the shared admission control with the current limits.
+     * @param maxConcurrentRuns maximum number of runs at the same time
+     *                          (0 for no limit)
+     * @param maxQueuedRuns maximum number of waiting runs (0 for no limit)
+     * @param queueTimeoutSeconds maximum waiting time in seconds
+     *                            (0 for no limit)
+     * @return admission control
+     */
+    public IAdmissionController getController(
+            final int maxConcurrentRuns,
+            final int maxQueuedRuns,
+            final long queueTimeoutSeconds) {
+        controller.updateLimits(
+                maxConcurrentRuns,
+                maxQueuedRuns,
+                queueTimeoutSeconds * MILLIS_PER_SECOND);
+        return controller;
+    }
+
+    /**
+     *
+     * @return metrics of the shared admission control
+     */
+    public IAdmissionMetrics getMetrics() {
+        return controller;
+    }
+}
@@ -0,0 +1,39 @@
+package org.n52.gfz.riesgos.cmdexecution.admission;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.gfz.riesgos.exceptions.AdmissionRejectedException;
+
+/**
+ * Interface for the admission control that decides when
+ * a run may start.
+ */
+@FunctionalInterface
+public interface IAdmissionController {
+
+    /**
+     * Waits until the run may start.
+     * @param imageId id of the docker image that is used for the run
+     * @param maxRunsForImage maximum number of runs of the image at the
+     *                        same time (0 for no limit)
+     * @return admission that must be closed after the run
+     * @throws AdmissionRejectedException exception if the run can't be
+     * admitted (full queue, timeout or interruption)
+     */
+    IAdmission admit(String imageId, int maxRunsForImage)
+            throws AdmissionRejectedException;
+}
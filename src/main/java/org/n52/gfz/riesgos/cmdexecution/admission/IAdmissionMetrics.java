@@ -0,0 +1,70 @@
+package org.n52.gfz.riesgos.cmdexecution.admission;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import javax.management.MXBean;
+
+/**
+ * Metrics of the admission control.
+ * They are registered as MXBean, so that they can be read with
+ * any jmx client.
+ */
+@MXBean
+public interface IAdmissionMetrics {
+
+    /**
+     *
+     * @return number of runs that are running at the moment
+     */
+    int getRunningCount();
+
+    /**
+     *
+     * @return number of runs that are waiting at the moment
+     */
+    int getQueueDepth();
+
+    /**
+     *
+     * @return number of runs that were admitted so far
+     */
+    long getAdmittedCount();
+
+    /**
+     *
+     * @return number of runs that were rejected because the queue was full
+     */
+    long getRejectedCount();
+
+    /**
+     *
+     * @return number of runs that waited too long in the queue
+     */
+    long getTimedOutCount();
+
+    /**
+     *
+     * @return average waiting time of the admitted runs in milliseconds
+     */
+    long getAverageWaitMillis();
+
+    /**
+     *
+     * @return longest waiting time of an admitted run in milliseconds
+     */
+    long getMaxWaitMillis();
+}
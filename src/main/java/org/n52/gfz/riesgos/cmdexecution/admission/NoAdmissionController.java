@@ -0,0 +1,39 @@
+package org.n52.gfz.riesgos.cmdexecution.admission;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+/**
+ * Implementation without any limits.
+ * Every run is admitted immediately.
+ */
+public class NoAdmissionController implements IAdmissionController {
+
+    /**
+     * Admits the run immediately.
+     * @param imageId id of the docker image that is used for the run
+     * @param maxRunsForImage ignored
+     * @return admission that does nothing on closing
+     */
+    @Override
+    public IAdmission admit(
+            final String imageId,
+            final int maxRunsForImage) {
+        return () -> {
+            // nothing to give back
+        };
+    }
+}
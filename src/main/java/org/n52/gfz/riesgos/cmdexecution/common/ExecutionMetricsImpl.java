@@ -0,0 +1,115 @@
+package org.n52.gfz.riesgos.cmdexecution.common;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+
+/**
+ * Implementation of the metrics of the stopped runs.
+ */
+public class ExecutionMetricsImpl implements IExecutionMetrics {
+
+    /**
+     * Number of runs that took too long.
+     */
+    private long timedOutCount;
+
+    /**
+     * Number of runs that were stopped because of an error on stderr.
+     */
+    private long stoppedOnFailureCount;
+
+    /**
+     * Sum of the kill durations in milliseconds.
+     */
+    private long totalKillMillis;
+
+    /**
+     * Longest kill duration in milliseconds.
+     */
+    private long maxKillMillis;
+
+    /**
+     * Counts a killed run.
+     * @param timedOut true if the run took too long, false if it
+     *                 was stopped because of an error on stderr
+     * @param killMillis time in milliseconds from the kill until
+     *                   the run ended
+     */
+    public synchronized void recordKill(
+            final boolean timedOut,
+            final long killMillis) {
+        if (timedOut) {
+            timedOutCount++;
+        } else {
+            stoppedOnFailureCount++;
+        }
+        totalKillMillis += killMillis;
+        maxKillMillis = Math.max(maxKillMillis, killMillis);
+    }
+
+    /**
+     *
+     * @return number of runs that took too long
+     */
+    @Override
+    public synchronized long getTimedOutCount() {
+        return timedOutCount;
+    }
+
+    /**
+     *
+     * @return number of runs that were stopped because of an error
+     * on stderr
+     */
+    @Override
+    public synchronized long getStoppedOnFailureCount() {
+        return stoppedOnFailureCount;
+    }
+
+    /**
+     *
+     * @return number of killed runs
+     */
+    @Override
+    public synchronized long getKillCount() {
+        return timedOutCount + stoppedOnFailureCount;
+    }
+
+    /**
+     *
+     * @return average time in milliseconds from the kill until
+     * the run ended
+     */
+    @Override
+    public synchronized long getAverageKillMillis() {
+        final long killCount = getKillCount();
+        if (killCount == 0) {
+            return 0L;
+        }
+        return totalKillMillis / killCount;
+    }
+
+    /**
+     *
+     * @return longest time in milliseconds from the kill until
+     * the run ended
+     */
+    @Override
+    public synchronized long getMaxKillMillis() {
+        return maxKillMillis;
+    }
+}
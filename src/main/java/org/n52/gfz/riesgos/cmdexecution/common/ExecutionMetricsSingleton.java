@@ -0,0 +1,84 @@
+package org.n52.gfz.riesgos.cmdexecution.common;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Singleton to count the stopped runs of all the processes.
+ * The metrics are registered as MXBean with the name
+ * org.n52.gfz.riesgos:type=Execution.
+ */
+public enum ExecutionMetricsSingleton {
+
+    /**
+     * Singleton instance.
+     */
+    INSTANCE;
+
+    /**
+     * Name for the registration of the metrics.
+     */
+    private static final String METRICS_NAME =
+            "org.n52.gfz.riesgos:type=Execution";
+
+    /**
+     * The metrics that are used for all the runs.
+     */
+    private final ExecutionMetricsImpl metrics;
+
+    /**
+     * Constructor that creates and registers the metrics.
+     */
+    ExecutionMetricsSingleton() {
+        metrics = new ExecutionMetricsImpl();
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    metrics, new ObjectName(METRICS_NAME));
+        } catch (final JMException exception) {
+            final Logger logger = LoggerFactory.getLogger(
+                    ExecutionMetricsSingleton.class);
+            logger.warn("Can't register the metrics for the execution",
+                    exception);
+        }
+    }
+
+    /**
+     * Counts a killed run.
+     * @param timedOut true if the run took too long, false if it
+     *                 was stopped because of an error on stderr
+     * @param killMillis time in milliseconds from the kill until
+     *                   the run ended
+     */
+    public void recordKill(final boolean timedOut, final long killMillis) {
+        metrics.recordKill(timedOut, killMillis);
+    }
+
+    /**
+     *
+     * @return metrics of the stopped runs
+     */
+    public IExecutionMetrics getMetrics() {
+        return metrics;
+    }
+}
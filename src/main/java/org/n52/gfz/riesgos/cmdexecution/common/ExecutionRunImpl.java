@@ -18,17 +18,35 @@ package org.n52.gfz.riesgos.cmdexecution.common;
 
 import org.n52.gfz.riesgos.cmdexecution.IExecutionRun;
 import org.n52.gfz.riesgos.cmdexecution.IExecutionRunResult;
-import org.n52.gfz.riesgos.cmdexecution.util.ThreadedStreamStringReader;
+import org.n52.gfz.riesgos.cmdexecution.util.CapturedOutput;
+import org.n52.gfz.riesgos.cmdexecution.util.DrainedStream;
+import org.n52.gfz.riesgos.cmdexecution.util.StderrFailureWatch;
+import org.n52.gfz.riesgos.cmdexecution.util.StreamDrainerSingleton;
+import org.n52.gfz.riesgos.configuration.IOutputCaptureSettings;
+import org.n52.gfz.riesgos.configuration.impl.OutputCaptureSettingsImpl;
 
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 /**
  * Implementation that provides stdin, exit value
  * and provides the results of stderr and stdout streams.
+ * Stderr and stdout are read by the shared stream drainer.
+ *
+ * If the run is stopped because of a failure on stderr or because
+ * it took too long, the stop action is used (for example to kill
+ * a docker container, because stopping the docker client process
+ * alone doesn't stop the container).
  */
 public class ExecutionRunImpl implements IExecutionRun {
 
+    /**
+     * Time in seconds for the process to end after the stop action.
+     */
+    private static final long STOP_TIMEOUT_SECONDS = 30L;
+
     /**
      * The process that runs.
      */
@@ -40,26 +58,71 @@ public class ExecutionRunImpl implements IExecutionRun {
     private final PrintStream stdin;
 
     /**
-     * A threaded reader to read from stderr.
+     * The bytes of stderr (read in the background).
+     */
+    private final DrainedStream stderr;
+    /**
+     * The bytes of stdout (read in the background).
+     */
+    private final DrainedStream stdout;
+
+    /**
+     * Action to stop the process on a failure.
      */
-    private final ThreadedStreamStringReader stderr;
+    private final Runnable stopAction;
+
     /**
-     * A threaded reader to read from stdout.
+     * Time in milliseconds when the run started.
      */
-    private final ThreadedStreamStringReader stdout;
+    private final long startMillis;
 
     /**
-     * Constructor with a process.
+     * Constructor with a process, the action to stop it
+     * on a failure and the settings to capture the output.
      * @param aProcess the process to wrap
+     * @param aStopAction action to stop the process
+     * @param aCaptureSettings settings for capturing stdout and stderr
      */
-    public ExecutionRunImpl(final Process aProcess) {
+    public ExecutionRunImpl(
+            final Process aProcess,
+            final Runnable aStopAction,
+            final IOutputCaptureSettings aCaptureSettings) {
         this.process = aProcess;
+        this.stopAction = aStopAction;
+        this.startMillis = System.currentTimeMillis();
 
         stdin = new PrintStream(process.getOutputStream());
-        stderr = new ThreadedStreamStringReader(process.getErrorStream());
-        stdout = new ThreadedStreamStringReader(process.getInputStream());
-        stderr.start();
-        stdout.start();
+        stderr = StreamDrainerSingleton.INSTANCE.drain(
+                process.getErrorStream(),
+                new CapturedOutput(
+                        aCaptureSettings.getInMemoryBytes(),
+                        aCaptureSettings.getMaxStderrBytes()));
+        stdout = StreamDrainerSingleton.INSTANCE.drain(
+                process.getInputStream(),
+                new CapturedOutput(
+                        aCaptureSettings.getInMemoryBytes(),
+                        aCaptureSettings.getMaxStdoutBytes()));
+    }
+
+    /**
+     * Constructor with a process and the action to stop it
+     * on a failure.
+     * @param aProcess the process to wrap
+     * @param aStopAction action to stop the process
+     */
+    public ExecutionRunImpl(
+            final Process aProcess,
+            final Runnable aStopAction) {
+        this(aProcess, aStopAction, OutputCaptureSettingsImpl.DEFAULT);
+    }
+
+    /**
+     * Constructor with a process that is stopped by destroying it
+     * (child processes of the process are not destroyed).
+     * @param aProcess the process to wrap
+     */
+    public ExecutionRunImpl(final Process aProcess) {
+        this(aProcess, aProcess::destroyForcibly);
     }
 
     /**
@@ -82,21 +145,105 @@ public class ExecutionRunImpl implements IExecutionRun {
 
         final int exitValue = process.waitFor();
 
-        stderr.join();
-        stdout.join();
+        return collectResult(exitValue, false, false);
+    }
 
-        process.destroy();
+    /**
+     * Waits for the process to be done or stops it on a failure line
+     * on stderr.
+     * @param isFailureLine check for the single lines of stderr
+     * @return class with access to the results of the process.
+     * @throws InterruptedException may throw an InterruptedException
+     */
+    @Override
+    public IExecutionRunResult waitForCompletion(
+            final Predicate<String> isFailureLine)
+            throws InterruptedException {
+        return waitForCompletion(isFailureLine, 0L);
+    }
 
-        final String stderrText = stderr.getResult();
-        final String stdoutText = stdout.getResult();
+    /**
+     * Waits for the process to be done or stops it on a failure line
+     * on stderr or when the maximum time since the start is over.
+     * @param isFailureLine check for the single lines of stderr
+     * @param timeoutMillis maximum time for the run in milliseconds
+     *                      (0 for no limit)
+     * @return class with access to the results of the process.
+     * @throws InterruptedException may throw an InterruptedException
+     */
+    @Override
+    public IExecutionRunResult waitForCompletion(
+            final Predicate<String> isFailureLine,
+            final long timeoutMillis)
+            throws InterruptedException {
+        stdin.close();
 
+        final StderrFailureWatch watch = new StderrFailureWatch(isFailureLine);
         try {
-            stderr.throwExceptionIfNecessary();
-            stdout.throwExceptionIfNecessary();
+            stderr.watchLines(watch);
         } catch (final IOException ioException) {
             throw new RuntimeException(ioException);
         }
 
-        return new ExecutionRunResultImpl(exitValue, stderrText, stdoutText);
+        final boolean stop = watch.awaitEndOrFailure(
+                process::isAlive, remainingMillis(timeoutMillis));
+        final boolean timedOut = stop && !watch.hasSeenFailure();
+        if (stop) {
+            final long killStartMillis = System.currentTimeMillis();
+            stopAction.run();
+            if (!process.waitFor(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+            process.waitFor();
+            ExecutionMetricsSingleton.INSTANCE.recordKill(
+                    timedOut, System.currentTimeMillis() - killStartMillis);
+        }
+        final int exitValue = process.waitFor();
+
+        return collectResult(exitValue, stop && !timedOut, timedOut);
+    }
+
+    /**
+     * Computes the time that is left for the run.
+     * @param timeoutMillis maximum time for the run in milliseconds
+     *                      (0 for no limit)
+     * @return time that is left in milliseconds (at least 1 if there
+     * is a limit, 0 if there is no limit)
+     */
+    private long remainingMillis(final long timeoutMillis) {
+        if (timeoutMillis <= 0) {
+            return 0L;
+        }
+        final long usedMillis = System.currentTimeMillis() - startMillis;
+        return Math.max(1L, timeoutMillis - usedMillis);
+    }
+
+    /**
+     * Waits until stderr and stdout are read to the end.
+     * @param exitValue exit value of the process
+     * @param stoppedOnFailure true if the process was stopped early
+     * @param timedOut true if the process was stopped because it
+     *                 took too long
+     * @return class with access to the results of the process.
+     * @throws InterruptedException may throw an InterruptedException
+     */
+    private IExecutionRunResult collectResult(
+            final int exitValue,
+            final boolean stoppedOnFailure,
+            final boolean timedOut)
+            throws InterruptedException {
+        try {
+            final CapturedOutput stderrOutput = stderr.awaitOutput();
+            final CapturedOutput stdoutOutput = stdout.awaitOutput();
+
+            return new ExecutionRunResultImpl(
+                    exitValue, stderrOutput, stdoutOutput,
+                    ExecutionRunResultImpl.DEFAULT_CHARSET,
+                    stoppedOnFailure, timedOut);
+        } catch (final IOException ioException) {
+            throw new RuntimeException(ioException);
+        } finally {
+            process.destroy();
+        }
     }
 }
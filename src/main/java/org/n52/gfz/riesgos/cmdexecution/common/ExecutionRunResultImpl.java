@@ -15,14 +15,28 @@ package org.n52.gfz.riesgos.cmdexecution.common;
  * See the Licence for the specific language governing permissions and
  * limitations under the Licence.
  */
-
 import org.n52.gfz.riesgos.cmdexecution.IExecutionRunResult;
+import org.n52.gfz.riesgos.cmdexecution.util.CapturedOutput;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
 
 /**
  * Implementation of the result of running a process.
+ * Stdout and stderr are kept as captured output (in memory or
+ * in a scratch file) and only decoded to text if the text is needed.
  */
 public class ExecutionRunResultImpl implements IExecutionRunResult {
 
+    /**
+     * Charset of the output of the processes.
+     */
+    public static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
+
     /**
      * Exit value of the run.
      */
@@ -30,25 +44,107 @@ public class ExecutionRunResultImpl implements IExecutionRunResult {
     /**
      * Stderr output of the run.
      */
-    private final String stderr;
+    private final CapturedOutput stderr;
     /**
      * Stdout output of the run.
      */
-    private final String stdout;
+    private final CapturedOutput stdout;
+    /**
+     * Charset to decode the output.
+     */
+    private final Charset charset;
+    /**
+     * Flag if the process was stopped because of a failure on stderr.
+     */
+    private final boolean stoppedOnFailure;
+    /**
+     * Flag if the process was stopped because it took too long.
+     */
+    private final boolean timedOut;
+    /**
+     * Decoded stderr output (null until it is needed).
+     */
+    private volatile String stderrText;
+    /**
+     * Decoded stdout output (null until it is needed).
+     */
+    private volatile String stdoutText;
 
     /**
-     * Default constructor.
+     * Constructor with the captured output, the charset
+     * to decode it and the flags if the process was stopped
+     * because of a failure on stderr or because it took too long.
      * @param aExitValue exit value of the process
-     * @param aStderr joined stderr text
-     * @param aStdout joined stdout text
+     * @param aStderr captured stderr
+     * @param aStdout captured stdout
+     * @param aCharset charset to decode the output
+     * @param aStoppedOnFailure true if the process was stopped early
+     * @param aTimedOut true if the process was stopped after the
+     *                  maximum time for a run
      */
-    ExecutionRunResultImpl(
+    public ExecutionRunResultImpl(
             final int aExitValue,
-            final String aStderr,
-            final String aStdout) {
+            final CapturedOutput aStderr,
+            final CapturedOutput aStdout,
+            final Charset aCharset,
+            final boolean aStoppedOnFailure,
+            final boolean aTimedOut) {
         this.exitValue = aExitValue;
         this.stderr = aStderr;
         this.stdout = aStdout;
+        this.charset = aCharset;
+        this.stoppedOnFailure = aStoppedOnFailure;
+        this.timedOut = aTimedOut;
+    }
+
+    /**
+     * Constructor with the captured output, the charset
+     * to decode it and the flag if the process was stopped
+     * because of a failure on stderr.
+     * @param aExitValue exit value of the process
+     * @param aStderr captured stderr
+     * @param aStdout captured stdout
+     * @param aCharset charset to decode the output
+     * @param aStoppedOnFailure true if the process was stopped early
+     */
+    public ExecutionRunResultImpl(
+            final int aExitValue,
+            final CapturedOutput aStderr,
+            final CapturedOutput aStdout,
+            final Charset aCharset,
+            final boolean aStoppedOnFailure) {
+        this(aExitValue, aStderr, aStdout, aCharset, aStoppedOnFailure,
+                false);
+    }
+
+    /**
+     * Constructor with the bytes of the output and the charset
+     * to decode them.
+     * @param aExitValue exit value of the process
+     * @param aStderr bytes of stderr
+     * @param aStdout bytes of stdout
+     * @param aCharset charset to decode the output
+     */
+    public ExecutionRunResultImpl(
+            final int aExitValue,
+            final byte[] aStderr,
+            final byte[] aStdout,
+            final Charset aCharset) {
+        this(aExitValue, CapturedOutput.of(aStderr),
+                CapturedOutput.of(aStdout), aCharset, false);
+    }
+
+    /**
+     * Constructor with the bytes of the output in the default charset.
+     * @param aExitValue exit value of the process
+     * @param aStderr bytes of stderr
+     * @param aStdout bytes of stdout
+     */
+    public ExecutionRunResultImpl(
+            final int aExitValue,
+            final byte[] aStderr,
+            final byte[] aStdout) {
+        this(aExitValue, aStderr, aStdout, DEFAULT_CHARSET);
     }
 
     /**
@@ -60,13 +156,34 @@ public class ExecutionRunResultImpl implements IExecutionRunResult {
         return exitValue;
     }
 
+    /**
+     *
+     * @return bytes of the stderr output of the run
+     */
+    @Override
+    public byte[] getStderrBytes() {
+        return readBytes(stderr);
+    }
+
+    /**
+     *
+     * @return bytes of the stdout output of the run
+     */
+    @Override
+    public byte[] getStdoutBytes() {
+        return readBytes(stdout);
+    }
+
     /**
      *
      * @return stderr output of the run
      */
     @Override
     public String getStderrResult() {
-        return stderr;
+        if (stderrText == null) {
+            stderrText = stderr.toText(charset);
+        }
+        return stderrText;
     }
 
     /**
@@ -75,6 +192,96 @@ public class ExecutionRunResultImpl implements IExecutionRunResult {
      */
     @Override
     public String getStdoutResult() {
-        return stdout;
+        if (stdoutText == null) {
+            stdoutText = stdout.toText(charset);
+        }
+        return stdoutText;
+    }
+
+    /**
+     *
+     * @return true if the process was stopped early because of
+     * a failure line on stderr
+     */
+    @Override
+    public boolean isStoppedOnFailure() {
+        return stoppedOnFailure;
+    }
+
+    /**
+     *
+     * @return true if the process was stopped because it took longer
+     * than the maximum time for a run
+     */
+    @Override
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     *
+     * @return true if stderr was larger than its maximum size
+     */
+    @Override
+    public boolean isStderrTruncated() {
+        return stderr.isTruncated();
+    }
+
+    /**
+     *
+     * @return true if stdout was larger than its maximum size
+     */
+    @Override
+    public boolean isStdoutTruncated() {
+        return stdout.isTruncated();
+    }
+
+    /**
+     *
+     * @return number of all the bytes of stdout (without reading them)
+     */
+    @Override
+    public long getStdoutSize() {
+        return stdout.getSize();
+    }
+
+    /**
+     * Gives the scratch file with stdout to the caller.
+     * @return scratch file with the stdout bytes if stdout was too
+     * large to keep it in memory
+     */
+    @Override
+    public Optional<File> takeStdoutFile() {
+        try {
+            return stdout.takeScratchFile();
+        } catch (final IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        }
+    }
+
+    /**
+     * Deletes the scratch files (that were not taken).
+     */
+    @Override
+    public void close() {
+        try {
+            stderr.close();
+            stdout.close();
+        } catch (final IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        }
+    }
+
+    /**
+     * Reads all the stored bytes of the output.
+     * @param output captured output
+     * @return stored bytes
+     */
+    private static byte[] readBytes(final CapturedOutput output) {
+        try {
+            return output.toByteArray();
+        } catch (final IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        }
     }
 }
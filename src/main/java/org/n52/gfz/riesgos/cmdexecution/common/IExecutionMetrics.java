@@ -0,0 +1,63 @@
+package org.n52.gfz.riesgos.cmdexecution.common;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+
+import javax.management.MXBean;
+
+/**
+ * Metrics of the runs that had to be stopped.
+ * They are registered as MXBean, so that they can be read with
+ * any jmx client.
+ */
+@MXBean
+public interface IExecutionMetrics {
+
+    /**
+     *
+     * @return number of runs that were stopped because they took longer
+     * than the maximum time
+     */
+    long getTimedOutCount();
+
+    /**
+     *
+     * @return number of runs that were stopped because of an error
+     * on stderr
+     */
+    long getStoppedOnFailureCount();
+
+    /**
+     *
+     * @return number of runs that were killed (for any reason)
+     */
+    long getKillCount();
+
+    /**
+     *
+     * @return average time in milliseconds from the kill until
+     * the run ended
+     */
+    long getAverageKillMillis();
+
+    /**
+     *
+     * @return longest time in milliseconds from the kill until
+     * the run ended
+     */
+    long getMaxKillMillis();
+}
@@ -0,0 +1,107 @@
+package org.n52.gfz.riesgos.cmdexecution.common;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Selection of the output files to read in one step.
+ *
+ * A file is selected if it is one of the output files or if it is
+ * in the same directory and has the same name with another ending
+ * (like the shx, dbf and prj files of a shapefile).
+ */
+public class OutputFilesSelection implements Predicate<String> {
+
+    /**
+     * Normalized paths of the output files.
+     */
+    private final List<Path> outputFiles;
+
+    /**
+     * Constructor with the paths of the output files.
+     * @param aOutputFiles paths of the output files
+     */
+    public OutputFilesSelection(final List<String> aOutputFiles) {
+        this.outputFiles = new ArrayList<>();
+        for (final String outputFile : aOutputFiles) {
+            this.outputFiles.add(Paths.get(outputFile).normalize());
+        }
+    }
+
+    /**
+     *
+     * @return the deepest directory that contains all the output files
+     */
+    public String getCommonDirectory() {
+        Path common = null;
+        for (final Path outputFile : outputFiles) {
+            final Path directory = outputFile.getParent();
+            if (common == null) {
+                common = directory;
+            } else {
+                while (common != null && !directory.startsWith(common)) {
+                    common = common.getParent();
+                }
+            }
+        }
+        if (common == null) {
+            return "/";
+        }
+        return common.toString();
+    }
+
+    /**
+     *
+     * @param path path of a file
+     * @return true if the file belongs to one of the output files
+     */
+    @Override
+    public boolean test(final String path) {
+        final Path candidate = Paths.get(path).normalize();
+        for (final Path outputFile : outputFiles) {
+            if (candidate.equals(outputFile)) {
+                return true;
+            }
+            if (candidate.getParent() != null
+                    && candidate.getParent().equals(outputFile.getParent())
+                    && candidate.getFileName().toString()
+                        .startsWith(getStem(outputFile) + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     *
+     * @param file path of a file
+     * @return file name without the ending
+     */
+    private static String getStem(final Path file) {
+        final String fileName = file.getFileName().toString();
+        final int dot = fileName.lastIndexOf('.');
+        if (dot > 0) {
+            return fileName.substring(0, dot);
+        }
+        return fileName;
+    }
+}
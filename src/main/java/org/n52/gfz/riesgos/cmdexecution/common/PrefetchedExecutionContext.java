@@ -0,0 +1,144 @@
+package org.n52.gfz.riesgos.cmdexecution.common;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.gfz.riesgos.cmdexecution.IExecutionContext;
+import org.n52.gfz.riesgos.cmdexecution.IExecutionRun;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * Execution context that gives back files that were already read
+ * (for example all the output files in one step) and reads all the
+ * other files from the inner context.
+ *
+ * Everything else is delegated to the inner context. Closing this
+ * context does not close the inner one.
+ */
+public class PrefetchedExecutionContext implements IExecutionContext {
+
+    /**
+     * The context to read the files that were not prefetched.
+     */
+    private final IExecutionContext innerContext;
+
+    /**
+     * Prefetched files by their (normalized) path.
+     */
+    private final Map<String, byte[]> prefetchedFiles;
+
+    /**
+     * Constructor with the inner context and the prefetched files.
+     * @param aInnerContext context to delegate to
+     * @param aPrefetchedFiles prefetched files by their path
+     */
+    public PrefetchedExecutionContext(
+            final IExecutionContext aInnerContext,
+            final Map<String, byte[]> aPrefetchedFiles) {
+        this.innerContext = aInnerContext;
+        this.prefetchedFiles = aPrefetchedFiles;
+    }
+
+    /**
+     * Does not close the inner context.
+     */
+    @Override
+    public void close() {
+        // the inner context is closed by its owner
+    }
+
+    /**
+     * Runs the executable in the inner context.
+     * @return interface for the run
+     * @throws IOException there may be an IOException on starting the run
+     */
+    @Override
+    public IExecutionRun run() throws IOException {
+        return innerContext.run();
+    }
+
+    /**
+     * Gives back the prefetched content or reads the file from the inner
+     * context.
+     * @param path path of a file
+     * @return byte array content
+     * @throws IOException there may be an IOException on reading the file
+     */
+    @Override
+    public byte[] readFromFile(final String path) throws IOException {
+        final byte[] prefetched =
+                prefetchedFiles.get(Paths.get(path).normalize().toString());
+        if (prefetched != null) {
+            return prefetched;
+        }
+        return innerContext.readFromFile(path);
+    }
+
+    /**
+     * Copies the prefetched content or the file from the inner context
+     * to the target stream.
+     * @param path path of a file
+     * @param target stream to copy the content to
+     * @throws IOException there may be an IOException on reading the file
+     */
+    @Override
+    public void readFromFile(
+            final String path,
+            final OutputStream target) throws IOException {
+        final byte[] prefetched =
+                prefetchedFiles.get(Paths.get(path).normalize().toString());
+        if (prefetched != null) {
+            target.write(prefetched);
+        } else {
+            innerContext.readFromFile(path, target);
+        }
+    }
+
+    /**
+     * Writes the file to the inner context.
+     * @param content byte array with the data
+     * @param workingDir working directory to write to
+     * @param fileName filename in the working directory
+     * @throws IOException there may be an IOException on writing the file
+     */
+    @Override
+    public void writeToFile(
+            final byte[] content,
+            final String workingDir,
+            final String fileName) throws IOException {
+        innerContext.writeToFile(content, workingDir, fileName);
+    }
+
+    /**
+     * Writes the file of the host to the inner context.
+     * @param source file on the host
+     * @param workingDir working directory to write to
+     * @param fileName filename in the working directory
+     * @throws IOException there may be an IOException on writing the file
+     */
+    @Override
+    public void writeToFile(
+            final File source,
+            final String workingDir,
+            final String fileName) throws IOException {
+        innerContext.writeToFile(source, workingDir, fileName);
+    }
+}
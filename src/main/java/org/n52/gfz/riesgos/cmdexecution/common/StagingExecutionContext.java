@@ -0,0 +1,145 @@
+package org.n52.gfz.riesgos.cmdexecution.common;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.gfz.riesgos.cmdexecution.IExecutionContext;
+import org.n52.gfz.riesgos.cmdexecution.IExecutionRun;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Execution context that collects all the files that should be written
+ * and copies them in one step into the inner context (so that there is
+ * only one copy into a container for all the input files of a run).
+ *
+ * Everything else is delegated to the inner context. Closing this
+ * context does not close the inner one.
+ */
+public class StagingExecutionContext implements IExecutionContext {
+
+    /**
+     * The context to write the files to.
+     */
+    private final IExecutionContext innerContext;
+
+    /**
+     * Staged files by working directory and by file name.
+     */
+    private final Map<String, Map<String, byte[]>> stagedFiles;
+
+    /**
+     * Constructor with the inner context.
+     * @param aInnerContext context to write the files to
+     */
+    public StagingExecutionContext(final IExecutionContext aInnerContext) {
+        this.innerContext = aInnerContext;
+        this.stagedFiles = new LinkedHashMap<>();
+    }
+
+    /**
+     * Does not close the inner context.
+     */
+    @Override
+    public void close() {
+        // the inner context is closed by its owner
+    }
+
+    /**
+     * Runs the executable in the inner context.
+     * @return interface for the run
+     * @throws IOException there may be an IOException on starting the run
+     */
+    @Override
+    public IExecutionRun run() throws IOException {
+        return innerContext.run();
+    }
+
+    /**
+     * Reads the file from the inner context.
+     * @param path path of a file
+     * @return byte array content
+     * @throws IOException there may be an IOException on reading the file
+     */
+    @Override
+    public byte[] readFromFile(final String path) throws IOException {
+        return innerContext.readFromFile(path);
+    }
+
+    /**
+     * Stages the file so that it can be written later.
+     * @param content byte array with the data
+     * @param workingDir working directory to write to
+     * @param fileName filename in the working directory
+     */
+    @Override
+    public void writeToFile(
+            final byte[] content,
+            final String workingDir,
+            final String fileName) {
+        stagedFiles.computeIfAbsent(workingDir, key -> new LinkedHashMap<>())
+                .put(fileName, content);
+    }
+
+    /**
+     * Writes a file of the host directly to the inner context, so that
+     * large files are streamed and not hold in memory until all the
+     * other files are written.
+     * @param source file on the host
+     * @param workingDir working directory to write to
+     * @param fileName filename in the working directory
+     * @throws IOException there may be an IOException on writing the file
+     */
+    @Override
+    public void writeToFile(
+            final File source,
+            final String workingDir,
+            final String fileName) throws IOException {
+        innerContext.writeToFile(source, workingDir, fileName);
+    }
+
+    /**
+     * Stages the files so that they can be written later.
+     * @param files map with the file names and the contents
+     * @param workingDir working directory to write to
+     */
+    @Override
+    public void writeToFiles(
+            final Map<String, byte[]> files,
+            final String workingDir) {
+        stagedFiles.computeIfAbsent(workingDir, key -> new LinkedHashMap<>())
+                .putAll(files);
+    }
+
+    /**
+     * Writes all the staged files to the inner context
+     * (one batch per working directory).
+     * @throws IOException there may be an IOException on writing the files
+     */
+    public void writeStagedFiles() throws IOException {
+        for (final Map.Entry<String, Map<String, byte[]>> filesInDir
+                : stagedFiles.entrySet()) {
+            if (!filesInDir.getValue().isEmpty()) {
+                innerContext.writeToFiles(
+                        filesInDir.getValue(), filesInDir.getKey());
+            }
+        }
+        stagedFiles.clear();
+    }
+}
@@ -0,0 +1,389 @@
+package org.n52.gfz.riesgos.cmdexecution.docker;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.gfz.riesgos.configuration.IContainerPoolSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Implementation of the container pool.
+ *
+ * For each image (and working directory) there is a deque of idle
+ * containers. The number of containers that the pool tries to keep
+ * ready starts with the configured minimum and grows with every
+ * request that must wait for a new container (up to the configured
+ * maximum). Containers that are
+ * idle for longer than the idle timeout are removed again until the
+ * minimum is reached.
+ */
+public class ContainerPoolImpl implements IContainerPool {
+
+    /**
+     * Logger for the pool.
+     */
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(ContainerPoolImpl.class);
+
+    /**
+     * Number of threads to create and remove containers in the background.
+     */
+    private static final int BACKGROUND_THREADS = 2;
+
+    /**
+     * Interval in seconds to check for idle containers to remove.
+     */
+    private static final long MAINTENANCE_INTERVAL_SECONDS = 30L;
+
+    /**
+     * Milliseconds per second.
+     */
+    private static final long MILLIS_PER_SECOND = 1000L;
+
+    /**
+     * Lifecycle to create and remove the containers.
+     */
+    private final IContainerLifecycle lifecycle;
+
+    /**
+     * Executor for the work in the background.
+     */
+    private final Executor backgroundExecutor;
+
+    /**
+     * Clock in milliseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Pools by image id and working directory.
+     */
+    private final ConcurrentMap<List<String>, ImagePool> pools;
+
+    /**
+     * Optional scheduler that must be stopped on shutdown.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Flag to indicate that the pool was shut down.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Constructor with the lifecycle implementation.
+     * Starts the background threads for the maintenance.
+     * @param aLifecycle lifecycle to create and remove containers
+     */
+    public ContainerPoolImpl(final IContainerLifecycle aLifecycle) {
+        this(aLifecycle, createScheduler(), System::currentTimeMillis);
+        scheduler.scheduleWithFixedDelay(
+                this::evictIdleContainers,
+                MAINTENANCE_INTERVAL_SECONDS,
+                MAINTENANCE_INTERVAL_SECONDS,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Constructor with all the dependencies.
+     * No maintenance is scheduled here.
+     * @param aLifecycle lifecycle to create and remove containers
+     * @param aBackgroundExecutor executor for the background work
+     * @param aClock clock in milliseconds
+     */
+    ContainerPoolImpl(
+            final IContainerLifecycle aLifecycle,
+            final Executor aBackgroundExecutor,
+            final LongSupplier aClock) {
+        this.lifecycle = aLifecycle;
+        this.backgroundExecutor = aBackgroundExecutor;
+        this.clock = aClock;
+        this.pools = new ConcurrentHashMap<>();
+        if (aBackgroundExecutor instanceof ScheduledExecutorService) {
+            this.scheduler = (ScheduledExecutorService) aBackgroundExecutor;
+        } else {
+            this.scheduler = null;
+        }
+        this.closed = false;
+    }
+
+    /**
+     *
+     * @return scheduler with daemon threads for the background work
+     */
+    private static ScheduledExecutorService createScheduler() {
+        return new ScheduledThreadPoolExecutor(BACKGROUND_THREADS, runnable -> {
+            final Thread thread = new Thread(runnable, "container-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public String acquire(
+            final String imageId,
+            final String workingDirectory,
+            final IContainerPoolSettings settings) throws IOException {
+        final ImagePool pool = pools.computeIfAbsent(
+                Arrays.asList(imageId, workingDirectory),
+                key -> new ImagePool(imageId, workingDirectory, settings));
+
+        final IdleContainer idleContainer;
+        synchronized (pool) {
+            pool.settings = settings;
+            idleContainer = pool.idle.pollLast();
+            if (idleContainer == null) {
+                pool.target = Math.min(
+                        settings.getMaxIdle(),
+                        Math.max(pool.target + 1, settings.getMinIdle()));
+            }
+        }
+        refill(pool);
+
+        if (idleContainer != null) {
+            LOGGER.debug("Use pooled container " + idleContainer.containerId);
+            return idleContainer.containerId;
+        }
+        LOGGER.debug("No idle container for " + imageId + ", create one");
+        return lifecycle.createIdleContainer(imageId, workingDirectory);
+    }
+
+    @Override
+    public void release(final String containerId) {
+        backgroundExecutor.execute(() -> removeQuietly(containerId));
+    }
+
+    @Override
+    public void shutdown() {
+        closed = true;
+        for (final ImagePool pool : pools.values()) {
+            final List<IdleContainer> toRemove;
+            synchronized (pool) {
+                toRemove = new ArrayList<>(pool.idle);
+                pool.idle.clear();
+            }
+            for (final IdleContainer idleContainer : toRemove) {
+                removeQuietly(idleContainer.containerId);
+            }
+        }
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * Removes the containers that are idle for longer than the timeout
+     * (as long as there are more idle containers than the minimum).
+     */
+    void evictIdleContainers() {
+        final long now = clock.getAsLong();
+        for (final ImagePool pool : pools.values()) {
+            final List<String> toRemove = new ArrayList<>();
+            synchronized (pool) {
+                final long timeoutMillis =
+                        pool.settings.getIdleTimeoutSeconds()
+                                * MILLIS_PER_SECOND;
+                while (pool.idle.size() > pool.settings.getMinIdle()) {
+                    final IdleContainer oldest = pool.idle.peekFirst();
+                    if (now - oldest.idleSince < timeoutMillis) {
+                        break;
+                    }
+                    pool.idle.pollFirst();
+                    toRemove.add(oldest.containerId);
+                }
+                pool.target = Math.max(
+                        pool.settings.getMinIdle(),
+                        pool.target - toRemove.size());
+            }
+            for (final String containerId : toRemove) {
+                LOGGER.debug("Remove idle container " + containerId);
+                release(containerId);
+            }
+            refill(pool);
+        }
+    }
+
+    /**
+     *
+     * @param imageId id of the image
+     * @param workingDirectory working directory
+     * @return number of idle containers for the image
+     */
+    int countIdle(final String imageId, final String workingDirectory) {
+        final ImagePool pool = pools.get(
+                Arrays.asList(imageId, workingDirectory));
+        if (pool == null) {
+            return 0;
+        }
+        synchronized (pool) {
+            return pool.idle.size();
+        }
+    }
+
+    /**
+     * Starts the creation of new containers until the target
+     * number of the pool is reached.
+     * @param pool pool to refill
+     */
+    private void refill(final ImagePool pool) {
+        if (closed) {
+            return;
+        }
+        final int toCreate;
+        synchronized (pool) {
+            toCreate = Math.max(
+                    0, pool.target - pool.idle.size() - pool.creating);
+            pool.creating += toCreate;
+        }
+        for (int i = 0; i < toCreate; i++) {
+            backgroundExecutor.execute(() -> createInBackground(pool));
+        }
+    }
+
+    /**
+     * Creates a container and adds it to the idle ones of the pool.
+     * @param pool pool to add the container to
+     */
+    private void createInBackground(final ImagePool pool) {
+        try {
+            final String containerId =
+                    lifecycle.createIdleContainer(
+                            pool.imageId, pool.workingDirectory);
+            final boolean keep;
+            synchronized (pool) {
+                pool.creating--;
+                keep = !closed;
+                if (keep) {
+                    pool.idle.addLast(
+                            new IdleContainer(
+                                    containerId, clock.getAsLong()));
+                }
+            }
+            if (!keep) {
+                removeQuietly(containerId);
+            }
+        } catch (final IOException | RuntimeException exception) {
+            synchronized (pool) {
+                pool.creating--;
+            }
+            LOGGER.error("Can't create a pooled container for "
+                    + pool.imageId, exception);
+        }
+    }
+
+    /**
+     * Removes the container and logs errors.
+     * @param containerId id of the container to remove
+     */
+    private void removeQuietly(final String containerId) {
+        try {
+            lifecycle.removeContainer(containerId);
+        } catch (final IOException | RuntimeException exception) {
+            LOGGER.error("Can't remove the container "
+                    + containerId, exception);
+        }
+    }
+
+    /**
+     * State of the pool for one image.
+     * All the fields are guarded by the instance itself.
+     */
+    private static final class ImagePool {
+        /**
+         * Image id of the pool.
+         */
+        private final String imageId;
+        /**
+         * Working directory for the containers of the pool.
+         */
+        private final String workingDirectory;
+        /**
+         * Idle containers; the oldest one is the first.
+         */
+        private final Deque<IdleContainer> idle;
+        /**
+         * Latest settings for the pool.
+         */
+        private IContainerPoolSettings settings;
+        /**
+         * Number of containers that are created at the moment.
+         */
+        private int creating;
+        /**
+         * Number of idle containers that the pool tries to keep.
+         */
+        private int target;
+
+        /**
+         * Constructor with the image id and the settings.
+         * @param aImageId image id of the pool
+         * @param aWorkingDirectory working directory of the containers
+         * @param aSettings settings of the pool
+         */
+        private ImagePool(
+                final String aImageId,
+                final String aWorkingDirectory,
+                final IContainerPoolSettings aSettings) {
+            this.imageId = aImageId;
+            this.workingDirectory = aWorkingDirectory;
+            this.idle = new ArrayDeque<>();
+            this.settings = aSettings;
+            this.creating = 0;
+            this.target = aSettings.getMinIdle();
+        }
+    }
+
+    /**
+     * Container that waits to be used.
+     */
+    private static final class IdleContainer {
+        /**
+         * Id of the container.
+         */
+        private final String containerId;
+        /**
+         * Time (in ms) since the container is idle.
+         */
+        private final long idleSince;
+
+        /**
+         * Constructor with the container id and the time.
+         * @param aContainerId id of the container
+         * @param aIdleSince time in ms since the container is idle
+         */
+        private IdleContainer(
+                final String aContainerId,
+                final long aIdleSince) {
+            this.containerId = aContainerId;
+            this.idleSince = aIdleSince;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.n52.gfz.riesgos.cmdexecution.docker;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.gfz.riesgos.configuration.IContainerPoolSettings;
+
+import java.io.IOException;
+
+/**
+ * Singleton for the container pool, so that all the processes
+ * share the same pool.
+ */
+public enum ContainerPoolSingleton implements IContainerPool {
+
+    /**
+     * Singleton instance.
+     */
+    INSTANCE;
+
+    /**
+     * The pool implementation that is used for all the work.
+     */
+    private final IContainerPool innerPool;
+
+    /**
+     * Constructor for assigning the internal pool.
+     */
+    ContainerPoolSingleton() {
+        innerPool = new ContainerPoolImpl(new DockerCliContainerLifecycle());
+    }
+
+    @Override
+    public String acquire(
+            final String imageId,
+            final String workingDirectory,
+            final IContainerPoolSettings settings) throws IOException {
+        return innerPool.acquire(imageId, workingDirectory, settings);
+    }
+
+    @Override
+    public void release(final String containerId) {
+        innerPool.release(containerId);
+    }
+
+    @Override
+    public void shutdown() {
+        innerPool.shutdown();
+    }
+}
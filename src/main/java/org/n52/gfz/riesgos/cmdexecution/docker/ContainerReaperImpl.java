@@ -0,0 +1,462 @@
+package org.n52.gfz.riesgos.cmdexecution.docker;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Implementation of the container reaper.
+ *
+ * The containers are collected in a queue. A single background thread
+ * takes all the containers that are waiting and removes them with one
+ * call (up to a maximum batch size). If the removal fails, the
+ * containers are tried again later (with a growing delay) until the
+ * maximum number of attempts is reached.
+ */
+public class ContainerReaperImpl
+        implements IContainerReaper, IContainerReaperMetrics {
+
+    /**
+     * Logger for the reaper.
+     */
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(ContainerReaperImpl.class);
+
+    /**
+     * Maximum number of containers to remove with one call.
+     */
+    private static final int MAX_BATCH_SIZE = 50;
+
+    /**
+     * Maximum number of attempts to remove a container.
+     */
+    static final int MAX_ATTEMPTS = 5;
+
+    /**
+     * Default delay in milliseconds before the first retry.
+     */
+    private static final long DEFAULT_RETRY_DELAY_MILLIS = 5000L;
+
+    /**
+     * Maximum time in seconds to wait for the background work
+     * on shutdown.
+     */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30L;
+
+    /**
+     * Remover for the batches.
+     */
+    private final IContainerRemover remover;
+
+    /**
+     * Executor for the work in the background (with just one thread).
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Delay in milliseconds before the first retry.
+     */
+    private final long retryDelayMillis;
+
+    /**
+     * Clock in milliseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Containers that wait for their removal.
+     */
+    private final List<PendingRemoval> queue;
+
+    /**
+     * Flag that there is already a run of drain that will take
+     * the new containers.
+     */
+    private boolean drainPending;
+
+    /**
+     * Number of containers that are removed at the moment.
+     */
+    private int inProgress;
+
+    /**
+     * Number of removed containers.
+     */
+    private long removedCount;
+
+    /**
+     * Number of removal calls.
+     */
+    private long batchCount;
+
+    /**
+     * Number of retries.
+     */
+    private long retriedCount;
+
+    /**
+     * Number of containers that could not be removed.
+     */
+    private long failedCount;
+
+    /**
+     * Flag to indicate that the reaper was shut down.
+     */
+    private boolean closed;
+
+    /**
+     * Constructor with the remover.
+     * Starts a background thread for the removal.
+     * @param aRemover remover for the batches
+     */
+    public ContainerReaperImpl(final IContainerRemover aRemover) {
+        this(aRemover, createScheduler(), DEFAULT_RETRY_DELAY_MILLIS,
+                System::currentTimeMillis);
+    }
+
+    /**
+     * Constructor with all the dependencies.
+     * @param aRemover remover for the batches
+     * @param aScheduler executor for the background work; it must use
+     *                   just one thread
+     * @param aRetryDelayMillis delay in milliseconds before the first retry
+     * @param aClock clock in milliseconds
+     */
+    ContainerReaperImpl(
+            final IContainerRemover aRemover,
+            final ScheduledExecutorService aScheduler,
+            final long aRetryDelayMillis,
+            final LongSupplier aClock) {
+        this.remover = aRemover;
+        this.scheduler = aScheduler;
+        this.retryDelayMillis = aRetryDelayMillis;
+        this.clock = aClock;
+        this.queue = new LinkedList<>();
+        this.drainPending = false;
+        this.inProgress = 0;
+        this.closed = false;
+    }
+
+    /**
+     *
+     * @return scheduler with a daemon thread for the background work
+     */
+    private static ScheduledExecutorService createScheduler() {
+        final ScheduledThreadPoolExecutor result =
+                new ScheduledThreadPoolExecutor(1, runnable -> {
+                    final Thread thread =
+                            new Thread(runnable, "container-reaper");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // the waiting retries are done on shutdown directly
+        result.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        return result;
+    }
+
+    @Override
+    public void remove(final String containerId) {
+        final boolean removeNow;
+        synchronized (this) {
+            removeNow = closed;
+            if (removeNow) {
+                inProgress++;
+            } else {
+                queue.add(new PendingRemoval(containerId));
+                if (!drainPending) {
+                    drainPending = true;
+                    schedule(0L);
+                }
+            }
+        }
+        if (removeNow) {
+            removeBatch(Collections.singletonList(
+                    new PendingRemoval(containerId)));
+        }
+    }
+
+    @Override
+    public void removeLeftovers(
+            final String label,
+            final boolean includeRunning,
+            final long minAgeMillis) {
+        removeFoundContainers(
+                () -> remover.findLeftoverContainers(
+                        label, includeRunning, minAgeMillis),
+                "leftover containers with the label " + label);
+    }
+
+    /**
+     * Searches for containers in the background and removes them.
+     * @param search search for the containers
+     * @param description description of the containers for the log
+     */
+    private void removeFoundContainers(
+            final IContainerSearch search,
+            final String description) {
+        try {
+            scheduler.execute(() -> {
+                try {
+                    final List<String> found = search.find();
+                    if (!found.isEmpty()) {
+                        LOGGER.info("Removing " + found.size()
+                                + " " + description);
+                    }
+                    for (final String containerId : found) {
+                        remove(containerId);
+                    }
+                } catch (final IOException exception) {
+                    LOGGER.warn("Can't search for " + description,
+                            exception);
+                }
+            });
+        } catch (final RejectedExecutionException exception) {
+            LOGGER.warn("Can't search for " + description + " after "
+                    + "the shutdown", exception);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        // removals that are added meanwhile stay in the queue
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(
+                    SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warn("The removal of the containers in the "
+                        + "background did not finish in time");
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        final List<PendingRemoval> rest;
+        synchronized (this) {
+            closed = true;
+            rest = new ArrayList<>(queue);
+            queue.clear();
+            inProgress += rest.size();
+        }
+        if (!rest.isEmpty()) {
+            removeBatch(rest);
+        }
+    }
+
+    /**
+     * Runs drain in the background after the delay.
+     * Must be called with the lock.
+     * @param delayMillis delay in milliseconds
+     */
+    private void schedule(final long delayMillis) {
+        try {
+            scheduler.schedule(this::drain, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException exception) {
+            // shut down; the rest is removed by the shutdown
+            drainPending = false;
+        }
+    }
+
+    /**
+     * Removes all the containers that are ready for their removal.
+     */
+    private void drain() {
+        synchronized (this) {
+            drainPending = false;
+        }
+        List<PendingRemoval> batch = takeBatch();
+        while (!batch.isEmpty()) {
+            removeBatch(batch);
+            batch = takeBatch();
+        }
+    }
+
+    /**
+     * Takes the next containers that are ready for their removal
+     * out of the queue.
+     * @return containers to remove (empty if there are none)
+     */
+    private synchronized List<PendingRemoval> takeBatch() {
+        final long now = clock.getAsLong();
+        final List<PendingRemoval> batch = new ArrayList<>();
+        final Iterator<PendingRemoval> iterator = queue.iterator();
+        while (iterator.hasNext() && batch.size() < MAX_BATCH_SIZE) {
+            final PendingRemoval pendingRemoval = iterator.next();
+            if (pendingRemoval.notBeforeMillis <= now) {
+                batch.add(pendingRemoval);
+                iterator.remove();
+            }
+        }
+        inProgress += batch.size();
+        return batch;
+    }
+
+    /**
+     * Removes the containers and puts them back into the queue
+     * if that failed.
+     * @param batch containers to remove
+     */
+    private void removeBatch(final List<PendingRemoval> batch) {
+        final List<String> containerIds = new ArrayList<>();
+        for (final PendingRemoval pendingRemoval : batch) {
+            containerIds.add(pendingRemoval.containerId);
+        }
+        try {
+            remover.removeContainers(containerIds);
+            synchronized (this) {
+                batchCount++;
+                removedCount += batch.size();
+                inProgress -= batch.size();
+            }
+        } catch (final IOException exception) {
+            LOGGER.warn("Can't remove the containers " + containerIds,
+                    exception);
+            retryLater(batch);
+        }
+    }
+
+    /**
+     * Puts the containers back into the queue (or gives up
+     * after the maximum number of attempts).
+     * @param batch containers that could not be removed
+     */
+    private synchronized void retryLater(final List<PendingRemoval> batch) {
+        batchCount++;
+        inProgress -= batch.size();
+        long minDelayMillis = Long.MAX_VALUE;
+        for (final PendingRemoval pendingRemoval : batch) {
+            pendingRemoval.attempts++;
+            if (pendingRemoval.attempts >= MAX_ATTEMPTS || closed) {
+                failedCount++;
+                LOGGER.error("Giving up to remove the container "
+                        + pendingRemoval.containerId);
+            } else {
+                retriedCount++;
+                final long delayMillis =
+                        retryDelayMillis * pendingRemoval.attempts;
+                pendingRemoval.notBeforeMillis =
+                        clock.getAsLong() + delayMillis;
+                queue.add(pendingRemoval);
+                minDelayMillis = Math.min(minDelayMillis, delayMillis);
+            }
+        }
+        if (minDelayMillis != Long.MAX_VALUE) {
+            schedule(minDelayMillis);
+        }
+    }
+
+    /**
+     *
+     * @return number of containers that are waiting for their removal
+     * (including those that are removed at the moment)
+     */
+    @Override
+    public synchronized int getBacklog() {
+        return queue.size() + inProgress;
+    }
+
+    /**
+     *
+     * @return number of containers that were removed so far
+     */
+    @Override
+    public synchronized long getRemovedCount() {
+        return removedCount;
+    }
+
+    /**
+     *
+     * @return number of calls to remove a batch of containers
+     */
+    @Override
+    public synchronized long getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     *
+     * @return number of failed removals that were tried again
+     */
+    @Override
+    public synchronized long getRetriedCount() {
+        return retriedCount;
+    }
+
+    /**
+     *
+     * @return number of containers that could not be removed
+     * after all the attempts
+     */
+    @Override
+    public synchronized long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Container that waits for its removal.
+     */
+    private static final class PendingRemoval {
+        /**
+         * Id of the container.
+         */
+        private final String containerId;
+        /**
+         * Number of failed attempts so far.
+         */
+        private int attempts;
+        /**
+         * Earliest time in milliseconds for the next attempt.
+         */
+        private long notBeforeMillis;
+
+        /**
+         * Constructor for a container that can be removed at once.
+         * @param aContainerId id of the container
+         */
+        PendingRemoval(final String aContainerId) {
+            this.containerId = aContainerId;
+            this.attempts = 0;
+            this.notBeforeMillis = 0L;
+        }
+    }
+
+    /**
+     * Search for containers with docker.
+     */
+    @FunctionalInterface
+    private interface IContainerSearch {
+        /**
+         *
+         * @return ids of the containers that were found
+         * @throws IOException there may be an IOException on talking
+         * with docker
+         */
+        List<String> find() throws IOException;
+    }
+}
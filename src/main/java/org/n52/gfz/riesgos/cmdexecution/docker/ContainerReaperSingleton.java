@@ -0,0 +1,93 @@
+package org.n52.gfz.riesgos.cmdexecution.docker;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Singleton for the container reaper, so that the removals of all
+ * the processes are collected in the same batches.
+ * The metrics are registered as MXBean with the name
+ * org.n52.gfz.riesgos:type=ContainerReaper.
+ */
+public enum ContainerReaperSingleton implements IContainerReaper {
+
+    /**
+     * Singleton instance.
+     */
+    INSTANCE;
+
+    /**
+     * Name for the registration of the metrics.
+     */
+    private static final String METRICS_NAME =
+            "org.n52.gfz.riesgos:type=ContainerReaper";
+
+    /**
+     * The reaper implementation that is used for all the work.
+     */
+    private final ContainerReaperImpl innerReaper;
+
+    /**
+     * Constructor that creates the reaper and registers the metrics.
+     */
+    ContainerReaperSingleton() {
+        innerReaper = new ContainerReaperImpl(
+                new DockerCliContainerLifecycle());
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    innerReaper, new ObjectName(METRICS_NAME));
+        } catch (final JMException exception) {
+            final Logger logger = LoggerFactory.getLogger(
+                    ContainerReaperSingleton.class);
+            logger.warn("Can't register the metrics for the container "
+                    + "reaper", exception);
+        }
+    }
+
+    @Override
+    public void remove(final String containerId) {
+        innerReaper.remove(containerId);
+    }
+
+    @Override
+    public void removeLeftovers(
+            final String label,
+            final boolean includeRunning,
+            final long minAgeMillis) {
+        innerReaper.removeLeftovers(label, includeRunning, minAgeMillis);
+    }
+
+    @Override
+    public void shutdown() {
+        innerReaper.shutdown();
+    }
+
+    /**
+     *
+     * @return metrics of the container reaper
+     */
+    public IContainerReaperMetrics getMetrics() {
+        return innerReaper;
+    }
+}
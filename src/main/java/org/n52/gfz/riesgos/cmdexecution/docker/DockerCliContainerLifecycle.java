@@ -0,0 +1,336 @@
+package org.n52.gfz.riesgos.cmdexecution.docker;
+
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.gfz.riesgos.cmdexecution.IExecutionRun;
+import org.n52.gfz.riesgos.cmdexecution.IExecutionRunResult;
+import org.n52.gfz.riesgos.cmdexecution.common.ExecutionRunImpl;
+
+import java.io.IOException;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Implementation of the container lifecycle and of the removal
+ * of containers in batches that uses the docker command line client.
+ */
+public class DockerCliContainerLifecycle
+        implements IContainerLifecycle, IContainerRemover {
+
+    /**
+     * Label that is given to all the containers of the pool.
+     */
+    public static final String POOL_LABEL =
+            "org.n52.gfz.riesgos.pooled=true";
+
+    /**
+     * Key of the label that is given to all the containers
+     * that are created by the server.
+     */
+    public static final String MANAGED_LABEL_KEY =
+            "org.n52.gfz.riesgos.managed";
+
+    /**
+     * Label that is given to all the containers that are created
+     * by the server.
+     */
+    public static final String MANAGED_LABEL = MANAGED_LABEL_KEY + "=true";
+
+    /**
+     * Key of the label with the id of the server instance that
+     * created a container of the pool.
+     */
+    public static final String INSTANCE_LABEL_KEY =
+            "org.n52.gfz.riesgos.instance";
+
+    /**
+     * Id of this instance of the server.
+     */
+    public static final String INSTANCE_ID = UUID.randomUUID().toString();
+
+    /**
+     * Label with the id of this instance of the server, that is given
+     * to all the containers that it creates.
+     */
+    public static final String INSTANCE_LABEL =
+            INSTANCE_LABEL_KEY + "=" + INSTANCE_ID;
+
+    /**
+     * Separator of the fields in the list of the leftover containers.
+     */
+    private static final String FIELD_SEPARATOR = "\t";
+
+    /**
+     * Number of fields in the list of the leftover containers.
+     */
+    private static final int LEFTOVER_FIELDS = 3;
+
+    /**
+     * Format of the list of the leftover containers.
+     */
+    private static final String LEFTOVER_FORMAT =
+            "{{.ID}}" + FIELD_SEPARATOR
+            + "{{.Label \"" + INSTANCE_LABEL_KEY + "\"}}" + FIELD_SEPARATOR
+            + "{{.CreatedAt}}";
+
+    /**
+     * Pattern of the time of the creation in the container list
+     * (for example 2019-09-02 10:15:03 +0200 CEST; the name of the
+     * time zone at the end is ignored).
+     */
+    private static final String CREATED_AT_PATTERN = "yyyy-MM-dd HH:mm:ss Z";
+
+    /**
+     * Part of the error message of docker for containers
+     * that don't exist (anymore).
+     */
+    private static final String NO_SUCH_CONTAINER = "No such container";
+
+    /**
+     * Entrypoint that is used to keep the container alive
+     * until it is used.
+     */
+    private static final String IDLE_ENTRYPOINT = "tail";
+
+    /**
+     * Arguments for the idle entrypoint.
+     */
+    private static final List<String> IDLE_ARGUMENTS =
+            Arrays.asList("-f", "/dev/null");
+
+    /**
+     * Creates and starts a container that idles until
+     * a command is executed inside of it.
+     * @param imageId id of the docker image to use
+     * @param workingDirectory working directory for the commands
+     * @return id of the started container
+     * @throws IOException there may be an IOException on talking with docker
+     */
+    @Override
+    public String createIdleContainer(
+            final String imageId,
+            final String workingDirectory) throws IOException {
+        final String containerId = runDockerCommand(
+                createRunCommand(imageId, workingDirectory),
+                "Can't create the pooled container").trim();
+        if (containerId.isEmpty()) {
+            throw new IOException("Can't read the container id.");
+        }
+        return containerId;
+    }
+
+    /**
+     * Removes a container (also if it is still running).
+     * @param containerId id of the container to remove
+     * @throws IOException there may be an IOException on talking with docker
+     */
+    @Override
+    public void removeContainer(final String containerId) throws IOException {
+        runDockerCommand(
+                Arrays.asList(
+                        "docker", "container", "rm", "--force", containerId),
+                "Can't remove the pooled container");
+    }
+
+    /**
+     * Removes the containers with one call of docker.
+     * Errors for containers that don't exist (anymore) are ignored,
+     * so that a batch can be tried again after a partial failure.
+     * @param containerIds ids of the containers to remove
+     * @throws IOException there may be an IOException on talking with docker
+     */
+    @Override
+    public void removeContainers(final List<String> containerIds)
+            throws IOException {
+        final List<String> command = new ArrayList<>(
+                Arrays.asList("docker", "container", "rm", "--force"));
+        command.addAll(containerIds);
+
+        try (IExecutionRunResult result = runCommand(command)) {
+            final List<String> errors = new ArrayList<>();
+            for (final String line : result.getStderrResult().split("\n")) {
+                if (!line.trim().isEmpty()
+                        && !line.contains(NO_SUCH_CONTAINER)) {
+                    errors.add(line);
+                }
+            }
+            if (!errors.isEmpty()) {
+                throw new IOException("Can't remove the containers: "
+                        + String.join("\n", errors));
+            }
+        }
+    }
+
+    /**
+     * Searches for the containers with the label that were created
+     * by another instance of the server at least the minimum age ago.
+     * Containers without the instance label are treated as containers
+     * of another instance.
+     * @param label label of the containers (key=value)
+     * @param includeRunning true to find running containers too,
+     *                       false for the ones that were created but
+     *                       never started, that exited or that are dead
+     * @param minAgeMillis minimum age of the containers in milliseconds
+     * @return ids of the containers
+     * @throws IOException there may be an IOException on talking with docker
+     */
+    @Override
+    public List<String> findLeftoverContainers(
+            final String label,
+            final boolean includeRunning,
+            final long minAgeMillis) throws IOException {
+        final List<String> command = new ArrayList<>(Arrays.asList(
+                "docker", "container", "ls",
+                "--all", "--no-trunc",
+                "--filter", "label=" + label));
+        if (!includeRunning) {
+            command.addAll(Arrays.asList(
+                    "--filter", "status=created",
+                    "--filter", "status=exited",
+                    "--filter", "status=dead"));
+        }
+        command.add("--format");
+        command.add(LEFTOVER_FORMAT);
+        final String output = runDockerCommand(
+                command, "Can't search for the leftover containers");
+        final long nowMillis = System.currentTimeMillis();
+        final List<String> result = new ArrayList<>();
+        for (final String line : output.split("\n")) {
+            if (isLeftover(line, nowMillis, minAgeMillis)) {
+                result.add(line.split(FIELD_SEPARATOR)[0].trim());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks a line of the container list (id, instance and time
+     * of the creation, separated by tabs).
+     * @param line line of the container list
+     * @param nowMillis current time in milliseconds
+     * @param minAgeMillis minimum age of the container in milliseconds
+     * @return true if the container belongs to another instance and
+     * is old enough (false if the time can't be read)
+     */
+    static boolean isLeftover(
+            final String line,
+            final long nowMillis,
+            final long minAgeMillis) {
+        final String[] parts = line.split(FIELD_SEPARATOR, -1);
+        if (parts.length != LEFTOVER_FIELDS || parts[0].trim().isEmpty()) {
+            return false;
+        }
+        if (INSTANCE_ID.equals(parts[1].trim())) {
+            return false;
+        }
+        final Date created = new SimpleDateFormat(
+                CREATED_AT_PATTERN, Locale.ROOT)
+                .parse(parts[2].trim(), new ParsePosition(0));
+        return created != null
+                && nowMillis - created.getTime() >= minAgeMillis;
+    }
+
+    /**
+     * Runs a docker command and checks stderr and the exit value.
+     * @param command command to run
+     * @param errorMessage message to use in case of an error
+     * @return stdout of the command
+     * @throws IOException exception if the command failed
+     */
+    private String runDockerCommand(
+            final List<String> command,
+            final String errorMessage) throws IOException {
+        try (IExecutionRunResult result = runCommand(command)) {
+            final String errorText = result.getStderrResult();
+            if (!errorText.isEmpty()) {
+                throw new IOException(errorMessage + ": " + errorText);
+            }
+            final int exitValue = result.getExitValue();
+            if (exitValue != 0) {
+                throw new IOException(
+                        errorMessage + ". Exit value != 0: " + exitValue);
+            }
+            return result.getStdoutResult();
+        }
+    }
+
+    /**
+     * Runs a command and waits for its end.
+     * @param command command to run
+     * @return result of the command
+     * @throws IOException exception if the command can't be started
+     */
+    private IExecutionRunResult runCommand(final List<String> command)
+            throws IOException {
+        final ProcessBuilder processBuilder = new ProcessBuilder();
+        processBuilder.command(command);
+
+        final Process process = processBuilder.start();
+        final IExecutionRun run = new ExecutionRunImpl(process);
+        try {
+            return run.waitForCompletion();
+        } catch (final InterruptedException interruptedException) {
+            throw new IOException(interruptedException);
+        }
+    }
+
+    /**
+     * Creates the command to start a detached container that
+     * waits for the commands to be executed inside.
+     * @param imageId image to use
+     * @param workingDirectory working directory (will be created by docker)
+     * @return command to start the idle container
+     */
+    private List<String> createRunCommand(
+            final String imageId,
+            final String workingDirectory) {
+        final List<String> result = new ArrayList<>();
+
+        result.add("docker");
+        result.add("container");
+        result.add("run");
+        result.add("--detach");
+        result.add("--workdir");
+        result.add(workingDirectory);
+        result.add("--restart");
+        result.add("no");
+        result.add("--label");
+        result.add(POOL_LABEL);
+        result.add("--label");
+        result.add(MANAGED_LABEL);
+        result.add("--label");
+        result.add(INSTANCE_LABEL);
+        result.add("--entrypoint");
+        result.add(IDLE_ENTRYPOINT);
+
+        result.addAll(
+                DockerContainerExecutionContextManagerImpl
+                        .createSecurityFlags());
+
+        result.add(imageId);
+        result.addAll(IDLE_ARGUMENTS);
+
+        return result;
+    }
+}
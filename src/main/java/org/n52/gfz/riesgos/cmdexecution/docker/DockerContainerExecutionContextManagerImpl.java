@@ -21,10 +21,13 @@ import org.n52.gfz.riesgos.cmdexecution.IExecutionContextManager;
 import org.n52.gfz.riesgos.cmdexecution.IExecutionRun;
 import org.n52.gfz.riesgos.cmdexecution.IExecutionRunResult;
 import org.n52.gfz.riesgos.cmdexecution.common.ExecutionRunImpl;
+import org.n52.gfz.riesgos.configuration.IOutputCaptureSettings;
+import org.n52.gfz.riesgos.configuration.impl.OutputCaptureSettingsImpl;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -33,18 +36,74 @@ import java.util.List;
 public class DockerContainerExecutionContextManagerImpl
         implements IExecutionContextManager {
 
+    /**
+     * Security option to disable the secure computing profile.
+     */
+    public static final String SECCOMP_SECURITY_OPTION = "seccomp=unconfined";
+
+    /**
+     * Capabilities that are not necessary to run the commands
+     * inside of the container.
+     */
+    public static final List<String> DROPPED_CAPABILITIES =
+            Collections.unmodifiableList(Arrays.asList(
+                "chown",       "dac_override", "fowner",
+                "fsetid",      "kill",         "setgid",
+                "setuid",      "setpcap",      "net_bind_service",
+                "net_raw",     "sys_chroot",   "mknod",
+                "audit_write", "setfcap"
+            ));
+
     /**
      * Image id that should be used to create containers.
      */
     private final String imageId;
 
+    /**
+     * Settings for capturing stdout and stderr of the runs.
+     */
+    private final IOutputCaptureSettings captureSettings;
+
+    /**
+     * Reaper that removes the used containers in the background.
+     */
+    private final IContainerReaper reaper;
+
+    /**
+     * Constructor with the image id, the settings to capture
+     * the output and the reaper for the used containers.
+     * @param aImageId id of the docker image to use
+     * @param aCaptureSettings settings for capturing stdout and stderr
+     * @param aReaper reaper that removes the used containers
+     */
+    public DockerContainerExecutionContextManagerImpl(
+            final String aImageId,
+            final IOutputCaptureSettings aCaptureSettings,
+            final IContainerReaper aReaper) {
+        this.imageId = aImageId;
+        this.captureSettings = aCaptureSettings;
+        this.reaper = aReaper;
+    }
+
+    /**
+     * Constructor with the image id and the settings to capture
+     * the output.
+     * @param aImageId id of the docker image to use
+     * @param aCaptureSettings settings for capturing stdout and stderr
+     */
+    public DockerContainerExecutionContextManagerImpl(
+            final String aImageId,
+            final IOutputCaptureSettings aCaptureSettings) {
+        this(aImageId, aCaptureSettings, ContainerReaperSingleton.INSTANCE);
+    }
+
     /**
      * Constructor with the image id.
      * @param aImageId id of the docker image to use
      */
     public DockerContainerExecutionContextManagerImpl(
             final String aImageId) {
-        this.imageId = aImageId;
+        this(aImageId, OutputCaptureSettingsImpl.DEFAULT);
     }
 
     /**
@@ -61,7 +120,8 @@ public class DockerContainerExecutionContextManagerImpl
         final String containerId = runCreateContainerProcess(
                 workingDirectory,
                 cmd);
-        return new DockerExecutionContextImpl(containerId);
+        return new DockerExecutionContextImpl(
+                containerId, captureSettings, reaper);
     }
 
     /**
@@ -80,26 +140,26 @@ public class DockerContainerExecutionContextManagerImpl
             final Process process = processBuilder.start();
             final IExecutionRun run = new ExecutionRunImpl(process);
 
-            final IExecutionRunResult result = run.waitForCompletion();
-
-            final String errorText = result.getStderrResult();
-            if (!errorText.isEmpty()) {
-                throw new RuntimeException(
-                        "Can't create the container:"  + errorText);
-            }
-            final int exitValue = result.getExitValue();
-            if (exitValue != 0) {
-                throw new RuntimeException(
-                        "Can't create the container. Exit value != 0: "
-                                + exitValue);
-            }
-
-            final String containerId = result.getStdoutResult().trim();
-
-            if (containerId.isEmpty()) {
-                throw new RuntimeException("Can't read the container id.");
+            try (IExecutionRunResult result = run.waitForCompletion()) {
+                final String errorText = result.getStderrResult();
+                if (!errorText.isEmpty()) {
+                    throw new RuntimeException(
+                            "Can't create the container:"  + errorText);
+                }
+                final int exitValue = result.getExitValue();
+                if (exitValue != 0) {
+                    throw new RuntimeException(
+                            "Can't create the container. Exit value != 0: "
+                                    + exitValue);
+                }
+
+                final String containerId = result.getStdoutResult().trim();
+
+                if (containerId.isEmpty()) {
+                    throw new RuntimeException("Can't read the container id.");
+                }
+                return containerId;
             }
-            return containerId;
 
         } catch (final IOException | InterruptedException ioException) {
             throw new RuntimeException(ioException);
@@ -130,26 +190,39 @@ public class DockerContainerExecutionContextManagerImpl
         result.add(workingDirectory);
         result.add("--restart");
         result.add("no");
+        result.add("--label");
+        result.add(DockerCliContainerLifecycle.MANAGED_LABEL);
+        result.add("--label");
+        result.add(DockerCliContainerLifecycle.INSTANCE_LABEL);
+
+        result.addAll(createSecurityFlags());
+
+        result.add(imageId);
 
+        result.addAll(cmd);
+
+        return result;
+    }
+
+
+    /**
+     * Creates the flags for the security settings of the containers
+     * (the seccomp profile and the dropped capabilities).
+     * @return list with the security flags
+     */
+    static List<String> createSecurityFlags() {
+        final List<String> result = new ArrayList<>();
         // We disable the secure computing profile to gain performance.
         // We are aware that this may cause security issues, but as we define
         // the processes that run on our server (via configs *AND* docker
         // images), we can be sure that this we run only code that we trust.
         result.add("--security-opt");
-        result.add("seccomp=unconfined");
-
+        result.add(SECCOMP_SECURITY_OPTION);
 
         result.addAll(createFlagsForDroppingAllTheCapabilities());
-
-
-        result.add(imageId);
-
-        result.addAll(cmd);
-
         return result;
     }
 
-
     /**
      * Creates a list to drop all the capabilities
      * that are not necessary to run the commands inside
@@ -157,16 +230,10 @@ public class DockerContainerExecutionContextManagerImpl
      *
      * @return list with the flags to drop all capabilities.
      */
-    private List<String> createFlagsForDroppingAllTheCapabilities() {
+    private static List<String> createFlagsForDroppingAllTheCapabilities() {
         final List<String> result = new ArrayList<>();
 
-        for (final String cap : Arrays.asList(
-                "chown",       "dac_override", "fowner",
-                "fsetid",      "kill",         "setgid",
-                "setuid",      "setpcap",      "net_bind_service",
-                "net_raw",     "sys_chroot",   "mknod",
-                "audit_write", "setfcap"
-        )) {
+        for (final String cap : DROPPED_CAPABILITIES) {
             result.add("--cap-drop");
             result.add(cap);
         }
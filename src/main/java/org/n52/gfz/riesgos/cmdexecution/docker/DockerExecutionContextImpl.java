@@ -16,21 +16,30 @@ package org.n52.gfz.riesgos.cmdexecution.docker;
  * limitations under the Licence.
  */
 
-import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
-import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
-import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
 import org.n52.gfz.riesgos.cmdexecution.IExecutionContext;
 import org.n52.gfz.riesgos.cmdexecution.IExecutionRun;
 import org.n52.gfz.riesgos.cmdexecution.IExecutionRunResult;
 import org.n52.gfz.riesgos.cmdexecution.common.ExecutionRunImpl;
-import org.n52.gfz.riesgos.cmdexecution.util.ThreadedStreamStringReader;
-
+import org.n52.gfz.riesgos.cmdexecution.common.ExecutionRunResultImpl;
+import org.n52.gfz.riesgos.cmdexecution.util.TarArchiveHelper;
+import org.n52.gfz.riesgos.cmdexecution.util.DrainedStream;
+import org.n52.gfz.riesgos.cmdexecution.util.StreamDrainerSingleton;
+import org.n52.gfz.riesgos.configuration.IOutputCaptureSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 
 /**
  * Implementation of an execution context that runs
@@ -38,57 +47,77 @@ import java.util.List;
  */
 public class DockerExecutionContextImpl implements IExecutionContext {
 
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(DockerExecutionContextImpl.class);
+
     /**
      * Container id to use for the processing in docker.
      */
     private final String containerId;
 
     /**
-     * Default constructor.
+     * Settings for capturing stdout and stderr of the run.
+     */
+    private final IOutputCaptureSettings captureSettings;
+
+    /**
+     * Reaper that removes the container after use.
+     */
+    private final IContainerReaper reaper;
+
+    /**
+     * Constructor with the reaper for the container.
      * @param aContainerId Id of the docker container
+     * @param aCaptureSettings settings for capturing stdout and stderr
+     * @param aReaper reaper that removes the container after use
      */
-    DockerExecutionContextImpl(final String aContainerId) {
+    DockerExecutionContextImpl(
+            final String aContainerId,
+            final IOutputCaptureSettings aCaptureSettings,
+            final IContainerReaper aReaper) {
         this.containerId = aContainerId;
+        this.captureSettings = aCaptureSettings;
+        this.reaper = aReaper;
     }
 
     /**
-     * Removes the docker container after use.
+     * Default constructor that uses the shared reaper.
+     * @param aContainerId Id of the docker container
+     * @param aCaptureSettings settings for capturing stdout and stderr
      */
-    @Override
-    public void close() {
-        final ProcessBuilder processBuilder = new ProcessBuilder();
-        processBuilder.command(createRemoveCommand());
-        try {
-            final Process process = processBuilder.start();
-            final IExecutionRun run = new ExecutionRunImpl(process);
-            final IExecutionRunResult result = run.waitForCompletion();
-
-            final String errorText = result.getStderrResult();
-            final int exitValue = result.getExitValue();
+    DockerExecutionContextImpl(
+            final String aContainerId,
+            final IOutputCaptureSettings aCaptureSettings) {
+        this(aContainerId, aCaptureSettings,
+                ContainerReaperSingleton.INSTANCE);
+    }
 
-            if (!errorText.isEmpty()) {
-                throw new RuntimeException(
-                        "The command to remove the docker container failed:\n"
-                                + errorText);
-            }
-            if (exitValue != 0) {
-                throw new RuntimeException(
-                        "The command to remove the docker container "
-                                + "failed with exit value " + exitValue);
-            }
+    /**
+     *
+     * @return settings for capturing stdout and stderr of the run
+     */
+    protected IOutputCaptureSettings getCaptureSettings() {
+        return captureSettings;
+    }
 
-        } catch (final InterruptedException | IOException exception) {
-            throw new RuntimeException(exception);
-        }
+    /**
+     *
+     * @return id of the docker container
+     */
+    protected String getContainerId() {
+        return containerId;
     }
 
     /**
-     * Method to create the list of Strings to execute the deletion
-     * of the docker container.
-     * @return list of strings to execute
+     * Hands the docker container over to the reaper, that removes
+     * it in the background (also if it is still running).
      */
-    private List<String> createRemoveCommand() {
-        return Arrays.asList("docker", "container", "rm", containerId);
+    @Override
+    public void close() {
+        reaper.remove(containerId);
     }
 
     /**
@@ -101,7 +130,34 @@ public class DockerExecutionContextImpl implements IExecutionContext {
         final ProcessBuilder processBuilder = new ProcessBuilder();
         processBuilder.command(createRunCommand());
         final Process process = processBuilder.start();
-        return new ExecutionRunImpl(process);
+        return new ExecutionRunImpl(
+                process, this::killContainer, captureSettings);
+    }
+
+    /**
+     * Kills the container (used to stop a run early on a failure).
+     * Errors are only logged, because the container is removed
+     * afterwards anyway.
+     */
+    protected void killContainer() {
+        final ProcessBuilder processBuilder = new ProcessBuilder();
+        processBuilder.command(
+                "docker", "container", "kill", containerId);
+        try {
+            final Process process = processBuilder.start();
+            try (IExecutionRunResult result =
+                    new ExecutionRunImpl(process).waitForCompletion()) {
+                if (result.getExitValue() != 0) {
+                    LOGGER.warn("Can't kill the container " + containerId
+                            + ": " + result.getStderrResult());
+                }
+            }
+        } catch (final IOException exception) {
+            LOGGER.warn("Can't kill the container " + containerId, exception);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Can't kill the container " + containerId, exception);
+        }
     }
 
     /**
@@ -122,27 +178,92 @@ public class DockerExecutionContextImpl implements IExecutionContext {
      */
     @Override
     public byte[] readFromFile(final String path) throws IOException {
+        final ByteArrayOutputStream result = new ByteArrayOutputStream();
+        readFromFile(path, result);
+        return result.toByteArray();
+    }
+
+    /**
+     * Uses a tar stream to copy a file from the container
+     * to the target stream.
+     * @param path path of a file
+     * @param target stream to copy the content to
+     * @throws IOException reading can thrown an io exception
+     */
+    @Override
+    public void readFromFile(
+            final String path,
+            final OutputStream target) throws IOException {
         final ProcessBuilder processBuilder = new ProcessBuilder();
         processBuilder.command(createCopyToHostCommand(path));
 
         final Process process = processBuilder.start();
         final InputStream stdout = process.getInputStream();
 
-        final ThreadedStreamStringReader stderr =
-                new ThreadedStreamStringReader(process.getErrorStream());
-        stderr.start();
+        final DrainedStream stderr =
+                StreamDrainerSingleton.INSTANCE.drain(process.getErrorStream());
 
-        try (TarArchiveInputStream tarInputStream =
-                     new TarArchiveInputStream(stdout)) {
-            tarInputStream.getNextEntry();
-            final byte[] result = IOUtils.toByteArray(tarInputStream);
+        try {
+            TarArchiveHelper.INSTANCE.copySingleFile(stdout, target);
+            // read the rest (the end of the archive), so that docker
+            // can finish
+            IOUtils.copy(stdout, new NullOutputStream());
 
             final int exitValue = process.waitFor();
             process.destroy();
+
+            final String errorText = new String(
+                    stderr.await(), ExecutionRunResultImpl.DEFAULT_CHARSET);
+
+            if (!errorText.isEmpty()) {
+                throw new IOException(errorText);
+            }
+            if (exitValue != 0) {
+                throw new IOException(
+                        "Exit value for copying to host is not zero: "
+                                + exitValue);
+            }
+        } catch (final InterruptedException interruptedException) {
+            throw new IOException(interruptedException);
+        } finally {
             stdout.close();
+        }
+    }
+
+
+    /**
+     * Uses one tar stream to read all the files of a directory
+     * from the container.
+     * @param directory directory to read
+     * @param filter filter for the paths of the files
+     * @return map with the paths of the files and the contents
+     * @throws IOException reading can thrown an io exception
+     */
+    @Override
+    public Map<String, byte[]> readFromDirectory(
+            final String directory,
+            final Predicate<String> filter) throws IOException {
+        final ProcessBuilder processBuilder = new ProcessBuilder();
+        processBuilder.command(createCopyToHostCommand(directory));
+
+        final Process process = processBuilder.start();
+        final InputStream stdout = process.getInputStream();
+
+        final DrainedStream stderr =
+                StreamDrainerSingleton.INSTANCE.drain(process.getErrorStream());
+
+        try {
+            final Map<String, byte[]> result = TarArchiveHelper.INSTANCE
+                    .readDirectoryArchive(directory, filter, stdout);
+            // read the rest (the end of the archive), so that docker
+            // can finish
+            IOUtils.copy(stdout, new NullOutputStream());
 
-            stderr.throwExceptionIfNecessary();
-            final String errorText = stderr.getResult();
+            final int exitValue = process.waitFor();
+            process.destroy();
+
+            final String errorText = new String(
+                    stderr.await(), ExecutionRunResultImpl.DEFAULT_CHARSET);
 
             if (!errorText.isEmpty()) {
                 throw new IOException(errorText);
@@ -156,10 +277,11 @@ public class DockerExecutionContextImpl implements IExecutionContext {
             return result;
         } catch (final InterruptedException interruptedException) {
             throw new IOException(interruptedException);
+        } finally {
+            stdout.close();
         }
     }
 
-
     /**
      * Creates the command (as list of strings) to copy a file from
      * the host to the container.
@@ -183,32 +305,67 @@ public class DockerExecutionContextImpl implements IExecutionContext {
             final byte[] content,
             final String workingDir,
             final String fileName) throws IOException {
+        writeToFiles(Collections.singletonMap(fileName, content), workingDir);
+    }
+
+    /**
+     * Uses a tar stream to copy a file of the host into the container.
+     * @param source file on the host
+     * @param workingDir working directory to write to
+     * @param fileName filename in the working directory
+     * @throws IOException writing to a file can throw an io exception
+     */
+    @Override
+    public void writeToFile(
+            final File source,
+            final String workingDir,
+            final String fileName) throws IOException {
+        copyToContainer(workingDir, stdin ->
+                TarArchiveHelper.INSTANCE.writeFileArchive(
+                        fileName, source, stdin));
+    }
+
+    /**
+     * Uses one tar stream to write all the files into the container.
+     * @param files map with the file names and the contents
+     * @param workingDir working directory to write to
+     * @throws IOException writing to a file can throw an io exception
+     */
+    @Override
+    public void writeToFiles(
+            final Map<String, byte[]> files,
+            final String workingDir) throws IOException {
+        copyToContainer(workingDir, stdin ->
+                TarArchiveHelper.INSTANCE.writeArchive(files, stdin));
+    }
+
+    /**
+     * Starts the docker copy command and lets the writer put the
+     * tar archive on its stdin.
+     * @param workingDir working directory to write to
+     * @param archiveWriter function to write the tar archive
+     * @throws IOException writing to a file can throw an io exception
+     */
+    private void copyToContainer(
+            final String workingDir,
+            final IArchiveWriter archiveWriter) throws IOException {
         final ProcessBuilder processBuilder = new ProcessBuilder();
         processBuilder.command(createCopyToContainerCommand(workingDir));
 
         final Process process = processBuilder.start();
         final OutputStream stdin = process.getOutputStream();
-        final ThreadedStreamStringReader stderr =
-                new ThreadedStreamStringReader(process.getErrorStream());
-        stderr.start();
+        final DrainedStream stderr =
+                StreamDrainerSingleton.INSTANCE.drain(process.getErrorStream());
 
-        try (TarArchiveOutputStream tarOutputStream =
-                     new TarArchiveOutputStream(stdin)) {
-            final TarArchiveEntry entry = new TarArchiveEntry(fileName);
-            entry.setSize((long) content.length);
-            tarOutputStream.putArchiveEntry(entry);
-            IOUtils.write(content, tarOutputStream);
-
-            tarOutputStream.closeArchiveEntry();
-            tarOutputStream.finish();
+        try {
+            archiveWriter.writeTo(stdin);
 
             stdin.close();
 
             final int exitValue = process.waitFor();
-            process.destroy();
 
-            stderr.throwExceptionIfNecessary();
-            final String errorText = stderr.getResult();
+            final String errorText = new String(
+                    stderr.await(), ExecutionRunResultImpl.DEFAULT_CHARSET);
 
 
             if (!errorText.isEmpty()) {
@@ -221,6 +378,37 @@ public class DockerExecutionContextImpl implements IExecutionContext {
             }
         } catch (final InterruptedException interruptedException) {
             throw new IOException(interruptedException);
+        } finally {
+            try {
+                stdin.close();
+            } finally {
+                // if the archive could not be written the copy command
+                // may still wait for more input
+                if (process.isAlive()) {
+                    process.destroyForcibly();
+                }
+                release(stderr);
+            }
+        }
+    }
+
+    /**
+     * Waits until the drained stream is read to the end and
+     * deletes what was captured.
+     * Errors are only logged, because they are not relevant for the
+     * result of the command.
+     * @param stream drained stream to release
+     */
+    private static void release(final DrainedStream stream) {
+        try {
+            stream.awaitOutput().close();
+        } catch (final IOException exception) {
+            LOGGER.warn("Can't release the stderr of the copy command",
+                    exception);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Can't release the stderr of the copy command",
+                    exception);
         }
     }
 
@@ -233,4 +421,17 @@ public class DockerExecutionContextImpl implements IExecutionContext {
         final String dest = containerId + ":" + path;
         return Arrays.asList("docker", "container", "cp", "-", dest);
     }
+
+    /**
+     * Function to write a tar archive to the stdin of the copy command.
+     */
+    @FunctionalInterface
+    private interface IArchiveWriter {
+        /**
+         * Writes the archive.
+         * @param stdin stdin of the copy command
+         * @throws IOException there may be an IOException on writing
+         */
+        void writeTo(OutputStream stdin) throws IOException;
+    }
 }
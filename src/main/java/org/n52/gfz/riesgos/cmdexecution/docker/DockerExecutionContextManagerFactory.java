@@ -19,6 +19,11 @@ package org.n52.gfz.riesgos.cmdexecution.docker;
 import org.n52.gfz.riesgos.cmdexecution.IExecutionContextManager;
 import org.n52.gfz.riesgos.cmdexecution.util.IExecutionContextManagerFactory;
 import org.n52.gfz.riesgos.configuration.IConfiguration;
+import org.n52.gfz.riesgos.configuration.IContainerPoolSettings;
+import org.n52.gfz.riesgos.configuration.IOutputCaptureSettings;
+import org.n52.gfz.riesgos.configuration.impl.OutputCaptureSettingsImpl;
+
+import java.util.Optional;
 
 /**
  * Factory for the IExecutionContextManager (that creates the image in case
@@ -30,13 +35,30 @@ public class DockerExecutionContextManagerFactory
     /**
      * Creates a DockerContainerExecutionContextManager (so a class
      * that can create a new docker container).
+     * If there are settings for a container pool, the manager takes
+     * the containers from the pool.
      * @param configuration configuration for the creation
-     * @return DockerContainerExecutionContextManagerImpl
+     * @return DockerContainerExecutionContextManagerImpl or
+     * PooledDockerContainerExecutionContextManagerImpl
      */
     @Override
     public IExecutionContextManager createExecutionContext(
             final IConfiguration configuration) {
+        final Optional<IContainerPoolSettings> poolSettings =
+                configuration.getContainerPoolSettings();
+        final IOutputCaptureSettings captureSettings =
+                configuration.getOutputCaptureSettings()
+                        .orElse(OutputCaptureSettingsImpl.DEFAULT);
+        if (poolSettings.isPresent()) {
+            return new PooledDockerContainerExecutionContextManagerImpl(
+                    configuration.getImageId(),
+                    poolSettings.get(),
+                    ContainerPoolSingleton.INSTANCE,
+                    captureSettings);
+        }
         return new DockerContainerExecutionContextManagerImpl(
-                configuration.getImageId());
+                configuration.getImageId(),
+                captureSettings,
+                ContainerReaperSingleton.INSTANCE);
     }
 }
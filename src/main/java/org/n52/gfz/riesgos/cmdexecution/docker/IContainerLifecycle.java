@@ -0,0 +1,45 @@
+package org.n52.gfz.riesgos.cmdexecution.docker;
+
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import java.io.IOException;
+
+/**
+ * Interface for creating and removing the containers
+ * that are kept in a container pool.
+ */
+public interface IContainerLifecycle {
+
+    /**
+     * Creates and starts a container that idles until
+     * a command is executed inside of it.
+     * @param imageId id of the docker image to use
+     * @param workingDirectory working directory for the commands
+     * @return id of the started container
+     * @throws IOException there may be an IOException on talking with docker
+     */
+    String createIdleContainer(String imageId, String workingDirectory)
+            throws IOException;
+
+    /**
+     * Removes a container (also if it is still running).
+     * @param containerId id of the container to remove
+     * @throws IOException there may be an IOException on talking with docker
+     */
+    void removeContainer(String containerId) throws IOException;
+}
@@ -0,0 +1,57 @@
+package org.n52.gfz.riesgos.cmdexecution.docker;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.gfz.riesgos.configuration.IContainerPoolSettings;
+
+import java.io.IOException;
+
+/**
+ * Interface for a pool of pre-created docker containers.
+ *
+ * Each container is handed out only once. After the use it is removed
+ * and the pool creates a fresh one in the background, so that every run
+ * still has its own container.
+ */
+public interface IContainerPool {
+
+    /**
+     * Takes an idle container for the image out of the pool.
+     * If there is no idle container, a new one is created.
+     * @param imageId id of the docker image
+     * @param workingDirectory working directory for the commands
+     * @param settings settings for the pool of this image
+     * @return id of a running container that was never used before
+     * @throws IOException there may be an IOException on creating a
+     * container
+     */
+    String acquire(
+            String imageId,
+            String workingDirectory,
+            IContainerPoolSettings settings) throws IOException;
+
+    /**
+     * Gives a used container back, so that it can be removed.
+     * @param containerId id of the used container
+     */
+    void release(String containerId);
+
+    /**
+     * Removes all the idle containers and stops the background work.
+     */
+    void shutdown();
+}
@@ -0,0 +1,53 @@
+package org.n52.gfz.riesgos.cmdexecution.docker;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+
+/**
+ * Interface for removing used containers in the background,
+ * so that the removal is not part of the request.
+ */
+public interface IContainerReaper {
+
+    /**
+     * Adds the container to the ones that should be removed.
+     * Returns at once.
+     * @param containerId id of the container to remove
+     */
+    void remove(String containerId);
+
+    /**
+     * Searches for containers with the label that were created by
+     * another instance of the server at least the minimum age ago
+     * (for example those that were left behind when an earlier run
+     * of the server was killed) and removes them in the background.
+     * Only meant for servers that don't share the docker daemon.
+     * @param label label of the containers (key=value)
+     * @param includeRunning true to remove running containers too
+     * @param minAgeMillis minimum age of the containers in milliseconds
+     */
+    void removeLeftovers(
+            String label,
+            boolean includeRunning,
+            long minAgeMillis);
+
+    /**
+     * Stops the background work and tries to remove the containers
+     * that are still waiting.
+     */
+    void shutdown();
+}
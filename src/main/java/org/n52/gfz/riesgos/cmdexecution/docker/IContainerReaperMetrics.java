@@ -0,0 +1,61 @@
+package org.n52.gfz.riesgos.cmdexecution.docker;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+
+import javax.management.MXBean;
+
+/**
+ * Metrics of the removal of the containers in the background.
+ * They are registered as MXBean, so that they can be read with
+ * any jmx client.
+ */
+@MXBean
+public interface IContainerReaperMetrics {
+
+    /**
+     *
+     * @return number of containers that are waiting for their removal
+     * (including those that are removed at the moment)
+     */
+    int getBacklog();
+
+    /**
+     *
+     * @return number of containers that were removed so far
+     */
+    long getRemovedCount();
+
+    /**
+     *
+     * @return number of calls to remove a batch of containers
+     */
+    long getBatchCount();
+
+    /**
+     *
+     * @return number of failed removals that were tried again
+     */
+    long getRetriedCount();
+
+    /**
+     *
+     * @return number of containers that could not be removed
+     * after all the attempts
+     */
+    long getFailedCount();
+}
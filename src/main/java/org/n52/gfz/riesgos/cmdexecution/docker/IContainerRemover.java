@@ -0,0 +1,50 @@
+package org.n52.gfz.riesgos.cmdexecution.docker;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Interface for removing docker containers in batches.
+ */
+public interface IContainerRemover {
+
+    /**
+     * Removes the containers (also if they are still running).
+     * Containers that don't exist anymore are ignored.
+     * @param containerIds ids of the containers to remove
+     * @throws IOException there may be an IOException on talking with docker
+     */
+    void removeContainers(List<String> containerIds) throws IOException;
+
+    /**
+     * Searches for the containers with the label that were created
+     * by another instance of the server at least the minimum age ago.
+     * @param label label of the containers (key=value)
+     * @param includeRunning true to find running containers too,
+     *                       false for the stopped ones only
+     * @param minAgeMillis minimum age of the containers in milliseconds
+     * @return ids of the containers
+     * @throws IOException there may be an IOException on talking with docker
+     */
+    List<String> findLeftoverContainers(
+            String label,
+            boolean includeRunning,
+            long minAgeMillis) throws IOException;
+}
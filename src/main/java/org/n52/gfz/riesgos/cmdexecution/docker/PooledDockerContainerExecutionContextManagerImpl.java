@@ -0,0 +1,107 @@
+package org.n52.gfz.riesgos.cmdexecution.docker;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.gfz.riesgos.cmdexecution.IExecutionContext;
+import org.n52.gfz.riesgos.cmdexecution.IExecutionContextManager;
+import org.n52.gfz.riesgos.configuration.IContainerPoolSettings;
+import org.n52.gfz.riesgos.configuration.IOutputCaptureSettings;
+import org.n52.gfz.riesgos.configuration.impl.OutputCaptureSettingsImpl;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Context manager implementation that takes the containers
+ * from a pool of already started containers.
+ */
+public class PooledDockerContainerExecutionContextManagerImpl
+        implements IExecutionContextManager {
+
+    /**
+     * Image id that should be used for the containers.
+     */
+    private final String imageId;
+
+    /**
+     * Settings for the pool of this image.
+     */
+    private final IContainerPoolSettings settings;
+
+    /**
+     * Pool to take the containers from.
+     */
+    private final IContainerPool pool;
+
+    /**
+     * Settings for capturing stdout and stderr of the runs.
+     */
+    private final IOutputCaptureSettings captureSettings;
+
+    /**
+     * Constructor with the image id, the settings, the pool and the
+     * settings to capture the output.
+     * @param aImageId id of the docker image to use
+     * @param aSettings settings for the pool
+     * @param aPool pool to take the containers from
+     * @param aCaptureSettings settings for capturing stdout and stderr
+     */
+    public PooledDockerContainerExecutionContextManagerImpl(
+            final String aImageId,
+            final IContainerPoolSettings aSettings,
+            final IContainerPool aPool,
+            final IOutputCaptureSettings aCaptureSettings) {
+        this.imageId = aImageId;
+        this.settings = aSettings;
+        this.pool = aPool;
+        this.captureSettings = aCaptureSettings;
+    }
+
+    /**
+     * Constructor with the image id, the settings and the pool.
+     * @param aImageId id of the docker image to use
+     * @param aSettings settings for the pool
+     * @param aPool pool to take the containers from
+     */
+    public PooledDockerContainerExecutionContextManagerImpl(
+            final String aImageId,
+            final IContainerPoolSettings aSettings,
+            final IContainerPool aPool) {
+        this(aImageId, aSettings, aPool, OutputCaptureSettingsImpl.DEFAULT);
+    }
+
+    /**
+     * Takes a container from the pool for running the cmd in.
+     * @param workingDirectory directory to run the code inside
+     * @param cmd string list with the command to execute (for example
+     *            ["python3", "script.py", "arg1", "arg2"]
+     * @return PooledDockerExecutionContextImpl
+     */
+    @Override
+    public IExecutionContext createExecutionContext(
+            final String workingDirectory,
+            final List<String> cmd) {
+        try {
+            final String containerId = pool.acquire(
+                    imageId, workingDirectory, settings);
+            return new PooledDockerExecutionContextImpl(
+                    containerId, cmd, pool, captureSettings);
+        } catch (final IOException ioException) {
+            throw new RuntimeException(ioException);
+        }
+    }
+}
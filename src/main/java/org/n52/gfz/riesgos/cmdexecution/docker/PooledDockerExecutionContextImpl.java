@@ -0,0 +1,97 @@
+package org.n52.gfz.riesgos.cmdexecution.docker;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.gfz.riesgos.cmdexecution.IExecutionRun;
+import org.n52.gfz.riesgos.cmdexecution.common.ExecutionRunImpl;
+import org.n52.gfz.riesgos.configuration.IOutputCaptureSettings;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of an execution context that runs the command
+ * in an already started container from the container pool.
+ */
+public class PooledDockerExecutionContextImpl
+        extends DockerExecutionContextImpl {
+
+    /**
+     * Command to execute inside of the container.
+     */
+    private final List<String> cmd;
+
+    /**
+     * Pool to give the container back after use.
+     */
+    private final IContainerPool pool;
+
+    /**
+     * Constructor with the container id, the command and the pool.
+     * @param aContainerId id of the running container
+     * @param aCmd command to execute in the container
+     * @param aPool pool to give the container back
+     * @param aCaptureSettings settings for capturing stdout and stderr
+     */
+    PooledDockerExecutionContextImpl(
+            final String aContainerId,
+            final List<String> aCmd,
+            final IContainerPool aPool,
+            final IOutputCaptureSettings aCaptureSettings) {
+        super(aContainerId, aCaptureSettings);
+        this.cmd = aCmd;
+        this.pool = aPool;
+    }
+
+    /**
+     * Gives the container back to the pool (which removes it).
+     */
+    @Override
+    public void close() {
+        pool.release(getContainerId());
+    }
+
+    /**
+     * Runs the command inside of the running container.
+     * @return ExecutionRunImpl
+     * @throws IOException starting the process can thrown an IO exception
+     */
+    @Override
+    public IExecutionRun run() throws IOException {
+        final ProcessBuilder processBuilder = new ProcessBuilder();
+        processBuilder.command(createExecCommand());
+        final Process process = processBuilder.start();
+        return new ExecutionRunImpl(
+                process, this::killContainer, getCaptureSettings());
+    }
+
+    /**
+     * Creates the command to execute the cmd in the container.
+     * @return command to execute the cmd in the container
+     */
+    private List<String> createExecCommand() {
+        final List<String> result = new ArrayList<>();
+        result.add("docker");
+        result.add("container");
+        result.add("exec");
+        result.add("--interactive");
+        result.add(getContainerId());
+        result.addAll(cmd);
+        return result;
+    }
+}
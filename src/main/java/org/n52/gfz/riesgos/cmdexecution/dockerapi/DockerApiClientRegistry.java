@@ -0,0 +1,124 @@
+package org.n52.gfz.riesgos.cmdexecution.dockerapi;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.gfz.riesgos.cmdexecution.docker.ContainerReaperImpl;
+import org.n52.gfz.riesgos.cmdexecution.docker.IContainerReaper;
+
+import java.io.File;
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Singleton to share the docker engine api clients (and so
+ * the pooled connections) and the reapers for their containers
+ * between all the processes.
+ */
+public enum DockerApiClientRegistry {
+
+    /**
+     * Singleton instance.
+     */
+    INSTANCE;
+
+    /**
+     * Prefix for endpoints that use a unix domain socket.
+     */
+    private static final String UNIX_PREFIX = "unix://";
+
+    /**
+     * Prefix for endpoints that use tcp.
+     */
+    private static final String TCP_PREFIX = "tcp://";
+
+    /**
+     * Clients by endpoint.
+     */
+    private final ConcurrentMap<String, DockerEngineApiClient> clients;
+
+    /**
+     * Reapers by client.
+     */
+    private final ConcurrentMap<DockerEngineApiClient, IContainerReaper>
+            reapers;
+
+    /**
+     * Constructor for the maps of clients and reapers.
+     */
+    DockerApiClientRegistry() {
+        clients = new ConcurrentHashMap<>();
+        reapers = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the client for the endpoint (and creates it if necessary).
+     * @param endpoint endpoint of the docker daemon, like
+     *                 unix:///var/run/docker.sock or tcp://localhost:2375
+     * @return client for the endpoint
+     */
+    public DockerEngineApiClient getClient(final String endpoint) {
+        return clients.computeIfAbsent(endpoint,
+                key -> new DockerEngineApiClient(createConnector(key)));
+    }
+
+    /**
+     * Returns the reaper that removes the containers of the client
+     * in the background (and creates it if necessary).
+     * @param client client for the docker engine api
+     * @return reaper for the containers of the client
+     */
+    public IContainerReaper getReaper(final DockerEngineApiClient client) {
+        return reapers.computeIfAbsent(client,
+                key -> new ContainerReaperImpl(
+                        new DockerApiContainerRemover(key)));
+    }
+
+    /**
+     * Removes the remaining containers of the reapers and
+     * closes the idle connections of all the clients.
+     */
+    public void close() {
+        for (final IContainerReaper reaper : reapers.values()) {
+            reaper.shutdown();
+        }
+        for (final DockerEngineApiClient client : clients.values()) {
+            client.close();
+        }
+    }
+
+    /**
+     * Creates the connector for the endpoint.
+     * @param endpoint endpoint of the docker daemon
+     * @return connector to open sockets to the endpoint
+     */
+    static ISocketConnector createConnector(final String endpoint) {
+        if (endpoint.startsWith(UNIX_PREFIX)) {
+            return new UnixSocketConnector(
+                    new File(endpoint.substring(UNIX_PREFIX.length())));
+        }
+        if (endpoint.startsWith(TCP_PREFIX)) {
+            final URI uri = URI.create(endpoint);
+            return new TcpSocketConnector(uri.getHost(), uri.getPort());
+        }
+        if (endpoint.startsWith("/")) {
+            return new UnixSocketConnector(new File(endpoint));
+        }
+        throw new IllegalArgumentException(
+                "Unsupported docker endpoint: " + endpoint);
+    }
+}
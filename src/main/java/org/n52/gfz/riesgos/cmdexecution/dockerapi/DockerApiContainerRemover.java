@@ -0,0 +1,182 @@
+package org.n52.gfz.riesgos.cmdexecution.dockerapi;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.n52.gfz.riesgos.cmdexecution.docker.DockerCliContainerLifecycle;
+import org.n52.gfz.riesgos.cmdexecution.docker.IContainerRemover;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of the container remover that uses
+ * the docker engine api.
+ */
+public class DockerApiContainerRemover implements IContainerRemover {
+
+    /**
+     * Status code of the docker engine api for containers
+     * that don't exist (anymore).
+     */
+    private static final int NOT_FOUND = 404;
+
+    /**
+     * Client for the docker engine api.
+     */
+    private final DockerEngineApiClient client;
+
+    /**
+     * Constructor with the client.
+     * @param aClient client for the docker engine api
+     */
+    public DockerApiContainerRemover(final DockerEngineApiClient aClient) {
+        this.client = aClient;
+    }
+
+    /**
+     * Removes the containers one after the other.
+     * Containers that don't exist (anymore) are ignored,
+     * so that a batch can be tried again after a partial failure.
+     * @param containerIds ids of the containers to remove
+     * @throws IOException there may be an IOException on talking with docker
+     */
+    @Override
+    public void removeContainers(final List<String> containerIds)
+            throws IOException {
+        final List<String> errors = new ArrayList<>();
+        for (final String containerId : containerIds) {
+            try {
+                final DockerApiResponse response = client.execute(
+                        "DELETE",
+                        "/containers/"
+                                + DockerEngineApiClient.encode(containerId)
+                                + "?force=1");
+                if (response.getStatusCode() != NOT_FOUND) {
+                    response.throwIfNotSuccessful(
+                            "remove the container " + containerId);
+                }
+            } catch (final IOException exception) {
+                errors.add(exception.getMessage());
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new IOException("Can't remove the containers: "
+                    + String.join("\n", errors));
+        }
+    }
+
+    /**
+     * Searches for the containers with the label that were created
+     * by another instance of the server at least the minimum age ago.
+     * Containers without the instance label are treated as containers
+     * of another instance.
+     * @param label label of the containers (key=value)
+     * @param includeRunning true to find running containers too,
+     *                       false for the ones that were created but
+     *                       never started, that exited or that are dead
+     * @param minAgeMillis minimum age of the containers in milliseconds
+     * @return ids of the containers
+     * @throws IOException there may be an IOException on talking with docker
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<String> findLeftoverContainers(
+            final String label,
+            final boolean includeRunning,
+            final long minAgeMillis) throws IOException {
+        final JSONObject filters = new JSONObject();
+        filters.put("label", toJsonArray(Collections.singletonList(label)));
+        if (!includeRunning) {
+            filters.put("status", toJsonArray(
+                    Arrays.asList("created", "exited", "dead")));
+        }
+        final DockerApiResponse response = client.execute(
+                "GET",
+                "/containers/json?all=1&filters="
+                        + DockerEngineApiClient.encode(
+                                filters.toJSONString()))
+                .throwIfNotSuccessful("search for the leftover containers");
+
+        final Object parsed;
+        try {
+            parsed = new JSONParser().parse(response.getBodyAsString());
+        } catch (final ParseException exception) {
+            throw new IOException(exception);
+        }
+        if (!(parsed instanceof JSONArray)) {
+            throw new IOException("Can't read the list of the containers.");
+        }
+        final long nowMillis = System.currentTimeMillis();
+        final List<String> result = new ArrayList<>();
+        for (final Object entry : (JSONArray) parsed) {
+            if (entry instanceof JSONObject && isLeftover(
+                    (JSONObject) entry, nowMillis, minAgeMillis)) {
+                result.add((String) ((JSONObject) entry).get("Id"));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks an entry of the container list.
+     * @param container entry of the container list
+     * @param nowMillis current time in milliseconds
+     * @param minAgeMillis minimum age of the container in milliseconds
+     * @return true if the container belongs to another instance and
+     * is old enough (false if the entry can't be read)
+     */
+    static boolean isLeftover(
+            final JSONObject container,
+            final long nowMillis,
+            final long minAgeMillis) {
+        if (!(container.get("Id") instanceof String)
+                || !(container.get("Created") instanceof Number)) {
+            return false;
+        }
+        final Object labels = container.get("Labels");
+        if (labels instanceof JSONObject
+                && DockerCliContainerLifecycle.INSTANCE_ID.equals(
+                        ((JSONObject) labels).get(
+                                DockerCliContainerLifecycle
+                                        .INSTANCE_LABEL_KEY))) {
+            return false;
+        }
+        final long createdMillis = TimeUnit.SECONDS.toMillis(
+                ((Number) container.get("Created")).longValue());
+        return nowMillis - createdMillis >= minAgeMillis;
+    }
+
+    /**
+     * Converts a list of strings to a json array.
+     * @param values values of the array
+     * @return json array
+     */
+    @SuppressWarnings("unchecked")
+    private static JSONArray toJsonArray(final List<String> values) {
+        final JSONArray result = new JSONArray();
+        result.addAll(values);
+        return result;
+    }
+}
@@ -0,0 +1,300 @@
+package org.n52.gfz.riesgos.cmdexecution.dockerapi;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.n52.gfz.riesgos.cmdexecution.IExecutionContext;
+import org.n52.gfz.riesgos.cmdexecution.IExecutionRun;
+import org.n52.gfz.riesgos.cmdexecution.docker.IContainerReaper;
+import org.n52.gfz.riesgos.cmdexecution.util.StreamDrainerSingleton;
+import org.n52.gfz.riesgos.cmdexecution.util.TarArchiveHelper;
+import org.n52.gfz.riesgos.configuration.IOutputCaptureSettings;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * Implementation of an execution context that runs inside
+ * of a docker container and uses the docker engine api
+ * to talk with the docker daemon.
+ */
+public class DockerApiExecutionContextImpl implements IExecutionContext {
+
+    /**
+     * Content type for tar archives.
+     */
+    private static final String CONTENT_TYPE_TAR = "application/x-tar";
+
+    /**
+     * Size of the pipe to extract the archive of a file while it is
+     * read from the connection.
+     */
+    private static final int PIPE_SIZE = 64 * 1024;
+
+    /**
+     * Client for the docker engine api.
+     */
+    private final DockerEngineApiClient client;
+
+    /**
+     * Container id to use for the processing in docker.
+     */
+    private final String containerId;
+
+    /**
+     * Settings for capturing stdout and stderr of the run.
+     */
+    private final IOutputCaptureSettings captureSettings;
+
+    /**
+     * Reaper that removes the container after use.
+     */
+    private final IContainerReaper reaper;
+
+    /**
+     * Constructor with the client, the container id, the settings
+     * to capture the output and the reaper for the container.
+     * @param aClient client for the docker engine api
+     * @param aContainerId id of the docker container
+     * @param aCaptureSettings settings for capturing stdout and stderr
+     * @param aReaper reaper that removes the container after use
+     */
+    DockerApiExecutionContextImpl(
+            final DockerEngineApiClient aClient,
+            final String aContainerId,
+            final IOutputCaptureSettings aCaptureSettings,
+            final IContainerReaper aReaper) {
+        this.client = aClient;
+        this.containerId = aContainerId;
+        this.captureSettings = aCaptureSettings;
+        this.reaper = aReaper;
+    }
+
+    /**
+     * Hands the docker container over to the reaper, that removes
+     * it in the background (and tries it again on failures).
+     */
+    @Override
+    public void close() {
+        reaper.remove(containerId);
+    }
+
+    /**
+     * Attaches to the container and starts it.
+     * @return DockerApiExecutionRunImpl
+     * @throws IOException there may be an IOException on talking with docker
+     */
+    @Override
+    public IExecutionRun run() throws IOException {
+        final HttpConnection attachConnection = client.openUpgradedConnection(
+                "POST",
+                containerPath(
+                        "/attach?stream=1&stdin=1&stdout=1&stderr=1"));
+        try {
+            client.execute("POST", containerPath("/start"))
+                    .throwIfNotSuccessful("start the container");
+        } catch (final IOException exception) {
+            attachConnection.close();
+            throw exception;
+        }
+        return new DockerApiExecutionRunImpl(
+                client, containerId, attachConnection, captureSettings);
+    }
+
+    /**
+     * Uses a tar stream to read files from the container.
+     * @param path path of a file
+     * @return byte array with the content of the file
+     * @throws IOException reading can thrown an io exception
+     */
+    @Override
+    public byte[] readFromFile(final String path) throws IOException {
+        final DockerApiResponse response = client.execute(
+                "GET",
+                containerPath("/archive?path="
+                        + DockerEngineApiClient.encode(path)))
+                .throwIfNotSuccessful("copy " + path + " to the host");
+
+        final ByteArrayOutputStream result = new ByteArrayOutputStream();
+        TarArchiveHelper.INSTANCE.copySingleFile(
+                new ByteArrayInputStream(response.getBody()), result);
+        return result.toByteArray();
+    }
+
+    /**
+     * Streams the tar archive of a file from the container
+     * and copies the content to the target stream.
+     * The archive is extracted by a thread of the shared stream drainer
+     * while it is read from the connection, so neither the archive
+     * nor the content is hold in memory.
+     * @param path path of a file
+     * @param target stream to copy the content to
+     * @throws IOException reading can thrown an io exception
+     */
+    @Override
+    public void readFromFile(
+            final String path,
+            final OutputStream target) throws IOException {
+        final PipedInputStream archive = new PipedInputStream(PIPE_SIZE);
+        final PipedOutputStream archiveWriter = new PipedOutputStream(archive);
+        final AtomicReference<IOException> extractionFailure =
+                new AtomicReference<>();
+        final CountDownLatch extractionDone = new CountDownLatch(1);
+        StreamDrainerSingleton.INSTANCE.drain(() -> {
+            try {
+                TarArchiveHelper.INSTANCE.copySingleFile(archive, target);
+            } catch (final IOException exception) {
+                extractionFailure.set(exception);
+            } finally {
+                // drain the rest, so that the writer never blocks
+                try {
+                    IOUtils.copy(archive, new NullOutputStream());
+                    archive.close();
+                } catch (final IOException exception) {
+                    // the pipe is not used anymore
+                }
+                extractionDone.countDown();
+            }
+        });
+
+        final DockerApiResponse response;
+        try {
+            response = client.download(
+                    "GET",
+                    containerPath("/archive?path="
+                            + DockerEngineApiClient.encode(path)),
+                    archiveWriter);
+        } finally {
+            archiveWriter.close();
+            try {
+                extractionDone.await();
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new IOException(exception);
+            }
+        }
+        response.throwIfNotSuccessful("copy " + path + " to the host");
+        if (extractionFailure.get() != null) {
+            throw extractionFailure.get();
+        }
+    }
+
+    /**
+     * Uses one tar archive to read all the files of a directory
+     * from the container.
+     * @param directory directory to read
+     * @param filter filter for the paths of the files
+     * @return map with the paths of the files and the contents
+     * @throws IOException reading can thrown an io exception
+     */
+    @Override
+    public Map<String, byte[]> readFromDirectory(
+            final String directory,
+            final Predicate<String> filter) throws IOException {
+        final DockerApiResponse response = client.execute(
+                "GET",
+                containerPath("/archive?path="
+                        + DockerEngineApiClient.encode(directory)))
+                .throwIfNotSuccessful("copy " + directory + " to the host");
+        return TarArchiveHelper.INSTANCE.readDirectoryArchive(
+                directory,
+                filter,
+                new ByteArrayInputStream(response.getBody()));
+    }
+
+    /**
+     * Uses a tar stream to write data as a file into the container.
+     * @param content byte array with the data
+     * @param workingDir working directory to write to
+     * @param fileName filename in the working directory
+     * @throws IOException writing to a file can throw an io exception
+     */
+    @Override
+    public void writeToFile(
+            final byte[] content,
+            final String workingDir,
+            final String fileName) throws IOException {
+        writeToFiles(Collections.singletonMap(fileName, content), workingDir);
+    }
+
+    /**
+     * Streams a file of the host as tar archive into the container.
+     * @param source file on the host
+     * @param workingDir working directory to write to
+     * @param fileName filename in the working directory
+     * @throws IOException writing to a file can throw an io exception
+     */
+    @Override
+    public void writeToFile(
+            final File source,
+            final String workingDir,
+            final String fileName) throws IOException {
+        client.execute(
+                "PUT",
+                containerPath("/archive?path="
+                        + DockerEngineApiClient.encode(workingDir)),
+                CONTENT_TYPE_TAR,
+                body -> TarArchiveHelper.INSTANCE.writeFileArchive(
+                        fileName, source, body))
+                .throwIfNotSuccessful("copy " + fileName
+                        + " to the container");
+    }
+
+    /**
+     * Uses one tar archive to write all the files into the container.
+     * @param files map with the file names and the contents
+     * @param workingDir working directory to write to
+     * @throws IOException writing to a file can throw an io exception
+     */
+    @Override
+    public void writeToFiles(
+            final Map<String, byte[]> files,
+            final String workingDir) throws IOException {
+        final ByteArrayOutputStream tarBytes = new ByteArrayOutputStream();
+        TarArchiveHelper.INSTANCE.writeArchive(files, tarBytes);
+
+        client.execute(
+                "PUT",
+                containerPath("/archive?path="
+                        + DockerEngineApiClient.encode(workingDir)),
+                CONTENT_TYPE_TAR,
+                tarBytes.toByteArray())
+                .throwIfNotSuccessful("copy " + files.keySet()
+                        + " to the container");
+    }
+
+    /**
+     * Creates the api path for this container.
+     * @param suffix suffix to append (for example "/start")
+     * @return path for the api request
+     */
+    private String containerPath(final String suffix) {
+        return "/containers/" + DockerEngineApiClient.encode(containerId)
+                + suffix;
+    }
+}
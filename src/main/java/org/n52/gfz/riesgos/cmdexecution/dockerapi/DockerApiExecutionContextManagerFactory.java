@@ -0,0 +1,89 @@
+package org.n52.gfz.riesgos.cmdexecution.dockerapi;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.gfz.riesgos.cmdexecution.IExecutionContextManager;
+import org.n52.gfz.riesgos.cmdexecution.util.IExecutionContextManagerFactory;
+import org.n52.gfz.riesgos.configuration.IConfiguration;
+import org.n52.gfz.riesgos.configuration.impl.OutputCaptureSettingsImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Factory for the IExecutionContextManager that uses the docker
+ * engine api.
+ *
+ * If the docker daemon can't be reached over the api (or the
+ * configuration uses a container pool) the fallback factory
+ * (the command line client) is used.
+ */
+public class DockerApiExecutionContextManagerFactory
+        implements IExecutionContextManagerFactory {
+
+    /**
+     * Logger for the factory.
+     */
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(
+                    DockerApiExecutionContextManagerFactory.class);
+
+    /**
+     * Client for the docker engine api.
+     */
+    private final DockerEngineApiClient client;
+
+    /**
+     * Factory to use if the api can't be used.
+     */
+    private final IExecutionContextManagerFactory fallbackFactory;
+
+    /**
+     * Constructor with the client and the fallback factory.
+     * @param aClient client for the docker engine api
+     * @param aFallbackFactory factory to use if the api can't be used
+     */
+    public DockerApiExecutionContextManagerFactory(
+            final DockerEngineApiClient aClient,
+            final IExecutionContextManagerFactory aFallbackFactory) {
+        this.client = aClient;
+        this.fallbackFactory = aFallbackFactory;
+    }
+
+    /**
+     * Creates a DockerApiExecutionContextManagerImpl if the docker daemon
+     * can be reached. Otherwise the fallback factory is used.
+     * @param configuration configuration for the creation
+     * @return IExecutionContextManager
+     */
+    @Override
+    public IExecutionContextManager createExecutionContext(
+            final IConfiguration configuration) {
+        if (configuration.getContainerPoolSettings().isPresent()) {
+            return fallbackFactory.createExecutionContext(configuration);
+        }
+        if (!client.isAvailable()) {
+            LOGGER.warn("The docker engine api is not available. "
+                    + "Use the docker command line client instead.");
+            return fallbackFactory.createExecutionContext(configuration);
+        }
+        return new DockerApiExecutionContextManagerImpl(
+                client,
+                configuration.getImageId(),
+                configuration.getOutputCaptureSettings()
+                        .orElse(OutputCaptureSettingsImpl.DEFAULT));
+    }
+}
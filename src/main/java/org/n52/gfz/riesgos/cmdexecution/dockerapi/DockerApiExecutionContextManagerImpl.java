@@ -0,0 +1,191 @@
+package org.n52.gfz.riesgos.cmdexecution.dockerapi;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.n52.gfz.riesgos.cmdexecution.IExecutionContext;
+import org.n52.gfz.riesgos.cmdexecution.IExecutionContextManager;
+import org.n52.gfz.riesgos.cmdexecution.docker.DockerCliContainerLifecycle;
+import org.n52.gfz.riesgos.cmdexecution.docker.DockerContainerExecutionContextManagerImpl;
+import org.n52.gfz.riesgos.cmdexecution.docker.IContainerReaper;
+import org.n52.gfz.riesgos.configuration.IOutputCaptureSettings;
+import org.n52.gfz.riesgos.configuration.impl.OutputCaptureSettingsImpl;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Context manager implementation that creates the docker containers
+ * using the docker engine api.
+ */
+public class DockerApiExecutionContextManagerImpl
+        implements IExecutionContextManager {
+
+    /**
+     * Client for the docker engine api.
+     */
+    private final DockerEngineApiClient client;
+
+    /**
+     * Image id that should be used to create containers.
+     */
+    private final String imageId;
+
+    /**
+     * Settings for capturing stdout and stderr of the runs.
+     */
+    private final IOutputCaptureSettings captureSettings;
+
+    /**
+     * Reaper that removes the containers after use.
+     */
+    private final IContainerReaper reaper;
+
+    /**
+     * Constructor with the client, the image id, the settings
+     * to capture the output and the reaper for the containers.
+     * @param aClient client for the docker engine api
+     * @param aImageId id of the docker image to use
+     * @param aCaptureSettings settings for capturing stdout and stderr
+     * @param aReaper reaper that removes the containers after use
+     */
+    DockerApiExecutionContextManagerImpl(
+            final DockerEngineApiClient aClient,
+            final String aImageId,
+            final IOutputCaptureSettings aCaptureSettings,
+            final IContainerReaper aReaper) {
+        this.client = aClient;
+        this.imageId = aImageId;
+        this.captureSettings = aCaptureSettings;
+        this.reaper = aReaper;
+    }
+
+    /**
+     * Constructor with the client, the image id and the settings
+     * to capture the output.
+     * @param aClient client for the docker engine api
+     * @param aImageId id of the docker image to use
+     * @param aCaptureSettings settings for capturing stdout and stderr
+     */
+    public DockerApiExecutionContextManagerImpl(
+            final DockerEngineApiClient aClient,
+            final String aImageId,
+            final IOutputCaptureSettings aCaptureSettings) {
+        this(aClient, aImageId, aCaptureSettings,
+                DockerApiClientRegistry.INSTANCE.getReaper(aClient));
+    }
+
+    /**
+     * Constructor with the client and the image id.
+     * @param aClient client for the docker engine api
+     * @param aImageId id of the docker image to use
+     */
+    public DockerApiExecutionContextManagerImpl(
+            final DockerEngineApiClient aClient,
+            final String aImageId) {
+        this(aClient, aImageId, OutputCaptureSettingsImpl.DEFAULT);
+    }
+
+    /**
+     * Creates a docker container for running the cmd in.
+     * @param workingDirectory directory to run the code inside
+     * @param cmd string list with the command to execute (for example
+     *            ["python3", "script.py", "arg1", "arg2"]
+     * @return DockerApiExecutionContextImpl
+     */
+    @Override
+    public IExecutionContext createExecutionContext(
+            final String workingDirectory,
+            final List<String> cmd) {
+        try {
+            final DockerApiResponse response = client.execute(
+                    "POST",
+                    "/containers/create",
+                    createContainerConfig(workingDirectory, cmd))
+                    .throwIfNotSuccessful("create the container");
+            final Object parsed =
+                    new JSONParser().parse(response.getBodyAsString());
+            if (!(parsed instanceof JSONObject)
+                    || !(((JSONObject) parsed).get("Id") instanceof String)) {
+                throw new RuntimeException("Can't read the container id.");
+            }
+            final String containerId =
+                    (String) ((JSONObject) parsed).get("Id");
+            return new DockerApiExecutionContextImpl(
+                    client, containerId, captureSettings, reaper);
+        } catch (final IOException | ParseException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    /**
+     * Creates the json configuration of the container.
+     * This is the same as the command line backend uses
+     * (interactive, attached to stdout and stderr, no restart,
+     * no seccomp profile and all the unnecessary capabilities dropped).
+     * @param workingDirectory directory to run the cmd in
+     * @param cmd command to run inside of the docker container
+     * @return json configuration for the container
+     */
+    @SuppressWarnings("unchecked")
+    private JSONObject createContainerConfig(
+            final String workingDirectory,
+            final List<String> cmd) {
+        final JSONArray cmdArray = new JSONArray();
+        cmdArray.addAll(cmd);
+
+        final JSONArray securityOptions = new JSONArray();
+        securityOptions.add(
+                DockerContainerExecutionContextManagerImpl
+                        .SECCOMP_SECURITY_OPTION);
+
+        final JSONArray capDrop = new JSONArray();
+        capDrop.addAll(
+                DockerContainerExecutionContextManagerImpl
+                        .DROPPED_CAPABILITIES);
+
+        final JSONObject restartPolicy = new JSONObject();
+        restartPolicy.put("Name", "no");
+
+        final JSONObject hostConfig = new JSONObject();
+        hostConfig.put("SecurityOpt", securityOptions);
+        hostConfig.put("CapDrop", capDrop);
+        hostConfig.put("RestartPolicy", restartPolicy);
+
+        final JSONObject labels = new JSONObject();
+        labels.put(DockerCliContainerLifecycle.MANAGED_LABEL_KEY, "true");
+        labels.put(DockerCliContainerLifecycle.INSTANCE_LABEL_KEY,
+                DockerCliContainerLifecycle.INSTANCE_ID);
+
+        final JSONObject config = new JSONObject();
+        config.put("Image", imageId);
+        config.put("Cmd", cmdArray);
+        config.put("WorkingDir", workingDirectory);
+        config.put("AttachStdin", true);
+        config.put("AttachStdout", true);
+        config.put("AttachStderr", true);
+        config.put("OpenStdin", true);
+        config.put("StdinOnce", true);
+        config.put("Tty", false);
+        config.put("Labels", labels);
+        config.put("HostConfig", hostConfig);
+        return config;
+    }
+}
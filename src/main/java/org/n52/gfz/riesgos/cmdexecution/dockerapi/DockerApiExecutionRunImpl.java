@@ -0,0 +1,473 @@
+package org.n52.gfz.riesgos.cmdexecution.dockerapi;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.n52.gfz.riesgos.cmdexecution.IExecutionRun;
+import org.n52.gfz.riesgos.cmdexecution.IExecutionRunResult;
+import org.n52.gfz.riesgos.cmdexecution.common.ExecutionMetricsSingleton;
+import org.n52.gfz.riesgos.cmdexecution.common.ExecutionRunResultImpl;
+import org.n52.gfz.riesgos.cmdexecution.util.CapturedOutput;
+import org.n52.gfz.riesgos.cmdexecution.util.LineWatchedBuffer;
+import org.n52.gfz.riesgos.cmdexecution.util.StderrFailureWatch;
+import org.n52.gfz.riesgos.cmdexecution.util.StreamDrainerSingleton;
+import org.n52.gfz.riesgos.configuration.IOutputCaptureSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Predicate;
+
+/**
+ * Run of a container that was started with the docker engine api.
+ *
+ * Docker multiplexes stdout and stderr on the attached connection
+ * (each frame has a header with the stream type and the size), so
+ * a single thread of the shared stream drainer is enough to read
+ * both of them.
+ */
+public class DockerApiExecutionRunImpl implements IExecutionRun {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(DockerApiExecutionRunImpl.class);
+
+    /**
+     * Size of the header of a frame in the multiplexed stream.
+     */
+    private static final int FRAME_HEADER_SIZE = 8;
+
+    /**
+     * Size of the buffer to read the frames.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Stream type for stderr in the multiplexed stream.
+     */
+    private static final int STREAM_TYPE_STDERR = 2;
+
+    /**
+     * Mask to read a byte as unsigned value.
+     */
+    private static final int BYTE_MASK = 0xFF;
+
+    /**
+     * Positions of the size bytes in the frame header.
+     */
+    private static final int[] SIZE_SHIFTS = {24, 16, 8, 0};
+
+    /**
+     * Offset of the size in the frame header.
+     */
+    private static final int SIZE_OFFSET = 4;
+
+    /**
+     * Client for the docker engine api.
+     */
+    private final DockerEngineApiClient client;
+
+    /**
+     * Id of the running container.
+     */
+    private final String containerId;
+
+    /**
+     * Connection that is attached to the container.
+     */
+    private final HttpConnection attachConnection;
+
+    /**
+     * The stdin stream.
+     */
+    private final PrintStream stdin;
+
+    /**
+     * Storage for the stdout bytes.
+     */
+    private final CapturedOutput stdout;
+
+    /**
+     * Buffer for the stderr bytes (the lines can be watched).
+     */
+    private final LineWatchedBuffer stderr;
+
+    /**
+     * Latch that is opened once the multiplexed output is read
+     * to the end.
+     */
+    private final CountDownLatch readerDone;
+
+    /**
+     * Time in milliseconds when the run started.
+     */
+    private final long startMillis;
+
+    /**
+     * Storage for any exception that may happen on reading.
+     */
+    private volatile IOException optionalException;
+
+    /**
+     * Constructor with the client, the container id and the attached
+     * connection.
+     * @param aClient client for the docker engine api
+     * @param aContainerId id of the running container
+     * @param aAttachConnection connection attached to the container
+     * @param aCaptureSettings settings for capturing stdout and stderr
+     */
+    DockerApiExecutionRunImpl(
+            final DockerEngineApiClient aClient,
+            final String aContainerId,
+            final HttpConnection aAttachConnection,
+            final IOutputCaptureSettings aCaptureSettings) {
+        this.client = aClient;
+        this.containerId = aContainerId;
+        this.attachConnection = aAttachConnection;
+        this.stdin = new PrintStream(
+                new HalfClosingOutputStream(aAttachConnection));
+        this.stdout = new CapturedOutput(
+                aCaptureSettings.getInMemoryBytes(),
+                aCaptureSettings.getMaxStdoutBytes());
+        this.stderr = new LineWatchedBuffer(new CapturedOutput(
+                aCaptureSettings.getInMemoryBytes(),
+                aCaptureSettings.getMaxStderrBytes()));
+        this.optionalException = null;
+        this.startMillis = System.currentTimeMillis();
+        this.readerDone = new CountDownLatch(1);
+        StreamDrainerSingleton.INSTANCE.drain(this::readMultiplexedOutput);
+    }
+
+    /**
+     *
+     * @return stdin stream
+     */
+    @Override
+    public PrintStream getStdin() {
+        return stdin;
+    }
+
+    /**
+     * Waits for the container to be done.
+     * @return class with access to the results of the process.
+     * @throws InterruptedException may throw an InterruptedException
+     */
+    @Override
+    public IExecutionRunResult waitForCompletion()
+            throws InterruptedException {
+        stdin.close();
+
+        return collectResult(false, false);
+    }
+
+    /**
+     * Waits for the container to be done or kills it on a failure line
+     * on stderr.
+     * @param isFailureLine check for the single lines of stderr
+     * @return class with access to the results of the process.
+     * @throws InterruptedException may throw an InterruptedException
+     */
+    @Override
+    public IExecutionRunResult waitForCompletion(
+            final Predicate<String> isFailureLine)
+            throws InterruptedException {
+        return waitForCompletion(isFailureLine, 0L);
+    }
+
+    /**
+     * Waits for the container to be done or kills it on a failure line
+     * on stderr or when the maximum time since the start is over.
+     * @param isFailureLine check for the single lines of stderr
+     * @param timeoutMillis maximum time for the run in milliseconds
+     *                      (0 for no limit)
+     * @return class with access to the results of the process.
+     * @throws InterruptedException may throw an InterruptedException
+     */
+    @Override
+    public IExecutionRunResult waitForCompletion(
+            final Predicate<String> isFailureLine,
+            final long timeoutMillis)
+            throws InterruptedException {
+        stdin.close();
+
+        final StderrFailureWatch watch = new StderrFailureWatch(isFailureLine);
+        try {
+            stderr.watchLines(watch);
+        } catch (final IOException ioException) {
+            throw new RuntimeException(ioException);
+        }
+
+        // the attached stream ends when the container stops
+        final boolean stop = watch.awaitEndOrFailure(
+                () -> readerDone.getCount() > 0,
+                remainingMillis(timeoutMillis));
+        final boolean timedOut = stop && !watch.hasSeenFailure();
+        if (stop) {
+            final long killStartMillis = System.currentTimeMillis();
+            killContainer();
+            readerDone.await();
+            ExecutionMetricsSingleton.INSTANCE.recordKill(
+                    timedOut, System.currentTimeMillis() - killStartMillis);
+        }
+        return collectResult(stop && !timedOut, timedOut);
+    }
+
+    /**
+     * Computes the time that is left for the run.
+     * @param timeoutMillis maximum time for the run in milliseconds
+     *                      (0 for no limit)
+     * @return time that is left in milliseconds (at least 1 if there
+     * is a limit, 0 if there is no limit)
+     */
+    private long remainingMillis(final long timeoutMillis) {
+        if (timeoutMillis <= 0) {
+            return 0L;
+        }
+        final long usedMillis = System.currentTimeMillis() - startMillis;
+        return Math.max(1L, timeoutMillis - usedMillis);
+    }
+
+    /**
+     * Waits for the exit value and the end of the output.
+     * @param stoppedOnFailure true if the container was stopped early
+     * @param timedOut true if the container was stopped because it
+     *                 took too long
+     * @return class with access to the results of the process.
+     * @throws InterruptedException may throw an InterruptedException
+     */
+    private IExecutionRunResult collectResult(
+            final boolean stoppedOnFailure,
+            final boolean timedOut)
+            throws InterruptedException {
+        try {
+            final int exitValue = waitForExitValue();
+
+            readerDone.await();
+
+            if (optionalException != null) {
+                throw optionalException;
+            }
+
+            return new ExecutionRunResultImpl(
+                    exitValue,
+                    stderr.getCapturedOutput(),
+                    stdout,
+                    ExecutionRunResultImpl.DEFAULT_CHARSET,
+                    stoppedOnFailure, timedOut);
+        } catch (final IOException ioException) {
+            throw new RuntimeException(ioException);
+        } finally {
+            attachConnection.close();
+        }
+    }
+
+    /**
+     * Kills the container.
+     * Errors are only logged, because the container is removed
+     * afterwards anyway.
+     */
+    private void killContainer() {
+        try {
+            client.execute(
+                    "POST",
+                    "/containers/" + DockerEngineApiClient.encode(containerId)
+                            + "/kill")
+                    .throwIfNotSuccessful("kill the container");
+        } catch (final IOException exception) {
+            LOGGER.warn("Can't kill the container " + containerId, exception);
+        }
+    }
+
+    /**
+     * Waits for the container to stop.
+     * @return exit value of the command in the container
+     * @throws IOException there may be an IOException on talking to docker
+     */
+    private int waitForExitValue() throws IOException {
+        final DockerApiResponse response = client.execute(
+                "POST",
+                "/containers/" + DockerEngineApiClient.encode(containerId)
+                        + "/wait")
+                .throwIfNotSuccessful("wait for the container");
+        try {
+            final Object parsed =
+                    new JSONParser().parse(response.getBodyAsString());
+            if (parsed instanceof JSONObject) {
+                final Object statusCode =
+                        ((JSONObject) parsed).get("StatusCode");
+                if (statusCode instanceof Number) {
+                    return ((Number) statusCode).intValue();
+                }
+            }
+            throw new IOException("Can't read the exit value: "
+                    + response.getBodyAsString());
+        } catch (final ParseException parseException) {
+            throw new IOException(parseException);
+        }
+    }
+
+    /**
+     * Reads the frames of the multiplexed stream until the end.
+     * (Runs in a thread of the stream drainer).
+     */
+    private void readMultiplexedOutput() {
+        final InputStream input = attachConnection.getInputStream();
+        final byte[] header = new byte[FRAME_HEADER_SIZE];
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        try {
+            while (readFrameHeader(input, header)) {
+                final boolean isStderr =
+                        (header[0] & BYTE_MASK) == STREAM_TYPE_STDERR;
+                long remaining = 0L;
+                for (int i = 0; i < SIZE_SHIFTS.length; i++) {
+                    remaining |=
+                            ((long) (header[SIZE_OFFSET + i] & BYTE_MASK))
+                                    << SIZE_SHIFTS[i];
+                }
+                while (remaining > 0) {
+                    final int read = input.read(buffer, 0,
+                            (int) Math.min(buffer.length, remaining));
+                    if (read < 0) {
+                        throw new EOFException("The stream ended in a frame");
+                    }
+                    // the frames are read to the end even if the bytes
+                    // can't be stored, so that the container doesn't block
+                    if (optionalException == null) {
+                        store(isStderr, buffer, read);
+                    }
+                    remaining -= read;
+                }
+            }
+        } catch (final IOException exception) {
+            optionalException = exception;
+        } finally {
+            try {
+                stderr.finish();
+                stdout.finish();
+            } catch (final IOException exception) {
+                if (optionalException == null) {
+                    optionalException = exception;
+                }
+            }
+            readerDone.countDown();
+        }
+    }
+
+    /**
+     * Stores the bytes of a frame and keeps any exception.
+     * @param isStderr true if the bytes are from stderr
+     * @param buffer array with the bytes
+     * @param length number of bytes
+     */
+    private void store(
+            final boolean isStderr,
+            final byte[] buffer,
+            final int length) {
+        try {
+            if (isStderr) {
+                stderr.write(buffer, 0, length);
+            } else {
+                stdout.write(buffer, 0, length);
+            }
+        } catch (final IOException exception) {
+            optionalException = exception;
+        }
+    }
+
+    /**
+     * Reads the header of the next frame.
+     * @param input stream to read from
+     * @param header array to fill
+     * @return false if the stream ended before the next frame
+     * @throws IOException there may be an IOException on reading
+     */
+    private static boolean readFrameHeader(
+            final InputStream input,
+            final byte[] header) throws IOException {
+        int offset = 0;
+        while (offset < header.length) {
+            final int read =
+                    input.read(header, offset, header.length - offset);
+            if (read < 0) {
+                if (offset == 0) {
+                    return false;
+                }
+                throw new EOFException("The stream ended in a frame header");
+            }
+            offset += read;
+        }
+        return true;
+    }
+
+    /**
+     * Output stream that closes only the output side of the connection
+     * when it is closed, so that the container gets the end of its
+     * stdin while the output can still be read.
+     */
+    private static final class HalfClosingOutputStream extends OutputStream {
+        /**
+         * The attached connection.
+         */
+        private final HttpConnection connection;
+        /**
+         * Flag to close only once.
+         */
+        private boolean closed;
+
+        /**
+         * Constructor with the connection.
+         * @param aConnection attached connection
+         */
+        private HalfClosingOutputStream(final HttpConnection aConnection) {
+            this.connection = aConnection;
+            this.closed = false;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            connection.getOutputStream().write(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len)
+                throws IOException {
+            connection.getOutputStream().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            connection.getOutputStream().flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                connection.shutdownOutput();
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.n52.gfz.riesgos.cmdexecution.dockerapi;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Response of a call to the docker engine api.
+ */
+public class DockerApiResponse {
+
+    /**
+     * Lowest http status code for a successful call.
+     */
+    private static final int MIN_SUCCESS_STATUS = 200;
+
+    /**
+     * Lowest http status code that is no success anymore.
+     */
+    private static final int MIN_NO_SUCCESS_STATUS = 300;
+
+    /**
+     * Http status code.
+     */
+    private final int statusCode;
+
+    /**
+     * Body of the response.
+     */
+    private final byte[] body;
+
+    /**
+     * Constructor with status code and body.
+     * @param aStatusCode http status code
+     * @param aBody body of the response
+     */
+    public DockerApiResponse(final int aStatusCode, final byte[] aBody) {
+        this.statusCode = aStatusCode;
+        this.body = aBody;
+    }
+
+    /**
+     *
+     * @return http status code
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     *
+     * @return body of the response
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     *
+     * @return body of the response as utf-8 text
+     */
+    public String getBodyAsString() {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    /**
+     *
+     * @return true if the status code is 2xx
+     */
+    public boolean isSuccessful() {
+        return isSuccessful(statusCode);
+    }
+
+    /**
+     *
+     * @param aStatusCode http status code
+     * @return true if the status code is 2xx
+     */
+    public static boolean isSuccessful(final int aStatusCode) {
+        return aStatusCode >= MIN_SUCCESS_STATUS
+                && aStatusCode < MIN_NO_SUCCESS_STATUS;
+    }
+
+    /**
+     * Checks that the call was successful.
+     * @param action description of the action for the error message
+     * @return this response
+     * @throws IOException exception if the status code is not 2xx
+     */
+    public DockerApiResponse throwIfNotSuccessful(final String action)
+            throws IOException {
+        if (!isSuccessful()) {
+            throw new IOException(
+                    "Can't " + action + ". The docker api returned status "
+                            + statusCode + ": " + getBodyAsString().trim());
+        }
+        return this;
+    }
+}
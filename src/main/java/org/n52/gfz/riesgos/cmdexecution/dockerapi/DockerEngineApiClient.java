@@ -0,0 +1,392 @@
+package org.n52.gfz.riesgos.cmdexecution.dockerapi;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.json.simple.JSONObject;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.SocketException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client for the docker engine api.
+ *
+ * The connections to the docker daemon are kept alive and reused
+ * for the following requests (up to a maximum number of idle
+ * connections), so that there is no need to start a docker client
+ * process for each step of the execution.
+ */
+public class DockerEngineApiClient {
+
+    /**
+     * Default number of idle connections to keep.
+     */
+    private static final int DEFAULT_MAX_IDLE_CONNECTIONS = 8;
+
+    /**
+     * Status code for ok (older daemons answer an attach request
+     * with 200 instead of 101).
+     */
+    private static final int STATUS_OK = 200;
+
+    /**
+     * Content type for json bodies.
+     */
+    private static final String CONTENT_TYPE_JSON = "application/json";
+
+    /**
+     * Http methods that can be sent twice without a different effect.
+     */
+    private static final Set<String> IDEMPOTENT_METHODS =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+                    "GET", "HEAD", "PUT", "DELETE", "OPTIONS")));
+
+    /**
+     * Connector to open new sockets.
+     */
+    private final ISocketConnector connector;
+
+    /**
+     * Idle connections to reuse.
+     */
+    private final BlockingDeque<HttpConnection> idleConnections;
+
+    /**
+     * Number of all the connections that were opened.
+     */
+    private final AtomicLong openedConnections;
+
+    /**
+     * Constructor with the socket connector.
+     * @param aConnector connector to open new sockets
+     */
+    public DockerEngineApiClient(final ISocketConnector aConnector) {
+        this(aConnector, DEFAULT_MAX_IDLE_CONNECTIONS);
+    }
+
+    /**
+     * Constructor with the socket connector and the number of
+     * idle connections to keep.
+     * @param aConnector connector to open new sockets
+     * @param aMaxIdleConnections maximum number of idle connections
+     */
+    public DockerEngineApiClient(
+            final ISocketConnector aConnector,
+            final int aMaxIdleConnections) {
+        this.connector = aConnector;
+        this.idleConnections = new LinkedBlockingDeque<>(aMaxIdleConnections);
+        this.openedConnections = new AtomicLong(0L);
+    }
+
+    /**
+     * Runs a request without body.
+     * @param method http method
+     * @param path path with query
+     * @return response
+     * @throws IOException there may be an IOException on the communication
+     */
+    public DockerApiResponse execute(
+            final String method,
+            final String path) throws IOException {
+        return execute(method, path, null, (byte[]) null);
+    }
+
+    /**
+     * Runs a request with a json body.
+     * @param method http method
+     * @param path path with query
+     * @param json body of the request
+     * @return response
+     * @throws IOException there may be an IOException on the communication
+     */
+    public DockerApiResponse execute(
+            final String method,
+            final String path,
+            final JSONObject json) throws IOException {
+        return execute(method, path, CONTENT_TYPE_JSON,
+                json.toJSONString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Runs a request using a pooled connection.
+     * If a reused connection was closed by the docker daemon in the
+     * meantime, the request is sent again using a new connection
+     * (only if it can be repeated, see {@link #executePooled}).
+     * @param method http method
+     * @param path path with query
+     * @param contentType content type of the body (may be null)
+     * @param body body of the request (may be null)
+     * @return response
+     * @throws IOException there may be an IOException on the communication
+     */
+    public DockerApiResponse execute(
+            final String method,
+            final String path,
+            final String contentType,
+            final byte[] body) throws IOException {
+        final Map<String, String> headers = createHeaders(contentType);
+        return executePooled(connection -> connection.writeRequest(
+                method, path, headers, body), null,
+                IDEMPOTENT_METHODS.contains(method));
+    }
+
+    /**
+     * Runs a request with a body that is streamed to the docker daemon
+     * (so that it must not be hold in memory).
+     * @param method http method
+     * @param path path with query
+     * @param contentType content type of the body
+     * @param body writer for the body of the request
+     * @return response
+     * @throws IOException there may be an IOException on the communication
+     */
+    public DockerApiResponse execute(
+            final String method,
+            final String path,
+            final String contentType,
+            final IRequestBodyWriter body) throws IOException {
+        final Map<String, String> headers = createHeaders(contentType);
+        return executePooled(connection -> connection.writeChunkedRequest(
+                method, path, headers, body), null, false);
+    }
+
+    /**
+     * Runs a request without body and copies the body of a successful
+     * response to the target (instead of holding it in memory).
+     * The response that is given back only contains the body if the
+     * request was not successful.
+     * @param method http method
+     * @param path path with query
+     * @param target stream to copy the body of a successful response to
+     * @return response
+     * @throws IOException there may be an IOException on the communication
+     */
+    public DockerApiResponse download(
+            final String method,
+            final String path,
+            final OutputStream target) throws IOException {
+        final Map<String, String> headers = createHeaders(null);
+        return executePooled(connection -> connection.writeRequest(
+                method, path, headers, null), target,
+                IDEMPOTENT_METHODS.contains(method));
+    }
+
+    /**
+     * Runs a request using a pooled connection.
+     * If a reused connection was closed by the docker daemon in the
+     * meantime, the request is sent again using a new connection.
+     * This is only done if nothing of the response was read and
+     * either no byte of the request reached the socket or the request
+     * can be repeated (an idempotent method with a body that is
+     * hold in memory); otherwise the exception is thrown.
+     * @param request function to send the request on a connection
+     * @param target stream for the body of a successful response
+     *               (may be null)
+     * @param repeatable true if the request can be sent a second time
+     * @return response
+     * @throws IOException there may be an IOException on the communication
+     */
+    private DockerApiResponse executePooled(
+            final IRequestSender request,
+            final OutputStream target,
+            final boolean repeatable) throws IOException {
+        final HttpConnection idleConnection = idleConnections.pollFirst();
+        if (idleConnection != null) {
+            final long sentBefore = idleConnection.getSentBytes();
+            final long receivedBefore = idleConnection.getReceivedBytes();
+            try {
+                return executeOn(idleConnection, request, target);
+            } catch (final EOFException | SocketException staleConnection) {
+                // the daemon closed the idle connection; maybe try a new one
+                final boolean sent =
+                        idleConnection.getSentBytes() > sentBefore;
+                final boolean received =
+                        idleConnection.getReceivedBytes() > receivedBefore;
+                if (received || (sent && !repeatable)) {
+                    throw staleConnection;
+                }
+            }
+        }
+        return executeOn(openConnection(), request, target);
+    }
+
+    /**
+     * Opens a new connection and upgrades it to a raw stream
+     * (as it is used to attach to the stdin, stdout and stderr of a
+     * container).
+     * The connection is not pooled and must be closed by the caller.
+     * @param method http method
+     * @param path path with query
+     * @return upgraded connection
+     * @throws IOException there may be an IOException on the communication
+     */
+    HttpConnection openUpgradedConnection(
+            final String method,
+            final String path) throws IOException {
+        final Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Connection", "Upgrade");
+        headers.put("Upgrade", "tcp");
+
+        final HttpConnection connection = openConnection();
+        try {
+            connection.writeRequest(method, path, headers, null);
+            final HttpConnection.ResponseHead head = connection.readHead();
+            if (!HttpConnection.isUpgraded(head)
+                    && head.getStatusCode() != STATUS_OK) {
+                final byte[] body = connection.readBody(head);
+                new DockerApiResponse(head.getStatusCode(), body)
+                        .throwIfNotSuccessful("attach to the container");
+            }
+            return connection;
+        } catch (final IOException exception) {
+            connection.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Checks if the docker daemon can be reached.
+     * @return true if the daemon answered the ping
+     */
+    public boolean isAvailable() {
+        try {
+            return execute("GET", "/_ping").isSuccessful();
+        } catch (final IOException exception) {
+            return false;
+        }
+    }
+
+    /**
+     *
+     * @return number of all the connections that were opened so far
+     */
+    public long getOpenedConnections() {
+        return openedConnections.get();
+    }
+
+    /**
+     * Closes all the idle connections.
+     */
+    public void close() {
+        HttpConnection connection = idleConnections.pollFirst();
+        while (connection != null) {
+            connection.close();
+            connection = idleConnections.pollFirst();
+        }
+    }
+
+    /**
+     * Encodes a value to use it in the query of a request.
+     * @param value value to encode
+     * @return encoded value
+     */
+    public static String encode(final String value) {
+        try {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name())
+                    .replace("+", "%20");
+        } catch (final UnsupportedEncodingException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    /**
+     * Runs the request on the given connection.
+     * The connection is given back to the pool if possible.
+     * @param connection connection to use
+     * @param request function to send the request on the connection
+     * @param target stream for the body of a successful response
+     *               (may be null)
+     * @return response
+     * @throws IOException there may be an IOException on the communication
+     */
+    private DockerApiResponse executeOn(
+            final HttpConnection connection,
+            final IRequestSender request,
+            final OutputStream target) throws IOException {
+        try {
+            request.send(connection);
+            final HttpConnection.ResponseHead head = connection.readHead();
+            final DockerApiResponse response;
+            if (target != null && DockerApiResponse.isSuccessful(
+                    head.getStatusCode())) {
+                connection.readBody(head, target);
+                response = new DockerApiResponse(
+                        head.getStatusCode(), new byte[0]);
+            } else {
+                response = new DockerApiResponse(
+                        head.getStatusCode(), connection.readBody(head));
+            }
+            if (!connection.canBeReused(head)
+                    || !idleConnections.offerFirst(connection)) {
+                connection.close();
+            }
+            return response;
+        } catch (final IOException exception) {
+            connection.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Opens a new connection.
+     * @return new connection
+     * @throws IOException there may be an IOException on connecting
+     */
+    private HttpConnection openConnection() throws IOException {
+        openedConnections.incrementAndGet();
+        return new HttpConnection(connector.connect());
+    }
+
+    /**
+     * Function to send a request on a connection.
+     */
+    @FunctionalInterface
+    private interface IRequestSender {
+        /**
+         * Sends the request.
+         * @param connection connection to use
+         * @throws IOException there may be an IOException on writing
+         */
+        void send(HttpConnection connection) throws IOException;
+    }
+
+    /**
+     * Creates the additional headers for a request.
+     * @param contentType content type (may be null)
+     * @return map with the headers
+     */
+    private static Map<String, String> createHeaders(
+            final String contentType) {
+        if (contentType == null) {
+            return Collections.emptyMap();
+        }
+        return Collections.singletonMap("Content-Type", contentType);
+    }
+}
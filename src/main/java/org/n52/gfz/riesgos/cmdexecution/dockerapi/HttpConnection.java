@@ -0,0 +1,586 @@
+package org.n52.gfz.riesgos.cmdexecution.dockerapi;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.io.output.CountingOutputStream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A single http/1.1 connection to the docker daemon.
+ *
+ * This only supports the parts of http that are used by the
+ * docker engine api (fixed length and chunked bodies, keep alive
+ * and the upgrade of the connection for attaching to a container).
+ */
+final class HttpConnection implements Closeable {
+
+    /**
+     * Http version that is used for all the requests.
+     */
+    private static final String HTTP_VERSION = "HTTP/1.1";
+
+    /**
+     * Line end for the http protocol.
+     */
+    private static final String CRLF = "\r\n";
+
+    /**
+     * Radix to parse the chunk sizes.
+     */
+    private static final int HEX_RADIX = 16;
+
+    /**
+     * Size of the buffers for the socket streams.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Status code for switching the protocol.
+     */
+    private static final int STATUS_SWITCHING_PROTOCOLS = 101;
+
+    /**
+     * Status code for no content.
+     */
+    private static final int STATUS_NO_CONTENT = 204;
+
+    /**
+     * Status code for not modified.
+     */
+    private static final int STATUS_NOT_MODIFIED = 304;
+
+    /**
+     * Lowest status code with a body.
+     */
+    private static final int MIN_STATUS_WITH_BODY = 200;
+
+    /**
+     * The socket of the connection.
+     */
+    private final Socket socket;
+
+    /**
+     * Buffered input stream of the socket.
+     */
+    private final InputStream input;
+
+    /**
+     * Buffered output stream of the socket.
+     */
+    private final OutputStream output;
+
+    /**
+     * Counter for the bytes that were read from the socket.
+     */
+    private final CountingInputStream receivedBytes;
+
+    /**
+     * Counter for the bytes that were written to the socket.
+     */
+    private final CountingOutputStream sentBytes;
+
+    /**
+     * Constructor with an already connected socket.
+     * @param aSocket connected socket
+     * @throws IOException there may be an IOException on accessing the
+     * socket streams
+     */
+    HttpConnection(final Socket aSocket) throws IOException {
+        this.socket = aSocket;
+        this.receivedBytes = new CountingInputStream(
+                aSocket.getInputStream());
+        this.sentBytes = new CountingOutputStream(aSocket.getOutputStream());
+        this.input = new BufferedInputStream(receivedBytes, BUFFER_SIZE);
+        this.output = new BufferedOutputStream(sentBytes, BUFFER_SIZE);
+    }
+
+    /**
+     *
+     * @return number of bytes that were read from the socket so far
+     */
+    long getReceivedBytes() {
+        return receivedBytes.getByteCount();
+    }
+
+    /**
+     *
+     * @return number of bytes that were written to the socket so far
+     */
+    long getSentBytes() {
+        return sentBytes.getByteCount();
+    }
+
+    /**
+     * Writes a request.
+     * @param method http method
+     * @param path path (with query) of the request
+     * @param headers additional headers
+     * @param body body of the request (may be null)
+     * @throws IOException there may be an IOException on writing
+     */
+    void writeRequest(
+            final String method,
+            final String path,
+            final Map<String, String> headers,
+            final byte[] body) throws IOException {
+        final StringBuilder head = new StringBuilder();
+        head.append(method).append(' ').append(path).append(' ')
+                .append(HTTP_VERSION).append(CRLF);
+        head.append("Host: docker").append(CRLF);
+        for (final Map.Entry<String, String> header : headers.entrySet()) {
+            head.append(header.getKey()).append(": ")
+                    .append(header.getValue()).append(CRLF);
+        }
+        final int contentLength = body == null ? 0 : body.length;
+        head.append("Content-Length: ").append(contentLength).append(CRLF);
+        head.append(CRLF);
+
+        output.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+        if (body != null) {
+            output.write(body);
+        }
+        output.flush();
+    }
+
+    /**
+     * Writes a request with a body that is streamed using the chunked
+     * transfer encoding (so that the length must not be known before).
+     * @param method http method
+     * @param path path (with query) of the request
+     * @param headers additional headers
+     * @param body writer for the body of the request
+     * @throws IOException there may be an IOException on writing
+     */
+    void writeChunkedRequest(
+            final String method,
+            final String path,
+            final Map<String, String> headers,
+            final IRequestBodyWriter body) throws IOException {
+        final StringBuilder head = new StringBuilder();
+        head.append(method).append(' ').append(path).append(' ')
+                .append(HTTP_VERSION).append(CRLF);
+        head.append("Host: docker").append(CRLF);
+        for (final Map.Entry<String, String> header : headers.entrySet()) {
+            head.append(header.getKey()).append(": ")
+                    .append(header.getValue()).append(CRLF);
+        }
+        head.append("Transfer-Encoding: chunked").append(CRLF);
+        head.append(CRLF);
+
+        output.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+        body.writeTo(new ChunkedOutputStream(output));
+        output.write(("0" + CRLF + CRLF).getBytes(StandardCharsets.ISO_8859_1));
+        output.flush();
+    }
+
+    /**
+     * Reads the status line and the headers of the response.
+     * @return head of the response
+     * @throws IOException there may be an IOException on reading; if the
+     * connection was closed before any byte could be read it is an
+     * EOFException
+     */
+    ResponseHead readHead() throws IOException {
+        final String statusLine = readLine();
+        if (statusLine == null) {
+            throw new EOFException(
+                    "The connection was closed before the response");
+        }
+        final String[] statusParts = statusLine.split(" ", 3);
+        if (statusParts.length < 2 || !statusParts[0].startsWith("HTTP/")) {
+            throw new IOException("Invalid http status line: " + statusLine);
+        }
+        final int statusCode;
+        try {
+            statusCode = Integer.parseInt(statusParts[1]);
+        } catch (final NumberFormatException exception) {
+            throw new IOException(
+                    "Invalid http status line: " + statusLine, exception);
+        }
+
+        final Map<String, String> headers = new HashMap<>();
+        String line = readLine();
+        while (line != null && !line.isEmpty()) {
+            final int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(
+                        line.substring(0, colon).trim()
+                                .toLowerCase(Locale.ROOT),
+                        line.substring(colon + 1).trim());
+            }
+            line = readLine();
+        }
+        if (line == null) {
+            throw new EOFException("The connection was closed in the headers");
+        }
+        return new ResponseHead(statusCode, headers);
+    }
+
+    /**
+     * Reads the body of the response.
+     * @param head head of the response
+     * @return body as byte array
+     * @throws IOException there may be an IOException on reading
+     */
+    byte[] readBody(final ResponseHead head) throws IOException {
+        final ByteArrayOutputStream result = new ByteArrayOutputStream();
+        readBody(head, result);
+        return result.toByteArray();
+    }
+
+    /**
+     * Reads the body of the response and copies it to the target
+     * (using a buffer of constant size).
+     * @param head head of the response
+     * @param target stream to copy the body to
+     * @throws IOException there may be an IOException on reading
+     */
+    void readBody(
+            final ResponseHead head,
+            final OutputStream target) throws IOException {
+        final int statusCode = head.getStatusCode();
+        if (statusCode < MIN_STATUS_WITH_BODY
+                || statusCode == STATUS_NO_CONTENT
+                || statusCode == STATUS_NOT_MODIFIED) {
+            return;
+        }
+        if (head.isChunked()) {
+            readChunkedBody(target);
+            return;
+        }
+        final long contentLength = head.getContentLength();
+        if (contentLength >= 0) {
+            copyBytes(contentLength, new byte[BUFFER_SIZE], target);
+            return;
+        }
+        readUntilEof(target);
+    }
+
+    /**
+     *
+     * @param head head of the response
+     * @return true if the connection can be used for the next request
+     */
+    boolean canBeReused(final ResponseHead head) {
+        return !"close".equalsIgnoreCase(head.getHeader("connection"))
+                && (head.isChunked() || head.getContentLength() >= 0
+                    || head.getStatusCode() == STATUS_NO_CONTENT
+                    || head.getStatusCode() == STATUS_NOT_MODIFIED);
+    }
+
+    /**
+     *
+     * @param head head of the response
+     * @return true if the connection was upgraded to a raw stream
+     */
+    static boolean isUpgraded(final ResponseHead head) {
+        return head.getStatusCode() == STATUS_SWITCHING_PROTOCOLS;
+    }
+
+    /**
+     *
+     * @return input stream (for upgraded connections)
+     */
+    InputStream getInputStream() {
+        return input;
+    }
+
+    /**
+     *
+     * @return output stream (for upgraded connections)
+     */
+    OutputStream getOutputStream() {
+        return output;
+    }
+
+    /**
+     * Closes the output direction of the socket, so that the other side
+     * gets an end of file.
+     * @throws IOException there may be an IOException on closing
+     */
+    void shutdownOutput() throws IOException {
+        output.flush();
+        socket.shutdownOutput();
+    }
+
+    /**
+     * Closes the connection.
+     */
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (final IOException exception) {
+            // nothing to do, the connection is not used anymore
+        }
+    }
+
+    /**
+     * Copies a given number of bytes of the input to the target.
+     * @param length number of bytes to copy
+     * @param buffer buffer to use
+     * @param target stream to copy to
+     * @throws IOException there may be an IOException on reading
+     */
+    private void copyBytes(
+            final long length,
+            final byte[] buffer,
+            final OutputStream target) throws IOException {
+        long remaining = length;
+        while (remaining > 0) {
+            final int toRead = (int) Math.min(remaining, buffer.length);
+            readFully(buffer, toRead);
+            target.write(buffer, 0, toRead);
+            remaining -= toRead;
+        }
+    }
+
+    /**
+     * Reads a chunked body.
+     * @param target stream to copy the body to
+     * @throws IOException there may be an IOException on reading
+     */
+    private void readChunkedBody(final OutputStream target)
+            throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        while (true) {
+            final String sizeLine = readLine();
+            if (sizeLine == null) {
+                throw new EOFException("The connection was closed in a chunk");
+            }
+            final int extension = sizeLine.indexOf(';');
+            final String sizeText = extension >= 0
+                    ? sizeLine.substring(0, extension) : sizeLine;
+            final int chunkSize;
+            try {
+                chunkSize = Integer.parseInt(sizeText.trim(), HEX_RADIX);
+            } catch (final NumberFormatException exception) {
+                throw new IOException(
+                        "Invalid chunk size: " + sizeLine, exception);
+            }
+            if (chunkSize == 0) {
+                break;
+            }
+            copyBytes(chunkSize, buffer, target);
+            // CRLF after the chunk data
+            readLine();
+        }
+        // trailers until the empty line
+        String line = readLine();
+        while (line != null && !line.isEmpty()) {
+            line = readLine();
+        }
+    }
+
+    /**
+     * Reads the body until the connection is closed.
+     * @param target stream to copy the body to
+     * @throws IOException there may be an IOException on reading
+     */
+    private void readUntilEof(final OutputStream target) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int read = input.read(buffer);
+        while (read >= 0) {
+            target.write(buffer, 0, read);
+            read = input.read(buffer);
+        }
+    }
+
+    /**
+     * Reads exactly length bytes into the buffer.
+     * @param buffer buffer to fill
+     * @param length number of bytes to read
+     * @throws IOException there may be an IOException on reading
+     */
+    private void readFully(final byte[] buffer, final int length)
+            throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            final int read = input.read(buffer, offset, length - offset);
+            if (read < 0) {
+                throw new EOFException("The connection was closed in a body");
+            }
+            offset += read;
+        }
+    }
+
+    /**
+     * Reads a line (terminated by LF; a CR before is removed).
+     * @return line or null if the stream ended before any byte was read
+     * @throws IOException there may be an IOException on reading
+     */
+    private String readLine() throws IOException {
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int current = input.read();
+        if (current < 0) {
+            return null;
+        }
+        while (current >= 0 && current != '\n') {
+            line.write(current);
+            current = input.read();
+        }
+        final byte[] bytes = line.toByteArray();
+        int length = bytes.length;
+        if (length > 0 && bytes[length - 1] == '\r') {
+            length--;
+        }
+        return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Output stream that writes each write call as one chunk.
+     * Closing it does not close the connection.
+     */
+    private static final class ChunkedOutputStream extends OutputStream {
+        /**
+         * Stream of the connection.
+         */
+        private final OutputStream connectionOutput;
+
+        /**
+         * Constructor with the stream of the connection.
+         * @param aConnectionOutput stream of the connection
+         */
+        ChunkedOutputStream(final OutputStream aConnectionOutput) {
+            this.connectionOutput = aConnectionOutput;
+        }
+
+        /**
+         * Writes a single byte as chunk.
+         * @param b byte to write
+         * @throws IOException there may be an IOException on writing
+         */
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        /**
+         * Writes the bytes as one chunk.
+         * @param bytes bytes to write
+         * @param offset offset in the array
+         * @param length number of bytes to write
+         * @throws IOException there may be an IOException on writing
+         */
+        @Override
+        public void write(
+                final byte[] bytes,
+                final int offset,
+                final int length) throws IOException {
+            if (length == 0) {
+                return;
+            }
+            connectionOutput.write((Integer.toHexString(length) + CRLF)
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            connectionOutput.write(bytes, offset, length);
+            connectionOutput.write(
+                    CRLF.getBytes(StandardCharsets.ISO_8859_1));
+        }
+
+        /**
+         * Does not close the stream of the connection.
+         */
+        @Override
+        public void close() {
+            // the connection is closed by its owner
+        }
+    }
+
+    /**
+     * Status code and headers of a response.
+     */
+    static final class ResponseHead {
+        /**
+         * Http status code.
+         */
+        private final int statusCode;
+        /**
+         * Headers with lower case names.
+         */
+        private final Map<String, String> headers;
+
+        /**
+         * Constructor with status code and headers.
+         * @param aStatusCode http status code
+         * @param aHeaders headers with lower case names
+         */
+        ResponseHead(
+                final int aStatusCode,
+                final Map<String, String> aHeaders) {
+            this.statusCode = aStatusCode;
+            this.headers = aHeaders;
+        }
+
+        /**
+         *
+         * @return http status code
+         */
+        int getStatusCode() {
+            return statusCode;
+        }
+
+        /**
+         *
+         * @param name lower case name of the header
+         * @return value of the header or null
+         */
+        String getHeader(final String name) {
+            return headers.get(name);
+        }
+
+        /**
+         *
+         * @return true if the body uses the chunked transfer encoding
+         */
+        boolean isChunked() {
+            final String transferEncoding = getHeader("transfer-encoding");
+            return transferEncoding != null
+                    && transferEncoding.toLowerCase(Locale.ROOT)
+                        .contains("chunked");
+        }
+
+        /**
+         *
+         * @return content length or -1 if there is none
+         */
+        long getContentLength() {
+            final String contentLength = getHeader("content-length");
+            if (contentLength == null) {
+                return -1L;
+            }
+            try {
+                return Long.parseLong(contentLength);
+            } catch (final NumberFormatException exception) {
+                return -1L;
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.n52.gfz.riesgos.cmdexecution.dockerapi;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Function to write the body of a request to a stream
+ * (so that large bodies must not be hold in memory).
+ * The function may be called again if the request must be repeated
+ * on a new connection.
+ */
+@FunctionalInterface
+public interface IRequestBodyWriter {
+    /**
+     * Writes the body.
+     * The stream must not be closed.
+     * @param outputStream stream to write the body to
+     * @throws IOException there may be an IOException on writing
+     */
+    void writeTo(OutputStream outputStream) throws IOException;
+}
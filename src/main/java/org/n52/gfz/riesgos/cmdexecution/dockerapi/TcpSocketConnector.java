@@ -0,0 +1,59 @@
+package org.n52.gfz.riesgos.cmdexecution.dockerapi;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * Socket connector that uses tcp (for docker daemons that
+ * listen on tcp://host:port).
+ */
+public class TcpSocketConnector implements ISocketConnector {
+
+    /**
+     * Host of the docker daemon.
+     */
+    private final String host;
+
+    /**
+     * Port of the docker daemon.
+     */
+    private final int port;
+
+    /**
+     * Constructor with host and port.
+     * @param aHost host of the docker daemon
+     * @param aPort port of the docker daemon
+     */
+    public TcpSocketConnector(final String aHost, final int aPort) {
+        this.host = aHost;
+        this.port = aPort;
+    }
+
+    /**
+     * Opens a new tcp connection.
+     * @return connected socket
+     * @throws IOException there may be an IOException on connecting
+     */
+    @Override
+    public Socket connect() throws IOException {
+        final Socket socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        return socket;
+    }
+}
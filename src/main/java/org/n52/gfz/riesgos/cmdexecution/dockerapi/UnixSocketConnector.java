@@ -0,0 +1,56 @@
+package org.n52.gfz.riesgos.cmdexecution.dockerapi;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.newsclub.net.unix.AFUNIXSocket;
+import org.newsclub.net.unix.AFUNIXSocketAddress;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * Socket connector that uses a unix domain socket
+ * (for example /var/run/docker.sock).
+ */
+public class UnixSocketConnector implements ISocketConnector {
+
+    /**
+     * File of the unix domain socket.
+     */
+    private final File socketFile;
+
+    /**
+     * Constructor with the socket file.
+     * @param aSocketFile file of the unix domain socket
+     */
+    public UnixSocketConnector(final File aSocketFile) {
+        this.socketFile = aSocketFile;
+    }
+
+    /**
+     * Opens a new connection to the unix domain socket.
+     * @return connected socket
+     * @throws IOException there may be an IOException on connecting
+     */
+    @Override
+    public Socket connect() throws IOException {
+        final AFUNIXSocket socket = AFUNIXSocket.newInstance();
+        socket.connect(new AFUNIXSocketAddress(socketFile));
+        return socket;
+    }
+}
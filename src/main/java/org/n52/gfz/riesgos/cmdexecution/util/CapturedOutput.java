@@ -0,0 +1,403 @@
+package org.n52.gfz.riesgos.cmdexecution.util;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Optional;
+
+/**
+ * Storage for the output of a process (stdout or stderr) with
+ * a bounded use of memory.
+ *
+ * The output is kept in memory as long as it is smaller than the
+ * in memory limit. Larger output is spilled to a scratch file and only
+ * the head and the tail (in a ring buffer) stay in memory for the text
+ * of the output. Output above the maximum size is not stored at all
+ * (only the tail is updated), so the output is truncated.
+ */
+public class CapturedOutput implements Closeable {
+
+    /**
+     * Default number of bytes to keep in memory.
+     */
+    public static final int DEFAULT_IN_MEMORY_BYTES = 8 * 1024 * 1024;
+
+    /**
+     * Size of the buffer for copying.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Number of bytes of the head.
+     */
+    private final int headSize;
+
+    /**
+     * Number of bytes of the tail.
+     */
+    private final int tailSize;
+
+    /**
+     * Number of bytes to store in memory before spilling to the
+     * scratch file.
+     */
+    private final int inMemoryBytes;
+
+    /**
+     * Maximum number of bytes to store (0 for no limit).
+     */
+    private final long maxBytes;
+
+    /**
+     * All the stored bytes as long as they are in memory
+     * (null after spilling).
+     */
+    private ByteArrayOutputStream memory;
+
+    /**
+     * First bytes of the output after spilling.
+     */
+    private byte[] head;
+
+    /**
+     * Ring buffer with the last bytes (null as long as all the output
+     * is in memory).
+     */
+    private byte[] tail;
+
+    /**
+     * Next position to write to in the ring buffer.
+     */
+    private int tailPosition;
+
+    /**
+     * Number of all the bytes of the output.
+     */
+    private long size;
+
+    /**
+     * Number of the stored bytes.
+     */
+    private long storedSize;
+
+    /**
+     * Scratch file with the stored bytes (null if there was no spilling).
+     */
+    private File scratchFile;
+
+    /**
+     * Stream to write into the scratch file.
+     */
+    private OutputStream scratchStream;
+
+    /**
+     * Flag if someone else is responsible for the scratch file.
+     */
+    private boolean scratchFileTaken;
+
+    /**
+     * Constructor with the limits.
+     * @param aInMemoryBytes number of bytes to keep in memory before
+     *                       spilling to a scratch file
+     * @param aMaxBytes maximum number of bytes to store at all
+     *                  (0 for no limit)
+     */
+    public CapturedOutput(final int aInMemoryBytes, final long aMaxBytes) {
+        if (aInMemoryBytes < 2) {
+            throw new IllegalArgumentException(
+                    "At least two bytes must be kept in memory");
+        }
+        this.inMemoryBytes = aInMemoryBytes;
+        this.headSize = aInMemoryBytes / 2;
+        this.tailSize = aInMemoryBytes - headSize;
+        this.maxBytes = aMaxBytes;
+        this.memory = new ByteArrayOutputStream();
+    }
+
+    /**
+     * Constructor with the default limits (spilling with the default
+     * in memory size, no maximum size).
+     */
+    public CapturedOutput() {
+        this(DEFAULT_IN_MEMORY_BYTES, 0L);
+    }
+
+    /**
+     * Creates a complete captured output with the bytes.
+     * @param bytes bytes of the output
+     * @return captured output that contains the bytes
+     */
+    public static CapturedOutput of(final byte[] bytes) {
+        final CapturedOutput result = new CapturedOutput(
+                Math.max(2, bytes.length), 0L);
+        result.memory.write(bytes, 0, bytes.length);
+        result.size = bytes.length;
+        result.storedSize = bytes.length;
+        return result;
+    }
+
+    /**
+     * Adds bytes to the output.
+     * @param b array with the bytes
+     * @param off offset in the array
+     * @param len number of bytes to add
+     * @throws IOException exception on writing to the scratch file
+     */
+    public synchronized void write(
+            final byte[] b,
+            final int off,
+            final int len) throws IOException {
+        int toStore = len;
+        if (maxBytes > 0) {
+            toStore = (int) Math.min(len, Math.max(0L, maxBytes - storedSize));
+        }
+        final boolean exceedsMemory = storedSize + toStore > inMemoryBytes;
+        if (tail == null && (exceedsMemory || toStore < len)) {
+            startTail();
+        }
+        if (toStore > 0) {
+            if (scratchFile == null && exceedsMemory) {
+                spill();
+            }
+            if (scratchStream != null) {
+                scratchStream.write(b, off, toStore);
+            } else {
+                memory.write(b, off, toStore);
+            }
+            storedSize += toStore;
+        }
+        if (tail != null) {
+            addToTail(b, off, len);
+        }
+        size += len;
+    }
+
+    /**
+     * Marks the output as complete (closes the stream of the
+     * scratch file).
+     * @throws IOException exception on closing the scratch file
+     */
+    public synchronized void finish() throws IOException {
+        if (scratchStream != null) {
+            scratchStream.close();
+            scratchStream = null;
+        }
+    }
+
+    /**
+     *
+     * @return number of all the bytes of the output
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     *
+     * @return true if not all the bytes could be stored because
+     * of the maximum size
+     */
+    public synchronized boolean isTruncated() {
+        return storedSize < size;
+    }
+
+    /**
+     *
+     * @return true if the stored bytes are in a scratch file
+     */
+    public synchronized boolean isSpilled() {
+        return scratchFile != null;
+    }
+
+    /**
+     * Reads all the stored bytes (from the scratch file if the output
+     * was spilled).
+     * @return stored bytes
+     * @throws IOException exception on reading the scratch file
+     */
+    public synchronized byte[] toByteArray() throws IOException {
+        if (memory != null) {
+            return memory.toByteArray();
+        }
+        flushScratchFile();
+        return Files.readAllBytes(scratchFile.toPath());
+    }
+
+    /**
+     * Opens a stream to read the bytes that are stored so far.
+     * @return stream with the stored bytes
+     * @throws IOException exception on opening the scratch file
+     */
+    public synchronized InputStream openStream() throws IOException {
+        if (memory != null) {
+            return new ByteArrayInputStream(memory.toByteArray());
+        }
+        flushScratchFile();
+        return new FileInputStream(scratchFile);
+    }
+
+    /**
+     * Gives the scratch file to the caller, who is responsible
+     * for deleting it afterwards (it is not deleted on close).
+     * @return scratch file with the stored bytes if the output
+     * was spilled
+     * @throws IOException exception on flushing the scratch file
+     */
+    public synchronized Optional<File> takeScratchFile() throws IOException {
+        if (scratchFile == null) {
+            return Optional.empty();
+        }
+        flushScratchFile();
+        scratchFileTaken = true;
+        return Optional.of(scratchFile);
+    }
+
+    /**
+     * Decodes the output.
+     * If the output is not completely in memory, the text contains only
+     * the head and the tail with a note about the skipped bytes
+     * in between.
+     * @param charset charset to decode the bytes
+     * @return text of the output
+     */
+    public synchronized String toText(final Charset charset) {
+        if (tail == null) {
+            return new String(memory.toByteArray(), charset);
+        }
+        final byte[] headBytes = getHead();
+        final int tailLength =
+                (int) Math.min(Math.min(size, tailSize),
+                        size - headBytes.length);
+        final long skipped = size - headBytes.length - tailLength;
+        final StringBuilder result = new StringBuilder();
+        result.append(new String(headBytes, charset));
+        if (skipped > 0) {
+            result.append("\n[... ")
+                    .append(skipped)
+                    .append(" bytes skipped ...]\n");
+        }
+        result.append(new String(getTail(tailLength), charset));
+        return result.toString();
+    }
+
+    /**
+     * Deletes the scratch file (if it was not taken).
+     * @throws IOException exception on closing the scratch file
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        finish();
+        if (scratchFile != null && !scratchFileTaken) {
+            Files.deleteIfExists(scratchFile.toPath());
+        }
+    }
+
+    /**
+     * Starts the ring buffer for the tail with the last bytes
+     * that are in memory.
+     */
+    private void startTail() {
+        tail = new byte[tailSize];
+        final byte[] existing = memory.toByteArray();
+        final int length = Math.min(existing.length, tailSize);
+        addToTail(existing, existing.length - length, length);
+    }
+
+    /**
+     * Moves the stored bytes from memory to the scratch file and
+     * keeps only the head in memory.
+     * @throws IOException exception on writing the scratch file
+     */
+    private void spill() throws IOException {
+        scratchFile = File.createTempFile("capturedOutput", ".dat");
+        scratchStream = new BufferedOutputStream(
+                new FileOutputStream(scratchFile), BUFFER_SIZE);
+        memory.writeTo(scratchStream);
+        head = getHead();
+        memory = null;
+    }
+
+    /**
+     * Flushes the stream of the scratch file, so that the file
+     * contains all the stored bytes.
+     * @throws IOException exception on flushing
+     */
+    private void flushScratchFile() throws IOException {
+        if (scratchStream != null) {
+            scratchStream.flush();
+        }
+    }
+
+    /**
+     *
+     * @return first bytes of the output
+     */
+    private byte[] getHead() {
+        if (memory == null) {
+            return head;
+        }
+        final byte[] all = memory.toByteArray();
+        final byte[] result = new byte[Math.min(all.length, headSize)];
+        System.arraycopy(all, 0, result, 0, result.length);
+        return result;
+    }
+
+    /**
+     * Adds bytes to the ring buffer.
+     * @param b array with the bytes
+     * @param off offset in the array
+     * @param len number of bytes
+     */
+    private void addToTail(final byte[] b, final int off, final int len) {
+        int start = off;
+        int length = len;
+        if (length > tailSize) {
+            start = off + length - tailSize;
+            length = tailSize;
+        }
+        final int first = Math.min(length, tailSize - tailPosition);
+        System.arraycopy(b, start, tail, tailPosition, first);
+        System.arraycopy(b, start + first, tail, 0, length - first);
+        tailPosition = (tailPosition + length) % tailSize;
+    }
+
+    /**
+     * Reads the last bytes of the ring buffer.
+     * @param length number of bytes to read
+     * @return last bytes of the output
+     */
+    private byte[] getTail(final int length) {
+        final byte[] result = new byte[length];
+        final int start = (tailPosition - length + tailSize) % tailSize;
+        final int first = Math.min(length, tailSize - start);
+        System.arraycopy(tail, start, result, 0, first);
+        System.arraycopy(tail, 0, result, first, length - first);
+        return result;
+    }
+}
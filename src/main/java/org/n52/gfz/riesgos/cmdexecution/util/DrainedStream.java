@@ -0,0 +1,144 @@
+package org.n52.gfz.riesgos.cmdexecution.util;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+/**
+ * Bytes of a stream that is read in the background
+ * by the stream drainer.
+ * The bytes are kept as they are (no decoding, no changes
+ * of the line separators).
+ * While the stream is read, the lines can be given to a watcher.
+ */
+public class DrainedStream {
+
+    /**
+     * Size of the buffer to read the stream.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Buffer for the bytes of the stream.
+     */
+    private final LineWatchedBuffer buffer;
+
+    /**
+     * Latch that is opened once the stream is read to the end.
+     */
+    private final CountDownLatch done;
+
+    /**
+     * Storage for any exception that may happen on reading.
+     */
+    private volatile IOException optionalException;
+
+    /**
+     * Creates an empty drained stream.
+     * @param target storage for the bytes of the stream
+     */
+    DrainedStream(final CapturedOutput target) {
+        this.buffer = new LineWatchedBuffer(target);
+        this.done = new CountDownLatch(1);
+        this.optionalException = null;
+    }
+
+    /**
+     * Reads the stream to the end and closes it.
+     * (Runs in a thread of the stream drainer).
+     * @param input stream to read
+     */
+    void readFrom(final InputStream input) {
+        final byte[] bytes = new byte[BUFFER_SIZE];
+        try (InputStream in = input) {
+            int read;
+            while ((read = in.read(bytes)) >= 0) {
+                // the stream is read to the end even if the bytes
+                // can't be stored, so that the process doesn't block
+                if (optionalException == null) {
+                    store(bytes, read);
+                }
+            }
+        } catch (final IOException exception) {
+            optionalException = exception;
+        } finally {
+            try {
+                buffer.finish();
+            } catch (final IOException exception) {
+                if (optionalException == null) {
+                    optionalException = exception;
+                }
+            }
+            done.countDown();
+        }
+    }
+
+    /**
+     * Stores the bytes and keeps any exception.
+     * @param bytes array with the bytes
+     * @param length number of bytes
+     */
+    private void store(final byte[] bytes, final int length) {
+        try {
+            buffer.write(bytes, 0, length);
+        } catch (final IOException exception) {
+            optionalException = exception;
+        }
+    }
+
+    /**
+     * Gives the lines of the stream to the watcher (first the lines that
+     * are already read, then the others while they are read).
+     * @param watcher watcher for the lines
+     * @throws IOException exception on reading the bytes that
+     * are already stored
+     */
+    public void watchLines(final Consumer<String> watcher)
+            throws IOException {
+        buffer.watchLines(watcher);
+    }
+
+    /**
+     * Waits until the stream is read to the end.
+     * @return all the bytes of the stream
+     * @throws IOException io exception that may happen
+     * on reading from the stream
+     * @throws InterruptedException if the thread is interrupted on waiting
+     */
+    public byte[] await() throws IOException, InterruptedException {
+        return awaitOutput().toByteArray();
+    }
+
+    /**
+     * Waits until the stream is read to the end.
+     * @return storage with the bytes of the stream
+     * @throws IOException io exception that may happen
+     * on reading from the stream
+     * @throws InterruptedException if the thread is interrupted on waiting
+     */
+    public CapturedOutput awaitOutput()
+            throws IOException, InterruptedException {
+        done.await();
+        if (optionalException != null) {
+            throw optionalException;
+        }
+        return buffer.getCapturedOutput();
+    }
+}
@@ -0,0 +1,53 @@
+package org.n52.gfz.riesgos.cmdexecution.util;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import java.io.InputStream;
+
+/**
+ * Interface to read streams (like stdout and stderr of a process)
+ * to the end in the background.
+ */
+public interface IStreamDrainer {
+
+    /**
+     * Starts to read the stream in the background.
+     * The stream is closed once it is read to the end.
+     * @param input stream to read
+     * @param target storage for the bytes
+     * @return drained stream to wait for the bytes
+     */
+    DrainedStream drain(InputStream input, CapturedOutput target);
+
+    /**
+     * Starts to read the stream in the background and stores the bytes
+     * with the default limits.
+     * @param input stream to read
+     * @return drained stream to wait for the bytes
+     */
+    default DrainedStream drain(final InputStream input) {
+        return drain(input, new CapturedOutput());
+    }
+
+    /**
+     * Starts a reader of its own in the background (for example for
+     * a stream that carries several outputs). The reader must read
+     * its stream to the end.
+     * @param reader task that reads the stream
+     */
+    void drain(Runnable reader);
+}
@@ -0,0 +1,200 @@
+package org.n52.gfz.riesgos.cmdexecution.util;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Buffer for the bytes of an output stream that can give the
+ * lines to a watcher while the bytes are written.
+ * The bytes itself are stored in a captured output (that may spill
+ * them to a scratch file).
+ * A watcher that is set later gets all the lines that were
+ * written before first, so no line is missed.
+ *
+ * Very long lines are given in parts of MAX_LINE_LENGTH bytes,
+ * so that output without line separators doesn't need
+ * the memory twice.
+ */
+public class LineWatchedBuffer {
+
+    /**
+     * Maximum length of a line in bytes that is given to the watcher.
+     */
+    public static final int MAX_LINE_LENGTH = 65536;
+
+    /**
+     * Code of the line feed.
+     */
+    private static final byte LINE_FEED = '\n';
+
+    /**
+     * Code of the carriage return.
+     */
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    /**
+     * Size of the buffer to read the existing bytes.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * All the bytes of the output.
+     */
+    private final CapturedOutput bytes;
+
+    /**
+     * Bytes of the line that is not finished yet.
+     */
+    private final ByteArrayOutputStream currentLine;
+
+    /**
+     * Watcher for the lines (null if there is none).
+     */
+    private Consumer<String> optionalWatcher;
+
+    /**
+     * Flag if the output is complete.
+     */
+    private boolean finished;
+
+    /**
+     * Creates an empty buffer that stores the bytes in the
+     * captured output.
+     * @param aBytes storage for the bytes
+     */
+    public LineWatchedBuffer(final CapturedOutput aBytes) {
+        this.bytes = aBytes;
+        this.currentLine = new ByteArrayOutputStream();
+        this.optionalWatcher = null;
+        this.finished = false;
+    }
+
+    /**
+     * Adds bytes to the buffer and gives the finished lines
+     * to the watcher.
+     * @param b array with the bytes
+     * @param off offset in the array
+     * @param len number of bytes to add
+     * @throws IOException exception on storing the bytes
+     */
+    public synchronized void write(
+            final byte[] b,
+            final int off,
+            final int len) throws IOException {
+        bytes.write(b, off, len);
+        if (optionalWatcher != null) {
+            splitLines(b, off, len);
+        }
+    }
+
+    /**
+     * Marks the output as complete and gives the last line
+     * (if it has no line separator) to the watcher.
+     * @throws IOException exception on finishing the storage
+     */
+    public synchronized void finish() throws IOException {
+        finished = true;
+        bytes.finish();
+        if (optionalWatcher != null) {
+            giveRestToWatcher();
+        }
+    }
+
+    /**
+     * Sets the watcher for the lines.
+     * The watcher gets the lines that were already written
+     * directly in this call.
+     * @param watcher watcher for the lines
+     * @throws IOException exception on reading the existing bytes
+     */
+    public synchronized void watchLines(final Consumer<String> watcher)
+            throws IOException {
+        optionalWatcher = watcher;
+        currentLine.reset();
+        try (InputStream existing = bytes.openStream()) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = existing.read(buffer)) >= 0) {
+                splitLines(buffer, 0, read);
+            }
+        }
+        if (finished) {
+            giveRestToWatcher();
+        }
+    }
+
+    /**
+     *
+     * @return storage with the bytes of the output
+     */
+    public CapturedOutput getCapturedOutput() {
+        return bytes;
+    }
+
+    /**
+     * Splits the bytes into lines.
+     * @param b array with the bytes
+     * @param off offset in the array
+     * @param len number of bytes
+     */
+    private void splitLines(final byte[] b, final int off, final int len) {
+        int start = off;
+        for (int i = off; i < off + len; i++) {
+            if (b[i] == LINE_FEED) {
+                currentLine.write(b, start, i - start);
+                giveLineToWatcher();
+                start = i + 1;
+            } else if (currentLine.size() + i + 1 - start
+                    >= MAX_LINE_LENGTH) {
+                currentLine.write(b, start, i + 1 - start);
+                giveLineToWatcher();
+                start = i + 1;
+            }
+        }
+        currentLine.write(b, start, off + len - start);
+    }
+
+    /**
+     * Gives the rest of the output without a line separator
+     * to the watcher.
+     */
+    private void giveRestToWatcher() {
+        if (currentLine.size() > 0) {
+            giveLineToWatcher();
+        }
+    }
+
+    /**
+     * Decodes the current line and gives it to the watcher.
+     */
+    private void giveLineToWatcher() {
+        final byte[] line = currentLine.toByteArray();
+        currentLine.reset();
+        int length = line.length;
+        if (length > 0 && line[length - 1] == CARRIAGE_RETURN) {
+            length--;
+        }
+        optionalWatcher.accept(
+                new String(line, 0, length, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,148 @@
+package org.n52.gfz.riesgos.cmdexecution.util;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Watcher for the stderr lines of a running process that
+ * recognizes failures before the process ends.
+ *
+ * After the first failure line the process gets a short grace period
+ * to write the rest of its error message (for example the full
+ * python traceback) and to end by itself. Only if it is still
+ * running after that time it must be stopped.
+ */
+public class StderrFailureWatch implements Consumer<String> {
+
+    /**
+     * Default time in milliseconds to wait after a failure line.
+     */
+    public static final long DEFAULT_GRACE_MILLIS = 2000L;
+
+    /**
+     * Time in milliseconds between checks if the process still runs.
+     */
+    private static final long POLL_MILLIS = 100L;
+
+    /**
+     * Check for the single lines.
+     */
+    private final Predicate<String> isFailureLine;
+
+    /**
+     * Time to wait after a failure line.
+     */
+    private final long graceMillis;
+
+    /**
+     * Latch that is opened on the first failure line.
+     */
+    private final CountDownLatch failure;
+
+    /**
+     * Constructor with the check for the lines and the grace period.
+     * @param aIsFailureLine check for the single lines
+     * @param aGraceMillis time in milliseconds to wait after a failure
+     *                     line before the process should be stopped
+     */
+    public StderrFailureWatch(
+            final Predicate<String> aIsFailureLine,
+            final long aGraceMillis) {
+        this.isFailureLine = aIsFailureLine;
+        this.graceMillis = aGraceMillis;
+        this.failure = new CountDownLatch(1);
+    }
+
+    /**
+     * Constructor with the check for the lines and the default
+     * grace period.
+     * @param aIsFailureLine check for the single lines
+     */
+    public StderrFailureWatch(final Predicate<String> aIsFailureLine) {
+        this(aIsFailureLine, DEFAULT_GRACE_MILLIS);
+    }
+
+    /**
+     * Checks a line of stderr.
+     * @param line line of stderr
+     */
+    @Override
+    public void accept(final String line) {
+        if (failure.getCount() > 0 && isFailureLine.test(line)) {
+            failure.countDown();
+        }
+    }
+
+    /**
+     *
+     * @return true if there was a failure line
+     */
+    public boolean hasSeenFailure() {
+        return failure.getCount() == 0;
+    }
+
+    /**
+     * Waits until the process ends or until the grace period after
+     * a failure line is over.
+     * @param isRunning check if the process still runs
+     * @return true if the process failed and still runs, so that
+     * it should be stopped
+     * @throws InterruptedException if the thread is interrupted on waiting
+     */
+    public boolean awaitEndOrFailure(final BooleanSupplier isRunning)
+            throws InterruptedException {
+        return awaitEndOrFailure(isRunning, 0L);
+    }
+
+    /**
+     * Waits until the process ends, until the grace period after
+     * a failure line is over or until the maximum time is over.
+     * Use hasSeenFailure to check which one was the reason to stop.
+     * @param isRunning check if the process still runs
+     * @param timeoutMillis maximum time to wait in milliseconds
+     *                      (0 for no limit)
+     * @return true if the process failed or took too long and
+     * still runs, so that it should be stopped
+     * @throws InterruptedException if the thread is interrupted on waiting
+     */
+    public boolean awaitEndOrFailure(
+            final BooleanSupplier isRunning,
+            final long timeoutMillis)
+            throws InterruptedException {
+        final long timeout = System.currentTimeMillis() + timeoutMillis;
+        while (isRunning.getAsBoolean()) {
+            if (timeoutMillis > 0 && System.currentTimeMillis() >= timeout) {
+                return true;
+            }
+            if (failure.await(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                final long deadline = System.currentTimeMillis() + graceMillis;
+                while (isRunning.getAsBoolean()
+                        && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(POLL_MILLIS);
+                }
+                return isRunning.getAsBoolean();
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,109 @@
+package org.n52.gfz.riesgos.cmdexecution.util;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of the stream drainer with a shared pool of threads.
+ * The threads are reused for the streams of all the processes and
+ * are stopped after some time without work.
+ *
+ * Each stream needs its own thread until it ends (otherwise a process
+ * could block on writing to a full pipe). So if all the threads of the
+ * pool are busy, the stream is read in an extra thread instead of
+ * waiting for a free one.
+ */
+public class StreamDrainerImpl implements IStreamDrainer {
+
+    /**
+     * Time in seconds to keep threads without work.
+     */
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(StreamDrainerImpl.class);
+
+    /**
+     * Pool with the threads to read the streams.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Creates the drainer.
+     * @param maxThreads maximum number of threads in the pool
+     */
+    public StreamDrainerImpl(final int maxThreads) {
+        final ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("stream-drainer-%d")
+                .build();
+        this.executor = new ThreadPoolExecutor(
+                0, maxThreads,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                threadFactory,
+                (task, pool) -> {
+                    LOGGER.warn("All " + maxThreads + " threads to read "
+                            + "streams are busy, an extra thread is used");
+                    threadFactory.newThread(task).start();
+                });
+    }
+
+    /**
+     * Starts to read the stream in a thread of the pool.
+     * @param input stream to read
+     * @param target storage for the bytes
+     * @return drained stream to wait for the bytes
+     */
+    @Override
+    public DrainedStream drain(
+            final InputStream input,
+            final CapturedOutput target) {
+        final DrainedStream drainedStream = new DrainedStream(target);
+        executor.execute(() -> drainedStream.readFrom(input));
+        return drainedStream;
+    }
+
+    /**
+     * Starts a reader of its own in a thread of the pool.
+     * @param reader task that reads the stream
+     */
+    @Override
+    public void drain(final Runnable reader) {
+        executor.execute(reader);
+    }
+
+    /**
+     *
+     * @return number of the threads in the pool at the moment
+     */
+    public int getPoolSize() {
+        return executor.getPoolSize();
+    }
+}
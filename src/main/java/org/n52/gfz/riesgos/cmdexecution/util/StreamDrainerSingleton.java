@@ -0,0 +1,70 @@
+package org.n52.gfz.riesgos.cmdexecution.util;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import java.io.InputStream;
+
+/**
+ * Singleton with the stream drainer that is shared by all
+ * the processes.
+ */
+public enum StreamDrainerSingleton implements IStreamDrainer {
+
+    /**
+     * Singleton instance.
+     */
+    INSTANCE;
+
+    /**
+     * Maximum number of threads in the shared pool.
+     */
+    public static final int DEFAULT_MAX_THREADS = 64;
+
+    /**
+     * The drainer that is used for all the work.
+     */
+    private final IStreamDrainer innerDrainer;
+
+    /**
+     * Constructor for assigning the internal drainer.
+     */
+    StreamDrainerSingleton() {
+        innerDrainer = new StreamDrainerImpl(DEFAULT_MAX_THREADS);
+    }
+
+    /**
+     * Starts to read the stream in the background.
+     * @param input stream to read
+     * @param target storage for the bytes
+     * @return drained stream to wait for the bytes
+     */
+    @Override
+    public DrainedStream drain(
+            final InputStream input,
+            final CapturedOutput target) {
+        return innerDrainer.drain(input, target);
+    }
+
+    /**
+     * Starts a reader of its own in the background.
+     * @param reader task that reads the stream
+     */
+    @Override
+    public void drain(final Runnable reader) {
+        innerDrainer.drain(reader);
+    }
+}
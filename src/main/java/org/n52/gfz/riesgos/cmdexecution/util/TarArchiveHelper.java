@@ -0,0 +1,159 @@
+package org.n52.gfz.riesgos.cmdexecution.util;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.io.IOUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Utility to write and read the tar archives that are used to
+ * copy files into and out of a container.
+ */
+public enum TarArchiveHelper {
+
+    /**
+     * Singleton.
+     */
+    INSTANCE;
+
+    /**
+     * Writes all the files as one tar archive to the output stream.
+     * The output stream itself will not be closed.
+     * @param files map with the file names (relative paths in the archive)
+     *              and the contents
+     * @param outputStream stream to write the archive to
+     * @throws IOException there may be an IOException on writing
+     */
+    public void writeArchive(
+            final Map<String, byte[]> files,
+            final OutputStream outputStream) throws IOException {
+        final TarArchiveOutputStream tarOutputStream =
+                new TarArchiveOutputStream(outputStream);
+        tarOutputStream.setLongFileMode(
+                TarArchiveOutputStream.LONGFILE_POSIX);
+        for (final Map.Entry<String, byte[]> file : files.entrySet()) {
+            final byte[] content = file.getValue();
+            final TarArchiveEntry entry = new TarArchiveEntry(file.getKey());
+            entry.setSize((long) content.length);
+            tarOutputStream.putArchiveEntry(entry);
+            tarOutputStream.write(content);
+            tarOutputStream.closeArchiveEntry();
+        }
+        tarOutputStream.finish();
+        tarOutputStream.flush();
+    }
+
+    /**
+     * Writes a single file of the host as tar archive to the output stream.
+     * The content is streamed, so the file is not loaded into memory.
+     * The output stream itself will not be closed.
+     * @param fileName file name (relative path in the archive)
+     * @param file file on the host with the content
+     * @param outputStream stream to write the archive to
+     * @throws IOException there may be an IOException on reading or writing
+     */
+    public void writeFileArchive(
+            final String fileName,
+            final File file,
+            final OutputStream outputStream) throws IOException {
+        final TarArchiveOutputStream tarOutputStream =
+                new TarArchiveOutputStream(outputStream);
+        tarOutputStream.setLongFileMode(
+                TarArchiveOutputStream.LONGFILE_POSIX);
+        final TarArchiveEntry entry = new TarArchiveEntry(fileName);
+        entry.setSize(file.length());
+        tarOutputStream.putArchiveEntry(entry);
+        try (InputStream fileInputStream = new FileInputStream(file)) {
+            IOUtils.copy(fileInputStream, tarOutputStream);
+        }
+        tarOutputStream.closeArchiveEntry();
+        tarOutputStream.finish();
+        tarOutputStream.flush();
+    }
+
+    /**
+     * Copies the content of the first file in a tar archive
+     * (as docker creates it for copying a single file out of a container)
+     * to the target stream.
+     * Neither the input stream nor the target will be closed.
+     * @param inputStream stream with the tar archive
+     * @param target stream to copy the content to
+     * @throws IOException there may be an IOException on reading or
+     * if the archive is empty
+     */
+    public void copySingleFile(
+            final InputStream inputStream,
+            final OutputStream target) throws IOException {
+        final TarArchiveInputStream tarInputStream =
+                new TarArchiveInputStream(inputStream);
+        if (tarInputStream.getNextTarEntry() == null) {
+            throw new IOException("The archive is empty");
+        }
+        IOUtils.copy(tarInputStream, target);
+    }
+
+    /**
+     * Reads the files of a tar archive of a directory (as docker creates
+     * it for copying a directory out of a container; the names in the
+     * archive start with the name of the directory itself).
+     * Only the files that are accepted by the filter are read,
+     * all the others are skipped.
+     * The input stream itself will not be closed.
+     * @param directory directory that was copied
+     * @param filter filter for the paths of the files
+     * @param inputStream stream with the tar archive
+     * @return map with the paths of the files and the contents
+     * @throws IOException there may be an IOException on reading
+     */
+    public Map<String, byte[]> readDirectoryArchive(
+            final String directory,
+            final Predicate<String> filter,
+            final InputStream inputStream) throws IOException {
+        final Path directoryPath = Paths.get(directory).normalize();
+        final Path parent = directoryPath.getParent() != null
+                ? directoryPath.getParent() : directoryPath;
+
+        final Map<String, byte[]> result = new LinkedHashMap<>();
+        final TarArchiveInputStream tarInputStream =
+                new TarArchiveInputStream(inputStream);
+        TarArchiveEntry entry = tarInputStream.getNextTarEntry();
+        while (entry != null) {
+            if (entry.isFile()) {
+                final String path =
+                        parent.resolve(entry.getName()).normalize().toString();
+                if (filter.test(path)) {
+                    result.put(path, IOUtils.toByteArray(tarInputStream));
+                }
+            }
+            entry = tarInputStream.getNextTarEntry();
+        }
+        return result;
+    }
+}
@@ -20,6 +20,7 @@ import org.n52.gfz.riesgos.functioninterfaces.IExitValueHandler;
 import org.n52.gfz.riesgos.functioninterfaces.IStderrHandler;
 import org.n52.gfz.riesgos.functioninterfaces.IStdoutHandler;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -111,4 +112,60 @@ public interface IConfiguration {
      * @return handler for stdout (logging, ...)
      */
     Optional<IStdoutHandler> getStdoutHandler();
+
+    /**
+     *
+     * @return settings for a pool of pre-created containers; if empty
+     * every run creates its own container on demand
+     */
+    default Optional<IContainerPoolSettings> getContainerPoolSettings() {
+        return Optional.empty();
+    }
+
+    /**
+     *
+     * @return true if all the output files should be read out of the
+     * container in one step (by copying their common directory)
+     */
+    default boolean isBatchedOutputExtraction() {
+        return false;
+    }
+
+    /**
+     *
+     * @return identifiers of the output files that should only be read
+     * if the user requests them; all the other outputs are read on
+     * every run, so that they can be given back from the cache later
+     */
+    default List<String> getOutputsReadOnlyIfRequested() {
+        return Collections.emptyList();
+    }
+
+    /**
+     *
+     * @return maximum number of runs of the image at the same time;
+     * if empty there is no limit for the image (but there may be a
+     * limit for the whole server)
+     */
+    default Optional<Integer> getMaxConcurrentRuns() {
+        return Optional.empty();
+    }
+
+    /**
+     *
+     * @return settings for capturing stdout and stderr; if empty
+     * the default settings are used
+     */
+    default Optional<IOutputCaptureSettings> getOutputCaptureSettings() {
+        return Optional.empty();
+    }
+
+    /**
+     *
+     * @return maximum time in seconds for a run of the process;
+     * if empty there is no limit
+     */
+    default Optional<Long> getTimeoutSeconds() {
+        return Optional.empty();
+    }
 }
@@ -0,0 +1,45 @@
+package org.n52.gfz.riesgos.configuration;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+/**
+ * Settings for the pool of pre-created docker containers
+ * that are kept warm for a process.
+ */
+public interface IContainerPoolSettings {
+
+    /**
+     *
+     * @return number of idle containers that should always be kept
+     * ready for the image
+     */
+    int getMinIdle();
+
+    /**
+     *
+     * @return maximum number of idle containers that are kept ready
+     * for the image
+     */
+    int getMaxIdle();
+
+    /**
+     *
+     * @return time in seconds after that idle containers above the
+     * minimum are removed again
+     */
+    long getIdleTimeoutSeconds();
+}
@@ -0,0 +1,47 @@
+package org.n52.gfz.riesgos.configuration;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+
+/**
+ * Settings for capturing the stdout and stderr output of a process.
+ * Output above the in memory size is spilled to a scratch file;
+ * output above the maximum size is truncated.
+ */
+public interface IOutputCaptureSettings {
+
+    /**
+     *
+     * @return number of bytes of each stream that are kept in memory
+     * (all the output if it is smaller, otherwise the start and the end)
+     */
+    int getInMemoryBytes();
+
+    /**
+     *
+     * @return maximum number of bytes of stdout that are stored
+     * (0 for no limit)
+     */
+    long getMaxStdoutBytes();
+
+    /**
+     *
+     * @return maximum number of bytes of stderr that are stored
+     * (0 for no limit)
+     */
+    long getMaxStderrBytes();
+}
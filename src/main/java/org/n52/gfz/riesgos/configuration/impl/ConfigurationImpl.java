@@ -17,6 +17,8 @@ package org.n52.gfz.riesgos.configuration.impl;
  */
 
 import org.n52.gfz.riesgos.configuration.IConfiguration;
+import org.n52.gfz.riesgos.configuration.IContainerPoolSettings;
+import org.n52.gfz.riesgos.configuration.IOutputCaptureSettings;
 import org.n52.gfz.riesgos.configuration.IInputParameter;
 import org.n52.gfz.riesgos.configuration.IOutputParameter;
 import org.n52.gfz.riesgos.functioninterfaces.IExitValueHandler;
@@ -93,6 +95,30 @@ public final class ConfigurationImpl implements IConfiguration {
      * Handler for the stdout text.
      */
     private final IStdoutHandler stdoutHandler;
+    /**
+     * Settings for the pool of pre-created containers.
+     */
+    private final IContainerPoolSettings containerPoolSettings;
+    /**
+     * Maximum number of concurrent runs for the image (may be null).
+     */
+    private final Integer maxConcurrentRuns;
+    /**
+     * Flag to read all the output files in one step.
+     */
+    private final boolean batchedOutputExtraction;
+    /**
+     * Identifiers of the outputs that are only read if requested.
+     */
+    private final List<String> outputsReadOnlyIfRequested;
+    /**
+     * Settings for capturing stdout and stderr (may be null).
+     */
+    private final IOutputCaptureSettings outputCaptureSettings;
+    /**
+     * Maximum time in seconds for a run (may be null).
+     */
+    private final Long timeoutSeconds;
 
     /**
      * Private constructor.
@@ -112,6 +138,12 @@ public final class ConfigurationImpl implements IConfiguration {
         this.stderrHandler = builder.stderrHandler;
         this.exitValueHandler = builder.exitValueHandler;
         this.stdoutHandler = builder.stdoutHandler;
+        this.containerPoolSettings = builder.containerPoolSettings;
+        this.maxConcurrentRuns = builder.maxConcurrentRuns;
+        this.batchedOutputExtraction = builder.batchedOutputExtraction;
+        this.outputsReadOnlyIfRequested = builder.outputsReadOnlyIfRequested;
+        this.outputCaptureSettings = builder.outputCaptureSettings;
+        this.timeoutSeconds = builder.timeoutSeconds;
     }
 
     @Override
@@ -169,6 +201,36 @@ public final class ConfigurationImpl implements IConfiguration {
         return Optional.ofNullable(stdoutHandler);
     }
 
+    @Override
+    public Optional<IContainerPoolSettings> getContainerPoolSettings() {
+        return Optional.ofNullable(containerPoolSettings);
+    }
+
+    @Override
+    public boolean isBatchedOutputExtraction() {
+        return batchedOutputExtraction;
+    }
+
+    @Override
+    public List<String> getOutputsReadOnlyIfRequested() {
+        return outputsReadOnlyIfRequested;
+    }
+
+    @Override
+    public Optional<Integer> getMaxConcurrentRuns() {
+        return Optional.ofNullable(maxConcurrentRuns);
+    }
+
+    @Override
+    public Optional<IOutputCaptureSettings> getOutputCaptureSettings() {
+        return Optional.ofNullable(outputCaptureSettings);
+    }
+
+    @Override
+    public Optional<Long> getTimeoutSeconds() {
+        return Optional.ofNullable(timeoutSeconds);
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) {
@@ -188,7 +250,16 @@ public final class ConfigurationImpl implements IConfiguration {
                 && Objects.equals(outputIdentifier, that.outputIdentifier)
                 && Objects.equals(stderrHandler, that.stderrHandler)
                 && Objects.equals(exitValueHandler, that.exitValueHandler)
-                && Objects.equals(stdoutHandler, that.stdoutHandler);
+                && Objects.equals(stdoutHandler, that.stdoutHandler)
+                && Objects.equals(containerPoolSettings,
+                that.containerPoolSettings)
+                && Objects.equals(maxConcurrentRuns, that.maxConcurrentRuns)
+                && batchedOutputExtraction == that.batchedOutputExtraction
+                && Objects.equals(outputsReadOnlyIfRequested,
+                that.outputsReadOnlyIfRequested)
+                && Objects.equals(outputCaptureSettings,
+                that.outputCaptureSettings)
+                && Objects.equals(timeoutSeconds, that.timeoutSeconds);
     }
 
     @Override
@@ -196,7 +267,9 @@ public final class ConfigurationImpl implements IConfiguration {
         return Objects.hash(identifier, imageId, workingDirectory,
                 commandToExecute, defaultCommandLineFlags, inputIdentifier,
                 outputIdentifier, stderrHandler, exitValueHandler,
-                stdoutHandler);
+                stdoutHandler, containerPoolSettings, maxConcurrentRuns,
+                batchedOutputExtraction, outputsReadOnlyIfRequested,
+                outputCaptureSettings, timeoutSeconds);
     }
 
     /**
@@ -250,6 +323,30 @@ public final class ConfigurationImpl implements IConfiguration {
          * Handler for the stdout text.
          */
         private IStdoutHandler stdoutHandler;
+        /**
+         * Settings for the pool of pre-created containers.
+         */
+        private IContainerPoolSettings containerPoolSettings;
+        /**
+         * Maximum number of concurrent runs for the image (may be null).
+         */
+        private Integer maxConcurrentRuns;
+        /**
+         * Settings for capturing stdout and stderr (may be null).
+         */
+        private IOutputCaptureSettings outputCaptureSettings;
+        /**
+         * Maximum time in seconds for a run (may be null).
+         */
+        private Long timeoutSeconds;
+        /**
+         * Flag to read all the output files in one step.
+         */
+        private boolean batchedOutputExtraction;
+        /**
+         * Identifiers of the outputs that are only read if requested.
+         */
+        private final List<String> outputsReadOnlyIfRequested;
 
 
         /**
@@ -274,6 +371,7 @@ public final class ConfigurationImpl implements IConfiguration {
             this.commandToExecute = aCommandToExecute;
 
             this.defaultCommandLineFlags = new ArrayList<>();
+            this.outputsReadOnlyIfRequested = new ArrayList<>();
             this.inputIdentifier = new ArrayList<>();
             this.outputIdentifier = new ArrayList<>();
         }
@@ -367,6 +465,75 @@ public final class ConfigurationImpl implements IConfiguration {
             return this;
         }
 
+        /**
+         * Sets the settings for the pool of pre-created containers.
+         * @param aContainerPoolSettings settings for the container pool
+         * @return builder instance
+         */
+        public Builder withContainerPoolSettings(
+                final IContainerPoolSettings aContainerPoolSettings) {
+            this.containerPoolSettings = aContainerPoolSettings;
+            return this;
+        }
+
+        /**
+         * Sets the flag to read all the output files in one step.
+         * @param aBatchedOutputExtraction flag to read all the output files
+         *                                 in one step
+         * @return builder instance
+         */
+        public Builder withBatchedOutputExtraction(
+                final boolean aBatchedOutputExtraction) {
+            this.batchedOutputExtraction = aBatchedOutputExtraction;
+            return this;
+        }
+
+        /**
+         * Adds outputs that should only be read if the user requests them.
+         * @param aOutputsReadOnlyIfRequested identifiers of the outputs
+         * @return builder instance
+         */
+        public Builder withAddedOutputsReadOnlyIfRequested(
+                final List<String> aOutputsReadOnlyIfRequested) {
+            this.outputsReadOnlyIfRequested.addAll(
+                    aOutputsReadOnlyIfRequested);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of runs of the image at the same time.
+         * @param aMaxConcurrentRuns maximum number of concurrent runs
+         *                           for the image (may be null)
+         * @return builder instance
+         */
+        public Builder withMaxConcurrentRuns(
+                final Integer aMaxConcurrentRuns) {
+            this.maxConcurrentRuns = aMaxConcurrentRuns;
+            return this;
+        }
+
+        /**
+         * Sets the settings for capturing stdout and stderr.
+         * @param aOutputCaptureSettings settings for capturing the output
+         *                               (may be null)
+         * @return builder instance
+         */
+        public Builder withOutputCaptureSettings(
+                final IOutputCaptureSettings aOutputCaptureSettings) {
+            this.outputCaptureSettings = aOutputCaptureSettings;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time for a run of the process.
+         * @param aTimeoutSeconds maximum time in seconds (may be null)
+         * @return builder instance
+         */
+        public Builder withTimeoutSeconds(final Long aTimeoutSeconds) {
+            this.timeoutSeconds = aTimeoutSeconds;
+            return this;
+        }
+
         /**
          * Creates the new configuration.
          * @return IConfiguration created by the builder
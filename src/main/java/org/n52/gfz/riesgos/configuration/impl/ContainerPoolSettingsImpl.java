@@ -0,0 +1,96 @@
+package org.n52.gfz.riesgos.configuration.impl;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.gfz.riesgos.configuration.IContainerPoolSettings;
+
+import java.util.Objects;
+
+/**
+ * Default implementation of the container pool settings.
+ */
+public final class ContainerPoolSettingsImpl
+        implements IContainerPoolSettings {
+
+    /**
+     * Number of idle containers to keep at least.
+     */
+    private final int minIdle;
+    /**
+     * Number of idle containers to keep at most.
+     */
+    private final int maxIdle;
+    /**
+     * Seconds after that idle containers above the minimum are removed.
+     */
+    private final long idleTimeoutSeconds;
+
+    /**
+     * Constructor with all the values.
+     * @param aMinIdle minimum number of idle containers
+     * @param aMaxIdle maximum number of idle containers
+     * @param aIdleTimeoutSeconds seconds to keep idle containers above
+     *                            the minimum
+     */
+    public ContainerPoolSettingsImpl(
+            final int aMinIdle,
+            final int aMaxIdle,
+            final long aIdleTimeoutSeconds) {
+        if (aMinIdle < 0 || aMaxIdle < aMinIdle || aMaxIdle < 1) {
+            throw new IllegalArgumentException(
+                    "The container pool needs 0 <= minIdle <= maxIdle "
+                            + "and maxIdle >= 1");
+        }
+        this.minIdle = aMinIdle;
+        this.maxIdle = aMaxIdle;
+        this.idleTimeoutSeconds = aIdleTimeoutSeconds;
+    }
+
+    @Override
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    @Override
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+
+    @Override
+    public long getIdleTimeoutSeconds() {
+        return idleTimeoutSeconds;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final ContainerPoolSettingsImpl that = (ContainerPoolSettingsImpl) o;
+        return minIdle == that.minIdle
+                && maxIdle == that.maxIdle
+                && idleTimeoutSeconds == that.idleTimeoutSeconds;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minIdle, maxIdle, idleTimeoutSeconds);
+    }
+}
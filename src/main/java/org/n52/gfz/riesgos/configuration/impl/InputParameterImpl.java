@@ -25,6 +25,7 @@ import org.n52.gfz.riesgos.functioninterfaces.ICheckDataAndGetErrorMessage;
 import org.n52.gfz.riesgos.functioninterfaces.IConvertIDataToByteArray;
 import org.n52.gfz.riesgos.functioninterfaces.IConvertIDataToCommandLineParameter;
 import org.n52.gfz.riesgos.functioninterfaces.IWriteIDataToFiles;
+import org.n52.gfz.riesgos.idatatobyteconverter.ReuseConvertedBytes;
 import org.n52.wps.io.data.IData;
 import org.n52.wps.webapp.api.FormatEntry;
 
@@ -116,7 +117,9 @@ public final class InputParameterImpl<T extends IData>
         this.functionToTransformToCmd = builder.functionToTransformToCmd;
         this.path = builder.path;
         this.functionToWriteToFiles = builder.functionToWriteToFiles;
-        this.functionToWriteToStdin = builder.functionToWriteToStdin;
+        // the bytes converted for the cache key are reused for stdin
+        this.functionToWriteToStdin =
+                ReuseConvertedBytes.wrap(builder.functionToWriteToStdin);
         this.allowedValues = builder.allowedValues;
         this.defaultValue = builder.defaultValue;
         this.supportedCRSForBBox = builder.supportedCRSForBBox;
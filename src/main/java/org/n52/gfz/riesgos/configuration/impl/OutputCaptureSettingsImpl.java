@@ -0,0 +1,108 @@
+package org.n52.gfz.riesgos.configuration.impl;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+
+import org.n52.gfz.riesgos.cmdexecution.util.CapturedOutput;
+import org.n52.gfz.riesgos.configuration.IOutputCaptureSettings;
+
+import java.util.Objects;
+
+/**
+ * Default implementation of the output capture settings.
+ */
+public final class OutputCaptureSettingsImpl
+        implements IOutputCaptureSettings {
+
+    /**
+     * Settings that are used if the configuration has no own settings
+     * (spill with the default in memory size, no maximum size).
+     */
+    public static final IOutputCaptureSettings DEFAULT =
+            new OutputCaptureSettingsImpl(
+                    CapturedOutput.DEFAULT_IN_MEMORY_BYTES, 0L, 0L);
+
+    /**
+     * Number of bytes to keep in memory.
+     */
+    private final int inMemoryBytes;
+    /**
+     * Maximum number of bytes of stdout.
+     */
+    private final long maxStdoutBytes;
+    /**
+     * Maximum number of bytes of stderr.
+     */
+    private final long maxStderrBytes;
+
+    /**
+     * Constructor with all the values.
+     * @param aInMemoryBytes number of bytes to keep in memory
+     * @param aMaxStdoutBytes maximum number of bytes of stdout (0 for no
+     *                        limit)
+     * @param aMaxStderrBytes maximum number of bytes of stderr (0 for no
+     *                        limit)
+     */
+    public OutputCaptureSettingsImpl(
+            final int aInMemoryBytes,
+            final long aMaxStdoutBytes,
+            final long aMaxStderrBytes) {
+        if (aInMemoryBytes < 2 || aMaxStdoutBytes < 0
+                || aMaxStderrBytes < 0) {
+            throw new IllegalArgumentException(
+                    "The output capture needs inMemoryBytes >= 2 "
+                            + "and maxStdoutBytes, maxStderrBytes >= 0");
+        }
+        this.inMemoryBytes = aInMemoryBytes;
+        this.maxStdoutBytes = aMaxStdoutBytes;
+        this.maxStderrBytes = aMaxStderrBytes;
+    }
+
+    @Override
+    public int getInMemoryBytes() {
+        return inMemoryBytes;
+    }
+
+    @Override
+    public long getMaxStdoutBytes() {
+        return maxStdoutBytes;
+    }
+
+    @Override
+    public long getMaxStderrBytes() {
+        return maxStderrBytes;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final OutputCaptureSettingsImpl that = (OutputCaptureSettingsImpl) o;
+        return inMemoryBytes == that.inMemoryBytes
+                && maxStdoutBytes == that.maxStdoutBytes
+                && maxStderrBytes == that.maxStderrBytes;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(inMemoryBytes, maxStdoutBytes, maxStderrBytes);
+    }
+}
@@ -157,6 +157,68 @@ public abstract class AbstractParseJson {
         return value;
     }
 
+    /**
+     * Searches for the key in the json object.
+     * If the key is not there it returns the default value.
+     * If the key is there but the value is not an integer number it throws
+     * an exception.
+     * @param json json object that may contain the key
+     * @param key key to search for
+     * @param defaultValue value if the key is not in the json object
+     * @return value of the key if in the json object else default value
+     * @throws ParseConfigurationException exception that will be thrown if the
+     * value in the json is not an integer number
+     */
+    protected long getOptionalLong(
+            final JSONObject json,
+            final String key,
+            final long defaultValue)
+            throws ParseConfigurationException {
+        final long value;
+
+        if (json.containsKey(key)) {
+            final Object rawValue = json.get(key);
+            if (!(rawValue instanceof Long || rawValue instanceof Integer)) {
+                throw new ParseConfigurationException(
+                        "Wrong type for element '"
+                                + key
+                                + "', expected an integer number");
+            }
+            value = ((Number) rawValue).longValue();
+        } else {
+            value = defaultValue;
+        }
+        return value;
+    }
+
+    /**
+     * Searches for an optional json object in the given json object.
+     * @param json json object that may contain the key
+     * @param key field to search for
+     * @return optional json object for the given key
+     * @throws ParseConfigurationException exception that is thrown if the
+     * key is there but the value is not a json object
+     */
+    protected Optional<JSONObject> getOptionalJsonObject(
+            final JSONObject json,
+            final String key)
+            throws ParseConfigurationException {
+        final Optional<JSONObject> result;
+        if (json.containsKey(key)) {
+            final Object rawValue = json.get(key);
+            if (!(rawValue instanceof JSONObject)) {
+                throw new ParseConfigurationException(
+                        "Wrong type for element '"
+                                + key
+                                + "', expected a JSON object");
+            }
+            result = Optional.of((JSONObject) rawValue);
+        } else {
+            result = Optional.empty();
+        }
+        return result;
+    }
+
     /**
      * Searches for an optional list of strings in the given json object.
      * @param json json object that may contain the key
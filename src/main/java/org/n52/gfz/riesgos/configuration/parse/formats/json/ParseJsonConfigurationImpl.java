@@ -21,10 +21,15 @@ import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
+import org.n52.gfz.riesgos.cmdexecution.util.CapturedOutput;
 import org.n52.gfz.riesgos.configuration.IConfiguration;
+import org.n52.gfz.riesgos.configuration.IContainerPoolSettings;
+import org.n52.gfz.riesgos.configuration.IOutputCaptureSettings;
 import org.n52.gfz.riesgos.configuration.IInputParameter;
 import org.n52.gfz.riesgos.configuration.IOutputParameter;
 import org.n52.gfz.riesgos.configuration.impl.ConfigurationImpl;
+import org.n52.gfz.riesgos.configuration.impl.ContainerPoolSettingsImpl;
+import org.n52.gfz.riesgos.configuration.impl.OutputCaptureSettingsImpl;
 import org.n52.gfz.riesgos.configuration.parse.IParseConfiguration;
 import org.n52.gfz.riesgos.configuration.parse.exitvaluehandler.ExitValueHandlerOption;
 import org.n52.gfz.riesgos.configuration.parse.formats.json.subimpl.ParseJsonForInputImpl;
@@ -40,6 +45,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Implementation that parses a json configuration.
@@ -48,6 +54,19 @@ public class ParseJsonConfigurationImpl
         extends AbstractParseJson
         implements IParseConfiguration {
 
+    /**
+     * Default number of idle containers to keep at least in a pool.
+     */
+    private static final long DEFAULT_POOL_MIN_IDLE = 1L;
+    /**
+     * Default number of idle containers to keep at most in a pool.
+     */
+    private static final long DEFAULT_POOL_MAX_IDLE = 4L;
+    /**
+     * Default time in seconds to keep idle containers above the minimum.
+     */
+    private static final long DEFAULT_POOL_IDLE_TIMEOUT_SECONDS = 600L;
+
     /**
      * Sub parser for the input elements.
      */
@@ -122,6 +141,18 @@ public class ParseJsonConfigurationImpl
                         parseExitValueHandler(json);
                 final IStdoutHandler stdoutHandler = parseStdoutHandler(json);
 
+                final IContainerPoolSettings containerPoolSettings =
+                        parseContainerPoolSettings(json);
+                final boolean batchedOutputExtraction = getOptionalBoolean(
+                        json, "batchedOutputExtraction", false);
+                final List<String> outputsReadOnlyIfRequested =
+                        parseOutputsReadOnlyIfRequested(json, outputData);
+                final Integer maxConcurrentRuns =
+                        parseMaxConcurrentRuns(json);
+                final IOutputCaptureSettings outputCaptureSettings =
+                        parseOutputCaptureSettings(json);
+                final Long timeoutSeconds = parseTimeoutSeconds(json);
+
                 return new ConfigurationImpl.Builder(
                         identifier,
                         optionalAbstract,
@@ -134,6 +165,13 @@ public class ParseJsonConfigurationImpl
                     .withStderrHandler(stderrHandler)
                     .withExitValueHandler(exitValueHandler)
                     .withStdoutHandler(stdoutHandler)
+                    .withContainerPoolSettings(containerPoolSettings)
+                    .withBatchedOutputExtraction(batchedOutputExtraction)
+                    .withAddedOutputsReadOnlyIfRequested(
+                            outputsReadOnlyIfRequested)
+                    .withMaxConcurrentRuns(maxConcurrentRuns)
+                    .withOutputCaptureSettings(outputCaptureSettings)
+                    .withTimeoutSeconds(timeoutSeconds)
                     .build();
 
             } else {
@@ -237,9 +275,53 @@ public class ParseJsonConfigurationImpl
      */
     private List<String> getDefaultCommandLineFlags(
             final JSONObject json) throws ParseConfigurationException {
+        return getOptionalStringList(json, "defaultCommandLineFlags");
+    }
+
+    /**
+     *
+     * @param json json object to search in
+     * @param outputData output parameters of the process
+     * @return list with the identifiers of the outputs that should
+     * only be read if they are requested
+     * @throws ParseConfigurationException exception if there is a
+     * key in the json object but the wrong type or if the identifiers
+     * are not identifiers of output files
+     */
+    private List<String> parseOutputsReadOnlyIfRequested(
+            final JSONObject json,
+            final List<IOutputParameter> outputData)
+            throws ParseConfigurationException {
+        final List<String> result =
+                getOptionalStringList(json, "outputsReadOnlyIfRequested");
+        for (final String identifier : result) {
+            final boolean isOutputFile = outputData.stream().anyMatch(
+                    output -> output.getIdentifier().equals(identifier)
+                            && output.getFunctionToReadIDataFromFiles()
+                                    .isPresent());
+            if (!isOutputFile) {
+                throw new ParseConfigurationException(
+                        "There is no output file with the identifier '"
+                                + identifier
+                                + "'");
+            }
+        }
+        return result;
+    }
+
+    /**
+     *
+     * @param json json object to search in
+     * @param key key of the list
+     * @return list with the strings (empty if there is no such key)
+     * @throws ParseConfigurationException exception if there is a
+     * key in the json object but the wrong type.
+     */
+    private List<String> getOptionalStringList(
+            final JSONObject json,
+            final String key) throws ParseConfigurationException {
         final List<String> result = new ArrayList<>();
 
-        final String key = "defaultCommandLineFlags";
         if (json.containsKey(key)) {
             final Object rawList = json.get(key);
             if (!(rawList instanceof JSONArray)) {
@@ -254,8 +336,7 @@ public class ParseJsonConfigurationImpl
                                     + key
                                     + ", expected a String");
                 }
-                final String defaultCommandLineFlag = (String) element;
-                result.add(defaultCommandLineFlag);
+                result.add((String) element);
             }
         }
         return result;
@@ -374,5 +455,116 @@ public class ParseJsonConfigurationImpl
         return result;
     }
 
+    /**
+     *
+     * @param jsonObject json object to search in
+     * @return settings for the container pool or null if there is no
+     * containerPool entry
+     * @throws ParseConfigurationException exception that is thrown if
+     * the values for the pool have the wrong type or are not consistent
+     */
+    private IContainerPoolSettings parseContainerPoolSettings(
+            final JSONObject jsonObject)
+            throws ParseConfigurationException {
+        final Optional<JSONObject> optionalPoolJson =
+                getOptionalJsonObject(jsonObject, "containerPool");
+        if (!optionalPoolJson.isPresent()) {
+            return null;
+        }
+        final JSONObject poolJson = optionalPoolJson.get();
+        final long minIdle = getOptionalLong(
+                poolJson, "minIdle", DEFAULT_POOL_MIN_IDLE);
+        final long maxIdle = getOptionalLong(
+                poolJson, "maxIdle", Math.max(minIdle, DEFAULT_POOL_MAX_IDLE));
+        final long idleTimeoutSeconds = getOptionalLong(
+                poolJson, "idleTimeoutSeconds",
+                DEFAULT_POOL_IDLE_TIMEOUT_SECONDS);
+        try {
+            return new ContainerPoolSettingsImpl(
+                    (int) minIdle, (int) maxIdle, idleTimeoutSeconds);
+        } catch (final IllegalArgumentException exception) {
+            throw new ParseConfigurationException(exception.getMessage());
+        }
+    }
+
+    /**
+     *
+     * @param jsonObject json object to search in
+     * @return maximum number of concurrent runs or null if there is
+     * no maxConcurrentRuns entry
+     * @throws ParseConfigurationException exception that is thrown if
+     * the value has the wrong type or is not positive
+     */
+    private Integer parseMaxConcurrentRuns(final JSONObject jsonObject)
+            throws ParseConfigurationException {
+        if (!jsonObject.containsKey("maxConcurrentRuns")) {
+            return null;
+        }
+        final long maxConcurrentRuns =
+                getOptionalLong(jsonObject, "maxConcurrentRuns", 0L);
+        if (maxConcurrentRuns < 1 || maxConcurrentRuns > Integer.MAX_VALUE) {
+            throw new ParseConfigurationException(
+                    "maxConcurrentRuns must be a positive number");
+        }
+        return (int) maxConcurrentRuns;
+    }
 
+    /**
+     *
+     * @param jsonObject json object to search in
+     * @return maximum time in seconds for a run or null if there is
+     * no timeoutSeconds entry
+     * @throws ParseConfigurationException exception that is thrown if
+     * the value has the wrong type or is not positive
+     */
+    private Long parseTimeoutSeconds(final JSONObject jsonObject)
+            throws ParseConfigurationException {
+        if (!jsonObject.containsKey("timeoutSeconds")) {
+            return null;
+        }
+        final long timeoutSeconds =
+                getOptionalLong(jsonObject, "timeoutSeconds", 0L);
+        if (timeoutSeconds < 1) {
+            throw new ParseConfigurationException(
+                    "timeoutSeconds must be a positive number");
+        }
+        return timeoutSeconds;
+    }
+
+    /**
+     *
+     * @param jsonObject json object to search in
+     * @return settings for capturing the output or null if there is
+     * no outputCapture entry
+     * @throws ParseConfigurationException exception that is thrown if
+     * the values have the wrong type or are out of range
+     */
+    private IOutputCaptureSettings parseOutputCaptureSettings(
+            final JSONObject jsonObject)
+            throws ParseConfigurationException {
+        final Optional<JSONObject> optionalCaptureJson =
+                getOptionalJsonObject(jsonObject, "outputCapture");
+        if (!optionalCaptureJson.isPresent()) {
+            return null;
+        }
+        final JSONObject captureJson = optionalCaptureJson.get();
+        final long inMemoryBytes = getOptionalLong(
+                captureJson, "inMemoryBytes",
+                CapturedOutput.DEFAULT_IN_MEMORY_BYTES);
+        if (inMemoryBytes > Integer.MAX_VALUE) {
+            throw new ParseConfigurationException(
+                    "inMemoryBytes must be smaller than "
+                            + Integer.MAX_VALUE);
+        }
+        final long maxStdoutBytes = getOptionalLong(
+                captureJson, "maxStdoutBytes", 0L);
+        final long maxStderrBytes = getOptionalLong(
+                captureJson, "maxStderrBytes", 0L);
+        try {
+            return new OutputCaptureSettingsImpl(
+                    (int) inMemoryBytes, maxStdoutBytes, maxStderrBytes);
+        } catch (final IllegalArgumentException exception) {
+            throw new ParseConfigurationException(exception.getMessage());
+        }
+    }
 }
@@ -0,0 +1,37 @@
+package org.n52.gfz.riesgos.exceptions;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+/**
+ * Exception for a run that waited for an identical run
+ * that was in progress and couldn't get its result.
+ */
+public class SingleFlightException extends Exception {
+
+    private static final long serialVersionUID = 5215937419071462303L;
+
+    /**
+     *
+     * @param message reason why there is no result
+     * @param cause exception that caused the problem (may be null)
+     */
+    public SingleFlightException(
+            final String message,
+            final Throwable cause) {
+        super(message, cause);
+    }
+}
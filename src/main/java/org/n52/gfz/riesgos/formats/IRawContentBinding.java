@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.formats;
+
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * Interface for bindings that may know the bytes they were parsed from.
+ */
+public interface IRawContentBinding {
+
+    /**
+     *
+     * @return optional bytes the binding was parsed from
+     * (empty if the binding was created in another way)
+     */
+    Optional<RawContent> getRawContent();
+
+    /**
+     * Gives back a stream with the bytes the binding was parsed from,
+     * if they are in the requested format. So a generator can give
+     * back these bytes instead of serializing the data again.
+     * @param mimeType requested mime type
+     * @param schema requested schema (may be null)
+     * @return optional stream with the bytes
+     */
+    default Optional<InputStream> getRawContentStream(
+            final String mimeType,
+            final String schema) {
+        return getRawContent()
+                .filter(content -> content.isInFormat(mimeType, schema))
+                .map(RawContent::newInputStream);
+    }
+}
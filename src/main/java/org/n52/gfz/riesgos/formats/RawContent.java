@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.formats;
+
+import org.n52.wps.webapp.api.FormatEntry;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The bytes that a binding was parsed from together with the format
+ * that they are in.
+ * A generator for the same format can give back these bytes
+ * instead of serializing the parsed data again.
+ */
+public final class RawContent implements Serializable {
+
+    private static final long serialVersionUID = -3362049371357734146L;
+
+    /**
+     * Maximum number of bytes to search for the xml declaration.
+     */
+    private static final int MAX_DECLARATION_LENGTH = 256;
+
+    /**
+     * Start of an xml declaration.
+     */
+    private static final String XML_DECLARATION_START = "<?xml";
+
+    /**
+     * Pattern for the encoding in an xml declaration.
+     */
+    private static final Pattern XML_ENCODING =
+            Pattern.compile("encoding\\s*=\\s*[\"']([^\"']+)[\"']");
+
+    /**
+     * Encoding that is used if there is no other information.
+     */
+    private static final String UTF_8 = "UTF-8";
+
+    /**
+     * Byte order mark of UTF-8.
+     */
+    private static final byte[] UTF_8_BOM =
+            {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    /**
+     * Encodings that are subsets of UTF-8.
+     */
+    private static final String[] SUBSETS_OF_UTF_8 = {"US-ASCII", "ASCII"};
+
+    /**
+     * Bytes the binding was parsed from (must not be changed).
+     */
+    private final byte[] content;
+    /**
+     * Mime type of the bytes.
+     */
+    private final String mimeType;
+    /**
+     * Schema of the bytes (may be null).
+     */
+    private final String schema;
+
+    /**
+     *
+     * @param aContent bytes the binding was parsed from
+     * @param aMimeType mime type of the bytes
+     * @param aSchema schema of the bytes
+     */
+    private RawContent(
+            final byte[] aContent,
+            final String aMimeType,
+            final String aSchema) {
+        this.content = aContent;
+        this.mimeType = aMimeType;
+        this.schema = aSchema;
+    }
+
+    /**
+     * Creates the raw content for bytes in the given format.
+     * The bytes are not copied.
+     * @param content bytes the binding was parsed from
+     * @param format format of the bytes
+     * @return optional raw content (empty if the bytes are not in the
+     * encoding of the format)
+     */
+    public static Optional<RawContent> of(
+            final byte[] content,
+            final FormatEntry format) {
+        if (!hasEncoding(content, format.getEncoding())) {
+            return Optional.empty();
+        }
+        return Optional.of(new RawContent(
+                content, format.getMimeType(), format.getSchema()));
+    }
+
+    /**
+     * Checks if the raw content can be used for the requested format.
+     * @param aMimeType requested mime type
+     * @param aSchema requested schema (may be null)
+     * @return true if mime type and schema are the same
+     */
+    public boolean isInFormat(final String aMimeType, final String aSchema) {
+        return mimeType != null
+                && mimeType.equalsIgnoreCase(aMimeType)
+                && nullToEmpty(schema).equals(nullToEmpty(aSchema));
+    }
+
+    /**
+     *
+     * @return stream to read the bytes (without copying them)
+     */
+    public InputStream newInputStream() {
+        return new ByteArrayInputStream(content);
+    }
+
+    /**
+     * Checks if the bytes are in the encoding.
+     * The encoding is detected by the byte order mark and the
+     * xml declaration. Without any of them UTF-8 is assumed.
+     * @param content bytes to check
+     * @param encoding expected encoding
+     * @return true if the bytes are in the encoding
+     */
+    private static boolean hasEncoding(
+            final byte[] content,
+            final String encoding) {
+        final String detected = detectEncoding(content);
+        if (detected.equalsIgnoreCase(encoding)) {
+            return true;
+        }
+        if (UTF_8.equalsIgnoreCase(encoding)) {
+            for (final String subset : SUBSETS_OF_UTF_8) {
+                if (subset.equalsIgnoreCase(detected)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     *
+     * @param content bytes to check
+     * @return name of the encoding of the bytes
+     */
+    private static String detectEncoding(final byte[] content) {
+        if (content.length >= 2
+                && ((content[0] == (byte) 0xFE && content[1] == (byte) 0xFF)
+                || (content[0] == (byte) 0xFF
+                && content[1] == (byte) 0xFE))) {
+            return "UTF-16";
+        }
+        final int declarationStart;
+        if (content.length >= UTF_8_BOM.length
+                && content[0] == UTF_8_BOM[0]
+                && content[1] == UTF_8_BOM[1]
+                && content[2] == UTF_8_BOM[2]) {
+            declarationStart = UTF_8_BOM.length;
+        } else {
+            declarationStart = 0;
+        }
+        final String start = new String(content, 0,
+                Math.min(content.length, MAX_DECLARATION_LENGTH),
+                StandardCharsets.ISO_8859_1);
+        if (!start.startsWith(XML_DECLARATION_START, declarationStart)) {
+            return UTF_8;
+        }
+        final int declarationEnd = start.indexOf("?>");
+        if (declarationEnd < 0) {
+            return UTF_8;
+        }
+        final Matcher matcher = XML_ENCODING.matcher(
+                start.substring(declarationStart, declarationEnd));
+        if (matcher.find()) {
+            return matcher.group(1).toUpperCase(Locale.ROOT);
+        }
+        return UTF_8;
+    }
+
+    /**
+     *
+     * @param text text (may be null)
+     * @return the text or an empty string
+     */
+    private static String nullToEmpty(final String text) {
+        if (text == null) {
+            return "";
+        }
+        return text;
+    }
+}
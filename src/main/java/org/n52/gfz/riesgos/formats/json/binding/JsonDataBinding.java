@@ -16,12 +16,16 @@
 
 package org.n52.gfz.riesgos.formats.json.binding;
 
+import org.n52.gfz.riesgos.formats.IRawContentBinding;
+import org.n52.gfz.riesgos.formats.RawContent;
 import org.n52.wps.io.data.IComplexData;
 
+import java.util.Optional;
+
 /**
  * Binding class that contains a simple json object.
  */
-public class JsonDataBinding implements IComplexData {
+public class JsonDataBinding implements IComplexData, IRawContentBinding {
 
     private static final long serialVersionUID = 8386437107877117360L;
 
@@ -30,12 +34,29 @@ public class JsonDataBinding implements IComplexData {
      */
     private final JsonObjectOrArray jsonObject;
 
+    /**
+     * Bytes the binding was parsed from (may be null).
+     */
+    private final RawContent rawContent;
+
     /**
      * Default constructor for JsonDataBinding.
      * @param aJsonObject jsonObject to wrap
      */
     public JsonDataBinding(final JsonObjectOrArray aJsonObject) {
+        this(aJsonObject, Optional.empty());
+    }
+
+    /**
+     * Constructor with the bytes the json was parsed from.
+     * @param aJsonObject jsonObject to wrap
+     * @param aRawContent bytes the json was parsed from
+     */
+    public JsonDataBinding(
+            final JsonObjectOrArray aJsonObject,
+            final Optional<RawContent> aRawContent) {
         this.jsonObject = aJsonObject;
+        this.rawContent = aRawContent.orElse(null);
     }
 
     /**
@@ -63,4 +84,13 @@ public class JsonDataBinding implements IComplexData {
     public Class<?> getSupportedClass() {
         return JsonObjectOrArray.class;
     }
+
+    /**
+     *
+     * @return optional bytes the binding was parsed from
+     */
+    @Override
+    public Optional<RawContent> getRawContent() {
+        return Optional.ofNullable(rawContent);
+    }
 }
@@ -70,6 +70,11 @@ public class JsonGenerator
             final String schema) {
         if (data instanceof JsonDataBinding) {
             final JsonDataBinding binding = (JsonDataBinding) data;
+            final Optional<InputStream> rawContent =
+                    binding.getRawContentStream(mimeType, schema);
+            if (rawContent.isPresent()) {
+                return rawContent.get();
+            }
             final JsonObjectOrArray jsonObject = binding.getPayload();
 
             final Optional<JSONObject> asJsonObject =
@@ -17,24 +17,39 @@
 package org.n52.gfz.riesgos.formats.nrml.binding;
 
 import org.apache.xmlbeans.XmlObject;
+import org.n52.gfz.riesgos.formats.IRawContentBinding;
+import org.n52.gfz.riesgos.formats.RawContent;
 import org.n52.gfz.riesgos.formats.nrml.INrml;
 import org.n52.gfz.riesgos.formats.nrml.Nrml;
 import org.n52.wps.io.data.binding.complex.GenericXMLDataBinding;
 
+import java.util.Optional;
+
 /**
  * This is the data binding class for the nrml data.
  */
-public final class NrmlXmlDataBinding extends GenericXMLDataBinding {
+public final class NrmlXmlDataBinding
+        extends GenericXMLDataBinding
+        implements IRawContentBinding {
 
     private static final long serialVersionUID = 198688451627521811L;
 
+    /**
+     * Bytes the binding was parsed from (may be null).
+     */
+    private final RawContent rawContent;
+
     /**
      * This is a private constructor.
      * Use the fromXml static method instead.
      * @param nrml xml with nrml
+     * @param aRawContent bytes the xml was parsed from (may be null)
      */
-    private NrmlXmlDataBinding(final XmlObject nrml) {
+    private NrmlXmlDataBinding(
+            final XmlObject nrml,
+            final RawContent aRawContent) {
         super(nrml);
+        this.rawContent = aRawContent;
     }
 
     /**
@@ -51,6 +66,28 @@ public final class NrmlXmlDataBinding extends GenericXMLDataBinding {
      * @return NrmlXmlDataBinding
      */
     public static NrmlXmlDataBinding fromXml(final XmlObject nrml) {
-        return new NrmlXmlDataBinding(nrml);
+        return new NrmlXmlDataBinding(nrml, null);
+    }
+
+    /**
+     * Creates a new instance of the binding class with the bytes
+     * the xml was parsed from.
+     * @param nrml xml with nrml data
+     * @param rawContent bytes the xml was parsed from
+     * @return NrmlXmlDataBinding
+     */
+    public static NrmlXmlDataBinding fromXml(
+            final XmlObject nrml,
+            final Optional<RawContent> rawContent) {
+        return new NrmlXmlDataBinding(nrml, rawContent.orElse(null));
+    }
+
+    /**
+     *
+     * @return optional bytes the binding was parsed from
+     */
+    @Override
+    public Optional<RawContent> getRawContent() {
+        return Optional.ofNullable(rawContent);
     }
 }
@@ -27,6 +27,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.Optional;
 
 /**
  * This is the xml generator for the nrml format.
@@ -68,6 +69,11 @@ public class NrmlXmlGenerator extends AbstractGenerator {
                                       final String schema) {
         if (data instanceof NrmlXmlDataBinding) {
             final NrmlXmlDataBinding binding = (NrmlXmlDataBinding) data;
+            final Optional<InputStream> rawContent =
+                    binding.getRawContentStream(mimeType, schema);
+            if (rawContent.isPresent()) {
+                return rawContent.get();
+            }
             final XmlObject payload = binding.getPayload();
             return new ByteArrayInputStream(payload.xmlText().getBytes());
         } else {
@@ -18,10 +18,14 @@ package org.n52.gfz.riesgos.formats.quakeml.binding;
 
 import org.apache.xmlbeans.XmlObject;
 import org.n52.gfz.riesgos.exceptions.ConvertFormatException;
+import org.n52.gfz.riesgos.formats.IRawContentBinding;
+import org.n52.gfz.riesgos.formats.RawContent;
 import org.n52.gfz.riesgos.formats.quakeml.IQuakeML;
 import org.n52.gfz.riesgos.formats.quakeml.QuakeML;
 import org.n52.wps.io.data.binding.complex.GenericXMLDataBinding;
 
+import java.util.Optional;
+
 /**
  * The QuakeMLXmlDataBinding is built on top of the GenericXMLDataBinding.
  *
@@ -30,16 +34,27 @@ import org.n52.wps.io.data.binding.complex.GenericXMLDataBinding;
  * There is support for the old one, but this one should not be stored in this
  * binding class.
  */
-public final class QuakeMLXmlDataBinding extends GenericXMLDataBinding {
+public final class QuakeMLXmlDataBinding
+        extends GenericXMLDataBinding
+        implements IRawContentBinding {
 
     private static final long serialVersionUID = 1921993767115464931L;
 
+    /**
+     * Bytes the binding was parsed from (may be null).
+     */
+    private final RawContent rawContent;
+
     /**
      * Private constructor. Please use the static method instead.
      * @param validatedXml validated quakeml
+     * @param aRawContent bytes the xml was parsed from (may be null)
      */
-    private QuakeMLXmlDataBinding(final XmlObject validatedXml) {
+    private QuakeMLXmlDataBinding(
+            final XmlObject validatedXml,
+            final RawContent aRawContent) {
         super(validatedXml);
+        this.rawContent = aRawContent;
     }
 
     /**
@@ -67,7 +82,21 @@ public final class QuakeMLXmlDataBinding extends GenericXMLDataBinding {
      */
     public static QuakeMLXmlDataBinding fromValidatedXml(
             final XmlObject validatedXml) {
-        return new QuakeMLXmlDataBinding(validatedXml);
+        return new QuakeMLXmlDataBinding(validatedXml, null);
+    }
+
+    /**
+     * Creates the binding from the validated xml and the bytes
+     * it was parsed from.
+     * @param validatedXml validated quakeml xml
+     * @param rawContent bytes the xml was parsed from
+     * @return QuakeMLXmlDataBinding
+     */
+    public static QuakeMLXmlDataBinding fromValidatedXml(
+            final XmlObject validatedXml,
+            final Optional<RawContent> rawContent) {
+        return new QuakeMLXmlDataBinding(
+                validatedXml, rawContent.orElse(null));
     }
 
     /**
@@ -76,7 +105,17 @@ public final class QuakeMLXmlDataBinding extends GenericXMLDataBinding {
      * @return QuakeMLXmlDataBinding
      */
     public static QuakeMLXmlDataBinding fromQuakeML(final IQuakeML quakeML) {
-        return new QuakeMLXmlDataBinding(quakeML.toValidatedXmlObject());
+        return new QuakeMLXmlDataBinding(
+                quakeML.toValidatedXmlObject(), null);
+    }
+
+    /**
+     *
+     * @return optional bytes the binding was parsed from
+     */
+    @Override
+    public Optional<RawContent> getRawContent() {
+        return Optional.ofNullable(rawContent);
     }
 
 }
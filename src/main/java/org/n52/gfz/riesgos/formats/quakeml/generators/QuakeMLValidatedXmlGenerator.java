@@ -27,6 +27,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.Optional;
 
 /**
  * Generator that takes the validated quakeml xml
@@ -70,6 +71,11 @@ public class QuakeMLValidatedXmlGenerator extends AbstractGenerator {
         if (data instanceof QuakeMLXmlDataBinding) {
                 final QuakeMLXmlDataBinding binding =
                         (QuakeMLXmlDataBinding) data;
+                final Optional<InputStream> rawContent =
+                        binding.getRawContentStream(mimeType, schema);
+                if (rawContent.isPresent()) {
+                    return rawContent.get();
+                }
                 final XmlObject xmlObject = binding.getPayload();
                 return new ByteArrayInputStream(xmlObject.xmlText().getBytes());
         } else {
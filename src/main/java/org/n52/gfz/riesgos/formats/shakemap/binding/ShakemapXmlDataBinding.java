@@ -17,23 +17,38 @@
 package org.n52.gfz.riesgos.formats.shakemap.binding;
 
 import org.apache.xmlbeans.XmlObject;
+import org.n52.gfz.riesgos.formats.IRawContentBinding;
+import org.n52.gfz.riesgos.formats.RawContent;
 import org.n52.gfz.riesgos.formats.shakemap.IShakemap;
 import org.n52.gfz.riesgos.formats.shakemap.Shakemap;
 import org.n52.wps.io.data.binding.complex.GenericXMLDataBinding;
 
+import java.util.Optional;
+
 /**
  * Binding class for Shakemaps (XML).
  */
-public final class ShakemapXmlDataBinding extends GenericXMLDataBinding {
+public final class ShakemapXmlDataBinding
+        extends GenericXMLDataBinding
+        implements IRawContentBinding {
 
     private static final long serialVersionUID = -2049159915689920061L;
 
+    /**
+     * Bytes the binding was parsed from (may be null).
+     */
+    private final RawContent rawContent;
+
     /**
      * Creates a new shakemap binding object.
      * @param shakemap internal used xml data structure
+     * @param aRawContent bytes the xml was parsed from (may be null)
      */
-    private ShakemapXmlDataBinding(final XmlObject shakemap) {
+    private ShakemapXmlDataBinding(
+            final XmlObject shakemap,
+            final RawContent aRawContent) {
         super(shakemap);
+        this.rawContent = aRawContent;
     }
 
     /**
@@ -50,6 +65,28 @@ public final class ShakemapXmlDataBinding extends GenericXMLDataBinding {
      * @return ShakemapXmlDataBinding
      */
     public static ShakemapXmlDataBinding fromXml(final XmlObject shakemap) {
-        return new ShakemapXmlDataBinding(shakemap);
+        return new ShakemapXmlDataBinding(shakemap, null);
+    }
+
+    /**
+     * Creates a new shakemap binding from a xml object and the bytes
+     * it was parsed from.
+     * @param shakemap xml with the data of the shakemap
+     * @param rawContent bytes the xml was parsed from
+     * @return ShakemapXmlDataBinding
+     */
+    public static ShakemapXmlDataBinding fromXml(
+            final XmlObject shakemap,
+            final Optional<RawContent> rawContent) {
+        return new ShakemapXmlDataBinding(shakemap, rawContent.orElse(null));
+    }
+
+    /**
+     *
+     * @return optional bytes the binding was parsed from
+     */
+    @Override
+    public Optional<RawContent> getRawContent() {
+        return Optional.ofNullable(rawContent);
     }
 }
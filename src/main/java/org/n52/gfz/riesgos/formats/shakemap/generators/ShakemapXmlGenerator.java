@@ -27,6 +27,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.InputStream;
+import java.util.Optional;
 
 /**
  * Xml Generator for shakemaps.
@@ -72,6 +73,11 @@ public class ShakemapXmlGenerator
         if (data instanceof ShakemapXmlDataBinding) {
             final ShakemapXmlDataBinding binding =
                     (ShakemapXmlDataBinding) data;
+            final Optional<InputStream> rawContent =
+                    binding.getRawContentStream(mimeType, schema);
+            if (rawContent.isPresent()) {
+                return rawContent.get();
+            }
             final XmlObject xmlObject = binding.getPayload();
             return xmlObject.newInputStream();
         } else {
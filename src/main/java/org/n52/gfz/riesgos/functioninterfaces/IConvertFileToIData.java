@@ -0,0 +1,45 @@
+package org.n52.gfz.riesgos.functioninterfaces;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.gfz.riesgos.exceptions.ConvertToIDataException;
+import org.n52.wps.io.data.IData;
+
+import java.io.File;
+import java.io.Serializable;
+
+/**
+ * Interface to convert a file on the host to an IData element.
+ * Converters for bindings that are backed by a file can implement this
+ * in addition to IConvertByteArrayToIData, so that large outputs are
+ * copied to a scratch file and must not be loaded into memory.
+ * @param <T> Type of data
+ */
+@FunctionalInterface
+public interface IConvertFileToIData<T extends IData> extends Serializable {
+    /**
+     * Converts the content of the file to an IData element.
+     * The file itself is not changed, so it can be used again to
+     * recreate the element. The element must not refer to the file,
+     * because the file may be deleted after the conversion.
+     * @param file file with the content
+     * @return IData element
+     * @throws ConvertToIDataException exception if there is an internal error /
+     *                                 exception on conversion
+     */
+    T convertToIData(File file) throws ConvertToIDataException;
+}
@@ -0,0 +1,43 @@
+package org.n52.gfz.riesgos.functioninterfaces;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import org.n52.gfz.riesgos.exceptions.ConvertToBytesException;
+import org.n52.wps.io.data.IData;
+
+import java.io.File;
+
+/**
+ * Interface to get the file on the host that holds the content
+ * of an IData element.
+ * Converters for bindings that are backed by a file can implement this
+ * in addition to IConvertIDataToByteArray, so that the file can be
+ * streamed into the container without loading it into memory.
+ * @param <T> Type of data
+ */
+@FunctionalInterface
+public interface IConvertIDataToFile<T extends IData> {
+
+    /**
+     * Gives back the file with the content of the IData.
+     * @param iData element to convert
+     * @return file on the host
+     * @throws ConvertToBytesException exception that indicates that the
+     *                                 element has no file with the content
+     */
+    File convertToFile(T iData) throws ConvertToBytesException;
+}
@@ -35,4 +35,17 @@ public interface IStderrHandler extends Serializable {
      */
     void handleStderr(String stderr, ILogger logger)
         throws NonEmptyStderrException;
+
+    /**
+     * Checks a single line of stderr while the process is still running.
+     * If a line shows that the process failed, the run is stopped
+     * early (after a short time to write the rest of the error message)
+     * and the stderr text up to that point is given to handleStderr.
+     * The default implementation never stops a run.
+     * @param line line of stderr (without the line separator)
+     * @return true if the line shows that the process failed
+     */
+    default boolean isFailureLine(final String line) {
+        return false;
+    }
 }
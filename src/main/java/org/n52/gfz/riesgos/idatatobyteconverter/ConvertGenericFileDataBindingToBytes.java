@@ -19,6 +19,7 @@ package org.n52.gfz.riesgos.idatatobyteconverter;
 import org.apache.commons.io.IOUtils;
 import org.n52.gfz.riesgos.exceptions.ConvertToBytesException;
 import org.n52.gfz.riesgos.functioninterfaces.IConvertIDataToByteArray;
+import org.n52.gfz.riesgos.functioninterfaces.IConvertIDataToFile;
 import org.n52.wps.io.data.binding.complex.GenericFileDataBinding;
 
 import java.io.File;
@@ -30,7 +31,8 @@ import java.util.Objects;
  * Implementation to convert a file binding to a byte array.
  */
 public final class ConvertGenericFileDataBindingToBytes
-    implements IConvertIDataToByteArray<GenericFileDataBinding> {
+    implements IConvertIDataToByteArray<GenericFileDataBinding>,
+    IConvertIDataToFile<GenericFileDataBinding> {
 
     @Override
     public byte[] convertToBytes(final GenericFileDataBinding binding)
@@ -45,6 +47,11 @@ public final class ConvertGenericFileDataBindingToBytes
 
     }
 
+    @Override
+    public File convertToFile(final GenericFileDataBinding binding) {
+        return binding.getPayload().getBaseFile(false);
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) {
@@ -19,6 +19,7 @@ package org.n52.gfz.riesgos.idatatobyteconverter;
 import org.apache.commons.io.IOUtils;
 import org.n52.gfz.riesgos.exceptions.ConvertToBytesException;
 import org.n52.gfz.riesgos.functioninterfaces.IConvertIDataToByteArray;
+import org.n52.gfz.riesgos.functioninterfaces.IConvertIDataToFile;
 import org.n52.wps.io.data.binding.complex.GeotiffBinding;
 
 import java.io.File;
@@ -30,7 +31,8 @@ import java.util.Objects;
  * Implementation to convert a GeotiffBinding to a byte array.
  */
 public final class ConvertGeotiffBindingToBytes
-    implements IConvertIDataToByteArray<GeotiffBinding> {
+    implements IConvertIDataToByteArray<GeotiffBinding>,
+    IConvertIDataToFile<GeotiffBinding> {
 
     @Override
     public byte[] convertToBytes(final GeotiffBinding binding)
@@ -44,6 +46,11 @@ public final class ConvertGeotiffBindingToBytes
         }
     }
 
+    @Override
+    public File convertToFile(final GeotiffBinding binding) {
+        return binding.getPayload();
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) {
@@ -0,0 +1,131 @@
+package org.n52.gfz.riesgos.idatatobyteconverter;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.n52.gfz.riesgos.exceptions.ConvertToBytesException;
+import org.n52.gfz.riesgos.functioninterfaces.IConvertIDataToByteArray;
+import org.n52.gfz.riesgos.functioninterfaces.IConvertIDataToFile;
+import org.n52.wps.io.data.IData;
+
+import java.util.Objects;
+
+/**
+ * Function to convert the IData to a byte array that hands
+ * the result of a conversion over to the next conversion of the
+ * very same IData element.
+ *
+ * The input of a request is converted once to compute the cache key
+ * and once more to give it to the program. With this wrapper the
+ * second conversion takes the bytes of the first one.
+ * The bytes are only held as long as the IData element itself exists
+ * and as long as there is enough memory.
+ *
+ * @param <T> Type of data
+ */
+public final class ReuseConvertedBytes<T extends IData>
+        implements IConvertIDataToByteArray<T> {
+
+    /**
+     * Inner function to convert the data.
+     */
+    private final IConvertIDataToByteArray<T> converter;
+
+    /**
+     * Bytes of the last conversion per IData element
+     * (compared by identity).
+     */
+    private final Cache<IData, byte[]> convertedBytes;
+
+    /**
+     * Constructor with the inner converter.
+     * @param aConverter function to convert the data
+     */
+    private ReuseConvertedBytes(final IConvertIDataToByteArray<T> aConverter) {
+        this.converter = aConverter;
+        this.convertedBytes = CacheBuilder.newBuilder()
+                .weakKeys()
+                .softValues()
+                .build();
+    }
+
+    /**
+     * Wraps the converter so that converted bytes can be reused.
+     * Converters that give back files are not wrapped, as those
+     * files are streamed and never loaded into memory.
+     * @param converter function to convert the data (may be null)
+     * @param <T> Type of data
+     * @return wrapped converter
+     */
+    public static <T extends IData> IConvertIDataToByteArray<T> wrap(
+            final IConvertIDataToByteArray<T> converter) {
+        if (converter == null
+                || converter instanceof IConvertIDataToFile
+                || converter instanceof ReuseConvertedBytes) {
+            return converter;
+        }
+        return new ReuseConvertedBytes<>(converter);
+    }
+
+    /**
+     * Gives back the bytes of the last conversion of this element
+     * (and forgets them) or converts the element and keeps the bytes
+     * for the next conversion.
+     * @param iData element to convert
+     * @return byte array
+     * @throws ConvertToBytesException exception that indicates that the
+     * element could not converted to byte array
+     */
+    @Override
+    public byte[] convertToBytes(final T iData)
+            throws ConvertToBytesException {
+        final byte[] reused = convertedBytes.asMap().remove(iData);
+        if (reused != null) {
+            return reused;
+        }
+        final byte[] content = converter.convertToBytes(iData);
+        convertedBytes.put(iData, content);
+        return content;
+    }
+
+    /**
+     * Tests equality.
+     * @param o other object
+     * @return true if both are equal
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final ReuseConvertedBytes<?> that = (ReuseConvertedBytes<?>) o;
+        return Objects.equals(converter, that.converter);
+    }
+
+    /**
+     *
+     * @return hashcode of the object
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(converter);
+    }
+}
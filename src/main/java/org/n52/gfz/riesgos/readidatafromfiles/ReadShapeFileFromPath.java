@@ -16,7 +16,6 @@ package org.n52.gfz.riesgos.readidatafromfiles;
  *  limitations under the Licence.
  */
 
-import org.apache.commons.io.IOUtils;
 import org.geotools.data.DataStore;
 import org.geotools.data.shapefile.ShapefileDataStore;
 import org.geotools.data.simple.SimpleFeatureCollection;
@@ -27,9 +26,11 @@ import org.n52.gfz.riesgos.functioninterfaces.IReadIDataFromFiles;
 import org.n52.gfz.riesgos.writeidatatofiles.WriteShapeFileToPath;
 import org.n52.wps.io.data.binding.complex.GTVectorDataBinding;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -59,6 +60,7 @@ public final class ReadShapeFileFromPath
             outputFileTemplate
         ).toString();
         final String outputFilePathShp = outputFileTemplatePath + ".shp";
+        long sizeInBytes = 0L;
 
         for (final WriteShapeFileToPath.SingleFile singleFile
             : WriteShapeFileToPath.SingleFile.values()
@@ -66,15 +68,18 @@ public final class ReadShapeFileFromPath
             final String pathToRead = singleFile
                 .getSpecificPathByShapeFilePath(path);
 
-            final byte[] content = context.readFromFile(
-                Paths.get(workingDirectory, pathToRead).toString()
-            );
-
             final File tempOutFile = new File(
                 outputFileTemplatePath + singleFile.getEnding()
             );
-            writeFile(tempOutFile, content);
             tempOutFile.deleteOnExit();
+            try (OutputStream outputStream = new BufferedOutputStream(
+                new FileOutputStream(tempOutFile))) {
+                context.readFromFile(
+                    Paths.get(workingDirectory, pathToRead).toString(),
+                    outputStream
+                );
+            }
+            sizeInBytes += tempOutFile.length();
         }
 
         // that code is reused from GTBinZippedSHPParser
@@ -89,25 +94,14 @@ public final class ReadShapeFileFromPath
 
         // the recreate because we know that there is no temporary file
         // involved here
+        // the size of the files is the best estimation for the size
+        // of the features in memory
         return new DataWithRecreatorTuple<>(
             binding,
-            new RecreateFromBindingClass(binding)
+            new RecreateFromBindingClass(binding, sizeInBytes)
         );
     }
 
-    /**
-     * Helper function to write a file with given contents.
-     * @param file File to write to
-     * @param content Content to be written
-     * @throws IOException For errors while writing
-     */
-    private void writeFile(final File file, final byte[] content)
-            throws IOException {
-        try (FileOutputStream outputStream = new FileOutputStream(file)) {
-            IOUtils.write(content, outputStream);
-        }
-    }
-
     @Override
     public boolean equals(final Object o) {
         if (this == o) {
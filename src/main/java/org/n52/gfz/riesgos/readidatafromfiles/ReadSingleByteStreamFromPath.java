@@ -18,13 +18,19 @@ package org.n52.gfz.riesgos.readidatafromfiles;
 
 import org.n52.gfz.riesgos.cache.DataWithRecreatorTuple;
 import org.n52.gfz.riesgos.cache.RecreateFromByteArray;
+import org.n52.gfz.riesgos.cache.RecreateFromFile;
 import org.n52.gfz.riesgos.cmdexecution.IExecutionContext;
 import org.n52.gfz.riesgos.exceptions.ConvertToIDataException;
 import org.n52.gfz.riesgos.functioninterfaces.IConvertByteArrayToIData;
+import org.n52.gfz.riesgos.functioninterfaces.IConvertFileToIData;
 import org.n52.gfz.riesgos.functioninterfaces.IReadIDataFromFiles;
 import org.n52.wps.io.data.IData;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Paths;
 import java.util.Objects;
 
@@ -70,6 +76,13 @@ public final class ReadSingleByteStreamFromPath<T extends IData>
         final String workingDirectory,
         final String path
     ) throws ConvertToIDataException, IOException {
+        if (converter instanceof IConvertFileToIData) {
+            return readFromScratchFile(
+                context,
+                Paths.get(workingDirectory, path).toString(),
+                (IConvertFileToIData<T>) converter
+            );
+        }
         final byte[] content = context.readFromFile(
             Paths.get(workingDirectory, path).toString()
         );
@@ -79,6 +92,33 @@ public final class ReadSingleByteStreamFromPath<T extends IData>
         );
     }
 
+    /**
+     * Streams the file into a scratch file on the host and converts
+     * it from there, so that the content is never loaded into memory.
+     * @param context context to read the file from
+     * @param path full path of the file
+     * @param fileConverter converter for the scratch file
+     * @return data with the recreator that uses the scratch file
+     * @throws ConvertToIDataException exception on converting
+     * @throws IOException exception on reading the file
+     */
+    private DataWithRecreatorTuple<T> readFromScratchFile(
+        final IExecutionContext context,
+        final String path,
+        final IConvertFileToIData<T> fileConverter
+    ) throws ConvertToIDataException, IOException {
+        final File scratchFile = File.createTempFile("readFromFile", ".dat");
+        scratchFile.deleteOnExit();
+        try (OutputStream outputStream = new BufferedOutputStream(
+            new FileOutputStream(scratchFile))) {
+            context.readFromFile(path, outputStream);
+        }
+        return new DataWithRecreatorTuple<>(
+            fileConverter.convertToIData(scratchFile),
+            new RecreateFromFile(scratchFile, fileConverter, bindingClass)
+        );
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) {
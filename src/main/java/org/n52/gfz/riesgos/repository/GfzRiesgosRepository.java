@@ -16,6 +16,10 @@ package org.n52.gfz.riesgos.repository;
  * limitations under the Licence.
  */
 
+import org.n52.gfz.riesgos.cmdexecution.docker.ContainerPoolSingleton;
+import org.n52.gfz.riesgos.cmdexecution.docker.ContainerReaperSingleton;
+import org.n52.gfz.riesgos.cmdexecution.docker.DockerCliContainerLifecycle;
+import org.n52.gfz.riesgos.cmdexecution.dockerapi.DockerApiClientRegistry;
 import org.n52.gfz.riesgos.formats.geotiff.parsers.GeotiffParser;
 import org.n52.gfz.riesgos.formats.json.generators.JsonGenerator;
 import org.n52.gfz.riesgos.formats.json.parsers.JsonParser;
@@ -50,6 +54,7 @@ import org.n52.wps.webapp.api.ConfigurationModule;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
@@ -84,6 +89,30 @@ public class GfzRiesgosRepository implements ITransactionalAlgorithmRepository {
         } else {
             throw new RuntimeException("Configuration Module has wrong type");
         }
+
+        removeLeftoverContainers();
+    }
+
+    /**
+     * Removes the containers that were left behind by an earlier run
+     * of the server (only if it is configured, as other servers that
+     * share the docker daemon may still use their containers).
+     */
+    private void removeLeftoverContainers() {
+        final int minAgeMinutes =
+                configurationModule.getContainerCleanupMinAgeMinutes();
+        if (minAgeMinutes <= 0) {
+            return;
+        }
+        final long minAgeMillis = TimeUnit.MINUTES.toMillis(minAgeMinutes);
+        ContainerReaperSingleton.INSTANCE.removeLeftovers(
+                DockerCliContainerLifecycle.MANAGED_LABEL,
+                false, minAgeMillis);
+        // the idle containers of the pool of an earlier run are still
+        // running if the server was killed
+        ContainerReaperSingleton.INSTANCE.removeLeftovers(
+                DockerCliContainerLifecycle.POOL_LABEL,
+                true, minAgeMillis);
     }
 
     /**
@@ -200,10 +229,15 @@ public class GfzRiesgosRepository implements ITransactionalAlgorithmRepository {
 
     /**
      * Shutdown-Hook.
+     * Removes the idle containers of the container pool and the used
+     * containers that are still waiting for their removal
+     * and closes the idle connections to the docker engine api.
      */
     @Override
     public void shutdown() {
-        // nothing to do
+        ContainerPoolSingleton.INSTANCE.shutdown();
+        ContainerReaperSingleton.INSTANCE.shutdown();
+        DockerApiClientRegistry.INSTANCE.close();
     }
 
     /**
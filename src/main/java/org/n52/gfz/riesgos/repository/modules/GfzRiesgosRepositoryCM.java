@@ -21,9 +21,20 @@ import org.n52.gfz.riesgos.algorithm.BaseGfzRiesgosService;
 import org.n52.gfz.riesgos.algorithm.CachedProcess;
 import org.n52.gfz.riesgos.algorithm.ReadDataFromCacheProcess;
 import org.n52.gfz.riesgos.algorithm.TransformDataFormatProcess;
+import org.n52.gfz.riesgos.cache.dockerimagehandling.DockerImageIdLookupSingleton;
 import org.n52.gfz.riesgos.cache.hash.HasherSingleton;
 import org.n52.gfz.riesgos.cache.impl.CacheSingleton;
+import org.n52.gfz.riesgos.cache.negative.FailureType;
+import org.n52.gfz.riesgos.cache.negative.NegativeCacheSingleton;
+import org.n52.gfz.riesgos.cache.singleflight.ISingleFlight;
+import org.n52.gfz.riesgos.cache.singleflight.SingleFlightSingleton;
+import org.n52.gfz.riesgos.cache.warmup.CacheWarmupSingleton;
+import org.n52.gfz.riesgos.cmdexecution.admission.AdmissionControllerSingleton;
+import org.n52.gfz.riesgos.cmdexecution.admission.IAdmissionController;
 import org.n52.gfz.riesgos.cmdexecution.docker.DockerExecutionContextManagerFactory;
+import org.n52.gfz.riesgos.cmdexecution.dockerapi.DockerApiClientRegistry;
+import org.n52.gfz.riesgos.cmdexecution.dockerapi.DockerApiExecutionContextManagerFactory;
+import org.n52.gfz.riesgos.cmdexecution.util.IExecutionContextManagerFactory;
 import org.n52.gfz.riesgos.configuration.IConfiguration;
 import org.n52.gfz.riesgos.configuration.IOutputParameter;
 import org.n52.gfz.riesgos.configuration.parse.IParseConfiguration;
@@ -66,8 +77,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -126,6 +139,176 @@ public class GfzRiesgosRepositoryCM extends ClassKnowingModule {
      */
     private static final String CONFIG_KEY = "json_configuration";
 
+    /**
+     * The key for the backend that is used to talk with docker.
+     */
+    private static final String DOCKER_BACKEND_KEY = "docker_backend";
+
+    /**
+     * The key for the endpoint of the docker engine api.
+     */
+    private static final String DOCKER_API_ENDPOINT_KEY =
+            "docker_api_endpoint";
+
+    /**
+     * The key for the maximum number of runs at the same time.
+     */
+    private static final String MAX_CONCURRENT_RUNS_KEY =
+            "max_concurrent_runs";
+
+    /**
+     * The key for the maximum number of runs that wait to start.
+     */
+    private static final String MAX_QUEUED_RUNS_KEY = "max_queued_runs";
+
+    /**
+     * The key for the maximum time (in seconds) that a run waits to start.
+     */
+    private static final String QUEUE_TIMEOUT_SECONDS_KEY =
+            "queue_timeout_seconds";
+
+    /**
+     * The key for the maximum time (in seconds) that a run waits for
+     * an identical run in progress.
+     */
+    private static final String IDENTICAL_RUN_TIMEOUT_SECONDS_KEY =
+            "identical_run_timeout_seconds";
+
+    /**
+     * The key for the minimum age (in minutes) of the containers of
+     * other instances of the server that are removed on startup.
+     */
+    private static final String CONTAINER_CLEANUP_MIN_AGE_MINUTES_KEY =
+            "container_cleanup_min_age_minutes";
+
+    /**
+     * The key for the maximum size (in megabytes) of the cache in memory.
+     */
+    private static final String CACHE_MEMORY_MEGABYTES_KEY =
+            "cache_memory_megabytes";
+
+    /**
+     * Default for the maximum size (in megabytes) of the cache in memory.
+     */
+    private static final String DEFAULT_CACHE_MEMORY_MEGABYTES = "256";
+
+    /**
+     * The key for the minimum size (in kilobytes) of a result to keep it
+     * compressed in memory.
+     */
+    private static final String CACHE_COMPRESSION_MIN_KILOBYTES_KEY =
+            "cache_compression_min_kilobytes";
+
+    /**
+     * Default for the minimum size (in kilobytes) of a result to keep it
+     * compressed in memory.
+     */
+    private static final String DEFAULT_CACHE_COMPRESSION_MIN_KILOBYTES =
+            "64";
+
+    /**
+     * The key for the folder of the cache on disk.
+     */
+    private static final String CACHE_FOLDER_KEY = "cache_folder";
+
+    /**
+     * The key for the maximum size (in megabytes) of the cache on disk.
+     */
+    private static final String CACHE_MAX_MEGABYTES_KEY =
+            "cache_max_megabytes";
+
+    /**
+     * Default for the maximum size (in megabytes) of the cache on disk.
+     */
+    private static final String DEFAULT_CACHE_MAX_MEGABYTES = "1024";
+
+    /**
+     * The key for the address of this server for the other servers
+     * that share the cached results.
+     */
+    private static final String CACHE_PEER_ADDRESS_KEY =
+            "cache_peer_address";
+
+    /**
+     * The key for the addresses of all the servers that share the
+     * cached results.
+     */
+    private static final String CACHE_PEERS_KEY = "cache_peers";
+
+    /**
+     * The key for the shared secret of all the servers that share
+     * the cached results.
+     */
+    private static final String CACHE_PEER_SECRET_KEY = "cache_peer_secret";
+
+    /**
+     * The key for the manifest with the runs to warm up the cache.
+     */
+    private static final String CACHE_WARMUP_MANIFEST_KEY =
+            "cache_warmup_manifest";
+
+    /**
+     * The key for the maximum number of runs at the same time
+     * to warm up the cache.
+     */
+    private static final String CACHE_WARMUP_PARALLEL_RUNS_KEY =
+            "cache_warmup_parallel_runs";
+
+    /**
+     * Default for the maximum number of runs at the same time
+     * to warm up the cache.
+     */
+    private static final String DEFAULT_CACHE_WARMUP_PARALLEL_RUNS = "2";
+
+    /**
+     * The key for the time (in seconds) to remember failed runs.
+     */
+    private static final String NEGATIVE_CACHE_SECONDS_KEY =
+            "negative_cache_seconds";
+
+    /**
+     * The key for the types of the failures to remember.
+     */
+    private static final String NEGATIVE_CACHE_FAILURE_TYPES_KEY =
+            "negative_cache_failure_types";
+
+    /**
+     * Default for the types of the failures to remember.
+     */
+    private static final String DEFAULT_NEGATIVE_CACHE_FAILURE_TYPES =
+            "STDERR,EXIT_VALUE,INVALID_INPUT";
+
+    /**
+     * Number of bytes in a megabyte.
+     */
+    private static final long BYTES_PER_MEGABYTE = 1024L * 1024L;
+
+    /**
+     * Number of bytes in a kilobyte.
+     */
+    private static final long BYTES_PER_KILOBYTE = 1024L;
+
+    /**
+     * Value for the limits of the admission control to use no limit.
+     */
+    private static final String NO_LIMIT = "0";
+
+    /**
+     * Value of the docker backend to use the docker command line client.
+     */
+    private static final String DOCKER_BACKEND_CLI = "cli";
+
+    /**
+     * Value of the docker backend to use the docker engine api.
+     */
+    private static final String DOCKER_BACKEND_API = "api";
+
+    /**
+     * Default endpoint of the docker engine api.
+     */
+    private static final String DEFAULT_DOCKER_API_ENDPOINT =
+            "unix:///var/run/docker.sock";
+
     /**
      * Logger for the class.
      */
@@ -167,6 +350,113 @@ public class GfzRiesgosRepositoryCM extends ClassKnowingModule {
      */
     private final ConfigurationEntry<String> jsonConfigurationFolder;
 
+    /**
+     * Wrapper around the string to store the backend to talk with docker
+     * ("cli" or "api").
+     */
+    private final ConfigurationEntry<String> dockerBackend;
+
+    /**
+     * Wrapper around the string to store the endpoint
+     * of the docker engine api.
+     */
+    private final ConfigurationEntry<String> dockerApiEndpoint;
+
+    /**
+     * Wrapper around the string to store the maximum number of
+     * runs at the same time.
+     */
+    private final ConfigurationEntry<String> maxConcurrentRuns;
+
+    /**
+     * Wrapper around the string to store the maximum number of
+     * runs that wait to start.
+     */
+    private final ConfigurationEntry<String> maxQueuedRuns;
+
+    /**
+     * Wrapper around the string to store the maximum time (in seconds)
+     * that a run waits to start.
+     */
+    private final ConfigurationEntry<String> queueTimeoutSeconds;
+
+    /**
+     * Wrapper around the string to store the maximum time (in seconds)
+     * that a run waits for an identical run in progress.
+     */
+    private final ConfigurationEntry<String> identicalRunTimeoutSeconds;
+
+    /**
+     * Wrapper around the string to store the minimum age (in minutes)
+     * of the containers of other instances that are removed on startup.
+     */
+    private final ConfigurationEntry<String> containerCleanupMinAgeMinutes;
+
+    /**
+     * Wrapper around the string to store the maximum size
+     * (in megabytes) of the cache in memory.
+     */
+    private final ConfigurationEntry<String> cacheMemoryMegabytes;
+
+    /**
+     * Wrapper around the string to store the minimum size
+     * (in kilobytes) of a result to keep it compressed in memory.
+     */
+    private final ConfigurationEntry<String> cacheCompressionMinKilobytes;
+
+    /**
+     * Wrapper around the string to store the folder of the cache on disk.
+     */
+    private final ConfigurationEntry<String> cacheFolder;
+
+    /**
+     * Wrapper around the string to store the maximum size
+     * (in megabytes) of the cache on disk.
+     */
+    private final ConfigurationEntry<String> cacheMaxMegabytes;
+
+    /**
+     * Wrapper around the string to store the address of this server
+     * for the other servers that share the cached results.
+     */
+    private final ConfigurationEntry<String> cachePeerAddress;
+
+    /**
+     * Wrapper around the string to store the addresses of all the
+     * servers that share the cached results.
+     */
+    private final ConfigurationEntry<String> cachePeers;
+
+    /**
+     * Wrapper around the string to store the shared secret of all the
+     * servers that share the cached results.
+     */
+    private final ConfigurationEntry<String> cachePeerSecret;
+
+    /**
+     * Wrapper around the string to store the manifest with the runs
+     * to warm up the cache.
+     */
+    private final ConfigurationEntry<String> cacheWarmupManifest;
+
+    /**
+     * Wrapper around the string to store the maximum number of runs
+     * at the same time to warm up the cache.
+     */
+    private final ConfigurationEntry<String> cacheWarmupParallelRuns;
+
+    /**
+     * Wrapper around the string to store the time (in seconds)
+     * to remember failed runs.
+     */
+    private final ConfigurationEntry<String> negativeCacheSeconds;
+
+    /**
+     * Wrapper around the string to store the types of the failures
+     * to remember.
+     */
+    private final ConfigurationEntry<String> negativeCacheFailureTypes;
+
     /**
      * Boolean to indicate if this repository is active
      * or not.
@@ -185,8 +475,149 @@ public class GfzRiesgosRepositoryCM extends ClassKnowingModule {
                 + "/ remove / configure the wps processes that use the "
                 + "skeleton to run command line processes in docker.",
                 true, DEFAULT_CONFIGURATION_FOLDER);
-        configurationEntries = Collections.singletonList(
-                jsonConfigurationFolder);
+        dockerBackend = new StringConfigurationEntry(
+                DOCKER_BACKEND_KEY,
+                "Docker Backend",
+                "Backend to talk with docker: 'cli' uses the docker "
+                + "command line client, 'api' uses the docker engine api "
+                + "(and falls back to the command line client if the "
+                + "api can't be reached).",
+                true, DOCKER_BACKEND_CLI);
+        dockerApiEndpoint = new StringConfigurationEntry(
+                DOCKER_API_ENDPOINT_KEY,
+                "Docker API Endpoint",
+                "Endpoint of the docker engine api, for example "
+                + DEFAULT_DOCKER_API_ENDPOINT + " or tcp://localhost:2375. "
+                + "Only used if the docker backend is 'api'.",
+                true, DEFAULT_DOCKER_API_ENDPOINT);
+        maxConcurrentRuns = new StringConfigurationEntry(
+                MAX_CONCURRENT_RUNS_KEY,
+                "Maximum Concurrent Runs",
+                "Maximum number of processes that run at the same time "
+                + "on this server (0 for no limit). The limits for single "
+                + "docker images are set with maxConcurrentRuns in the "
+                + "json configurations.",
+                true, NO_LIMIT);
+        maxQueuedRuns = new StringConfigurationEntry(
+                MAX_QUEUED_RUNS_KEY,
+                "Maximum Queued Runs",
+                "Maximum number of processes that wait to start "
+                + "(0 for no limit). Further requests are rejected.",
+                true, NO_LIMIT);
+        queueTimeoutSeconds = new StringConfigurationEntry(
+                QUEUE_TIMEOUT_SECONDS_KEY,
+                "Queue Timeout Seconds",
+                "Maximum time in seconds that a process waits to start "
+                + "(0 for no limit). After that the request is rejected.",
+                true, NO_LIMIT);
+        identicalRunTimeoutSeconds = new StringConfigurationEntry(
+                IDENTICAL_RUN_TIMEOUT_SECONDS_KEY,
+                "Identical Run Timeout Seconds",
+                "Maximum time in seconds that a process waits for the "
+                + "result of an identical request that is already running "
+                + "(0 for no limit). After that the request is rejected.",
+                true, NO_LIMIT);
+        containerCleanupMinAgeMinutes = new StringConfigurationEntry(
+                CONTAINER_CLEANUP_MIN_AGE_MINUTES_KEY,
+                "Container Cleanup Minimum Age Minutes",
+                "If set, the server removes on startup the containers "
+                + "that other instances of the server left behind and "
+                + "that are older than this number of minutes (also the "
+                + "running containers of the pool). Only for servers that "
+                + "don't share the docker daemon (0 to remove nothing).",
+                false, NO_LIMIT);
+        cacheMemoryMegabytes = new StringConfigurationEntry(
+                CACHE_MEMORY_MEGABYTES_KEY,
+                "Cache Memory Megabytes",
+                "Maximum size in megabytes of the cached results in memory. "
+                + "Large results count more than small ones.",
+                true, DEFAULT_CACHE_MEMORY_MEGABYTES);
+        cacheCompressionMinKilobytes = new StringConfigurationEntry(
+                CACHE_COMPRESSION_MIN_KILOBYTES_KEY,
+                "Cache Compression Minimum Kilobytes",
+                "Minimum size in kilobytes of a result to keep it "
+                + "compressed in memory (0 to never compress).",
+                false, DEFAULT_CACHE_COMPRESSION_MIN_KILOBYTES);
+        cacheFolder = new StringConfigurationEntry(
+                CACHE_FOLDER_KEY,
+                "Cache Folder",
+                "Folder to store the cached results on disk, so that they "
+                + "survive a restart of the server (empty to keep them "
+                + "only in memory).",
+                false, "");
+        cacheMaxMegabytes = new StringConfigurationEntry(
+                CACHE_MAX_MEGABYTES_KEY,
+                "Cache Maximum Megabytes",
+                "Maximum size in megabytes of the cached results on disk. "
+                + "The least recently used results are removed first.",
+                true, DEFAULT_CACHE_MAX_MEGABYTES);
+        cachePeerAddress = new StringConfigurationEntry(
+                CACHE_PEER_ADDRESS_KEY,
+                "Cache Peer Address",
+                "Address (host:port) of this server for the other servers "
+                + "that share the cached results (empty to not share "
+                + "them). The server listens only on this host. "
+                + "The port must only be reachable for them.",
+                false, "");
+        cachePeers = new StringConfigurationEntry(
+                CACHE_PEERS_KEY,
+                "Cache Peers",
+                "Comma separated addresses (host:port) of all the servers "
+                + "that share the cached results.",
+                false, "");
+        cachePeerSecret = new StringConfigurationEntry(
+                CACHE_PEER_SECRET_KEY,
+                "Cache Peer Secret",
+                "Shared secret of all the servers that share the cached "
+                + "results (the same on each of them). The results are "
+                + "not shared without it.",
+                false, "");
+        cacheWarmupManifest = new StringConfigurationEntry(
+                CACHE_WARMUP_MANIFEST_KEY,
+                "Cache Warmup Manifest",
+                "Json file with the runs (process and inputs) that are "
+                + "executed in the background on startup, so that their "
+                + "results are in the cache (empty for no warm up).",
+                false, "");
+        cacheWarmupParallelRuns = new StringConfigurationEntry(
+                CACHE_WARMUP_PARALLEL_RUNS_KEY,
+                "Cache Warmup Parallel Runs",
+                "Maximum number of runs of the warm up at the same time.",
+                false, DEFAULT_CACHE_WARMUP_PARALLEL_RUNS);
+        negativeCacheSeconds = new StringConfigurationEntry(
+                NEGATIVE_CACHE_SECONDS_KEY,
+                "Negative Cache Seconds",
+                "Time in seconds to remember failed runs, so that "
+                + "identical requests fail at once without running "
+                + "the process again (0 to remember nothing).",
+                false, NO_LIMIT);
+        negativeCacheFailureTypes = new StringConfigurationEntry(
+                NEGATIVE_CACHE_FAILURE_TYPES_KEY,
+                "Negative Cache Failure Types",
+                "Comma separated types of the failures to remember "
+                + "(STDERR, EXIT_VALUE, INVALID_INPUT, INVALID_OUTPUT). "
+                + "Errors of docker or the server are never remembered.",
+                false, DEFAULT_NEGATIVE_CACHE_FAILURE_TYPES);
+        configurationEntries = Arrays.asList(
+                jsonConfigurationFolder,
+                dockerBackend,
+                dockerApiEndpoint,
+                maxConcurrentRuns,
+                maxQueuedRuns,
+                queueTimeoutSeconds,
+                identicalRunTimeoutSeconds,
+                containerCleanupMinAgeMinutes,
+                cacheMemoryMegabytes,
+                cacheCompressionMinKilobytes,
+                cacheFolder,
+                cacheMaxMegabytes,
+                cachePeerAddress,
+                cachePeers,
+                cachePeerSecret,
+                cacheWarmupManifest,
+                cacheWarmupParallelRuns,
+                negativeCacheSeconds,
+                negativeCacheFailureTypes);
     }
 
     /**
@@ -276,6 +707,11 @@ public class GfzRiesgosRepositoryCM extends ClassKnowingModule {
 
         final List<AlgorithmData> result = new ArrayList<>();
 
+        configureCache();
+        configureNegativeCache();
+        // images may have been built again since the last time
+        DockerImageIdLookupSingleton.INSTANCE.invalidateAll();
+
         // first, insert all the data format transformation processes
         addAlgorithmsOfFormatTransformations(result::add);
 
@@ -299,9 +735,44 @@ public class GfzRiesgosRepositoryCM extends ClassKnowingModule {
         result.addAll(createCacheReaderProcesses(
                 configurationProcesses.values()));
 
+        warmUpCache(result);
+
         return result;
     }
 
+    /**
+     * Starts the warm up of the cache with the runs of the manifest
+     * (if there is one and it changed since the last time).
+     * @param algorithms all the algorithms that can be used in the runs
+     */
+    private void warmUpCache(final List<AlgorithmData> algorithms) {
+        final Map<String, IAlgorithm> algorithmsByName = new HashMap<>();
+        for (final AlgorithmData algorithmData : algorithms) {
+            algorithmsByName.put(
+                    algorithmData.getAlgorithmName(),
+                    algorithmData.getAlgorithm());
+        }
+        final String manifest = cacheWarmupManifest.getValue();
+        final File manifestAsFile;
+        if (manifest == null || manifest.trim().isEmpty()) {
+            manifestAsFile = null;
+        } else {
+            manifestAsFile = new File(manifest.trim());
+        }
+        final int parallelRuns = (int) Math.max(1L, parseNumber(
+                cacheWarmupParallelRuns, DEFAULT_CACHE_WARMUP_PARALLEL_RUNS));
+        CacheWarmupSingleton.INSTANCE.warmUp(
+                manifestAsFile,
+                parallelRuns,
+                identifier -> {
+                    if (algorithmsByName.containsKey(identifier)) {
+                        return Optional.of(algorithmsByName.get(identifier));
+                    }
+                    return Optional.ofNullable(algorithmsByName.get(
+                            IConfiguration.PATH_FULL_QUALIFIED + identifier));
+                });
+    }
+
     /**
      * Creates a collection with the processes to read from the cache.
      * @param configurations all the configurations for whichs output
@@ -404,7 +875,10 @@ public class GfzRiesgosRepositoryCM extends ClassKnowingModule {
                         configuration.getFullQualifiedIdentifier()),
                 HasherSingleton.INSTANCE,
                 CacheSingleton.INSTANCE,
-                new DockerExecutionContextManagerFactory());
+                createExecutionContextManagerFactory(),
+                createAdmissionController(),
+                createSingleFlight(),
+                NegativeCacheSingleton.INSTANCE);
 
         final AlgorithmData algorithmDataForBaseService = new AlgorithmData(
                 configuration.getFullQualifiedIdentifier(), baseService);
@@ -425,6 +899,164 @@ public class GfzRiesgosRepositoryCM extends ClassKnowingModule {
                 algorithmDataForBaseService, algorithmDataForCachedService);
     }
 
+    /**
+     * Creates the factory for the execution context managers
+     * depending on the configured docker backend.
+     * @return factory for the execution context managers
+     */
+    private IExecutionContextManagerFactory
+    createExecutionContextManagerFactory() {
+        final IExecutionContextManagerFactory cliFactory =
+                new DockerExecutionContextManagerFactory();
+        if (DOCKER_BACKEND_API.equalsIgnoreCase(dockerBackend.getValue())) {
+            return new DockerApiExecutionContextManagerFactory(
+                    DockerApiClientRegistry.INSTANCE.getClient(
+                            dockerApiEndpoint.getValue()),
+                    cliFactory);
+        }
+        return cliFactory;
+    }
+
+    /**
+     * Gives back the shared admission control with the configured limits.
+     * @return admission control
+     */
+    private IAdmissionController createAdmissionController() {
+        return AdmissionControllerSingleton.INSTANCE.getController(
+                parseLimit(maxConcurrentRuns),
+                parseLimit(maxQueuedRuns),
+                parseLimit(queueTimeoutSeconds));
+    }
+
+    /**
+     * Sets the sizes of the cache in memory and on disk,
+     * the compression in memory and the folder of the cache on disk.
+     */
+    private void configureCache() {
+        final long memoryMegabytes = parseNumber(
+                cacheMemoryMegabytes, DEFAULT_CACHE_MEMORY_MEGABYTES);
+        final long compressionKilobytes = Math.max(0L, parseNumber(
+                cacheCompressionMinKilobytes,
+                DEFAULT_CACHE_COMPRESSION_MIN_KILOBYTES));
+        final String folder = cacheFolder.getValue();
+        final File folderAsFile;
+        if (folder == null || folder.trim().isEmpty()) {
+            folderAsFile = null;
+        } else {
+            folderAsFile = new File(folder.trim());
+        }
+        final long maxMegabytes = parseNumber(
+                cacheMaxMegabytes, DEFAULT_CACHE_MAX_MEGABYTES);
+        CacheSingleton.INSTANCE.configure(
+                memoryMegabytes * BYTES_PER_MEGABYTE,
+                compressionKilobytes * BYTES_PER_KILOBYTE,
+                folderAsFile,
+                maxMegabytes * BYTES_PER_MEGABYTE);
+        final List<String> peers = new ArrayList<>();
+        final String peersValue = cachePeers.getValue();
+        if (peersValue != null) {
+            for (final String peer : peersValue.split(",")) {
+                if (!peer.trim().isEmpty()) {
+                    peers.add(peer.trim());
+                }
+            }
+        }
+        CacheSingleton.INSTANCE.configurePeers(
+                cachePeerAddress.getValue(), peers,
+                cachePeerSecret.getValue());
+    }
+
+    /**
+     * Sets the time to remember failed runs and the types
+     * of the failures to remember.
+     */
+    private void configureNegativeCache() {
+        final Set<FailureType> failureTypes =
+                EnumSet.noneOf(FailureType.class);
+        final String value = negativeCacheFailureTypes.getValue();
+        final String types;
+        if (value == null) {
+            types = DEFAULT_NEGATIVE_CACHE_FAILURE_TYPES;
+        } else {
+            types = value;
+        }
+        for (final String type : types.split(",")) {
+            if (!type.trim().isEmpty()) {
+                try {
+                    failureTypes.add(FailureType.valueOf(
+                            type.trim().toUpperCase(Locale.ROOT)));
+                } catch (final IllegalArgumentException exception) {
+                    LOGGER.warn("Unknown failure type '" + type.trim()
+                            + "' for '" + negativeCacheFailureTypes.getKey()
+                            + "', it is ignored");
+                }
+            }
+        }
+        NegativeCacheSingleton.INSTANCE.configure(
+                parseLimit(negativeCacheSeconds), failureTypes);
+    }
+
+    /**
+     * Parses a number (for example a size in megabytes).
+     * @param entry configuration entry with the number
+     * @param defaultValue value to use if the number is invalid
+     * @return number of the entry (or the default value)
+     */
+    private static long parseNumber(
+            final ConfigurationEntry<String> entry,
+            final String defaultValue) {
+        final String value = entry.getValue();
+        if (value != null) {
+            try {
+                return Long.parseLong(value.trim());
+            } catch (final NumberFormatException exception) {
+                LOGGER.warn("Invalid value for '" + entry.getKey()
+                        + "', the default is used");
+            }
+        }
+        return Long.parseLong(defaultValue);
+    }
+
+    /**
+     * Gives back the shared coalescing of identical runs
+     * with the configured waiting limit.
+     * @return coalescing of identical runs
+     */
+    private ISingleFlight createSingleFlight() {
+        return SingleFlightSingleton.INSTANCE.getSingleFlight(
+                parseLimit(identicalRunTimeoutSeconds));
+    }
+
+    /**
+     *
+     * @return minimum age in minutes of the containers of other
+     * instances of the server that are removed on startup (0 to
+     * remove nothing)
+     */
+    public int getContainerCleanupMinAgeMinutes() {
+        return parseLimit(containerCleanupMinAgeMinutes);
+    }
+
+    /**
+     * Parses a limit of the admission control or the coalescing
+     * of identical runs.
+     * @param entry configuration entry with the limit
+     * @return limit (0 for no limit or an invalid value)
+     */
+    private static int parseLimit(final ConfigurationEntry<String> entry) {
+        final String value = entry.getValue();
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(value.trim()));
+        } catch (final NumberFormatException exception) {
+            LOGGER.warn("Invalid value for '" + entry.getKey()
+                    + "', there is no limit used");
+            return 0;
+        }
+    }
+
     /**
      *
      * @return list of json files in the given
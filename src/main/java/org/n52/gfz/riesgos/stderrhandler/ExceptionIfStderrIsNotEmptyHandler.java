@@ -48,6 +48,17 @@ public class ExceptionIfStderrIsNotEmptyHandler implements IStderrHandler {
         }
     }
 
+    /**
+     * Any text on stderr is a failure, so the first line
+     * that is not blank stops the run.
+     * @param line line of stderr
+     * @return true if the line is not blank
+     */
+    @Override
+    public boolean isFailureLine(final String line) {
+        return !line.trim().isEmpty();
+    }
+
     /**
      * Tests for equality.
      * @param o other object
@@ -58,6 +58,16 @@ public class PythonTracebackStderrHandler implements IStderrHandler  {
         }
     }
 
+    /**
+     * Checks if the line is the start of a python traceback.
+     * @param line line of stderr
+     * @return true if the line starts a traceback
+     */
+    @Override
+    public boolean isFailureLine(final String line) {
+        return line.contains(TRACEBACK);
+    }
+
     /**
      * Tests for equality.
      * @param o other object
@@ -61,6 +61,16 @@ public class RErrorMessageStderrHandler implements IStderrHandler {
         }
     }
 
+    /**
+     * Checks if the line is the start of an error message of R.
+     * @param line line of stderr
+     * @return true if the line starts with the term "Error"
+     */
+    @Override
+    public boolean isFailureLine(final String line) {
+        return ERROR_PATTERN.matcher(line).find();
+    }
+
     /**
      * Tests equality.
      * @param o other object
@@ -16,14 +16,12 @@ package org.n52.gfz.riesgos.writeidatatofiles;
  *  limitations under the Licence.
  */
 
-import org.apache.commons.io.IOUtils;
 import org.n52.gfz.riesgos.cmdexecution.IExecutionContext;
 import org.n52.gfz.riesgos.functioninterfaces.IWriteIDataToFiles;
 import org.n52.gfz.riesgos.util.FileEndingReplacer;
 import org.n52.wps.io.data.binding.complex.GTVectorDataBinding;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.Objects;
 
@@ -55,11 +53,10 @@ public class WriteShapeFileToPath
         for (final SingleFile singleFile : SingleFile.values()) {
             final File specificFile =
                     singleFile.getSpecificFileByShapeFile(shpFile);
-            final byte[] content = readFile(specificFile);
             final String outPath =
                     singleFile.getSpecificPathByShapeFilePath(path);
 
-            context.writeToFile(content, workingDirectory, outPath);
+            context.writeToFile(specificFile, workingDirectory, outPath);
         }
     }
 
@@ -85,18 +82,6 @@ public class WriteShapeFileToPath
         return Objects.hash(getClass().getName());
     }
 
-    /**
-     *
-     * @param file file to read
-     * @return byte array with the content of that file
-     * @throws IOException exception on reading the file
-     */
-    private byte[] readFile(final File file) throws IOException {
-        try (FileInputStream inputStream = new FileInputStream(file)) {
-            return IOUtils.toByteArray(inputStream);
-        }
-    }
-
     /**
      * Intterface to get the path to a file.
      */
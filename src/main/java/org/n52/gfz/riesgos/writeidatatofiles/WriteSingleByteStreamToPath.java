@@ -19,9 +19,12 @@ package org.n52.gfz.riesgos.writeidatatofiles;
 import org.n52.gfz.riesgos.cmdexecution.IExecutionContext;
 import org.n52.gfz.riesgos.exceptions.ConvertToBytesException;
 import org.n52.gfz.riesgos.functioninterfaces.IConvertIDataToByteArray;
+import org.n52.gfz.riesgos.functioninterfaces.IConvertIDataToFile;
 import org.n52.gfz.riesgos.functioninterfaces.IWriteIDataToFiles;
+import org.n52.gfz.riesgos.idatatobyteconverter.ReuseConvertedBytes;
 import org.n52.wps.io.data.IData;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Objects;
 
@@ -47,7 +50,8 @@ public class WriteSingleByteStreamToPath<T extends IData>
      */
     public WriteSingleByteStreamToPath(
             final IConvertIDataToByteArray<T> aConverter) {
-        this.converter = aConverter;
+        // the bytes converted for the cache key are reused for the file
+        this.converter = ReuseConvertedBytes.wrap(aConverter);
     }
 
     /**
@@ -71,8 +75,15 @@ public class WriteSingleByteStreamToPath<T extends IData>
 
             throws ConvertToBytesException, IOException {
 
-        final byte[] content = converter.convertToBytes(iData);
-        context.writeToFile(content, workingDirectory, path);
+        if (converter instanceof IConvertIDataToFile) {
+            // stream the file instead of loading it into memory
+            final File file =
+                    ((IConvertIDataToFile<T>) converter).convertToFile(iData);
+            context.writeToFile(file, workingDirectory, path);
+        } else {
+            final byte[] content = converter.convertToBytes(iData);
+            context.writeToFile(content, workingDirectory, path);
+        }
     }
 
     /**
@@ -0,0 +1,341 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.algorithm;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNotNull;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.opengis.wps.x20.OutputDefinitionType;
+import org.apache.commons.io.output.NullOutputStream;
+import org.junit.After;
+import org.junit.Test;
+import org.n52.gfz.riesgos.cache.impl.CacheImpl;
+import org.n52.gfz.riesgos.cache.negative.FailureType;
+import org.n52.gfz.riesgos.cache.negative.INegativeCache;
+import org.n52.gfz.riesgos.cache.negative.NegativeCacheImpl;
+import org.n52.gfz.riesgos.cache.negative.NoNegativeCache;
+import org.n52.gfz.riesgos.cache.singleflight.ISingleFlight;
+import org.n52.gfz.riesgos.cache.singleflight.ISingleFlightCall;
+import org.n52.gfz.riesgos.cache.singleflight.NoSingleFlight;
+import org.n52.gfz.riesgos.cache.singleflight.SingleFlightImpl;
+import org.n52.gfz.riesgos.cmdexecution.IExecutionContext;
+import org.n52.gfz.riesgos.cmdexecution.IExecutionContextManager;
+import org.n52.gfz.riesgos.cmdexecution.IExecutionRun;
+import org.n52.gfz.riesgos.cmdexecution.IExecutionRunResult;
+import org.n52.gfz.riesgos.cmdexecution.admission.NoAdmissionController;
+import org.n52.gfz.riesgos.cmdexecution.common.ExecutionRunResultImpl;
+import org.n52.gfz.riesgos.configuration.IConfiguration;
+import org.n52.gfz.riesgos.configuration.parse.formats.json.ParseJsonConfigurationImpl;
+import org.n52.wps.commons.context.ExecutionContext;
+import org.n52.wps.commons.context.ExecutionContextFactory;
+import org.n52.wps.commons.context.OutputTypeWrapper;
+import org.n52.wps.io.data.IData;
+import org.n52.wps.server.ExceptionReport;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tests for the handling of the requested outputs in the base service,
+ * using a fake context manager instead of docker.
+ */
+public class TestBaseGfzRiesgosService {
+
+    private static final String CONFIGURATION = "{" +
+            "\"title\": \"TwoOutputs\"," +
+            "\"imageId\": \"123456\"," +
+            "\"workingDirectory\": \"/usr/share/git/twooutputs\"," +
+            "\"commandToExecute\": \"python3 run.py\"," +
+            "\"output\": [" +
+            "{ \"title\": \"valid\", \"readFrom\": \"file\", \"path\": \"valid.json\", \"type\": \"json\"}," +
+            "{ \"title\": \"broken\", \"readFrom\": \"file\", \"path\": \"broken.json\", \"type\": \"json\"}" +
+            "]" +
+            "}";
+
+    private static final Map<String, List<IData>> NO_INPUTS = Collections.emptyMap();
+
+    @After
+    public void tearDown() {
+        ExecutionContextFactory.unregisterContext();
+    }
+
+    /**
+     * Tests that all the outputs must be readable if no output
+     * is requested explicitly (as all of them are given back then).
+     * @throws Exception should not happen
+     */
+    @Test
+    public void testNoRequestedOutputsMeansAllAreRequested() throws Exception {
+        final FakeContextManager contextManager = new FakeContextManager();
+        final BaseGfzRiesgosService service = createService(contextManager);
+
+        requestOutputs();
+        try {
+            service.run(NO_INPUTS);
+            fail("There must be an exception");
+        } catch (final ExceptionReport exception) {
+            assertEquals(ExceptionReport.REMOTE_COMPUTATION_ERROR, exception.getErrorKey());
+        }
+        assertEquals(1, contextManager.runs.get());
+    }
+
+    /**
+     * Tests that an output that can't be read is ignored if other
+     * outputs are requested explicitly.
+     * @throws Exception should not happen
+     */
+    @Test
+    public void testNotRequestedOutputIsIgnored() throws Exception {
+        final FakeContextManager contextManager = new FakeContextManager();
+        final BaseGfzRiesgosService service = createService(contextManager);
+
+        requestOutputs("valid");
+        final Map<String, IData> result = service.run(NO_INPUTS);
+        assertEquals(Collections.singleton("valid"), result.keySet());
+        assertEquals(1, contextManager.runs.get());
+    }
+
+    /**
+     * Tests that a failure is only remembered for the requested outputs
+     * of the failed run, as errors on reading the other outputs are
+     * ignored.
+     * @throws Exception should not happen
+     */
+    @Test
+    public void testFailureIsRememberedPerRequestedOutputs() throws Exception {
+        final FakeContextManager contextManager = new FakeContextManager();
+        final BaseGfzRiesgosService service = createService(
+                contextManager,
+                new NoSingleFlight(),
+                new NegativeCacheImpl(60_000L, EnumSet.allOf(FailureType.class)));
+
+        requestOutputs("broken");
+        for (int i = 0; i < 2; i++) {
+            try {
+                service.run(NO_INPUTS);
+                fail("There must be an exception");
+            } catch (final ExceptionReport exception) {
+                assertEquals(ExceptionReport.REMOTE_COMPUTATION_ERROR, exception.getErrorKey());
+            }
+        }
+        assertEquals("The second request gets the remembered failure", 1, contextManager.runs.get());
+
+        requestOutputs("valid");
+        final Map<String, IData> result = service.run(NO_INPUTS);
+        assertEquals(Collections.singleton("valid"), result.keySet());
+        assertEquals("The failure is not used for other outputs", 2, contextManager.runs.get());
+    }
+
+    /**
+     * Tests that an identical request that waits for a running one
+     * gets the exception report of the failed run.
+     * @throws Exception should not happen
+     */
+    @Test
+    public void testFollowerGetsTheFailureOfTheLeader() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final FakeContextManager contextManager = new FakeContextManager(release);
+        final CountDownLatch followerJoined = new CountDownLatch(1);
+        final SingleFlightImpl innerSingleFlight = new SingleFlightImpl(0L);
+        final ISingleFlight singleFlight = hash -> {
+            final ISingleFlightCall call = innerSingleFlight.join(hash);
+            if (!call.isLeader()) {
+                followerJoined.countDown();
+            }
+            return call;
+        };
+        final BaseGfzRiesgosService service = createService(contextManager, singleFlight, new NoNegativeCache());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<ExceptionReport> leader = executor.submit(() -> runAndGetFailure(service));
+            assertTrue("The leader runs", contextManager.started.await(5, TimeUnit.SECONDS));
+
+            final Future<ExceptionReport> follower = executor.submit(() -> runAndGetFailure(service));
+            assertTrue("The follower waits", followerJoined.await(5, TimeUnit.SECONDS));
+            release.countDown();
+
+            final ExceptionReport leaderFailure = leader.get(5, TimeUnit.SECONDS);
+            assertNotNull(leaderFailure);
+            assertSame(leaderFailure, follower.get(5, TimeUnit.SECONDS));
+            assertEquals("The process runs only once", 1, contextManager.runs.get());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Requests the broken output in the current thread.
+     * @param service service to run
+     * @return exception report of the failed run (or null if it did not fail)
+     */
+    private static ExceptionReport runAndGetFailure(final BaseGfzRiesgosService service) {
+        requestOutputs("broken");
+        try {
+            service.run(NO_INPUTS);
+            return null;
+        } catch (final ExceptionReport exception) {
+            return exception;
+        } finally {
+            ExecutionContextFactory.unregisterContext();
+        }
+    }
+
+    private static BaseGfzRiesgosService createService(final IExecutionContextManager contextManager) throws Exception {
+        return createService(contextManager, new NoSingleFlight(), new NoNegativeCache());
+    }
+
+    private static BaseGfzRiesgosService createService(
+            final IExecutionContextManager contextManager,
+            final ISingleFlight singleFlight,
+            final INegativeCache negativeCache) throws Exception {
+        final IConfiguration configuration = new ParseJsonConfigurationImpl().parse(CONFIGURATION);
+        return new BaseGfzRiesgosService(
+                configuration,
+                LoggerFactory.getLogger(TestBaseGfzRiesgosService.class),
+                (conf, inputData, requestedParameters) -> "hash",
+                new CacheImpl(),
+                conf -> contextManager,
+                new NoAdmissionController(),
+                singleFlight,
+                negativeCache);
+    }
+
+    /**
+     * Registers the wps execution context of the current thread
+     * with the requested outputs.
+     * @param identifiers ids of the requested outputs
+     */
+    private static void requestOutputs(final String... identifiers) {
+        final List<OutputDefinitionType> outputs = new ArrayList<>();
+        for (final String identifier : identifiers) {
+            final OutputDefinitionType output = OutputDefinitionType.Factory.newInstance();
+            output.setId(identifier);
+            outputs.add(output);
+        }
+        final OutputTypeWrapper wrapper = new OutputTypeWrapper();
+        wrapper.setWps200OutputDefinitionTypes(outputs);
+        ExecutionContextFactory.registerContext(new ExecutionContext(wrapper));
+    }
+
+    /**
+     * Context manager that counts the runs and creates contexts
+     * with a readable and a broken output file.
+     */
+    private static class FakeContextManager implements IExecutionContextManager {
+        private final AtomicInteger runs = new AtomicInteger(0);
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release;
+
+        FakeContextManager() {
+            this(new CountDownLatch(0));
+        }
+
+        /**
+         * @param aRelease latch that must be opened before a run completes
+         */
+        FakeContextManager(final CountDownLatch aRelease) {
+            this.release = aRelease;
+        }
+
+        @Override
+        public IExecutionContext createExecutionContext(final String workingDirectory, final List<String> cmd) {
+            return new FakeContext(this);
+        }
+
+        /**
+         * Called when the process runs (before it completes).
+         */
+        void onRun() {
+            runs.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Context with the output files of a finished run.
+     */
+    private static class FakeContext implements IExecutionContext {
+        private final FakeContextManager manager;
+        private final Map<String, byte[]> files = new HashMap<>();
+
+        FakeContext(final FakeContextManager aManager) {
+            this.manager = aManager;
+            files.put("valid.json", "{\"value\": 1}".getBytes(StandardCharsets.UTF_8));
+            files.put("broken.json", "{[".getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() {
+            // nothing
+        }
+
+        @Override
+        public IExecutionRun run() {
+            manager.onRun();
+            return new IExecutionRun() {
+                @Override
+                public PrintStream getStdin() {
+                    return new PrintStream(new NullOutputStream());
+                }
+
+                @Override
+                public IExecutionRunResult waitForCompletion() {
+                    return new ExecutionRunResultImpl(0, new byte[0], new byte[0]);
+                }
+            };
+        }
+
+        @Override
+        public byte[] readFromFile(final String path) throws IOException {
+            for (final Map.Entry<String, byte[]> file : files.entrySet()) {
+                if (path.endsWith("/" + file.getKey())) {
+                    return file.getValue();
+                }
+            }
+            throw new IOException("No such file: " + path);
+        }
+
+        @Override
+        public void writeToFile(final byte[] content, final String workingDir, final String fileName) {
+            files.put(fileName, content);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.n52.gfz.riesgos.functioninterfaces.IConvertByteArrayToIData;
+import org.n52.wps.io.data.IData;
+import org.n52.wps.io.data.binding.literal.LiteralStringBinding;
+
+/**
+ * Tests for the recreation from byte arrays.
+ */
+public class TestRecreateFromByteArray {
+
+    /**
+     * Number of conversions.
+     */
+    private static final AtomicInteger CONVERSIONS = new AtomicInteger();
+
+    /**
+     * Tests that the content is only converted once
+     * for several recreations.
+     */
+    @Test
+    public void testRecreateOnlyOnce() {
+        CONVERSIONS.set(0);
+        final IConvertByteArrayToIData<IData> converter = content -> {
+            CONVERSIONS.incrementAndGet();
+            return new LiteralStringBinding(
+                    new String(content, StandardCharsets.UTF_8));
+        };
+        final IDataRecreator recreator = new RecreateFromByteArray(
+                "quakeml".getBytes(StandardCharsets.UTF_8),
+                converter,
+                LiteralStringBinding.class);
+
+        final IData first = recreator.recreate();
+        final IData second = recreator.recreate();
+
+        assertSame(first, second);
+        assertEquals(1, CONVERSIONS.get());
+        assertEquals("quakeml", first.getPayload());
+    }
+}
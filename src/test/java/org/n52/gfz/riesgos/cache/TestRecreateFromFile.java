@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.n52.gfz.riesgos.functioninterfaces.IConvertFileToIData;
+import org.n52.wps.io.data.IData;
+import org.n52.wps.io.data.binding.literal.LiteralStringBinding;
+
+/**
+ * Tests for the recreation from files.
+ */
+public class TestRecreateFromFile {
+
+    /**
+     * Last file that was given to the converter.
+     */
+    private static final AtomicReference<File> CONVERTED_FILE =
+            new AtomicReference<>();
+
+    /**
+     * Tests that a recreator read back from a stream does not
+     * leave a scratch file behind.
+     * @throws Exception exception on reading or writing
+     */
+    @Test
+    public void testNoScratchFileAfterDeserialization() throws Exception {
+        final File file = File.createTempFile("testRecreate", ".txt");
+        try {
+            Files.write(file.toPath(),
+                    "shakemap".getBytes(StandardCharsets.UTF_8));
+            final IConvertFileToIData<IData> converter = content -> {
+                CONVERTED_FILE.set(content);
+                try {
+                    return new LiteralStringBinding(new String(
+                            Files.readAllBytes(content.toPath()),
+                            StandardCharsets.UTF_8));
+                } catch (final IOException exception) {
+                    throw new RuntimeException(exception);
+                }
+            };
+            final IDataRecreator recreator = copy(new RecreateFromFile(
+                    file, converter, LiteralStringBinding.class));
+
+            final IData first = recreator.recreate();
+            final File scratchFile = CONVERTED_FILE.get();
+            final IData second = recreator.recreate();
+
+            assertEquals("shakemap", first.getPayload());
+            assertEquals("shakemap", second.getPayload());
+            assertNotNull(scratchFile);
+            assertFalse(scratchFile.exists());
+            assertFalse(CONVERTED_FILE.get().exists());
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    /**
+     * Writes the recreator into a stream and reads it back.
+     * @param recreator recreator to copy
+     * @return recreator read from the stream
+     * @throws Exception exception on reading or writing
+     */
+    private static IDataRecreator copy(final IDataRecreator recreator)
+            throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(recreator);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (IDataRecreator) in.readObject();
+        }
+    }
+}
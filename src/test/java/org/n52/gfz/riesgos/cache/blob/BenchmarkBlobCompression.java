@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.blob;
+
+import com.google.common.io.ByteStreams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the compression of the blobs in the cache.
+ * It measures the time to compress a result (once on insert)
+ * and to uncompress it (on each read from the cache) and logs
+ * the size in memory with and without compression.
+ *
+ * This is no unit test; run it with the main method
+ * (with the test classpath).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkBlobCompression {
+
+    /**
+     * Logger for the sizes of the blobs.
+     */
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(BenchmarkBlobCompression.class);
+
+    /**
+     * Folder with the fixtures.
+     */
+    private static final String FIXTURE_FOLDER =
+            "/org/n52/gfz/riesgos/formats/";
+
+    /**
+     * Fixture to use.
+     */
+    @Param({"quakeml.xml", "nrml.xml"})
+    public String fixture;
+
+    /**
+     * Blob with the uncompressed content of the fixture.
+     */
+    private Blob uncompressed;
+
+    /**
+     * Blob with the compressed content of the fixture.
+     */
+    private Blob compressed;
+
+    /**
+     * Reads the fixture and logs the sizes.
+     * @throws IOException exception on reading the fixture
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        try (InputStream in = BenchmarkBlobCompression.class
+                .getResourceAsStream(FIXTURE_FOLDER + fixture)) {
+            uncompressed = Blob.of(ByteStreams.toByteArray(in));
+        }
+        compressed = uncompressed.compress();
+        LOGGER.info(fixture + ": " + uncompressed.getStoredLength()
+                + " bytes, " + compressed.getStoredLength()
+                + " bytes compressed");
+    }
+
+    /**
+     * Compresses the content of the fixture.
+     * @return blob with the compressed content
+     */
+    @Benchmark
+    public Blob compress() {
+        return Blob.of(uncompressed.getContent()).compress();
+    }
+
+    /**
+     * Reads the content of the compressed blob.
+     * @return uncompressed content
+     */
+    @Benchmark
+    public byte[] readCompressed() {
+        return compressed.getContent();
+    }
+
+    /**
+     * Reads the content of the uncompressed blob.
+     * @return content without compression (for comparison)
+     */
+    @Benchmark
+    public byte[] readUncompressed() {
+        return uncompressed.getContent();
+    }
+
+    /**
+     * Runs the benchmark.
+     * @param args command line arguments (not used)
+     * @throws RunnerException exception on running the benchmark
+     */
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BenchmarkBlobCompression.class.getSimpleName())
+                .build()).run();
+    }
+}
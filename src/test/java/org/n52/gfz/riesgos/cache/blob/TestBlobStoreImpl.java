@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.blob;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNotSame;
+import static junit.framework.TestCase.assertSame;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Tests for the blob store.
+ */
+public class TestBlobStoreImpl {
+
+    /**
+     * Tests that equal content is stored once and dropped
+     * with the last reference.
+     */
+    @Test
+    public void testReferenceCounting() {
+        final IBlobStore store = new BlobStoreImpl();
+        final Blob first = Blob.of(bytes("shakemap"));
+        final Blob second = Blob.of(bytes("shakemap"));
+        final Blob other = Blob.of(bytes("quakeml"));
+
+        assertSame(first, store.acquire(first));
+        assertSame(first, store.acquire(second));
+        assertNotSame(first, store.acquire(other));
+        assertEquals(2, store.getNumberOfBlobs());
+        assertEquals(first.getLength() + other.getLength(),
+                store.getSizeInBytes());
+
+        store.release(second);
+        store.release(other);
+        assertEquals(1, store.getNumberOfBlobs());
+        assertSame(first, store.acquire(Blob.of(bytes("shakemap"))));
+
+        store.release(first);
+        store.release(first);
+        assertEquals(0, store.getNumberOfBlobs());
+        assertEquals(0L, store.getSizeInBytes());
+        assertSame(second, store.acquire(second));
+    }
+
+    /**
+     *
+     * @param text text
+     * @return utf-8 bytes of the text
+     */
+    private static byte[] bytes(final String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.distributed;
+
+import org.junit.After;
+import org.junit.Test;
+import org.n52.gfz.riesgos.cache.ICacher;
+import org.n52.gfz.riesgos.cache.IDataRecreator;
+import org.n52.gfz.riesgos.cache.RecreateFromByteArray;
+import org.n52.gfz.riesgos.cache.blob.BlobStoreImpl;
+import org.n52.gfz.riesgos.cache.impl.CacheImpl;
+import org.n52.wps.io.data.binding.literal.LiteralStringBinding;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+
+/**
+ * Tests for the cache that is shared between several servers.
+ * All the servers run in this jvm.
+ */
+public class TestDistributedCacheImpl {
+
+    /**
+     * Number of servers in the tests.
+     */
+    private static final int NODES = 3;
+
+    /**
+     * Shared secret of the servers in the tests.
+     */
+    private static final String SECRET = "secret";
+
+    /**
+     * Servers that answer the requests of the other ones.
+     */
+    private final List<CachePeerServer> servers = new ArrayList<>();
+
+    /**
+     * Stops all the servers.
+     */
+    @After
+    public void stopServers() {
+        servers.forEach(CachePeerServer::stop);
+    }
+
+    /**
+     * Tests that adding a server only moves the keys to the new one.
+     */
+    @Test
+    public void testRingMovesFewKeys() {
+        final ConsistentHashRing before = new ConsistentHashRing(
+                Arrays.asList("a:1", "b:1", "c:1"));
+        final ConsistentHashRing after = new ConsistentHashRing(
+                Arrays.asList("a:1", "b:1", "c:1", "d:1"));
+        final Map<String, Integer> counts = new HashMap<>();
+        int moved = 0;
+        final int keys = 10000;
+        for (int i = 0; i < keys; i++) {
+            final String key = "hash" + i;
+            final String owner = before.getPeer(key);
+            counts.merge(owner, 1, Integer::sum);
+            if (!owner.equals(after.getPeer(key))) {
+                assertEquals("d:1", after.getPeer(key));
+                moved++;
+            }
+        }
+        for (final int count : counts.values()) {
+            assertTrue(count > keys / 5);
+        }
+        assertTrue(moved > keys / 8);
+        assertTrue(moved < keys / 2);
+    }
+
+    /**
+     * Tests that each result is stored by one server and that
+     * all of them can read it.
+     * @throws IOException should not happen
+     */
+    @Test
+    public void testSharedAcrossNodes() throws IOException {
+        final List<ICacher> locals = new ArrayList<>();
+        final List<String> addresses = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            final ICacher local = new CacheImpl(
+                    1000000L, new BlobStoreImpl());
+            final CachePeerServer server = new CachePeerServer(
+                    new InetSocketAddress("127.0.0.1", 0), local, SECRET);
+            server.start();
+            servers.add(server);
+            locals.add(local);
+            addresses.add("127.0.0.1:" + server.getPort());
+        }
+        final List<ICacher> nodes = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            nodes.add(createNode(addresses.get(i), addresses, locals.get(i)));
+        }
+
+        for (int i = 0; i < 30; i++) {
+            nodes.get(i % NODES).insertResultIntoCache(
+                    "shakyground", "hash" + i, createResult("result" + i));
+        }
+
+        for (int i = 0; i < 30; i++) {
+            final String hash = "hash" + i;
+            int stored = 0;
+            for (final ICacher local : locals) {
+                if (local.getCachedResult(hash).isPresent()) {
+                    stored++;
+                }
+            }
+            assertEquals(1, stored);
+            for (final ICacher node : nodes) {
+                final Optional<Map<String, IDataRecreator>> result =
+                        node.getCachedResult("shakyground", hash);
+                assertTrue(result.isPresent());
+                assertEquals("result" + i, getContent(result.get()));
+            }
+        }
+        assertFalse(nodes.get(0).getCachedResult("unknown").isPresent());
+    }
+
+    /**
+     * Tests that the local cache is used if another server
+     * can't be reached.
+     * @throws IOException should not happen
+     */
+    @Test
+    public void testFallbackToLocal() throws IOException {
+        final ICacher local = new CacheImpl(1000000L, new BlobStoreImpl());
+        final CachePeerServer stopped = new CachePeerServer(
+                new InetSocketAddress("127.0.0.1", 0),
+                new CacheImpl(1000000L, new BlobStoreImpl()), SECRET);
+        stopped.start();
+        final String other = "127.0.0.1:" + stopped.getPort();
+        stopped.stop();
+        final ICacher node = createNode(
+                "127.0.0.1:1", Collections.singletonList(other), local);
+
+        for (int i = 0; i < 10; i++) {
+            node.insertResultIntoCache("hash" + i, createResult("" + i));
+        }
+        for (int i = 0; i < 10; i++) {
+            assertTrue(local.getCachedResult("hash" + i).isPresent());
+            assertEquals("" + i,
+                    getContent(node.getCachedResult("hash" + i).get()));
+        }
+    }
+
+    /**
+     * Tests that requests without the shared secret are rejected.
+     * @throws IOException should not happen
+     */
+    @Test
+    public void testWrongSecretIsRejected() throws IOException {
+        final ICacher local = new CacheImpl(1000000L, new BlobStoreImpl());
+        final CachePeerServer server = new CachePeerServer(
+                new InetSocketAddress("127.0.0.1", 0), local, SECRET);
+        server.start();
+        servers.add(server);
+        final ICachePeer peer = new HttpCachePeer(
+                "127.0.0.1:" + server.getPort(), "wrong");
+
+        try {
+            peer.insertResultIntoCache(
+                    "shakyground", "hash", createResult("result"));
+            fail("The request should be rejected");
+        } catch (final IOException exception) {
+            assertTrue(exception.getMessage().contains("403"));
+        }
+        assertFalse(local.getCachedResult("hash").isPresent());
+    }
+
+    /**
+     * Tests that only the classes of cached results can be read.
+     * @throws Exception should not happen
+     */
+    @Test
+    public void testOnlyAllowedClassesAreRead() throws Exception {
+        assertTrue(PeerObjectInputStream.isAllowed("java.util.HashMap"));
+        assertTrue(PeerObjectInputStream.isAllowed("[B"));
+        assertTrue(PeerObjectInputStream.isAllowed(
+                "org.n52.gfz.riesgos.cache.RecreateFromByteArray"));
+        assertFalse(PeerObjectInputStream.isAllowed(
+                "org.apache.commons.collections.functors.InvokerTransformer"));
+        assertFalse(PeerObjectInputStream.isAllowed(
+                "[Ljavax.management.BadAttributeValueExpException;"));
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new HashMap<>(
+                    Collections.singletonMap("output", new Date())));
+        }
+        try (ObjectInputStream in = new PeerObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()))) {
+            in.readObject();
+            fail("The date should not be read");
+        } catch (final InvalidClassException exception) {
+            assertEquals("java.util.Date", exception.classname);
+        }
+    }
+
+    /**
+     *
+     * @param self address of the server
+     * @param addresses addresses of all the servers
+     * @param local local cache of the server
+     * @return cache shared with the other servers
+     */
+    private static ICacher createNode(
+            final String self,
+            final List<String> addresses,
+            final ICacher local) {
+        return new DistributedCacheImpl(self, addresses, local,
+                new CacheImpl(1000000L, new BlobStoreImpl()),
+                address -> new HttpCachePeer(address, SECRET));
+    }
+
+    /**
+     *
+     * @param text text to store
+     * @return result with the text
+     */
+    private static Map<String, IDataRecreator> createResult(
+            final String text) {
+        return Collections.singletonMap("output", new RecreateFromByteArray(
+                text.getBytes(StandardCharsets.UTF_8), null,
+                LiteralStringBinding.class));
+    }
+
+    /**
+     *
+     * @param result cached result
+     * @return text of the result
+     */
+    private static String getContent(final Map<String, IDataRecreator> result) {
+        return new String(((RecreateFromByteArray) result.get("output"))
+                .getBlob().getContent(), StandardCharsets.UTF_8);
+    }
+}
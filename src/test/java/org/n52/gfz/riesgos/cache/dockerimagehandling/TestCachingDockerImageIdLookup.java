@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.dockerimagehandling;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.fail;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Ticker;
+import org.junit.Test;
+
+/**
+ * Tests for the caching of the docker image ids.
+ */
+public class TestCachingDockerImageIdLookup {
+
+    /**
+     * Time to live for the tests.
+     */
+    private static final long TIME_TO_LIVE_MILLIS = 1000L;
+
+    /**
+     * Tests that docker is only asked again after the time to live
+     * or after invalidation.
+     */
+    @Test
+    public void testCaching() {
+        final CountingLookup counting = new CountingLookup();
+        final AtomicLong nanos = new AtomicLong();
+        final CachingDockerImageIdLookup lookup =
+                new CachingDockerImageIdLookup(
+                        counting, TIME_TO_LIVE_MILLIS, createTicker(nanos));
+
+        assertEquals("sha256:1", lookup.lookUpImageId("quakeledger:latest"));
+        assertEquals("sha256:1", lookup.lookUpImageId("quakeledger:latest"));
+        assertEquals("1.0", lookup.getDockerVersion());
+        assertEquals("1.0", lookup.getDockerVersion());
+        assertEquals(2, counting.calls.get());
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(
+                TIME_TO_LIVE_MILLIS + 1));
+        assertEquals("sha256:2", lookup.lookUpImageId("quakeledger:latest"));
+        assertEquals(3, counting.calls.get());
+
+        assertEquals("1.0", lookup.getDockerVersion());
+        assertEquals(4, counting.calls.get());
+
+        lookup.invalidate("quakeledger:latest");
+        assertEquals("sha256:3", lookup.lookUpImageId("quakeledger:latest"));
+        assertEquals("1.0", lookup.getDockerVersion());
+        assertEquals(5, counting.calls.get());
+
+        lookup.invalidateAll();
+        assertEquals("1.0", lookup.getDockerVersion());
+        assertEquals(6, counting.calls.get());
+    }
+
+    /**
+     * Tests that failures are given to the caller and not cached.
+     */
+    @Test
+    public void testFailure() {
+        final CountingLookup counting = new CountingLookup();
+        counting.fail = true;
+        final CachingDockerImageIdLookup lookup =
+                new CachingDockerImageIdLookup(
+                        counting, TIME_TO_LIVE_MILLIS,
+                        createTicker(new AtomicLong()));
+        try {
+            lookup.lookUpImageId("shakyground:latest");
+            fail("There should be an exception");
+        } catch (final IllegalStateException exception) {
+            assertEquals("No such image", exception.getMessage());
+        }
+        counting.fail = false;
+        assertEquals("sha256:2", lookup.lookUpImageId("shakyground:latest"));
+    }
+
+    /**
+     * @param nanos time to give back
+     * @return ticker that gives back the time
+     */
+    private static Ticker createTicker(final AtomicLong nanos) {
+        return new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        };
+    }
+
+    /**
+     * Lookup that counts the calls.
+     */
+    private static class CountingLookup implements IDockerImageIdLookup {
+        /**
+         * Number of calls.
+         */
+        private final AtomicInteger calls = new AtomicInteger();
+        /**
+         * Number of image lookups.
+         */
+        private final AtomicInteger imageLookups = new AtomicInteger();
+        /**
+         * True if the lookup should fail.
+         */
+        private volatile boolean fail;
+
+        @Override
+        public String lookUpImageId(final String imageIdWithLabel) {
+            calls.incrementAndGet();
+            final int lookup = imageLookups.incrementAndGet();
+            if (fail) {
+                throw new IllegalStateException("No such image");
+            }
+            return "sha256:" + lookup;
+        }
+
+        @Override
+        public String getDockerVersion() {
+            calls.incrementAndGet();
+            return "1.0";
+        }
+    }
+}
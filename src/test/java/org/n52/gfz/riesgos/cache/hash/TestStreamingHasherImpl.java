@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.hash;
+
+import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.n52.gfz.riesgos.cache.dockerimagehandling.NoDockerImageIdLookup;
+import org.n52.gfz.riesgos.cache.wpsversionhandling.NoWpsVersionHandler;
+import org.n52.gfz.riesgos.configuration.IConfiguration;
+import org.n52.gfz.riesgos.configuration.InputParameterFactory;
+import org.n52.gfz.riesgos.configuration.OutputParameterFactory;
+import org.n52.gfz.riesgos.configuration.impl.ConfigurationImpl;
+import org.n52.wps.io.data.IData;
+import org.n52.wps.io.data.binding.literal.LiteralIntBinding;
+
+/**
+ * This is the test class to test the streaming hasher.
+ */
+public class TestStreamingHasherImpl {
+
+    /**
+     * Tests that equal configurations and inputs give the same hash
+     * and that other inputs give other hashes.
+     */
+    @Test
+    public void testHashing() {
+        for (final HashAlgorithm algorithm : HashAlgorithm.values()) {
+            final IHasher hasher = new StreamingHasherImpl(
+                    new NoDockerImageIdLookup(),
+                    new NoWpsVersionHandler(),
+                    algorithm);
+
+            final String hash1 = hasher.hash(
+                    createConfiguration(), createInputData(3),
+                    Collections.emptySet());
+            final String hashSameAs1 = hasher.hash(
+                    createConfiguration(), createInputData(3),
+                    Collections.emptySet());
+            assertEquals("Both hashes are the same", hash1, hashSameAs1);
+
+            final String hash2 = hasher.hash(
+                    createConfiguration(), createInputData(4),
+                    Collections.emptySet());
+            assertNotEquals("The hashes are different", hash1, hash2);
+
+            final String hash3 = hasher.hash(
+                    createConfiguration(), createInputData(3),
+                    new HashSet<>(Arrays.asList("parameter1")));
+            assertEquals("Outputs that are always read don't matter",
+                    hash1, hash3);
+        }
+    }
+
+    /**
+     * Tests that only the requested outputs that are read only on
+     * request change the hash.
+     */
+    @Test
+    public void testOutputsReadOnlyIfRequested() {
+        final IHasher hasher = new StreamingHasherImpl(
+                new NoDockerImageIdLookup(),
+                new NoWpsVersionHandler(),
+                HashAlgorithm.SHA_256);
+        final IConfiguration configuration =
+                createConfigurationWithOutputReadOnlyIfRequested();
+
+        final String hashWithout = hasher.hash(
+                configuration, createInputData(3), Collections.emptySet());
+        final String hashWithOther = hasher.hash(
+                configuration, createInputData(3),
+                Collections.singleton("other"));
+        final String hashWithShakemap = hasher.hash(
+                configuration, createInputData(3),
+                Collections.singleton("shakemap"));
+
+        assertEquals("Other outputs don't matter",
+                hashWithout, hashWithOther);
+        assertNotEquals("The hashes are different",
+                hashWithout, hashWithShakemap);
+        assertNotEquals("The configurations are different",
+                hashWithout,
+                hasher.hash(createConfiguration(), createInputData(3),
+                        Collections.emptySet()));
+    }
+
+    /**
+     * Tests that the order of the requested outputs does not matter.
+     */
+    @Test
+    public void testOrderOfRequestedParameters() {
+        final IHasher hasher = new StreamingHasherImpl(
+                new NoDockerImageIdLookup(),
+                new NoWpsVersionHandler(),
+                HashAlgorithm.SHA_256);
+
+        final Set<String> requested1 = new LinkedHashSet<>(
+                Arrays.asList("a", "b"));
+        final Set<String> requested2 = new LinkedHashSet<>(
+                Arrays.asList("b", "a"));
+
+        assertEquals("Both hashes are the same",
+                hasher.hash(createConfiguration(), createInputData(3),
+                        requested1),
+                hasher.hash(createConfiguration(), createInputData(3),
+                        requested2));
+    }
+
+    /**
+     * Tests that the hasher gives the same results from several threads.
+     * @throws Exception should not happen
+     */
+    @Test
+    public void testConcurrentHashing() throws Exception {
+        final IHasher hasher = new StreamingHasherImpl(
+                new NoDockerImageIdLookup(),
+                new NoWpsVersionHandler(),
+                HashAlgorithm.SHA_256);
+        final String expected = hasher.hash(
+                createConfiguration(), createInputData(3),
+                Collections.emptySet());
+        assertEquals("sha256 as hex", 64, expected.length());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                futures.add(executor.submit(() -> hasher.hash(
+                        createConfiguration(), createInputData(3),
+                        Collections.emptySet())));
+            }
+            for (final Future<String> future : futures) {
+                assertEquals("Same hash in every thread",
+                        expected, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static IConfiguration createConfiguration() {
+        return new ConfigurationImpl.Builder(
+                "example",
+                null,
+                "exampleimage",
+                "/tmp",
+                Arrays.asList("echo", "Hello World"))
+                .withAddedInputIdentifier(InputParameterFactory.INSTANCE.createCommandLineArgumentInt(
+                        "times", false, null, null, null, null)
+                ).build();
+    }
+
+    private static IConfiguration
+            createConfigurationWithOutputReadOnlyIfRequested() {
+        return new ConfigurationImpl.Builder(
+                "example",
+                null,
+                "exampleimage",
+                "/tmp",
+                Arrays.asList("echo", "Hello World"))
+                .withAddedInputIdentifier(InputParameterFactory.INSTANCE.createCommandLineArgumentInt(
+                        "times", false, null, null, null, null)
+                ).withAddedOutputIdentifier(OutputParameterFactory.INSTANCE.createFileOutShakemap(
+                        "shakemap", false, null, null, "shakemap.xml")
+                ).withAddedOutputsReadOnlyIfRequested(
+                        Collections.singletonList("shakemap")
+                ).build();
+    }
+
+    private static Map<String, List<IData>> createInputData(final int times) {
+        final Map<String, List<IData>> inputData = new HashMap<>();
+        inputData.put("times", Collections.singletonList(new LiteralIntBinding(times)));
+        return inputData;
+    }
+}
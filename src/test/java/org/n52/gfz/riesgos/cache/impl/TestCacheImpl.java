@@ -22,6 +22,9 @@ import org.junit.Test;
 import org.n52.gfz.riesgos.cache.ICacher;
 import org.n52.gfz.riesgos.cache.IDataRecreator;
 import org.n52.gfz.riesgos.cache.RecreateFromBindingClass;
+import org.n52.gfz.riesgos.cache.RecreateFromByteArray;
+import org.n52.gfz.riesgos.cache.blob.BlobStoreImpl;
+import org.n52.gfz.riesgos.cache.blob.IBlobStore;
 import org.n52.gfz.riesgos.cache.dockerimagehandling.IDockerImageIdLookup;
 import org.n52.gfz.riesgos.cache.dockerimagehandling.NoDockerImageIdLookup;
 import org.n52.gfz.riesgos.cache.hash.HasherImpl;
@@ -50,6 +53,7 @@ import java.util.Map;
 import java.util.Optional;
 
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
 import static junit.framework.TestCase.assertTrue;
 import static junit.framework.TestCase.fail;
 import static org.junit.Assert.assertFalse;
@@ -59,6 +63,84 @@ import static org.junit.Assert.assertFalse;
  */
 public class TestCacheImpl {
 
+    @Test
+    public void testEvictionBySize() {
+        final CacheImpl cache = new CacheImpl(10000L);
+
+        cache.insertResultIntoCache("quakeledger", "a", createResult(4000));
+        cache.insertResultIntoCache("quakeledger", "b", createResult(4000));
+        assertTrue(cache.getCachedResult("quakeledger", "a").isPresent());
+        cache.insertResultIntoCache("shakyground", "c", createResult(4000));
+
+        assertTrue(cache.getCachedResult("quakeledger", "a").isPresent());
+        assertFalse(cache.getCachedResult("quakeledger", "b").isPresent());
+        assertTrue(cache.getCachedResult("shakyground", "c").isPresent());
+        assertTrue(cache.getSizeInBytes() <= 10000L);
+
+        final CacheStatistics quakeledger =
+                cache.getStatistics().get("quakeledger");
+        assertEquals(2L, quakeledger.getHitCount());
+        assertEquals(1L, quakeledger.getMissCount());
+        assertEquals(1L, quakeledger.getEvictionCount());
+        assertEquals(4000L + IDataRecreator.DEFAULT_SIZE_IN_BYTES,
+                quakeledger.getSizeInBytes());
+        assertEquals(0L,
+                cache.getStatistics().get("shakyground").getEvictionCount());
+    }
+
+    @Test
+    public void testSharedContent() {
+        final IBlobStore blobStore = new BlobStoreImpl();
+        final CacheImpl cache = new CacheImpl(10000L, blobStore);
+
+        cache.insertResultIntoCache("quakeledger", "a", createResult(3000));
+        cache.insertResultIntoCache("shakyground", "b", createResult(3000));
+        assertEquals(1, blobStore.getNumberOfBlobs());
+        assertEquals(3000L, blobStore.getSizeInBytes());
+        assertSame(
+                getContent(cache.getCachedResult("a").get()),
+                getContent(cache.getCachedResult("b").get()));
+
+        // evicts a, but b still refers to the content
+        cache.insertResultIntoCache("shakyground", "c", createResult(4000));
+        assertFalse(cache.getCachedResult("a").isPresent());
+        assertEquals(2, blobStore.getNumberOfBlobs());
+        assertEquals(7000L, blobStore.getSizeInBytes());
+    }
+
+    @Test
+    public void testCompression() {
+        final IBlobStore blobStore = new BlobStoreImpl();
+        final CacheImpl cache = new CacheImpl(10000L, 1000L, blobStore);
+        final byte[] content = new byte[50000];
+        Arrays.fill(content, (byte) 'a');
+
+        cache.insertResultIntoCache("shakyground", "a",
+                Collections.singletonMap("output", new RecreateFromByteArray(
+                        content, null, LiteralStringBinding.class)));
+        cache.insertResultIntoCache("shakyground", "b", createResult(500));
+
+        final Optional<Map<String, IDataRecreator>> result =
+                cache.getCachedResult("a");
+        assertTrue(result.isPresent());
+        assertTrue(Arrays.equals(content, getContent(result.get())));
+        assertTrue(((RecreateFromByteArray) result.get().get("output"))
+                .getBlob().isCompressed());
+        assertFalse(((RecreateFromByteArray) cache.getCachedResult("b").get()
+                .get("output")).getBlob().isCompressed());
+        assertTrue(cache.getSizeInBytes() < 10000L);
+    }
+
+    private static byte[] getContent(final Map<String, IDataRecreator> result) {
+        return ((RecreateFromByteArray) result.get("output"))
+                .getBlob().getContent();
+    }
+
+    private static Map<String, IDataRecreator> createResult(final int size) {
+        return Collections.singletonMap("output", new RecreateFromByteArray(
+                new byte[size], null, LiteralStringBinding.class));
+    }
+
     @Test
     public void testCacheInt() {
 
@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.impl;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.n52.gfz.riesgos.cache.IDataRecreator;
+import org.n52.gfz.riesgos.cache.RecreateFromByteArray;
+import org.n52.wps.io.data.IData;
+import org.n52.wps.io.data.binding.literal.LiteralStringBinding;
+
+/**
+ * Tests for the cache on disk.
+ */
+public class TestDiskCacheImpl {
+
+    /**
+     * Large enough for all entries in the tests.
+     */
+    private static final long LARGE_SIZE = 1024L * 1024L;
+
+    /**
+     * Folder for the cache.
+     */
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Tests that the entries can be read after a restart and that
+     * files of unfinished writes are removed.
+     * @throws IOException should not happen
+     */
+    @Test
+    public void testRestart() throws IOException {
+        final File folder = temporaryFolder.newFolder();
+        final DiskCacheImpl cache = new DiskCacheImpl(folder, LARGE_SIZE);
+        cache.insertResultIntoCache("abcdef", createResult("quakeml"));
+
+        final File unfinished = new File(new File(folder, "ab"), "abc.tmp");
+        Files.write(unfinished.toPath(),
+                "half".getBytes(StandardCharsets.UTF_8));
+
+        final DiskCacheImpl restarted = new DiskCacheImpl(folder, LARGE_SIZE);
+        assertEquals(1, restarted.getNumberOfEntries());
+        assertEquals(cache.getSizeInBytes(), restarted.getSizeInBytes());
+        assertFalse(unfinished.exists());
+
+        final Optional<Map<String, IDataRecreator>> result =
+                restarted.getCachedResult("abcdef");
+        assertTrue(result.isPresent());
+        assertEquals("quakeml",
+                ((TextRecreator) result.get().get("output")).getText());
+        assertFalse(restarted.getCachedResult("fedcba").isPresent());
+    }
+
+    /**
+     * Tests that the least recently used entry is removed
+     * once the size is over the limit.
+     * @throws IOException should not happen
+     */
+    @Test
+    public void testEviction() throws IOException {
+        final File folder = temporaryFolder.newFolder();
+        final DiskCacheImpl measure = new DiskCacheImpl(
+                temporaryFolder.newFolder(), LARGE_SIZE);
+        measure.insertResultIntoCache("000000", createResult("a"));
+        final long sizeOfOne = measure.getSizeInBytes();
+
+        final DiskCacheImpl cache = new DiskCacheImpl(
+                folder, sizeOfOne * 2);
+        cache.insertResultIntoCache("111111", createResult("a"));
+        cache.insertResultIntoCache("222222", createResult("b"));
+        assertTrue(cache.getCachedResult("111111").isPresent());
+        cache.insertResultIntoCache("333333", createResult("c"));
+
+        assertEquals(2, cache.getNumberOfEntries());
+        assertTrue(cache.getCachedResult("111111").isPresent());
+        assertFalse(cache.getCachedResult("222222").isPresent());
+        assertTrue(cache.getCachedResult("333333").isPresent());
+        assertFalse(new File(new File(folder, "22"), "222222.entry")
+                .exists());
+    }
+
+    /**
+     * Tests that an entry that can't be read is removed.
+     * @throws IOException should not happen
+     */
+    @Test
+    public void testBrokenEntry() throws IOException {
+        final File folder = temporaryFolder.newFolder();
+        final DiskCacheImpl cache = new DiskCacheImpl(folder, LARGE_SIZE);
+        cache.insertResultIntoCache("abcdef", createResult("shakemap"));
+        Files.write(new File(new File(folder, "ab"), "abcdef.entry").toPath(),
+                "broken".getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(cache.getCachedResult("abcdef").isPresent());
+        assertEquals(0, cache.getNumberOfEntries());
+        assertEquals(0L, cache.getSizeInBytes());
+    }
+
+    /**
+     * Tests that entries with the same content share one blob file,
+     * that is only removed with the last entry.
+     * @throws IOException should not happen
+     */
+    @Test
+    public void testSharedBlobs() throws IOException {
+        final File folder = temporaryFolder.newFolder();
+        final DiskCacheImpl measure = new DiskCacheImpl(
+                temporaryFolder.newFolder(), LARGE_SIZE);
+        measure.insertResultIntoCache("000000", createBlobResult(5000));
+        final long sizeOfOne = measure.getSizeInBytes();
+
+        final DiskCacheImpl cache = new DiskCacheImpl(
+                folder, sizeOfOne * 2);
+        cache.insertResultIntoCache("111111", createBlobResult(5000));
+        cache.insertResultIntoCache("222222", createBlobResult(5000));
+        assertEquals(2, cache.getNumberOfEntries());
+        assertEquals(1, cache.getNumberOfBlobFiles());
+
+        final DiskCacheImpl restarted = new DiskCacheImpl(
+                folder, sizeOfOne * 2);
+        assertEquals(cache.getSizeInBytes(), restarted.getSizeInBytes());
+        final Optional<Map<String, IDataRecreator>> result =
+                restarted.getCachedResult("111111");
+        assertTrue(result.isPresent());
+        assertTrue(Arrays.equals(new byte[5000],
+                ((RecreateFromByteArray) result.get().get("output"))
+                        .getBlob().getContent()));
+
+        restarted.insertResultIntoCache("333333", createBlobResult(6000));
+        restarted.insertResultIntoCache("444444", createBlobResult(7000));
+        assertEquals(1, restarted.getNumberOfEntries());
+        assertEquals(1, restarted.getNumberOfBlobFiles());
+        assertTrue(restarted.getCachedResult("444444").isPresent());
+    }
+
+    /**
+     *
+     * @param size size of the content
+     * @return map with one recreator that holds a blob
+     */
+    private static Map<String, IDataRecreator> createBlobResult(
+            final int size) {
+        return Collections.singletonMap("output", new RecreateFromByteArray(
+                new byte[size], null, LiteralStringBinding.class));
+    }
+
+    /**
+     *
+     * @param text text to store
+     * @return map with one recreator
+     */
+    private static Map<String, IDataRecreator> createResult(
+            final String text) {
+        return Collections.singletonMap("output", new TextRecreator(text));
+    }
+
+    /**
+     * Recreator that only holds a text.
+     */
+    private static class TextRecreator implements IDataRecreator {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Text to hold.
+         */
+        private final String text;
+
+        /**
+         *
+         * @param aText text to hold
+         */
+        TextRecreator(final String aText) {
+            this.text = aText;
+        }
+
+        /**
+         *
+         * @return text
+         */
+        String getText() {
+            return text;
+        }
+
+        /**
+         *
+         * @return null, as there is no data
+         */
+        @Override
+        public IData recreate() {
+            return null;
+        }
+
+        /**
+         *
+         * @return IData
+         */
+        @Override
+        public Class<? extends IData> getBindingClassToRecreate() {
+            return IData.class;
+        }
+    }
+}
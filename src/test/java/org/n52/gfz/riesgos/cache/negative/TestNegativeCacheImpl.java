@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.negative;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Ticker;
+import org.junit.Test;
+import org.n52.gfz.riesgos.exceptions.NonEmptyStderrException;
+import org.n52.gfz.riesgos.exceptions.NonZeroExitValueException;
+import org.n52.gfz.riesgos.exceptions.RunTimeoutException;
+import org.n52.wps.server.ExceptionReport;
+
+/**
+ * Tests for the negative cache.
+ */
+public class TestNegativeCacheImpl {
+
+    /**
+     * Time to live for the tests.
+     */
+    private static final long TIME_TO_LIVE_MILLIS = 1000L;
+
+    /**
+     * Tests that failures are remembered for the time to live.
+     */
+    @Test
+    public void testRememberFailure() {
+        final AtomicLong nanos = new AtomicLong();
+        final INegativeCache negativeCache = new NegativeCacheImpl(
+                TIME_TO_LIVE_MILLIS,
+                EnumSet.of(FailureType.STDERR),
+                createTicker(nanos));
+
+        assertFalse(negativeCache.getFailure("abc").isPresent());
+
+        negativeCache.insertFailure("abc", new ExceptionReport(
+                "There is an error on stderr",
+                ExceptionReport.REMOTE_COMPUTATION_ERROR,
+                new NonEmptyStderrException("Traceback")));
+
+        assertTrue(negativeCache.getFailure("abc").isPresent());
+        final CachedFailure failure = negativeCache.getFailure("abc").get();
+        assertEquals(FailureType.STDERR, failure.getType());
+        assertEquals("There is an error on stderr", failure.getMessage());
+        assertFalse(negativeCache.getFailure("def").isPresent());
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(
+                TIME_TO_LIVE_MILLIS + 1));
+        assertFalse(negativeCache.getFailure("abc").isPresent());
+    }
+
+    /**
+     * Tests that only failures of the configured types are remembered.
+     */
+    @Test
+    public void testOnlyConfiguredTypes() {
+        final INegativeCache negativeCache = new NegativeCacheImpl(
+                TIME_TO_LIVE_MILLIS,
+                EnumSet.of(FailureType.STDERR),
+                createTicker(new AtomicLong()));
+
+        negativeCache.insertFailure("exitvalue", new ExceptionReport(
+                "There is a non empty exit value",
+                ExceptionReport.REMOTE_COMPUTATION_ERROR,
+                new NonZeroExitValueException(1)));
+        negativeCache.insertFailure("io", new ExceptionReport(
+                "Can't handle input and output",
+                ExceptionReport.REMOTE_COMPUTATION_ERROR,
+                new IOException("docker is not running")));
+
+        assertFalse(negativeCache.getFailure("exitvalue").isPresent());
+        assertFalse(negativeCache.getFailure("io").isPresent());
+    }
+
+    /**
+     * Tests that a run that was stopped because of the timeout is
+     * never remembered, as the timeout is a transient failure.
+     */
+    @Test
+    public void testTimeoutIsNotRemembered() {
+        final INegativeCache negativeCache = new NegativeCacheImpl(
+                TIME_TO_LIVE_MILLIS,
+                EnumSet.allOf(FailureType.class),
+                createTicker(new AtomicLong()));
+
+        negativeCache.insertFailure("timeout", new ExceptionReport(
+                "The run was stopped because it took longer than 10 seconds",
+                ExceptionReport.REMOTE_COMPUTATION_ERROR,
+                new RunTimeoutException(10L)));
+
+        assertFalse(negativeCache.getFailure("timeout").isPresent());
+    }
+
+    /**
+     * @param nanos time to give back
+     * @return ticker that gives back the time
+     */
+    private static Ticker createTicker(final AtomicLong nanos) {
+        return new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        };
+    }
+}
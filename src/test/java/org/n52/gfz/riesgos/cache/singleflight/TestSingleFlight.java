@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.singleflight;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.n52.gfz.riesgos.cache.IDataRecreator;
+import org.n52.gfz.riesgos.exceptions.SingleFlightException;
+import org.n52.gfz.riesgos.exceptions.SingleFlightTimeoutException;
+
+/**
+ * Tests for the coalescing of identical runs.
+ */
+public class TestSingleFlight {
+
+    /**
+     * Tests that a second call with the same hash waits for the result
+     * of the leader and that the run is removed afterwards.
+     * @throws Exception should not happen
+     */
+    @Test
+    public void testShareResult() throws Exception {
+        final SingleFlightImpl singleFlight = new SingleFlightImpl(0L);
+        final Map<String, IDataRecreator> result = new HashMap<>();
+
+        try (ISingleFlightCall leader = singleFlight.join("abc")) {
+            assertTrue(leader.isLeader());
+            try (ISingleFlightCall follower = singleFlight.join("abc");
+                 ISingleFlightCall other = singleFlight.join("xyz")) {
+                assertFalse(follower.isLeader());
+                assertTrue(other.isLeader());
+
+                final CompletableFuture<Map<String, IDataRecreator>> waiting =
+                        awaitAsync(follower);
+                leader.complete(result);
+                assertSame(result, waiting.get(1, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(0, singleFlight.getNumberOfFlights());
+        try (ISingleFlightCall next = singleFlight.join("abc")) {
+            assertTrue(next.isLeader());
+        }
+    }
+
+    /**
+     * Tests that the failure of the leader is given to the waiting calls,
+     * also if the leader is closed without result.
+     * @throws Exception should not happen
+     */
+    @Test
+    public void testFailure() throws Exception {
+        final SingleFlightImpl singleFlight = new SingleFlightImpl(0L);
+
+        final ISingleFlightCall leader = singleFlight.join("abc");
+        final ISingleFlightCall follower = singleFlight.join("abc");
+        final IllegalArgumentException failure =
+                new IllegalArgumentException("invalid input");
+        leader.fail(failure);
+        leader.close();
+        try {
+            follower.awaitResult();
+            fail("There should be an exception");
+        } catch (final SingleFlightException exception) {
+            assertSame(failure, exception.getCause());
+        }
+
+        final ISingleFlightCall secondLeader = singleFlight.join("abc");
+        final CompletableFuture<Map<String, IDataRecreator>> waiting =
+                awaitAsync(singleFlight.join("abc"));
+        secondLeader.close();
+        try {
+            waiting.get(1, TimeUnit.SECONDS);
+            fail("There should be an exception");
+        } catch (final ExecutionException exception) {
+            assertTrue(exception.getCause() instanceof SingleFlightException);
+        }
+    }
+
+    /**
+     * Tests that a call stops waiting after the timeout.
+     */
+    @Test
+    public void testTimeout() {
+        final SingleFlightImpl singleFlight = new SingleFlightImpl(100L);
+
+        try (ISingleFlightCall leader = singleFlight.join("abc");
+             ISingleFlightCall follower = singleFlight.join("abc")) {
+            assertTrue(leader.isLeader());
+            follower.awaitResult();
+            fail("There should be an exception");
+        } catch (final SingleFlightTimeoutException exception) {
+            assertEquals(0, singleFlight.getNumberOfFlights());
+        } catch (final SingleFlightException exception) {
+            fail("There should be a timeout");
+        }
+    }
+
+    /**
+     * Waits in another thread.
+     * @param call call that is not the leader
+     * @return future with the result of the leader
+     */
+    private static CompletableFuture<Map<String, IDataRecreator>> awaitAsync(
+            final ISingleFlightCall call) {
+        final CompletableFuture<Map<String, IDataRecreator>> future =
+                new CompletableFuture<>();
+        final Thread thread = new Thread(() -> {
+            try {
+                future.complete(call.awaitResult());
+            } catch (final SingleFlightException exception) {
+                future.completeExceptionally(exception);
+            }
+        });
+        thread.start();
+        return future;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cache.warmup;
+
+import org.junit.Test;
+import org.n52.gfz.riesgos.exceptions.ParseConfigurationException;
+import org.n52.wps.io.data.IData;
+import org.n52.wps.io.data.binding.literal.LiteralStringBinding;
+import org.n52.wps.server.ExceptionReport;
+import org.n52.wps.server.IAlgorithm;
+import org.n52.wps.server.ProcessDescription;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+/**
+ * Tests for the warm up of the cache.
+ */
+public class TestCacheWarmupImpl {
+
+    /**
+     * Tests that the usable runs of the manifest are executed
+     * with limited parallelism.
+     * @throws ParseConfigurationException should not happen
+     * @throws InterruptedException should not happen
+     */
+    @Test
+    public void testWarmup()
+            throws ParseConfigurationException, InterruptedException {
+        final RecordingAlgorithm algorithm = new RecordingAlgorithm();
+        final ParseJsonWarmupManifestImpl parser =
+                new ParseJsonWarmupManifestImpl(new File("."),
+                        identifier -> Optional.<IAlgorithm>of(algorithm)
+                                .filter(a -> "Process".equals(identifier)));
+
+        final List<WarmupRun> runs = parser.parse("["
+                + "{\"process\": \"Process\", \"inputs\": {\"text\": \"a\"}},"
+                + "{\"process\": \"Process\", \"inputs\": {\"text\": \"b\"}},"
+                + "{\"process\": \"Process\", \"inputs\": {\"text\": 3}},"
+                + "{\"process\": \"Process\","
+                + " \"inputs\": {\"text\": \"fail\"}},"
+                + "{\"process\": \"Unknown\", \"inputs\": {\"text\": \"c\"}},"
+                + "{\"process\": \"Process\", \"inputs\": {\"other\": \"d\"}}"
+                + "]");
+        assertEquals(4, runs.size());
+
+        final CacheWarmupImpl warmup = new CacheWarmupImpl(runs, 2);
+        warmup.start();
+        assertTrue(warmup.awaitDone(10, TimeUnit.SECONDS));
+
+        assertTrue(warmup.isDone());
+        assertEquals(4, warmup.getNumberOfRuns());
+        assertEquals(4, warmup.getNumberOfFinishedRuns());
+        assertEquals(1, warmup.getNumberOfFailedRuns());
+        assertEquals(new TreeSet<>(Arrays.asList("3", "a", "b")),
+                algorithm.texts);
+        assertTrue(algorithm.maxRunning.get() <= 2);
+    }
+
+    /**
+     * Algorithm that records the texts of its runs.
+     */
+    private static class RecordingAlgorithm implements IAlgorithm {
+
+        /**
+         * Texts of the successful runs.
+         */
+        private final Set<String> texts =
+                Collections.synchronizedSet(new TreeSet<>());
+
+        /**
+         * Number of runs at the moment.
+         */
+        private final AtomicInteger running = new AtomicInteger();
+
+        /**
+         * Maximum number of runs at the same time.
+         */
+        private final AtomicInteger maxRunning = new AtomicInteger();
+
+        @Override
+        public Map<String, IData> run(
+                final Map<String, List<IData>> inputData)
+                throws ExceptionReport {
+            maxRunning.accumulateAndGet(
+                    running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+                final String text = ((LiteralStringBinding)
+                        inputData.get("text").get(0)).getPayload();
+                if ("fail".equals(text)) {
+                    throw new ExceptionReport("failed",
+                            ExceptionReport.NO_APPLICABLE_CODE);
+                }
+                texts.add(text);
+                return Collections.emptyMap();
+            } catch (final InterruptedException exception) {
+                throw new ExceptionReport("interrupted",
+                        ExceptionReport.NO_APPLICABLE_CODE, exception);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+
+        @Override
+        public List<String> getErrors() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public ProcessDescription getDescription() {
+            return null;
+        }
+
+        @Override
+        public String getWellKnownName() {
+            return "Process";
+        }
+
+        @Override
+        public boolean processDescriptionIsValid(final String version) {
+            return true;
+        }
+
+        @Override
+        public Class<?> getInputDataType(final String id) {
+            if ("text".equals(id)) {
+                return LiteralStringBinding.class;
+            }
+            return null;
+        }
+
+        @Override
+        public Class<?> getOutputDataType(final String id) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cmdexecution.admission;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+import org.n52.gfz.riesgos.exceptions.AdmissionRejectedException;
+
+/**
+ * Tests for the admission control.
+ */
+public class TestAdmissionController {
+
+    /**
+     * Time to wait for the runs that should not start.
+     */
+    private static final long SHORT_WAIT_MILLIS = 200L;
+
+    /**
+     * Tests that a waiting run starts once the running one is done.
+     * @throws Exception should not happen
+     */
+    @Test
+    public void testGlobalLimit() throws Exception {
+        final AdmissionControllerImpl controller =
+                new AdmissionControllerImpl(1, 0, 0L);
+
+        final IAdmission first = controller.admit("quakeledger", 0);
+        final CompletableFuture<IAdmission> second = admitAsync(
+                controller, "shakyground", 0);
+
+        assertFalse(isDoneAfterShortWait(second));
+        assertEquals(1, controller.getRunningCount());
+        assertEquals(1, controller.getQueueDepth());
+
+        first.close();
+        second.get(1, TimeUnit.SECONDS).close();
+
+        assertEquals(0, controller.getRunningCount());
+        assertEquals(2L, controller.getAdmittedCount());
+        assertTrue(controller.getMaxWaitMillis() >= SHORT_WAIT_MILLIS);
+    }
+
+    /**
+     * Tests that the limit of one image does not block the runs
+     * of other images that are waiting behind it.
+     * @throws Exception should not happen
+     */
+    @Test
+    public void testImageLimit() throws Exception {
+        final AdmissionControllerImpl controller =
+                new AdmissionControllerImpl(0, 0, 0L);
+
+        final IAdmission first = controller.admit("shakyground", 1);
+        final CompletableFuture<IAdmission> second = admitAsync(
+                controller, "shakyground", 1);
+        assertFalse(isDoneAfterShortWait(second));
+
+        final IAdmission other = controller.admit("quakeledger", 1);
+        assertEquals(2, controller.getRunningCount());
+
+        other.close();
+        first.close();
+        second.get(1, TimeUnit.SECONDS).close();
+        assertEquals(0, controller.getRunningCount());
+    }
+
+    /**
+     * Tests the rejection because of a full queue and because of
+     * the timeout.
+     * @throws Exception should not happen
+     */
+    @Test
+    public void testRejection() throws Exception {
+        final AdmissionControllerImpl controller =
+                new AdmissionControllerImpl(1, 1, SHORT_WAIT_MILLIS);
+
+        final IAdmission first = controller.admit("quakeledger", 0);
+        final CompletableFuture<IAdmission> waiting = admitAsync(
+                controller, "quakeledger", 0);
+        while (controller.getQueueDepth() == 0) {
+            Thread.sleep(1L);
+        }
+
+        try {
+            controller.admit("quakeledger", 0);
+            fail("The queue is full");
+        } catch (final AdmissionRejectedException exception) {
+            assertEquals(1L, controller.getRejectedCount());
+        }
+
+        try {
+            waiting.get(1, TimeUnit.SECONDS);
+            fail("The waiting run must time out");
+        } catch (final ExecutionException exception) {
+            assertTrue(exception.getCause()
+                    instanceof AdmissionRejectedException);
+            assertEquals(1L, controller.getTimedOutCount());
+        }
+        assertEquals(0, controller.getQueueDepth());
+
+        first.close();
+        first.close();
+        assertEquals(0, controller.getRunningCount());
+    }
+
+    /**
+     * Admits in another thread.
+     * @param controller admission control
+     * @param imageId image id of the run
+     * @param maxRunsForImage limit for the image
+     * @return future for the admission
+     */
+    private static CompletableFuture<IAdmission> admitAsync(
+            final AdmissionControllerImpl controller,
+            final String imageId,
+            final int maxRunsForImage) {
+        final CompletableFuture<IAdmission> result = new CompletableFuture<>();
+        new Thread(() -> {
+            try {
+                result.complete(controller.admit(imageId, maxRunsForImage));
+            } catch (final AdmissionRejectedException exception) {
+                result.completeExceptionally(exception);
+            }
+        }).start();
+        return result;
+    }
+
+    /**
+     * Waits a short time for the future.
+     * @param future future to wait for
+     * @return true if the future is done
+     * @throws Exception should not happen
+     */
+    private static boolean isDoneAfterShortWait(
+            final CompletableFuture<IAdmission> future) throws Exception {
+        try {
+            future.get(SHORT_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (final TimeoutException exception) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+
+package org.n52.gfz.riesgos.cmdexecution.common;
+
+import org.junit.Test;
+import org.n52.gfz.riesgos.cmdexecution.IExecutionRun;
+import org.n52.gfz.riesgos.cmdexecution.IExecutionRunResult;
+
+import java.io.IOException;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+/**
+ * Tests for the execution run with a check of the stderr lines
+ * and a timeout.
+ */
+public class TestExecutionRunImpl {
+
+    /**
+     * Maximum time in milliseconds for a run that must be stopped early.
+     */
+    private static final long MAX_MILLIS = 15000L;
+
+    /**
+     * Starts a shell command.
+     * @param script script for the shell
+     * @return the started process
+     * @throws IOException should not happen
+     */
+    private static Process start(final String script) throws IOException {
+        return new ProcessBuilder("sh", "-c", script).start();
+    }
+
+    /**
+     * Tests that a process that writes an error on stderr is stopped
+     * early and that the output up to that point is still there.
+     * @throws IOException should not happen
+     * @throws InterruptedException should not happen
+     */
+    @Test
+    public void testStopOnFailure() throws IOException, InterruptedException {
+        final IExecutionRun run = new ExecutionRunImpl(start(
+                "echo started; echo 'Traceback (most recent call last):' >&2; "
+                        + "echo 'ValueError' >&2; exec sleep 60"));
+
+        final long start = System.currentTimeMillis();
+        final IExecutionRunResult result = run.waitForCompletion(
+                line -> line.startsWith("Traceback"));
+        final long duration = System.currentTimeMillis() - start;
+
+        assertTrue("The run was stopped early", duration < MAX_MILLIS);
+        assertTrue(result.isStoppedOnFailure());
+        assertEquals("Traceback (most recent call last):\nValueError\n",
+                result.getStderrResult());
+        assertEquals("started\n", result.getStdoutResult());
+    }
+
+    /**
+     * Tests that a process without a failure line runs to the end.
+     * @throws IOException should not happen
+     * @throws InterruptedException should not happen
+     */
+    @Test
+    public void testNoFailure() throws IOException, InterruptedException {
+        final IExecutionRun run = new ExecutionRunImpl(start(
+                "echo 'Warning: something' >&2; sleep 1; echo done"));
+
+        final IExecutionRunResult result = run.waitForCompletion(
+                line -> line.startsWith("Traceback"));
+
+        assertFalse(result.isStoppedOnFailure());
+        assertEquals(0, result.getExitValue());
+        assertEquals("done\n", result.getStdoutResult());
+    }
+
+    /**
+     * Tests that a process that ends by itself after the failure line
+     * is not marked as stopped (the error is handled as usual).
+     * @throws IOException should not happen
+     * @throws InterruptedException should not happen
+     */
+    @Test
+    public void testFailureAndEnd() throws IOException, InterruptedException {
+        final IExecutionRun run = new ExecutionRunImpl(start(
+                "echo 'Error in f(): failed' >&2; exit 1"));
+
+        final IExecutionRunResult result = run.waitForCompletion(
+                line -> line.startsWith("Error"));
+
+        assertFalse(result.isStoppedOnFailure());
+        assertEquals(1, result.getExitValue());
+        assertEquals("Error in f(): failed\n", result.getStderrResult());
+    }
+
+    /**
+     * Tests that a process that takes too long is killed
+     * and that the timeout is counted.
+     * @throws IOException should not happen
+     * @throws InterruptedException should not happen
+     */
+    @Test
+    public void testTimeout() throws IOException, InterruptedException {
+        final long timedOutBefore = ExecutionMetricsSingleton.INSTANCE
+                .getMetrics().getTimedOutCount();
+        final IExecutionRun run = new ExecutionRunImpl(start(
+                "echo started; exec sleep 60"));
+
+        final long start = System.currentTimeMillis();
+        final IExecutionRunResult result = run.waitForCompletion(
+                line -> false, 500L);
+        final long duration = System.currentTimeMillis() - start;
+
+        assertTrue("The run was killed", duration < MAX_MILLIS);
+        assertTrue(result.isTimedOut());
+        assertFalse(result.isStoppedOnFailure());
+        assertEquals("started\n", result.getStdoutResult());
+        assertEquals(timedOutBefore + 1, ExecutionMetricsSingleton.INSTANCE
+                .getMetrics().getTimedOutCount());
+    }
+}
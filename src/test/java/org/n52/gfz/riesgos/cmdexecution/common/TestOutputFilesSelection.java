@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cmdexecution.common;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.n52.gfz.riesgos.cmdexecution.util.TarArchiveHelper;
+
+/**
+ * Tests for the selection of the output files that are read in one step.
+ */
+public class TestOutputFilesSelection {
+
+    /**
+     * Tests the common directory of the output files.
+     */
+    @Test
+    public void testCommonDirectory() {
+        final OutputFilesSelection selection = new OutputFilesSelection(
+                Arrays.asList(
+                        "/usr/share/app/output/result.xml",
+                        "/usr/share/app/output/shapes/result.shp",
+                        "/usr/share/app/./log.txt"));
+
+        assertEquals("/usr/share/app", selection.getCommonDirectory());
+    }
+
+    /**
+     * Tests the selection of the files (including the other parts
+     * of a shapefile).
+     */
+    @Test
+    public void testSelection() {
+        final OutputFilesSelection selection = new OutputFilesSelection(
+                Arrays.asList(
+                        "/usr/share/app/output/result.xml",
+                        "/usr/share/app/shapes/result.shp"));
+
+        assertTrue(selection.test("/usr/share/app/output/result.xml"));
+        assertTrue(selection.test("/usr/share/app/shapes/result.shp"));
+        assertTrue(selection.test("/usr/share/app/shapes/result.dbf"));
+        assertTrue(selection.test("/usr/share/app/shapes/result.shp.xml"));
+        assertFalse(selection.test("/usr/share/app/output/other.xml"));
+        assertFalse(selection.test("/usr/share/app/shapes/results.shp"));
+        assertFalse(selection.test("/usr/share/app/database.db"));
+    }
+
+    /**
+     * Tests the reading of a directory archive as docker creates it.
+     * @throws IOException should not happen
+     */
+    @Test
+    public void testReadDirectoryArchive() throws IOException {
+        final Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("app/output/result.xml", "<a/>".getBytes());
+        files.put("app/code.py", "print(1)".getBytes());
+        final ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        TarArchiveHelper.INSTANCE.writeArchive(files, archive);
+
+        final OutputFilesSelection selection = new OutputFilesSelection(
+                Arrays.asList("/usr/share/app/output/result.xml"));
+        final Map<String, byte[]> result =
+                TarArchiveHelper.INSTANCE.readDirectoryArchive(
+                        "/usr/share/app",
+                        selection,
+                        new ByteArrayInputStream(archive.toByteArray()));
+
+        assertEquals(1, result.size());
+        assertEquals("<a/>", new String(
+                result.get("/usr/share/app/output/result.xml")));
+    }
+}
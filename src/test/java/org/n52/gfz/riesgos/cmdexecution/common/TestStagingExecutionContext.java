@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cmdexecution.common;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.n52.gfz.riesgos.cmdexecution.IExecutionContext;
+import org.n52.gfz.riesgos.cmdexecution.IExecutionRun;
+import org.n52.gfz.riesgos.cmdexecution.util.TarArchiveHelper;
+
+/**
+ * Tests for the staging of input files.
+ */
+public class TestStagingExecutionContext {
+
+    /**
+     * Context that records the batches of files that were written.
+     */
+    private static class RecordingContext implements IExecutionContext {
+        private final List<Map<String, byte[]>> batches = new ArrayList<>();
+        private final List<String> workingDirs = new ArrayList<>();
+
+        @Override
+        public void close() {
+            // nothing
+        }
+
+        @Override
+        public IExecutionRun run() {
+            return null;
+        }
+
+        @Override
+        public byte[] readFromFile(final String path) {
+            return new byte[0];
+        }
+
+        @Override
+        public void writeToFile(final byte[] content, final String workingDir, final String fileName) {
+            final Map<String, byte[]> batch = new LinkedHashMap<>();
+            batch.put(fileName, content);
+            writeToFiles(batch, workingDir);
+        }
+
+        @Override
+        public void writeToFiles(final Map<String, byte[]> files, final String workingDir) {
+            batches.add(new LinkedHashMap<>(files));
+            workingDirs.add(workingDir);
+        }
+    }
+
+    @Test
+    public void testAllFilesAreWrittenInOneBatch() throws IOException {
+        final RecordingContext inner = new RecordingContext();
+        final StagingExecutionContext staging = new StagingExecutionContext(inner);
+
+        for (final String ending : Arrays.asList(".shp", ".shx", ".dbf", ".prj")) {
+            staging.writeToFile(ending.getBytes(), "/usr/share/git/assetmaster", "input" + ending);
+        }
+        staging.writeToFile("{}".getBytes(), "/usr/share/git/assetmaster", "input.json");
+
+        assertTrue("Nothing is written before the staged files are written", inner.batches.isEmpty());
+
+        staging.writeStagedFiles();
+
+        assertEquals(1, inner.batches.size());
+        assertEquals("/usr/share/git/assetmaster", inner.workingDirs.get(0));
+        assertEquals(Arrays.asList("input.shp", "input.shx", "input.dbf", "input.prj", "input.json"),
+                new ArrayList<>(inner.batches.get(0).keySet()));
+
+        staging.writeStagedFiles();
+        assertEquals("Files are only written once", 1, inner.batches.size());
+    }
+
+    @Test
+    public void testTarArchiveContainsAllFiles() throws IOException {
+        final Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("a.txt", "first".getBytes());
+        files.put("sub/b.txt", "second".getBytes());
+
+        final ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        TarArchiveHelper.INSTANCE.writeArchive(files, archive);
+
+        final Map<String, String> read = new LinkedHashMap<>();
+        try (TarArchiveInputStream tarInputStream = new TarArchiveInputStream(new ByteArrayInputStream(archive.toByteArray()))) {
+            TarArchiveEntry entry = tarInputStream.getNextTarEntry();
+            while (entry != null) {
+                read.put(entry.getName(), new String(IOUtils.toByteArray(tarInputStream)));
+                entry = tarInputStream.getNextTarEntry();
+            }
+        }
+        assertEquals(2, read.size());
+        assertEquals("first", read.get("a.txt"));
+        assertEquals("second", read.get("sub/b.txt"));
+    }
+}
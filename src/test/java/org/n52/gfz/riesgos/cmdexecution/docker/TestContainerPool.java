@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cmdexecution.docker;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.n52.gfz.riesgos.configuration.IContainerPoolSettings;
+import org.n52.gfz.riesgos.configuration.impl.ContainerPoolSettingsImpl;
+
+/**
+ * Tests for the container pool.
+ */
+public class TestContainerPool {
+
+    private static final String IMAGE = "image";
+    private static final String WORKDIR = "/usr/share/git/quakeledger";
+
+    /**
+     * Lifecycle that only counts the containers.
+     */
+    private static class FakeLifecycle implements IContainerLifecycle {
+        private final List<String> created = new ArrayList<>();
+        private final Set<String> removed = new HashSet<>();
+
+        @Override
+        public synchronized String createIdleContainer(final String imageId, final String workingDirectory) {
+            final String id = imageId + "-" + created.size();
+            created.add(id);
+            return id;
+        }
+
+        @Override
+        public synchronized void removeContainer(final String containerId) {
+            removed.add(containerId);
+        }
+    }
+
+    /**
+     * Executor that runs the tasks only when asked to
+     * (so that the creation of the containers takes some time).
+     */
+    private static class ManualExecutor implements Executor {
+        private final List<Runnable> pending = new ArrayList<>();
+
+        @Override
+        public void execute(final Runnable runnable) {
+            pending.add(runnable);
+        }
+
+        void runPending() {
+            while (!pending.isEmpty()) {
+                pending.remove(0).run();
+            }
+        }
+    }
+
+    @Test
+    public void testContainersAreUsedOnlyOnce() throws Exception {
+        final FakeLifecycle lifecycle = new FakeLifecycle();
+        final ContainerPoolImpl pool = new ContainerPoolImpl(lifecycle, Runnable::run, () -> 0L);
+        final IContainerPoolSettings settings = new ContainerPoolSettingsImpl(1, 2, 60);
+
+        final String first = pool.acquire(IMAGE, WORKDIR, settings);
+        final String second = pool.acquire(IMAGE, WORKDIR, settings);
+
+        assertFalse("A container is never given out twice", first.equals(second));
+        assertTrue("The second one comes from the pool", lifecycle.created.indexOf(second) < lifecycle.created.indexOf(first));
+
+        pool.release(first);
+        assertTrue("Released containers are removed", lifecycle.removed.contains(first));
+    }
+
+    @Test
+    public void testPoolGrowsOnMissesUpToTheMaximum() throws Exception {
+        final FakeLifecycle lifecycle = new FakeLifecycle();
+        final ManualExecutor executor = new ManualExecutor();
+        final ContainerPoolImpl pool = new ContainerPoolImpl(lifecycle, executor, () -> 0L);
+        final IContainerPoolSettings settings = new ContainerPoolSettingsImpl(0, 2, 60);
+
+        for (int i = 0; i < 5; i++) {
+            pool.acquire(IMAGE, WORKDIR, settings);
+        }
+        executor.runPending();
+        assertEquals("The pool grows up to the maximum", 2, pool.countIdle(IMAGE, WORKDIR));
+
+        pool.acquire(IMAGE, WORKDIR, settings);
+        executor.runPending();
+        assertEquals("The pool is refilled", 2, pool.countIdle(IMAGE, WORKDIR));
+        assertEquals("5 cold containers and 3 pooled ones", 8, lifecycle.created.size());
+    }
+
+    @Test
+    public void testIdleContainersAreEvicted() throws Exception {
+        final FakeLifecycle lifecycle = new FakeLifecycle();
+        final AtomicLong clock = new AtomicLong(0L);
+        final ManualExecutor executor = new ManualExecutor();
+        final ContainerPoolImpl pool = new ContainerPoolImpl(lifecycle, executor, clock::get);
+        final IContainerPoolSettings settings = new ContainerPoolSettingsImpl(1, 3, 60);
+
+        pool.acquire(IMAGE, WORKDIR, settings);
+        pool.acquire(IMAGE, WORKDIR, settings);
+        pool.acquire(IMAGE, WORKDIR, settings);
+        executor.runPending();
+        assertEquals(3, pool.countIdle(IMAGE, WORKDIR));
+
+        clock.set(30_000L);
+        pool.evictIdleContainers();
+        assertEquals("Nothing to evict before the timeout", 3, pool.countIdle(IMAGE, WORKDIR));
+
+        clock.set(61_000L);
+        pool.evictIdleContainers();
+        executor.runPending();
+        assertEquals("Evicted down to the minimum", 1, pool.countIdle(IMAGE, WORKDIR));
+        assertEquals(2, lifecycle.removed.size());
+    }
+
+    @Test
+    public void testShutdownRemovesIdleContainers() throws Exception {
+        final FakeLifecycle lifecycle = new FakeLifecycle();
+        final ContainerPoolImpl pool = new ContainerPoolImpl(lifecycle, Runnable::run, () -> 0L);
+        final IContainerPoolSettings settings = new ContainerPoolSettingsImpl(2, 2, 60);
+
+        pool.acquire(IMAGE, WORKDIR, settings);
+        assertEquals(2, pool.countIdle(IMAGE, WORKDIR));
+
+        pool.shutdown();
+        assertEquals(0, pool.countIdle(IMAGE, WORKDIR));
+        assertEquals(2, lifecycle.removed.size());
+    }
+}
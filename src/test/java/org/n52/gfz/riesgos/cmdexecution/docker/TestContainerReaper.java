@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+
+package org.n52.gfz.riesgos.cmdexecution.docker;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests for the container reaper.
+ */
+public class TestContainerReaper {
+
+    private static final long RETRY_DELAY_MILLIS = 10L;
+    private static final long MAX_WAIT_MILLIS = 10_000L;
+
+    /**
+     * Remover that records the batches and can block or fail.
+     */
+    private static class FakeRemover implements IContainerRemover {
+        private final List<List<String>> batches = new ArrayList<>();
+        private final CountDownLatch blocker;
+        private final CountDownLatch firstCall = new CountDownLatch(1);
+        private int failuresLeft;
+
+        FakeRemover(final CountDownLatch aBlocker, final int aFailures) {
+            this.blocker = aBlocker;
+            this.failuresLeft = aFailures;
+        }
+
+        @Override
+        public void removeContainers(final List<String> containerIds) throws IOException {
+            firstCall.countDown();
+            try {
+                blocker.await();
+            } catch (final InterruptedException exception) {
+                throw new IOException(exception);
+            }
+            synchronized (this) {
+                batches.add(new ArrayList<>(containerIds));
+                if (failuresLeft > 0) {
+                    failuresLeft--;
+                    throw new IOException("docker is not available");
+                }
+            }
+        }
+
+        @Override
+        public List<String> findLeftoverContainers(final String label, final boolean includeRunning,
+                final long minAgeMillis) {
+            if (includeRunning) {
+                return Arrays.asList("pooled-1");
+            }
+            return Arrays.asList("orphan-1", "orphan-2");
+        }
+
+        synchronized List<List<String>> getBatches() {
+            return new ArrayList<>(batches);
+        }
+    }
+
+    private static ContainerReaperImpl createReaper(final IContainerRemover remover) {
+        return new ContainerReaperImpl(remover, new ScheduledThreadPoolExecutor(1),
+                RETRY_DELAY_MILLIS, System::currentTimeMillis);
+    }
+
+    private static void awaitEmptyBacklog(final ContainerReaperImpl reaper) throws InterruptedException {
+        final long end = System.currentTimeMillis() + MAX_WAIT_MILLIS;
+        while (reaper.getBacklog() > 0 && System.currentTimeMillis() < end) {
+            Thread.sleep(RETRY_DELAY_MILLIS);
+        }
+        assertEquals("All the containers are done", 0, reaper.getBacklog());
+    }
+
+    @Test
+    public void testWaitingContainersAreRemovedInOneBatch() throws Exception {
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final FakeRemover remover = new FakeRemover(blocker, 0);
+        final ContainerReaperImpl reaper = createReaper(remover);
+
+        reaper.remove("a");
+        assertTrue(remover.firstCall.await(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        reaper.remove("b");
+        reaper.remove("c");
+        reaper.remove("d");
+        assertEquals("The backlog contains the running removal", 4, reaper.getBacklog());
+
+        blocker.countDown();
+        awaitEmptyBacklog(reaper);
+
+        assertEquals(Arrays.asList(Arrays.asList("a"), Arrays.asList("b", "c", "d")), remover.getBatches());
+        assertEquals(4L, reaper.getRemovedCount());
+        assertEquals(2L, reaper.getBatchCount());
+        reaper.shutdown();
+    }
+
+    @Test
+    public void testFailedRemovalsAreRetried() throws Exception {
+        final FakeRemover remover = new FakeRemover(new CountDownLatch(0), 2);
+        final ContainerReaperImpl reaper = createReaper(remover);
+
+        reaper.remove("a");
+        awaitEmptyBacklog(reaper);
+
+        assertEquals(3, remover.getBatches().size());
+        assertEquals(1L, reaper.getRemovedCount());
+        assertEquals(2L, reaper.getRetriedCount());
+        assertEquals(0L, reaper.getFailedCount());
+        reaper.shutdown();
+    }
+
+    @Test
+    public void testGivesUpAfterTheMaximumAttempts() throws Exception {
+        final FakeRemover remover = new FakeRemover(new CountDownLatch(0), Integer.MAX_VALUE);
+        final ContainerReaperImpl reaper = createReaper(remover);
+
+        reaper.remove("a");
+        awaitEmptyBacklog(reaper);
+
+        assertEquals(ContainerReaperImpl.MAX_ATTEMPTS, remover.getBatches().size());
+        assertEquals(0L, reaper.getRemovedCount());
+        assertEquals(1L, reaper.getFailedCount());
+        reaper.shutdown();
+    }
+
+    @Test
+    public void testOrphansAreRemoved() throws Exception {
+        final FakeRemover remover = new FakeRemover(new CountDownLatch(0), 0);
+        final ContainerReaperImpl reaper = createReaper(remover);
+
+        reaper.removeLeftovers(DockerCliContainerLifecycle.MANAGED_LABEL, false, 0L);
+        reaper.shutdown();
+
+        assertEquals(Arrays.asList(Arrays.asList("orphan-1", "orphan-2")), remover.getBatches());
+        assertEquals(2L, reaper.getRemovedCount());
+    }
+
+    @Test
+    public void testLeftoversAreRemoved() throws Exception {
+        final FakeRemover remover = new FakeRemover(new CountDownLatch(0), 0);
+        final ContainerReaperImpl reaper = createReaper(remover);
+
+        reaper.removeLeftovers(DockerCliContainerLifecycle.POOL_LABEL, true, 0L);
+        reaper.shutdown();
+
+        assertEquals(Arrays.asList(Arrays.asList("pooled-1")), remover.getBatches());
+        assertEquals(1L, reaper.getRemovedCount());
+    }
+
+    @Test
+    public void testOnlyOldContainersOfOtherInstancesAreLeftovers() {
+        final long now = 1567412103000L; // 2019-09-02 08:15:03 UTC
+        final long hour = TimeUnit.HOURS.toMillis(1);
+        final String created = "2019-09-02 10:15:03 +0200 CEST";
+
+        assertTrue(DockerCliContainerLifecycle.isLeftover("abc\tother\t" + created, now + hour, hour));
+        assertTrue(DockerCliContainerLifecycle.isLeftover("abc\t\t" + created, now + hour, hour));
+        assertFalse(DockerCliContainerLifecycle.isLeftover("abc\tother\t" + created, now + hour - 1, hour));
+        assertFalse(DockerCliContainerLifecycle.isLeftover(
+                "abc\t" + DockerCliContainerLifecycle.INSTANCE_ID + "\t" + created, now + hour, hour));
+        assertFalse(DockerCliContainerLifecycle.isLeftover("abc\tother\tyesterday", now + hour, hour));
+        assertFalse(DockerCliContainerLifecycle.isLeftover("", now, 0L));
+    }
+
+    @Test
+    public void testRemovalAfterShutdown() throws Exception {
+        final FakeRemover remover = new FakeRemover(new CountDownLatch(0), 0);
+        final ContainerReaperImpl reaper = createReaper(remover);
+        reaper.shutdown();
+
+        reaper.remove("a");
+
+        assertEquals(Arrays.asList(Arrays.asList("a")), remover.getBatches());
+        assertEquals(0, reaper.getBacklog());
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cmdexecution.dockerapi;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.gfz.riesgos.cmdexecution.IExecutionContext;
+import org.n52.gfz.riesgos.cmdexecution.IExecutionRun;
+import org.n52.gfz.riesgos.cmdexecution.IExecutionRunResult;
+import org.n52.gfz.riesgos.cmdexecution.docker.ContainerReaperImpl;
+import org.n52.gfz.riesgos.cmdexecution.docker.IContainerReaper;
+import org.n52.gfz.riesgos.configuration.impl.OutputCaptureSettingsImpl;
+
+/**
+ * Tests for the docker engine api backend.
+ * Uses a small stand-in server that answers like the docker daemon.
+ */
+public class TestDockerApiExecutionContext {
+
+    private static final String CONTAINER_ID = "abc123";
+
+    private FakeDockerDaemon daemon;
+    private DockerEngineApiClient client;
+    private IContainerReaper reaper;
+
+    @Before
+    public void setUp() throws IOException {
+        daemon = new FakeDockerDaemon();
+        daemon.start();
+        client = new DockerEngineApiClient(new TcpSocketConnector("localhost", daemon.getPort()));
+        reaper = new ContainerReaperImpl(new DockerApiContainerRemover(client));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        reaper.shutdown();
+        client.close();
+        daemon.stop();
+    }
+
+    @Test
+    public void testFullRun() throws Exception {
+        final DockerApiExecutionContextManagerImpl manager = new DockerApiExecutionContextManagerImpl(client, "quakeledger:latest", OutputCaptureSettingsImpl.DEFAULT, reaper);
+
+        final IExecutionContext context = manager.createExecutionContext("/usr/share/git/quakeledger", Arrays.asList("python3", "eventquery.py"));
+        final JSONObject containerConfig = (JSONObject) new JSONParser().parse(daemon.createBody);
+        assertEquals("quakeledger:latest", containerConfig.get("Image"));
+        assertEquals("/usr/share/git/quakeledger", containerConfig.get("WorkingDir"));
+        assertEquals(Arrays.asList("python3", "eventquery.py"), containerConfig.get("Cmd"));
+
+        context.writeToFile("some input".getBytes(StandardCharsets.UTF_8), "/usr/share/git/quakeledger", "input.txt");
+        assertEquals("/usr/share/git/quakeledger", daemon.archivePath);
+
+        final IExecutionRun run = context.run();
+        run.getStdin().print("hello docker");
+        final IExecutionRunResult result = run.waitForCompletion();
+
+        assertEquals(3, result.getExitValue());
+        assertEquals("hello docker", result.getStdoutResult());
+        assertEquals("warning\n", result.getStderrResult());
+
+        final byte[] content = context.readFromFile("/usr/share/git/quakeledger/input.txt");
+        assertEquals("some input", new String(content, StandardCharsets.UTF_8));
+
+        context.close();
+        // waits for the removal in the background
+        reaper.shutdown();
+        assertTrue("The container was removed", daemon.removed);
+
+        assertEquals("One kept alive connection and one for attaching", 2, daemon.acceptedConnections.get());
+        assertEquals(2L, client.getOpenedConnections());
+    }
+
+    @Test
+    public void testStreamedFiles() throws Exception {
+        final DockerApiExecutionContextManagerImpl manager = new DockerApiExecutionContextManagerImpl(client, "quakeledger:latest", OutputCaptureSettingsImpl.DEFAULT, reaper);
+        final IExecutionContext context = manager.createExecutionContext("/usr/share/git/quakeledger", Arrays.asList("ls"));
+
+        // larger than the buffers, so that it needs several chunks
+        final byte[] content = new byte[300 * 1024];
+        new Random(42L).nextBytes(content);
+        final File source = File.createTempFile("testStreamedFiles", ".dat");
+        source.deleteOnExit();
+        Files.write(source.toPath(), content);
+
+        context.writeToFile(source, "/usr/share/git/quakeledger", "exposure.dat");
+        assertEquals("/usr/share/git/quakeledger", daemon.archivePath);
+
+        final ByteArrayOutputStream target = new ByteArrayOutputStream();
+        context.readFromFile("/usr/share/git/quakeledger/exposure.dat", target);
+        assertTrue(Arrays.equals(content, target.toByteArray()));
+
+        assertEquals("The connection is reused for the streamed requests", 1, daemon.acceptedConnections.get());
+    }
+
+    @Test
+    public void testErrorStatus() throws Exception {
+        final DockerApiExecutionContextManagerImpl manager = new DockerApiExecutionContextManagerImpl(client, "unknown:latest", OutputCaptureSettingsImpl.DEFAULT, reaper);
+        try {
+            manager.createExecutionContext("/", Arrays.asList("ls"));
+            assertTrue("There must be an exception", false);
+        } catch (final RuntimeException exception) {
+            assertTrue(exception.getMessage().contains("No such image"));
+        }
+    }
+
+    @Test
+    public void testReconnectAfterTheDaemonClosedTheConnection() throws Exception {
+        daemon.closeAfterEachResponse = true;
+
+        assertTrue(client.isAvailable());
+        assertTrue(client.isAvailable());
+
+        assertEquals(2, daemon.acceptedConnections.get());
+    }
+
+    @Test
+    public void testNoResendOfANonIdempotentRequest() throws Exception {
+        daemon.closeAfterEachResponse = true;
+        assertTrue(client.isAvailable());
+
+        final DockerApiExecutionContextManagerImpl manager = new DockerApiExecutionContextManagerImpl(client, "quakeledger:latest", OutputCaptureSettingsImpl.DEFAULT, reaper);
+        try {
+            manager.createExecutionContext("/", Arrays.asList("ls"));
+            assertTrue("There must be an exception", false);
+        } catch (final RuntimeException exception) {
+            assertEquals("The creation is not sent a second time", 1, daemon.acceptedConnections.get());
+        }
+    }
+
+    @Test
+    public void testNotAvailable() throws IOException {
+        final int port = daemon.getPort();
+        daemon.stop();
+        final DockerEngineApiClient otherClient = new DockerEngineApiClient(new TcpSocketConnector("localhost", port));
+        assertFalse(otherClient.isAvailable());
+    }
+
+    /**
+     * Stand-in for the docker daemon.
+     */
+    private static class FakeDockerDaemon {
+        private final ServerSocket serverSocket;
+        private final AtomicInteger acceptedConnections = new AtomicInteger(0);
+        private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+        private volatile boolean closeAfterEachResponse = false;
+        private volatile String createBody;
+        private volatile String archivePath;
+        private volatile byte[] archive;
+        private volatile boolean removed = false;
+
+        FakeDockerDaemon() throws IOException {
+            serverSocket = new ServerSocket(0);
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        void start() {
+            final Thread acceptThread = new Thread(() -> {
+                try {
+                    while (true) {
+                        final Socket socket = serverSocket.accept();
+                        acceptedConnections.incrementAndGet();
+                        sockets.add(socket);
+                        final Thread handler = new Thread(() -> handle(socket));
+                        handler.setDaemon(true);
+                        handler.start();
+                    }
+                } catch (final IOException exception) {
+                    // server closed
+                }
+            });
+            acceptThread.setDaemon(true);
+            acceptThread.start();
+        }
+
+        void stop() throws IOException {
+            serverSocket.close();
+            for (final Socket socket : sockets) {
+                socket.close();
+            }
+        }
+
+        private void handle(final Socket socket) {
+            try {
+                final InputStream input = new BufferedInputStream(socket.getInputStream());
+                final OutputStream output = socket.getOutputStream();
+                while (true) {
+                    final String requestLine = readLine(input);
+                    if (requestLine == null) {
+                        return;
+                    }
+                    final Map<String, String> headers = new HashMap<>();
+                    String line = readLine(input);
+                    while (line != null && !line.isEmpty()) {
+                        final int colon = line.indexOf(':');
+                        headers.put(line.substring(0, colon).trim().toLowerCase(), line.substring(colon + 1).trim());
+                        line = readLine(input);
+                    }
+                    final byte[] body;
+                    if ("chunked".equals(headers.get("transfer-encoding"))) {
+                        body = readChunked(input);
+                    } else {
+                        final int length = Integer.parseInt(headers.getOrDefault("content-length", "0"));
+                        body = new byte[length];
+                        new DataInputStream(input).readFully(body);
+                    }
+
+                    final String[] parts = requestLine.split(" ");
+                    final String method = parts[0];
+                    final String path = parts[1];
+
+                    if (path.startsWith("/containers/" + CONTAINER_ID + "/attach")) {
+                        attach(input, output, socket);
+                        return;
+                    }
+                    respond(method, path, body, output);
+                    if (closeAfterEachResponse) {
+                        socket.close();
+                        return;
+                    }
+                }
+            } catch (final IOException exception) {
+                // connection closed
+            }
+        }
+
+        private void respond(final String method, final String path, final byte[] body, final OutputStream output) throws IOException {
+            if (path.equals("/_ping")) {
+                send(output, 200, "OK");
+            } else if (path.equals("/containers/create")) {
+                createBody = new String(body, StandardCharsets.UTF_8);
+                if (createBody.contains("unknown:latest")) {
+                    send(output, 404, "{\"message\":\"No such image: unknown:latest\"}");
+                } else {
+                    send(output, 201, "{\"Id\":\"" + CONTAINER_ID + "\",\"Warnings\":[]}");
+                }
+            } else if (path.equals("/containers/" + CONTAINER_ID + "/start")) {
+                send(output, 204, null);
+            } else if (path.equals("/containers/" + CONTAINER_ID + "/wait")) {
+                send(output, 200, "{\"StatusCode\":3}");
+            } else if (method.equals("PUT") && path.startsWith("/containers/" + CONTAINER_ID + "/archive?path=")) {
+                archivePath = URLDecoder.decode(path.substring(path.indexOf('=') + 1), "UTF-8");
+                archive = body;
+                send(output, 200, null);
+            } else if (method.equals("GET") && path.startsWith("/containers/" + CONTAINER_ID + "/archive?path=")) {
+                sendChunked(output, archive);
+            } else if (method.equals("DELETE") && path.equals("/containers/" + CONTAINER_ID + "?force=1")) {
+                removed = true;
+                send(output, 204, null);
+            } else {
+                send(output, 404, "{\"message\":\"page not found\"}");
+            }
+        }
+
+        private void attach(final InputStream input, final OutputStream output, final Socket socket) throws IOException {
+            output.write(("HTTP/1.1 101 UPGRADED\r\nContent-Type: application/vnd.docker.raw-stream\r\n"
+                    + "Connection: Upgrade\r\nUpgrade: tcp\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            output.flush();
+            final byte[] stdin = IOUtils.toByteArray(input);
+            writeFrame(output, 1, stdin);
+            writeFrame(output, 2, "warning\n".getBytes(StandardCharsets.UTF_8));
+            output.flush();
+            socket.close();
+        }
+
+        private static void writeFrame(final OutputStream output, final int streamType, final byte[] content) throws IOException {
+            final int size = content.length;
+            output.write(new byte[] {(byte) streamType, 0, 0, 0,
+                    (byte) (size >>> 24), (byte) (size >>> 16), (byte) (size >>> 8), (byte) size});
+            output.write(content);
+        }
+
+        private static void send(final OutputStream output, final int status, final String body) throws IOException {
+            final byte[] bytes = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+            final StringBuilder head = new StringBuilder();
+            head.append("HTTP/1.1 ").append(status).append(" STATUS\r\n");
+            if (status != 204) {
+                head.append("Content-Length: ").append(bytes.length).append("\r\n");
+            }
+            head.append("\r\n");
+            output.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+            output.write(bytes);
+            output.flush();
+        }
+
+        private static void sendChunked(final OutputStream output, final byte[] body) throws IOException {
+            output.write("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            final int half = body.length / 2;
+            for (final byte[] chunk : Arrays.asList(Arrays.copyOfRange(body, 0, half), Arrays.copyOfRange(body, half, body.length))) {
+                output.write((Integer.toHexString(chunk.length) + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+                output.write(chunk);
+                output.write("\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            }
+            output.write("0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            output.flush();
+        }
+
+        private static byte[] readChunked(final InputStream input) throws IOException {
+            final ByteArrayOutputStream body = new ByteArrayOutputStream();
+            int size = Integer.parseInt(readLine(input), 16);
+            while (size > 0) {
+                final byte[] chunk = new byte[size];
+                new DataInputStream(input).readFully(chunk);
+                body.write(chunk);
+                readLine(input);
+                size = Integer.parseInt(readLine(input), 16);
+            }
+            readLine(input);
+            return body.toByteArray();
+        }
+
+        private static String readLine(final InputStream input) throws IOException {
+            final ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int current = input.read();
+            if (current < 0) {
+                return null;
+            }
+            while (current >= 0 && current != '\n') {
+                if (current != '\r') {
+                    line.write(current);
+                }
+                current = input.read();
+            }
+            return new String(line.toByteArray(), StandardCharsets.ISO_8859_1);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+
+package org.n52.gfz.riesgos.cmdexecution.util;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+/**
+ * Tests for the captured output with the spilling to a scratch file.
+ */
+public class TestCapturedOutput {
+
+    /**
+     * Writes the text in small parts.
+     * @param output captured output to write to
+     * @param text text to write
+     * @throws IOException should not happen
+     */
+    private static void write(final CapturedOutput output, final String text)
+            throws IOException {
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i += 3) {
+            output.write(bytes, i, Math.min(3, bytes.length - i));
+        }
+    }
+
+    /**
+     * Tests that small output stays in memory.
+     * @throws IOException should not happen
+     */
+    @Test
+    public void testSmallOutput() throws IOException {
+        final CapturedOutput output = new CapturedOutput(100, 0L);
+        write(output, "some text\n");
+        output.finish();
+
+        assertFalse(output.isSpilled());
+        assertFalse(output.isTruncated());
+        assertEquals("some text\n", output.toText(StandardCharsets.UTF_8));
+        output.close();
+    }
+
+    /**
+     * Tests that large output is spilled to a scratch file
+     * and that only the head and the tail are in the text.
+     * @throws IOException should not happen
+     */
+    @Test
+    public void testSpilling() throws IOException {
+        final CapturedOutput output = new CapturedOutput(10, 0L);
+        write(output, "0123456789abcdefghijklmnopqrstuvwxyz");
+        output.finish();
+
+        assertTrue(output.isSpilled());
+        assertFalse(output.isTruncated());
+        assertEquals(36L, output.getSize());
+        assertEquals("0123456789abcdefghijklmnopqrstuvwxyz",
+                new String(output.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals("01234\n[... 26 bytes skipped ...]\nvwxyz",
+                output.toText(StandardCharsets.UTF_8));
+
+        final Optional<File> file = output.takeScratchFile();
+        assertTrue(file.isPresent());
+        output.close();
+        assertTrue("The taken file is not deleted", file.get().exists());
+        assertTrue(file.get().delete());
+    }
+
+    /**
+     * Tests that the scratch file is deleted on close.
+     * @throws IOException should not happen
+     */
+    @Test
+    public void testDeleteOnClose() throws IOException {
+        final CapturedOutput output = new CapturedOutput(4, 0L);
+        write(output, "0123456789");
+        final File file = output.takeScratchFile().get();
+        final CapturedOutput other = new CapturedOutput(4, 0L);
+        write(other, "0123456789");
+        other.close();
+        output.close();
+
+        assertTrue(file.delete());
+        assertFalse(other.takeScratchFile().get().exists());
+    }
+
+    /**
+     * Tests that output above the maximum size is not stored,
+     * but the tail is still there.
+     * @throws IOException should not happen
+     */
+    @Test
+    public void testTruncation() throws IOException {
+        final CapturedOutput output = new CapturedOutput(6, 8L);
+        write(output, "0123456789abcdef");
+        output.finish();
+
+        assertTrue(output.isTruncated());
+        assertEquals(16L, output.getSize());
+        assertTrue(Arrays.equals(
+                "01234567".getBytes(StandardCharsets.UTF_8),
+                output.toByteArray()));
+        assertEquals("012\n[... 10 bytes skipped ...]\ndef",
+                output.toText(StandardCharsets.UTF_8));
+        output.close();
+    }
+}
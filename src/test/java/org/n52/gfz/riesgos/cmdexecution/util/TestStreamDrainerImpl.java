@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.cmdexecution.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+
+/**
+ * Tests for the stream drainer.
+ */
+public class TestStreamDrainerImpl {
+
+    /**
+     * Tests that the bytes are kept as they are.
+     * @throws IOException should not happen
+     * @throws InterruptedException should not happen
+     */
+    @Test
+    public void testBytesAreUnchanged()
+            throws IOException, InterruptedException {
+        final IStreamDrainer drainer = new StreamDrainerImpl(2);
+        final byte[] content = {'a', '\r', '\n', (byte) 0xE4, '\n', 'b'};
+
+        final DrainedStream drained =
+                drainer.drain(new ByteArrayInputStream(content));
+
+        assertTrue(Arrays.equals(content, drained.await()));
+    }
+
+    /**
+     * Tests that more streams than threads in the pool are read
+     * at the same time (none of them waits for another one).
+     * @throws IOException should not happen
+     * @throws InterruptedException should not happen
+     */
+    @Test
+    public void testMoreStreamsThanThreads()
+            throws IOException, InterruptedException {
+        final StreamDrainerImpl drainer = new StreamDrainerImpl(2);
+        final List<PipedOutputStream> writers = new ArrayList<>();
+        final List<DrainedStream> drained = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            final PipedOutputStream writer = new PipedOutputStream();
+            drained.add(drainer.drain(new PipedInputStream(writer)));
+            writers.add(writer);
+        }
+        // the last stream must be read while the others are still open
+        for (int i = writers.size() - 1; i >= 0; i--) {
+            writers.get(i).write(("stream" + i).getBytes("UTF-8"));
+            writers.get(i).close();
+            assertEquals("stream" + i,
+                    new String(drained.get(i).await(), "UTF-8"));
+        }
+        assertTrue(drainer.getPoolSize() <= 2);
+    }
+
+    /**
+     * Tests that a reader of its own runs in a thread of the pool.
+     * @throws InterruptedException should not happen
+     */
+    @Test
+    public void testReaderOfItsOwn() throws InterruptedException {
+        final StreamDrainerImpl drainer = new StreamDrainerImpl(2);
+        final CountDownLatch done = new CountDownLatch(1);
+        final List<String> threadNames = new ArrayList<>();
+
+        drainer.drain(() -> {
+            threadNames.add(Thread.currentThread().getName());
+            done.countDown();
+        });
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(threadNames.get(0).startsWith("stream-drainer-"));
+    }
+
+    /**
+     * Tests that an exception on reading is given back.
+     * @throws InterruptedException should not happen
+     */
+    @Test
+    public void testException() throws InterruptedException {
+        final IStreamDrainer drainer = new StreamDrainerImpl(2);
+        final DrainedStream drained = drainer.drain(new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("broken pipe");
+            }
+        });
+        try {
+            drained.await();
+            fail("There should be an exception");
+        } catch (final IOException exception) {
+            assertEquals("broken pipe", exception.getMessage());
+        }
+    }
+}
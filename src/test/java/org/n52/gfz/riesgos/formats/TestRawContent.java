@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+
+package org.n52.gfz.riesgos.formats;
+
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+import org.n52.wps.webapp.api.FormatEntry;
+
+/**
+ * Tests for the bytes that are given back as they are.
+ */
+public class TestRawContent {
+
+    /**
+     * Format of the shakemaps.
+     */
+    private static final FormatEntry SHAKEMAP = new FormatEntry(
+            IMimeTypeAndSchemaConstants.MIME_TYPE_XML,
+            IMimeTypeAndSchemaConstants.SCHEMA_SHAKEMAP,
+            IMimeTypeAndSchemaConstants.DEFAULT_ENCODING,
+            true);
+
+    /**
+     * Tests that the bytes are only used for the same format.
+     * @throws IOException should not happen
+     */
+    @Test
+    public void testFormat() throws IOException {
+        final byte[] content = bytes(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?><shakemap/>");
+        final Optional<RawContent> rawContent =
+                RawContent.of(content, SHAKEMAP);
+        assertTrue(rawContent.isPresent());
+        assertTrue(rawContent.get().isInFormat("TEXT/XML",
+                IMimeTypeAndSchemaConstants.SCHEMA_SHAKEMAP));
+        assertFalse(rawContent.get().isInFormat(
+                IMimeTypeAndSchemaConstants.MIME_TYPE_XML,
+                IMimeTypeAndSchemaConstants.SCHEMA_QUAKE_ML));
+        assertFalse(rawContent.get().isInFormat(
+                IMimeTypeAndSchemaConstants.MIME_TYPE_JSON,
+                IMimeTypeAndSchemaConstants.SCHEMA_SHAKEMAP));
+        try (InputStream in = rawContent.get().newInputStream()) {
+            assertTrue(Arrays.equals(content, ByteStreams.toByteArray(in)));
+        }
+    }
+
+    /**
+     * Tests that bytes in another encoding are not used.
+     */
+    @Test
+    public void testEncoding() {
+        assertTrue(RawContent.of(bytes("<shakemap/>"), SHAKEMAP)
+                .isPresent());
+        assertTrue(RawContent.of(
+                bytes("<?xml version='1.0' encoding='us-ascii'?><a/>"),
+                SHAKEMAP).isPresent());
+        assertFalse(RawContent.of(
+                bytes("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><a/>"),
+                SHAKEMAP).isPresent());
+        assertFalse(RawContent.of(
+                new byte[] {(byte) 0xFF, (byte) 0xFE, '<', 0}, SHAKEMAP)
+                .isPresent());
+    }
+
+    /**
+     *
+     * @param text text
+     * @return utf-8 bytes of the text
+     */
+    private static byte[] bytes(final String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,80 @@
+package org.n52.gfz.riesgos.idatatobyteconverter;
+
+/*
+ * Copyright (C) 2019 GFZ German Research Centre for Geosciences
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the Licence is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the Licence for the specific language governing permissions and
+ *  limitations under the Licence.
+ */
+
+import org.junit.Test;
+import org.n52.gfz.riesgos.cache.IInputParameterCacheKey;
+import org.n52.gfz.riesgos.cache.generateinputcachekey.GenerateCacheKeyByConvertToByteArray;
+import org.n52.gfz.riesgos.functioninterfaces.IConvertIDataToByteArray;
+import org.n52.wps.io.data.binding.literal.LiteralStringBinding;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
+
+/**
+ * Test class for ReuseConvertedBytes.
+ */
+public class TestReuseConvertedBytes {
+
+    /**
+     * Tests that the conversion for the cache key is reused for the
+     * run of the program.
+     */
+    @Test
+    public void testReuseForTheSameElement() throws Exception {
+        final AtomicInteger conversions = new AtomicInteger();
+        final IConvertIDataToByteArray<LiteralStringBinding> converter =
+                ReuseConvertedBytes.wrap(binding -> {
+                    conversions.incrementAndGet();
+                    return binding.getPayload().getBytes();
+                });
+
+        final LiteralStringBinding input = new LiteralStringBinding("1.0");
+        final IInputParameterCacheKey key =
+                new GenerateCacheKeyByConvertToByteArray<>(
+                        converter, null, false).generateCacheKey(input);
+        final byte[] forStdin = converter.convertToBytes(input);
+
+        assertEquals("One conversion for the key and the run",
+                1, conversions.get());
+        assertEquals("1.0", new String(forStdin));
+
+        final IInputParameterCacheKey otherKey =
+                new GenerateCacheKeyByConvertToByteArray<>(
+                        converter, null, false).generateCacheKey(
+                                new LiteralStringBinding("1.0"));
+        assertEquals("Same content results in the same key", key, otherKey);
+        assertEquals("Other elements must be converted again",
+                2, conversions.get());
+    }
+
+    /**
+     * Tests that wrapping twice gives back the same converter.
+     */
+    @Test
+    public void testWrapTwice() {
+        final IConvertIDataToByteArray<LiteralStringBinding> converter =
+                ReuseConvertedBytes.wrap(new ConvertLiteralStringToBytes());
+
+        assertSame(converter, ReuseConvertedBytes.wrap(converter));
+        assertEquals("Equal if the inner converters are equal",
+                converter,
+                ReuseConvertedBytes.wrap(new ConvertLiteralStringToBytes()));
+    }
+}
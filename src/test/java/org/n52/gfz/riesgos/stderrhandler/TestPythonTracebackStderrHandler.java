@@ -21,6 +21,7 @@ import org.n52.gfz.riesgos.exceptions.NonEmptyStderrException;
 import org.n52.gfz.riesgos.functioninterfaces.IStderrHandler;
 
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertNotNull;
 import static junit.framework.TestCase.assertTrue;
 import static junit.framework.TestCase.fail;
@@ -114,6 +115,19 @@ public class TestPythonTracebackStderrHandler {
         }
     }
 
+    /**
+     * Tests the check of single lines while the process runs
+     */
+    @Test
+    public void testFailureLine() {
+        final IStderrHandler stderrHandler = new PythonTracebackStderrHandler();
+
+        assertFalse("A warning is no failure",
+                stderrHandler.isFailureLine("Warning: You may change that later"));
+        assertTrue("The start of a traceback is a failure",
+                stderrHandler.isFailureLine("Traceback (most recent call last):"));
+    }
+
     /**
      * Tests equality
      */